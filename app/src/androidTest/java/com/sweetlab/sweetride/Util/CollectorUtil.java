@@ -4,6 +4,7 @@ import com.sweetlab.sweetride.engine.frame.update.GraphContent;
 import com.sweetlab.sweetride.engine.frame.update.GraphContentCollector;
 import com.sweetlab.sweetride.geometry.Geometry;
 import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.renderer.DrawPacket;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -51,4 +52,20 @@ public class CollectorUtil {
         graphContentCollector.collect(node, graphContent);
         return graphContent.getNodes();
     }
+
+    /**
+     * Collect all Nodes/RenderNodes/Geometries and record them into draw packets.
+     *
+     * @param node The root to start from.
+     * @return The list of recorded draw packets.
+     */
+    public static List<DrawPacket> recordPackets(Node node) {
+        List<DrawPacket> packets = new ArrayList<>();
+        for (Node n : collectNodes(node)) {
+            DrawPacket packet = new DrawPacket();
+            n.record(packet);
+            packets.add(packet);
+        }
+        return packets;
+    }
 }
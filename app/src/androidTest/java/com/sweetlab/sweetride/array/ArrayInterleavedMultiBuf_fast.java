@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.array;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as ArrayInterleavedMultiBuf but with the fast backend flavour.
+ */
+public class ArrayInterleavedMultiBuf_fast extends ArrayInterleavedMultiBuf {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.array;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as ArrayMultiBuf but with the fast backend flavour.
+ */
+public class ArrayMultiBuf_fast extends ArrayMultiBuf {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
@@ -113,7 +113,7 @@ public class ArrayOneBuf_Geometry_RenderNode_notifier extends OpenGLTestCase {
                 /**
                  * Render.
                  */
-                mRenderNode.getRenderer().render(mContext, CollectorUtil.collectNodes(mRenderNode));
+                mRenderNode.getRenderer().render(mContext, CollectorUtil.recordPackets(mRenderNode));
 
                 return null;
             }
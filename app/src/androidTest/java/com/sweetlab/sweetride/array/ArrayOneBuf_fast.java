@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.array;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as ArrayOneBuf but with the fast backend flavour.
+ */
+public class ArrayOneBuf_fast extends ArrayOneBuf {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
@@ -0,0 +1,92 @@
+package com.sweetlab.sweetride.context;
+
+import android.opengl.GLES20;
+
+import com.sweetlab.sweetride.DebugOptions;
+import com.sweetlab.sweetride.Util.BufferTestUtil;
+import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.testframework.OpenGLTestCase;
+import com.sweetlab.sweetride.testframework.ResultRunnable;
+
+/**
+ * Test the GL state shadow.
+ */
+public class GLStateShadowTest extends OpenGLTestCase {
+    /**
+     * Read buffer.
+     */
+    private final int[] mReadBuffer = new int[1];
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    /**
+     * The state shadow.
+     */
+    private GLStateShadow mShadow;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        assertTrue(DebugOptions.DEBUG_GL_STATE_SHADOW);
+
+        runOnGLThread(new ResultRunnable() {
+            @Override
+            public Object run() {
+                mContext = getBackendContext();
+                mShadow = mContext.getStateShadow();
+                return null;
+            }
+        });
+    }
+
+    public void testArrayBuffer() {
+        runOnGLThread(new ResultRunnable() {
+            @Override
+            public Object run() {
+                VertexBuffer buffer = BufferTestUtil.createLeftTriangle();
+                buffer.create(mContext);
+                buffer.load(mContext);
+                assertEquals(buffer.getId(), mShadow.getArrayBuffer());
+                assertFalse(mContext.getArrayTarget().isNoBufferBound());
+
+                GLES20.glGetIntegerv(GLES20.GL_ARRAY_BUFFER_BINDING, mReadBuffer, 0);
+                assertEquals(mReadBuffer[0], mShadow.getArrayBuffer());
+
+                buffer.delete(mContext);
+                assertEquals(0, mShadow.getArrayBuffer());
+                assertTrue(mContext.getArrayTarget().isNoBufferBound());
+                return null;
+            }
+        });
+    }
+
+    public void testInvalidate() {
+        runOnGLThread(new ResultRunnable() {
+            @Override
+            public Object run() {
+                VertexBuffer buffer = BufferTestUtil.createLeftTriangle();
+                buffer.create(mContext);
+                buffer.load(mContext);
+
+                mContext.onSurfaceCreated();
+                assertEquals(GLStateShadow.UNKNOWN, mShadow.getArrayBuffer());
+                assertEquals(GLStateShadow.UNKNOWN, mShadow.getProgram());
+                assertEquals(GLStateShadow.UNKNOWN, mShadow.getActiveTexture());
+                assertEquals(GLStateShadow.UNKNOWN, mShadow.getAttribEnabled(0));
+
+                /**
+                 * Unknown state never matches, the buffer is bound again.
+                 */
+                buffer.load(mContext);
+                assertEquals(buffer.getId(), mShadow.getArrayBuffer());
+
+                buffer.delete(mContext);
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.element;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as ElementTargetTest but with the fast backend flavour.
+ */
+public class ElementTargetTest_fast extends ElementTargetTest {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
@@ -164,7 +164,7 @@ public class EngineUniformsTest extends OpenGLTestCase {
                     /**
                      * Draw.
                      */
-                    mRenderNode.getRenderer().render(mContext, CollectorUtil.collectNodes(mRenderNode));
+                    mRenderNode.getRenderer().render(mContext, CollectorUtil.recordPackets(mRenderNode));
                     return null;
                 }
             });
@@ -2,6 +2,7 @@ package com.sweetlab.sweetride.engine;
 
 import com.sweetlab.sweetride.context.BackendContext;
 import com.sweetlab.sweetride.demo.demo.DemoApplication;
+import com.sweetlab.sweetride.engine.frame.Frame;
 import com.sweetlab.sweetride.engine.frame.RenderTask;
 import com.sweetlab.sweetride.engine.frame.render.RenderFrame;
 import com.sweetlab.sweetride.engine.frame.update.UpdateFrame;
@@ -83,4 +84,46 @@ public class RenderFrameTest extends OpenGLTestCase {
             });
         }
     }
+
+    public void testPipelinedDraw() {
+        final Frame frame = new Frame();
+
+        /**
+         * Build ahead until all queues are pending, the next update must be skipped.
+         */
+        for (int i = 0; i < Frame.DEFAULT_QUEUE_COUNT; i++) {
+            assertTrue(frame.update(mApplication, mEngineRoot));
+        }
+        assertEquals(Frame.DEFAULT_QUEUE_COUNT, frame.getPendingCount());
+        assertFalse(frame.update(mApplication, mEngineRoot));
+
+        /**
+         * Render and build interleaved, one frame always in flight.
+         */
+        for (int i = 0; i < 120; i++) {
+            Boolean rendered = (Boolean) runOnDrawFrame(new ResultRunnable() {
+                @Override
+                public Object run() {
+                    return frame.render(mContext);
+                }
+            });
+            assertTrue(rendered);
+            assertTrue(frame.update(mApplication, mEngineRoot));
+            assertEquals(Frame.DEFAULT_QUEUE_COUNT, frame.getPendingCount());
+        }
+
+        /**
+         * Drain, no frame may be lost.
+         */
+        for (int i = 0; i < Frame.DEFAULT_QUEUE_COUNT; i++) {
+            Boolean rendered = (Boolean) runOnDrawFrame(new ResultRunnable() {
+                @Override
+                public Object run() {
+                    return frame.render(mContext);
+                }
+            });
+            assertTrue(rendered);
+        }
+        assertEquals(0, frame.getPendingCount());
+    }
 }
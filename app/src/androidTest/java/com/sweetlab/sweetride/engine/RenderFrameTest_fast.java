@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.engine;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as RenderFrameTest but with the fast backend flavour.
+ */
+public class RenderFrameTest_fast extends RenderFrameTest {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
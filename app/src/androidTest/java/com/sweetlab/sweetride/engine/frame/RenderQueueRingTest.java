@@ -0,0 +1,121 @@
+package com.sweetlab.sweetride.engine.frame;
+
+import android.test.AndroidTestCase;
+
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.renderer.DefaultNodeRenderer;
+import com.sweetlab.sweetride.renderer.NodeRenderer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test the render queue ring hand off between producer and consumer.
+ */
+public class RenderQueueRingTest extends AndroidTestCase {
+    /**
+     * Number of frames to pass through the ring.
+     */
+    private static final int FRAME_COUNT = 10000;
+
+    public void testEmpty() {
+        RenderQueueRing ring = new RenderQueueRing(3);
+        assertEquals(3, ring.getQueueCount());
+        assertEquals(0, ring.getPendingCount());
+        assertNull(ring.acquireRead());
+        assertNotNull(ring.acquireWrite());
+    }
+
+    public void testFull() {
+        RenderQueueRing ring = new RenderQueueRing(3);
+        for (int i = 0; i < 3; i++) {
+            assertNotNull(ring.acquireWrite());
+            ring.publish();
+        }
+        assertEquals(3, ring.getPendingCount());
+        assertNull(ring.acquireWrite());
+
+        assertNotNull(ring.acquireRead());
+        ring.release();
+        assertEquals(2, ring.getPendingCount());
+        assertNotNull(ring.acquireWrite());
+    }
+
+    public void testOrder() {
+        RenderQueueRing ring = new RenderQueueRing(3);
+        NodeRenderer[] renderers = new NodeRenderer[]{new DefaultNodeRenderer(), new DefaultNodeRenderer()};
+        for (NodeRenderer renderer : renderers) {
+            RenderTask task = new RenderTask();
+            task.set(renderer, new ArrayList<Node>());
+            ring.acquireWrite().addLast(task);
+            ring.publish();
+        }
+        for (NodeRenderer renderer : renderers) {
+            ArrayDeque<RenderTask> queue = ring.acquireRead();
+            assertEquals(1, queue.size());
+            assertSame(renderer, queue.removeFirst().getRenderer());
+            ring.release();
+        }
+        assertNull(ring.acquireRead());
+    }
+
+    public void testConcurrentNoLoss() throws Exception {
+        final RenderQueueRing ring = new RenderQueueRing(3);
+        final List<RenderTask> produced = new ArrayList<>();
+        final List<RenderTask> consumed = new ArrayList<>();
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int frame = 0;
+                while (frame < FRAME_COUNT) {
+                    ArrayDeque<RenderTask> queue = ring.acquireWrite();
+                    if (queue == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    RenderTask task = new RenderTask();
+                    produced.add(task);
+                    queue.addLast(task);
+                    ring.publish();
+                    frame++;
+                }
+            }
+        });
+
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int frame = 0;
+                while (frame < FRAME_COUNT) {
+                    ArrayDeque<RenderTask> queue = ring.acquireRead();
+                    if (queue == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    while (!queue.isEmpty()) {
+                        consumed.add(queue.removeFirst());
+                    }
+                    ring.release();
+                    frame++;
+                }
+            }
+        });
+
+        producer.start();
+        consumer.start();
+        producer.join();
+        consumer.join();
+
+        /**
+         * Every frame must be rendered exactly once and in the order it was built.
+         */
+        assertEquals(FRAME_COUNT, produced.size());
+        assertEquals(FRAME_COUNT, consumed.size());
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            assertSame(produced.get(i), consumed.get(i));
+        }
+        assertEquals(0, ring.getPendingCount());
+    }
+}
@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.framebuffer;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as FrameBufferTest but with the fast backend flavour.
+ */
+public class FrameBufferTest_fast extends FrameBufferTest {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
@@ -0,0 +1,174 @@
+package com.sweetlab.sweetride.renderer;
+
+import android.test.AndroidTestCase;
+
+import com.sweetlab.sweetride.Util.BufferTestUtil;
+import com.sweetlab.sweetride.Util.ProgramTestUtil;
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.camera.Frustrum;
+import com.sweetlab.sweetride.context.BackendRenderSettings;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test sorting of draw packets.
+ */
+public class DrawPacketSorterTest extends AndroidTestCase {
+    /**
+     * The sorter to test.
+     */
+    private final DrawPacketSorter mSorter = new DrawPacketSorter();
+
+    /**
+     * Shader program shared by packets.
+     */
+    private ShaderProgram mProgram;
+
+    /**
+     * Camera at origin looking down negative z.
+     */
+    private Camera mCamera;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mProgram = ProgramTestUtil.createNdcColor();
+        mCamera = new Camera();
+        mCamera.lookAt(0, 0, 0, 0, 0, -1);
+        mCamera.getFrustrum().setPerspectiveProjection(90, Frustrum.FovType.AUTO_FIT, 1, 100, 100, 100);
+    }
+
+    public void testSettingsBeforeGeometry() {
+        DrawPacket geometry = createGeometry(RenderQueue.OPAQUE, -10, -1);
+        DrawPacket settings = createSettings(-1);
+        List<DrawPacket> packets = createList(geometry, settings);
+
+        mSorter.sort(packets, mCamera);
+        assertSame(settings, packets.get(0));
+        assertSame(geometry, packets.get(1));
+    }
+
+    public void testClearOrderLayers() {
+        DrawPacket late = createGeometry(RenderQueue.OPAQUE, -10, 1);
+        DrawPacket early = createGeometry(RenderQueue.TRANSPARENT, -10, 0);
+        DrawPacket none = createGeometry(RenderQueue.TRANSPARENT, -10, -1);
+        List<DrawPacket> packets = createList(late, early, none);
+
+        mSorter.sort(packets, mCamera);
+        assertSame(none, packets.get(0));
+        assertSame(early, packets.get(1));
+        assertSame(late, packets.get(2));
+    }
+
+    public void testOpaqueBeforeTransparent() {
+        DrawPacket transparent = createGeometry(RenderQueue.TRANSPARENT, -5, -1);
+        DrawPacket opaque = createGeometry(RenderQueue.OPAQUE, -50, -1);
+        List<DrawPacket> packets = createList(transparent, opaque);
+
+        mSorter.sort(packets, mCamera);
+        assertSame(opaque, packets.get(0));
+        assertSame(transparent, packets.get(1));
+    }
+
+    public void testOpaqueFrontToBack() {
+        DrawPacket far = createGeometry(RenderQueue.OPAQUE, -90, -1);
+        DrawPacket middle = createGeometry(RenderQueue.OPAQUE, -50, -1);
+        DrawPacket near = createGeometry(RenderQueue.OPAQUE, -2, -1);
+        List<DrawPacket> packets = createList(far, middle, near);
+
+        mSorter.sort(packets, mCamera);
+        assertSame(near, packets.get(0));
+        assertSame(middle, packets.get(1));
+        assertSame(far, packets.get(2));
+    }
+
+    public void testTransparentBackToFront() {
+        DrawPacket near = createGeometry(RenderQueue.TRANSPARENT, -2, -1);
+        DrawPacket far = createGeometry(RenderQueue.TRANSPARENT, -90, -1);
+        DrawPacket middle = createGeometry(RenderQueue.TRANSPARENT, -50, -1);
+        List<DrawPacket> packets = createList(near, far, middle);
+
+        mSorter.sort(packets, mCamera);
+        assertSame(far, packets.get(0));
+        assertSame(middle, packets.get(1));
+        assertSame(near, packets.get(2));
+    }
+
+    public void testOpaqueGroupedByUncreatedProgram() {
+        /**
+         * Neither program is created, they are still told apart and grouped.
+         */
+        ShaderProgram other = ProgramTestUtil.createNdcColor();
+        DrawPacket first = createGeometry(RenderQueue.OPAQUE, -10, -1);
+        DrawPacket second = createGeometry(RenderQueue.OPAQUE, -10, -1);
+        second.setProgram(other);
+        DrawPacket third = createGeometry(RenderQueue.OPAQUE, -10, -1);
+        List<DrawPacket> packets = createList(first, second, third);
+
+        assertFalse(mProgram.isCreated());
+        mSorter.sort(packets, mCamera);
+        assertNotSame(second, packets.get(1));
+    }
+
+    public void testStableWithoutCamera() {
+        List<DrawPacket> packets = new ArrayList<>();
+        List<DrawPacket> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            DrawPacket packet = createGeometry(RenderQueue.TRANSPARENT, -i, -1);
+            packets.add(packet);
+            expected.add(packet);
+        }
+
+        mSorter.sort(packets, null);
+        assertEquals(expected, packets);
+    }
+
+    /**
+     * Create a list of packets.
+     *
+     * @param packets The packets.
+     * @return The list.
+     */
+    private static List<DrawPacket> createList(DrawPacket... packets) {
+        List<DrawPacket> list = new ArrayList<>();
+        for (DrawPacket packet : packets) {
+            list.add(packet);
+        }
+        return list;
+    }
+
+    /**
+     * Create a packet with only render settings.
+     *
+     * @param clearOrder The clear order.
+     * @return The packet.
+     */
+    private static DrawPacket createSettings(int clearOrder) {
+        BackendRenderSettings settings = new BackendRenderSettings();
+        settings.setClear(clearOrder, 0);
+        DrawPacket packet = new DrawPacket();
+        packet.setRenderSettings(settings);
+        return packet;
+    }
+
+    /**
+     * Create a drawable packet.
+     *
+     * @param queue      The render queue.
+     * @param z          The world z of the packet center.
+     * @param clearOrder The clear order.
+     * @return The packet.
+     */
+    private DrawPacket createGeometry(RenderQueue queue, float z, int clearOrder) {
+        DrawPacket packet = createSettings(clearOrder);
+        packet.setProgram(mProgram);
+        packet.addVertexBuffer(BufferTestUtil.createLeftTriangle());
+        packet.setMesh(MeshDrawingMode.TRIANGLES.getGlMode(), 3, null);
+        packet.setRenderQueue(queue);
+        packet.setCenter(0, 0, z);
+        return packet;
+    }
+}
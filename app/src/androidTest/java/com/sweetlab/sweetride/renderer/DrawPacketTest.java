@@ -0,0 +1,80 @@
+package com.sweetlab.sweetride.renderer;
+
+import android.test.AndroidTestCase;
+
+import com.sweetlab.sweetride.Util.BufferTestUtil;
+import com.sweetlab.sweetride.Util.ProgramTestUtil;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.engine.FrontEndActionHandler;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+
+/**
+ * Test recording nodes into draw packets.
+ */
+public class DrawPacketTest extends AndroidTestCase {
+    /**
+     * Front end action handler.
+     */
+    private final FrontEndActionHandler mActionHandler = new FrontEndActionHandler();
+
+    public void testNodeOnlyRenderSettings() {
+        Node node = new Node();
+        node.getRenderSettings().setBlend(true);
+        mActionHandler.handleActions(node);
+
+        DrawPacket packet = new DrawPacket();
+        node.record(packet);
+        assertFalse(packet.isDrawable());
+        assertTrue(packet.getRenderSettings().getBlend());
+    }
+
+    public void testGeometry() {
+        ShaderProgram program = ProgramTestUtil.createNdcColor();
+        Material material = new Material();
+        material.setShaderProgram(program);
+        Mesh mesh = new Mesh(MeshDrawingMode.TRIANGLES);
+        mesh.addVertexBuffer(BufferTestUtil.createLeftTriangle());
+        mesh.addVertexBuffer(BufferTestUtil.createColorBuffer());
+
+        Geometry geometry = new Geometry();
+        geometry.setMaterial(material);
+        geometry.setMesh(mesh);
+        mActionHandler.handleActions(geometry);
+
+        DrawPacket packet = new DrawPacket();
+        geometry.record(packet);
+        assertTrue(packet.isDrawable());
+        assertSame(program, packet.getProgram());
+        assertEquals(2, packet.getVertexBufferCount());
+        assertNull(packet.getIndicesBuffer());
+        assertEquals(0, packet.getTextureCount());
+
+        packet.reset();
+        assertFalse(packet.isDrawable());
+        assertEquals(0, packet.getVertexBufferCount());
+    }
+
+    public void testSnapshot() {
+        Node node = new Node();
+        mActionHandler.handleActions(node);
+
+        DrawPacket packet = new DrawPacket();
+        node.record(packet);
+        assertFalse(packet.getRenderSettings().getDepthTest());
+
+        /**
+         * Changing the node after recording must not change the packet.
+         */
+        node.getRenderSettings().setDepthTest(true);
+        mActionHandler.handleActions(node);
+        assertFalse(packet.getRenderSettings().getDepthTest());
+
+        DrawPacket newPacket = new DrawPacket();
+        node.record(newPacket);
+        assertTrue(newPacket.getRenderSettings().getDepthTest());
+    }
+}
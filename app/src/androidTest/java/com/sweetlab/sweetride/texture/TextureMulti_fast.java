@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.texture;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as TextureMulti but with the fast backend flavour.
+ */
+public class TextureMulti_fast extends TextureMulti {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.texture;
+
+import com.sweetlab.sweetride.context.BackendContext;
+
+/**
+ * Same as TextureOne but with the fast backend flavour.
+ */
+public class TextureOne_fast extends TextureOne {
+    @Override
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.FAST;
+    }
+}
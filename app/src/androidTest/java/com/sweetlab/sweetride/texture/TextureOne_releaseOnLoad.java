@@ -0,0 +1,147 @@
+package com.sweetlab.sweetride.texture;
+
+import android.graphics.Bitmap;
+
+import com.sweetlab.sweetride.Util.BackendRenderSettingsUtil;
+import com.sweetlab.sweetride.Util.BitmapTestUtil;
+import com.sweetlab.sweetride.Util.BufferTestUtil;
+import com.sweetlab.sweetride.Util.DrawTestUtil;
+import com.sweetlab.sweetride.Util.ProgramTestUtil;
+import com.sweetlab.sweetride.Util.Verify;
+import com.sweetlab.sweetride.attributedata.IndicesBuffer;
+import com.sweetlab.sweetride.attributedata.InterleavedVertexBuffer;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MagFilter;
+import com.sweetlab.sweetride.context.MinFilter;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.testframework.OpenGLTestCase;
+import com.sweetlab.sweetride.testframework.ResultRunnable;
+
+/**
+ * Same as TextureOne but with a texture releasing its bitmap once loaded.
+ */
+public class TextureOne_releaseOnLoad extends OpenGLTestCase {
+    /**
+     * Shader program with texture sampler.
+     */
+    private ShaderProgram mShaderProgram;
+
+    /**
+     * Indices buffer.
+     */
+    private IndicesBuffer mIb;
+
+    /**
+     * Interleaved texture buffer with vertices and texture coordinates.
+     */
+    private InterleavedVertexBuffer mVertexBuffer;
+
+    /**
+     * The bitmap with 4 colors/pixels.
+     */
+    private Bitmap mBitmap;
+
+    /**
+     * A texture releasing the bitmap once loaded.
+     */
+    private Texture2D mTexture;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mIb = new IndicesBuffer(new short[]{0, 1, 2, 3}, BufferUsage.STATIC);
+        mShaderProgram = ProgramTestUtil.createNdcOneTexCoordOneTexture();
+        mVertexBuffer = BufferTestUtil.createInterleavedQuadWithTextureCoords();
+        mBitmap = BitmapTestUtil.createQuadColorBitmap(Bitmap.Config.ARGB_8888);
+        mTexture = new Texture2D("s_texture", mBitmap, MinFilter.NEAREST, MagFilter.NEAREST);
+        mTexture.setReleaseOnLoad(true);
+
+        setTestInfo("Single texture releasing bitmap on load");
+
+        runOnGLThread(new ResultRunnable() {
+            @Override
+            public Object run() {
+                mContext = getBackendContext();
+
+                /**
+                 * Link the shader program.
+                 */
+                mShaderProgram.create(mContext);
+
+                /**
+                 * Create indices buffer.
+                 */
+                mIb.create(mContext);
+
+                /**
+                 * Create vertex buffer.
+                 */
+                mVertexBuffer.create(mContext);
+
+                /**
+                 * Create texture.
+                 */
+                mTexture.create(mContext);
+
+                /**
+                 * Load indices to gpu.
+                 */
+                mIb.load(mContext);
+
+                /**
+                 * Load interleaved vertex buffer to gpu.
+                 */
+                mVertexBuffer.load(mContext);
+
+                /**
+                 * Load texture and set filter, releasing the bitmap.
+                 */
+                mTexture.load(mContext);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Verify the bitmap is released once loaded while the texture keeps its size.
+     *
+     * @throws Exception
+     */
+    public void testBitmapReleased() throws Exception {
+        assertTrue(mBitmap.isRecycled());
+        assertNull(mTexture.getData());
+        assertEquals(2, mTexture.getWidth());
+        assertEquals(2, mTexture.getHeight());
+        assertFalse(mTexture.isEvictable());
+    }
+
+    /**
+     * Draw textures quad interleaved after the bitmap has been released.
+     *
+     * @throws Exception
+     */
+    public void testTextureOne() throws Exception {
+        runOnDrawFrame(new ResultRunnable() {
+            @Override
+            public Object run() {
+                /**
+                 * Clear screen.
+                 */
+                mContext.getRenderState().useSettings(BackendRenderSettingsUtil.getDefaultGrey(getSurfaceWidth(), getSurfaceHeight())).clear();
+
+                /**
+                 * This quad should be drawn centered.
+                 */
+                DrawTestUtil.drawArrayInterleavedBufferWithTexture(mContext, mShaderProgram, mVertexBuffer, mTexture);
+                return null;
+            }
+        });
+        sleepOnDrawFrame(Verify.TERMINATE_TIME);
+    }
+}
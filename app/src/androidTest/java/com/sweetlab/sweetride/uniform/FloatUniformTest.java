@@ -172,7 +172,7 @@ public class FloatUniformTest extends OpenGLTestCase {
                     /**
                      * Draw.
                      */
-                    mRenderNode.getRenderer().render(mContext, CollectorUtil.collectNodes(mRenderNode));
+                    mRenderNode.getRenderer().render(mContext, CollectorUtil.recordPackets(mRenderNode));
                     return null;
                 }
             });
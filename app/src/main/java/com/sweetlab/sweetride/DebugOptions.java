@@ -16,4 +16,7 @@ public class DebugOptions {
     public static final boolean DEBUG_RENDER_SETTINGS = true;
     public static final boolean DEBUG_NODE = true;
     public static final boolean DEBUG_INTERSECT = false;
+    public static final boolean DEBUG_GL_STATE_SHADOW = true;
+    public static final boolean DEBUG_VALIDATING_BACKEND = true;
+    public static final boolean DEBUG_FRAME_PROFILER = false;
 }
@@ -61,7 +61,10 @@ public class EngineRenderer implements GLSurfaceView.Renderer {
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
         if (mBackendContext == null) {
-            mBackendContext = new BackendContext();
+            mBackendContext = new BackendContext(DebugOptions.DEBUG_VALIDATING_BACKEND ?
+                    BackendContext.Flavour.VALIDATING : BackendContext.Flavour.FAST);
+        } else {
+            mBackendContext.onSurfaceCreated();
         }
         mListener.onSurfaceCreated(mBackendContext);
     }
@@ -9,7 +9,11 @@ import android.view.MotionEvent;
 
 import com.sweetlab.sweetride.context.BackendContext;
 import com.sweetlab.sweetride.engine.frame.Frame;
+import com.sweetlab.sweetride.engine.profiler.FrameProfiler;
 import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.resource.ResourceReleaser;
+
+import java.io.File;
 
 /**
  * The engine surface view.
@@ -25,6 +29,11 @@ public abstract class EngineView extends GLSurfaceView implements EngineRenderer
      */
     private static final int RENDER_MODE = GLSurfaceView.RENDERMODE_WHEN_DIRTY;
 
+    /**
+     * Directory in the app private cache where linked program binaries are stored.
+     */
+    private static final String PROGRAM_BINARY_DIRECTORY = "programs";
+
     /**
      * Main handler to get of the GL thread.
      */
@@ -45,11 +54,6 @@ public abstract class EngineView extends GLSurfaceView implements EngineRenderer
      */
     private final RenderRequest mRenderRequest = new RenderRequest();
 
-    /**
-     * Thread guard separating application updates on main thread from GL rendering.
-     */
-    private final Object mGuard = new Object();
-
     /**
      * The users application.
      */
@@ -66,9 +70,9 @@ public abstract class EngineView extends GLSurfaceView implements EngineRenderer
     private int mSurfaceHeight;
 
     /**
-     * A frame.
+     * A pipelined frame, main thread builds next frame while GL thread renders current.
      */
-    private Frame mFrame = new Frame();
+    private final Frame mFrame = new Frame();
 
     /**
      * Constructor.
@@ -93,6 +97,18 @@ public abstract class EngineView extends GLSurfaceView implements EngineRenderer
 
     @Override
     public void onSurfaceCreated(BackendContext context) {
+        context.getProgramCache().setBinaryDirectory(new File(getContext().getCacheDir(), PROGRAM_BINARY_DIRECTORY));
+
+        /**
+         * Posted before any frame update, updates are posted when drawing.
+         */
+        final ResourceReleaser releaser = context.getResourceReleaser();
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mFrame.setResourceReleaser(releaser);
+            }
+        });
     }
 
     @Override
@@ -115,21 +131,37 @@ public abstract class EngineView extends GLSurfaceView implements EngineRenderer
 
     @Override
     public void onDrawFrame(BackendContext context) {
-        synchronized (mGuard) {
-            /**
-             * Render frame.
-             */
-            mFrame.render(context);
-
-            /**
-             * Post new application update on the main thread.
-             */
-            mHandler.post(mFrameUpdateTask);
-
-            /**
-             * Enqueue a render request after application update.
-             */
-            mHandler.post(mRenderRequest);
+        /**
+         * Post new application update on the main thread before rendering so that the
+         * next frame is built while this frame is rendered.
+         */
+        mHandler.post(mFrameUpdateTask);
+
+        /**
+         * Enqueue a render request after application update.
+         */
+        mHandler.post(mRenderRequest);
+
+        /**
+         * Render oldest published frame.
+         */
+        mFrame.render(context);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        /**
+         * The GL thread is stopped, destroy the application. A new one is created if attached
+         * again.
+         */
+        if (mApplication != null) {
+            mApplication.onDestroy();
+            mApplication = null;
+            while (mEngineRoot.getChildCount() > 0) {
+                mEngineRoot.removeChild(mEngineRoot.getChild(0));
+            }
         }
     }
 
@@ -138,6 +170,58 @@ public abstract class EngineView extends GLSurfaceView implements EngineRenderer
         return mEngineRoot.onTouch(event);
     }
 
+    /**
+     * Get the frame profiler, can be shown with a ProfilerOverlay or dumped on demand. Only
+     * records when DebugOptions.DEBUG_FRAME_PROFILER is set.
+     *
+     * @return The frame profiler.
+     */
+    public FrameProfiler getFrameProfiler() {
+        return mFrame.getProfiler();
+    }
+
+    /**
+     * Enable or disable the transform store, calculating world transforms of all nodes in one
+     * linear pass each frame. Useful for large scenes. Call from main thread.
+     *
+     * @param enable True to enable.
+     */
+    public void setTransformStoreEnabled(boolean enable) {
+        mFrame.setTransformStoreEnabled(enable);
+    }
+
+    /**
+     * Enable or disable parallel update of graph branches marked as independent, see
+     * Node.setIndependentUpdate. Call from main thread.
+     *
+     * @param enable True to enable.
+     */
+    public void setParallelUpdateEnabled(boolean enable) {
+        mFrame.setParallelUpdateEnabled(enable);
+    }
+
+    /**
+     * Set the byte budget for buffer and texture uploads each frame. Geometries that doesn't
+     * fit are drawn once a later frame has budget for them, nearest first. Smooths frame times
+     * when many resources are loaded at once. Call from main thread.
+     *
+     * @param bytes The budget, 0 or less to upload everything when first rendered.
+     */
+    public void setUploadBudget(int bytes) {
+        mFrame.setUploadBudget(bytes);
+    }
+
+    /**
+     * Set the GPU memory budget for buffers and textures. When exceeded the least recently
+     * drawn resources are evicted and uploaded again when drawn. Lets large terrains and
+     * texture sets run on devices with less memory. Call from main thread.
+     *
+     * @param bytes The budget, 0 or less to not cap memory.
+     */
+    public void setMemoryBudget(long bytes) {
+        mFrame.setMemoryBudget(bytes);
+    }
+
     /**
      * Called by the engine to create the user application.
      *
@@ -161,7 +245,7 @@ public abstract class EngineView extends GLSurfaceView implements EngineRenderer
     private class FrameUpdateTask implements Runnable {
         @Override
         public void run() {
-            synchronized (mGuard) {
+            if (mApplication != null) {
                 mFrame.update(mApplication, mEngineRoot);
             }
         }
@@ -29,4 +29,11 @@ public abstract class UserApplication {
      * @param dt Delta time in seconds.
      */
     public abstract void onUpdate(float dt);
+
+    /**
+     * Called when the engine view is detached from its window, the application is not updated
+     * again. Stop threads and release what isn't tied to the GL context here.
+     */
+    public void onDestroy() {
+    }
 }
@@ -27,6 +27,11 @@ public class Action<T> {
      */
     private final ActionThread mActionThread;
 
+    /**
+     * The action id as a bit keyed by the id ordinal, 0 if the id has no ordinal below 64.
+     */
+    private final long mIdBit;
+
     /**
      * Constructor.
      *
@@ -38,6 +43,7 @@ public class Action<T> {
         mSource = source;
         mId = id;
         mActionThread = handleType;
+        mIdBit = getIdBit(id);
     }
 
     /**
@@ -74,6 +80,16 @@ public class Action<T> {
         return mActionThread;
     }
 
+    /**
+     * Get the action id as a bit keyed by the id ordinal. Used by notifiers to quickly know if
+     * an action can be pending.
+     *
+     * @return The id bit, 0 if id has no ordinal below 64.
+     */
+    long getIdBit() {
+        return mIdBit;
+    }
+
     /**
      * Handle the action on the main thread.
      *
@@ -108,6 +124,22 @@ public class Action<T> {
         return true;
     }
 
+    /**
+     * Get the bit of an action id.
+     *
+     * @param id The action id.
+     * @return The id bit, 0 if id has no ordinal below 64.
+     */
+    private static long getIdBit(Object id) {
+        if (id instanceof Enum) {
+            int ordinal = ((Enum) id).ordinal();
+            if (ordinal < Long.SIZE) {
+                return 1L << ordinal;
+            }
+        }
+        return 0;
+    }
+
     @Override
     public String toString() {
         return " id = " + mId.toString() + " source = " + mSource + " thread = " + mActionThread;
@@ -10,10 +10,21 @@ import java.util.List;
  * Notifiers can be connected or disconnected from the parent (which is a notifier as well).
  * During connect and disconnect, any pending actions are added/removed.
  * Actions that are added/removed are reflected to the top of the graph.
+ * <p/>
+ * Besides the list of pending actions each notifier keeps the ids of pending actions as bits
+ * keyed by id ordinal and the number of pending actions per handle thread. The bits tells if an
+ * action can be pending without searching the list and the counts lets handlers skip notifiers
+ * that has nothing to handle on their thread.
  *
  * @param <T> Type of action.
  */
 public abstract class ActionNotifier<T> {
+    /**
+     * Lock guarding action propagation while the graph is updated on several threads, null
+     * when updating on main thread only.
+     */
+    private static volatile Object sParallelLock;
+
     /**
      * List of pending actions.
      */
@@ -24,6 +35,33 @@ public abstract class ActionNotifier<T> {
      */
     private final List<ActionNotifier<T>> mParents = new ArrayList<>();
 
+    /**
+     * Ids of pending actions as bits keyed by id ordinal. A set bit tells that an action with
+     * the id may be pending, a cleared bit that none is. Cleared when no actions are pending.
+     */
+    private long mPendingIds;
+
+    /**
+     * Number of pending actions to handle on main thread.
+     */
+    private int mMainCount;
+
+    /**
+     * Number of pending actions to handle on GL thread.
+     */
+    private int mGLCount;
+
+    /**
+     * Set the lock guarding action propagation. Set by the engine while the graph is updated on
+     * several threads so that actions raised on worker threads are merged safely into notifiers
+     * shared between branches.
+     *
+     * @param lock The lock or null when done.
+     */
+    public static void setParallelLock(Object lock) {
+        sParallelLock = lock;
+    }
+
     /**
      * Connect the provided notifier. Any pending actions in the notifier that is
      * connected will be reported/added to parents.
@@ -31,12 +69,13 @@ public abstract class ActionNotifier<T> {
      * @param notifier The notifier to connect.
      */
     public void connectNotifier(ActionNotifier<T> notifier) {
-        notifier.mParents.add(this);
-        if (notifier.hasActions()) {
-            int actionCount = notifier.getActionCount();
-            for (int i = 0; i < actionCount; i++) {
-                addAction(notifier.getAction(i));
+        Object lock = sParallelLock;
+        if (lock != null) {
+            synchronized (lock) {
+                connect(notifier);
             }
+        } else {
+            connect(notifier);
         }
     }
 
@@ -47,12 +86,13 @@ public abstract class ActionNotifier<T> {
      * @param notifier The notifier to disconnect.
      */
     public void disconnectNotifier(ActionNotifier<T> notifier) {
-        notifier.mParents.remove(this);
-        if (notifier.hasActions()) {
-            int actionCount = notifier.getActionCount();
-            for (int i = 0; i < actionCount; i++) {
-                removeAction(notifier.getAction(i));
+        Object lock = sParallelLock;
+        if (lock != null) {
+            synchronized (lock) {
+                disconnect(notifier);
             }
+        } else {
+            disconnect(notifier);
         }
     }
 
@@ -62,10 +102,14 @@ public abstract class ActionNotifier<T> {
      * @param action The action to add.
      */
     public void addAction(Action<T> action) {
-        mActions.remove(action);
-        mActions.add(action);
-        onActionAdded(action);
-        reportAddAction(action);
+        Object lock = sParallelLock;
+        if (lock != null) {
+            synchronized (lock) {
+                addPendingAction(action);
+            }
+        } else {
+            addPendingAction(action);
+        }
     }
 
     /**
@@ -74,8 +118,32 @@ public abstract class ActionNotifier<T> {
      * @param action The action to remove.
      */
     public void removeAction(Action<T> action) {
-        mActions.remove(action);
-        reportRemoveAction(action);
+        Object lock = sParallelLock;
+        if (lock != null) {
+            synchronized (lock) {
+                removePendingAction(action);
+            }
+        } else {
+            removePendingAction(action);
+        }
+    }
+
+    /**
+     * Raise an action without adding it to pending actions. The notifier is told as if the
+     * action was added but the action is neither kept nor reported to parents. Used for actions
+     * that only trigger work when added and has nothing to handle.
+     *
+     * @param action The action to raise.
+     */
+    protected void raiseAction(Action<T> action) {
+        Object lock = sParallelLock;
+        if (lock != null) {
+            synchronized (lock) {
+                onActionAdded(action);
+            }
+        } else {
+            onActionAdded(action);
+        }
     }
 
     /**
@@ -106,6 +174,26 @@ public abstract class ActionNotifier<T> {
         return !mActions.isEmpty();
     }
 
+    /**
+     * Check if there are any pending actions to handle on a thread.
+     *
+     * @param thread The handle thread.
+     * @return True if there are pending actions to handle on the thread.
+     */
+    public boolean hasActions(ActionThread thread) {
+        return (thread == ActionThread.MAIN ? mMainCount : mGLCount) > 0;
+    }
+
+    /**
+     * Check if this notifier is connected to any parent. The number of parents is the number
+     * of holders, a resource that isn't connected is no longer used by any mesh or material.
+     *
+     * @return True if connected.
+     */
+    public boolean isConnected() {
+        return !mParents.isEmpty();
+    }
+
     /**
      * Handle action on the main thread. The action handle thread method tells if this
      * or the other handleAction method should be called.
@@ -138,8 +226,9 @@ public abstract class ActionNotifier<T> {
      * @param action The action to add.
      */
     private void reportAddAction(Action<T> action) {
-        for (ActionNotifier<T> parent : mParents) {
-            parent.addAction(action);
+        final int parentCount = mParents.size();
+        for (int i = 0; i < parentCount; i++) {
+            mParents.get(i).addPendingAction(action);
         }
     }
 
@@ -149,8 +238,94 @@ public abstract class ActionNotifier<T> {
      * @param action Action to remove.
      */
     private void reportRemoveAction(Action<T> action) {
-        for (ActionNotifier<T> parent : mParents) {
-            parent.removeAction(action);
+        final int parentCount = mParents.size();
+        for (int i = 0; i < parentCount; i++) {
+            mParents.get(i).removePendingAction(action);
+        }
+    }
+
+    /**
+     * Connect notifier and add its pending actions.
+     *
+     * @param notifier The notifier to connect.
+     */
+    private void connect(ActionNotifier<T> notifier) {
+        notifier.mParents.add(this);
+        if (notifier.hasActions()) {
+            int actionCount = notifier.getActionCount();
+            for (int i = 0; i < actionCount; i++) {
+                addPendingAction(notifier.getAction(i));
+            }
+        }
+    }
+
+    /**
+     * Disconnect notifier and remove its pending actions.
+     *
+     * @param notifier The notifier to disconnect.
+     */
+    private void disconnect(ActionNotifier<T> notifier) {
+        notifier.mParents.remove(this);
+        if (notifier.hasActions()) {
+            int actionCount = notifier.getActionCount();
+            for (int i = 0; i < actionCount; i++) {
+                removePendingAction(notifier.getAction(i));
+            }
+        }
+    }
+
+    /**
+     * Add action and report to parents.
+     *
+     * @param action The action to add.
+     */
+    private void addPendingAction(Action<T> action) {
+        if (!mayBePending(action) || !mActions.remove(action)) {
+            countAction(action, 1);
+        }
+        mActions.add(action);
+        mPendingIds |= action.getIdBit();
+        onActionAdded(action);
+        reportAddAction(action);
+    }
+
+    /**
+     * Remove action and report to parents.
+     *
+     * @param action The action to remove.
+     */
+    private void removePendingAction(Action<T> action) {
+        if (mayBePending(action) && mActions.remove(action)) {
+            countAction(action, -1);
+            if (mActions.isEmpty()) {
+                mPendingIds = 0;
+            }
+        }
+        reportRemoveAction(action);
+    }
+
+    /**
+     * Check if action may be pending without searching the pending actions.
+     *
+     * @param action The action.
+     * @return False if action is not pending, true if it may be.
+     */
+    private boolean mayBePending(Action<T> action) {
+        long bit = action.getIdBit();
+        return bit == 0 || (mPendingIds & bit) != 0;
+    }
+
+    /**
+     * Step the pending action count of the action handle thread.
+     *
+     * @param action The action.
+     * @param step   The step, 1 or -1.
+     */
+    private void countAction(Action<T> action, int step) {
+        if (action.getHandleThread() == ActionThread.MAIN) {
+            mMainCount += step;
+        } else {
+            mGLCount += step;
         }
     }
 }
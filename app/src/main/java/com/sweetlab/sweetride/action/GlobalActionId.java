@@ -114,6 +114,11 @@ public enum GlobalActionId {
      */
     VERTEX_BUFFER_LOAD,
 
+    /**
+     * Upload changed ranges of a dynamic vertex buffer in backend.
+     */
+    VERTEX_BUFFER_UPDATE,
+
     /**
      * Create render buffer backend resource.
      */
@@ -0,0 +1,23 @@
+package com.sweetlab.sweetride.attributedata;
+
+import com.sweetlab.sweetride.resource.BufferResource;
+
+/**
+ * A buffer resource living in a range of a buffer arena. The arena decides the offset and may
+ * move the range while defragmenting or growing, re-uploading the data from the buffer.
+ */
+public interface ArenaBuffer extends BufferResource {
+    /**
+     * Get the offset in bytes of the range within the arena.
+     *
+     * @return The offset in bytes.
+     */
+    int getOffsetBytes();
+
+    /**
+     * Called by the arena from GL thread when the range is allocated or moved.
+     *
+     * @param offsetBytes The offset in bytes.
+     */
+    void setOffsetBytes(int offsetBytes);
+}
@@ -0,0 +1,102 @@
+package com.sweetlab.sweetride.attributedata;
+
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.ResourceManager;
+
+/**
+ * An indices buffer living in a range of a buffer arena. Creating allocates the range, loading
+ * uploads the indices to it and deleting frees it. Drawing starts at the offset of the range.
+ */
+public class ArenaIndicesBuffer extends IndicesBuffer implements ArenaBuffer {
+    /**
+     * Offset when no range is allocated.
+     */
+    private static final int NOT_ALLOCATED = -1;
+
+    /**
+     * The arena.
+     */
+    private final BufferArena mArena;
+
+    /**
+     * Offset of the range within the arena.
+     */
+    private int mOffset = NOT_ALLOCATED;
+
+    /**
+     * Constructor.
+     *
+     * @param arena The arena, must hold indices.
+     * @param data  Array of indices.
+     */
+    public ArenaIndicesBuffer(BufferArena arena, short[] data) {
+        super(data, arena.getBufferUsage());
+        if (arena.getContent() != BufferArena.Content.INDICES) {
+            throw new RuntimeException("Indices buffer needs an arena holding indices, content = " + arena.getContent());
+        }
+        mArena = arena;
+    }
+
+    /**
+     * Get the arena.
+     *
+     * @return The arena.
+     */
+    public BufferArena getArena() {
+        return mArena;
+    }
+
+    @Override
+    public void create(BackendContext context) {
+        mArena.allocate(context, this);
+    }
+
+    @Override
+    public boolean isCreated() {
+        return mOffset != NOT_ALLOCATED;
+    }
+
+    /**
+     * Get the id of the arena buffer once the range is allocated.
+     *
+     * @return The id.
+     */
+    @Override
+    public int getId() {
+        if (mOffset == NOT_ALLOCATED) {
+            return ResourceManager.INVALID_BUFFER_ID;
+        }
+        return mArena.getId();
+    }
+
+    @Override
+    public void load(BackendContext context) {
+        mArena.upload(context, this);
+    }
+
+    @Override
+    public void delete(BackendContext context) {
+        mArena.free(this);
+        mOffset = NOT_ALLOCATED;
+    }
+
+    @Override
+    public int getOffsetBytes() {
+        return mOffset;
+    }
+
+    @Override
+    public void setOffsetBytes(int offsetBytes) {
+        mOffset = offsetBytes;
+    }
+
+    /**
+     * Get the size in bytes of the arena holding the indices.
+     *
+     * @return The size in bytes.
+     */
+    @Override
+    public int getBufferByteCount() {
+        return mArena.getTotalByteCount();
+    }
+}
@@ -0,0 +1,179 @@
+package com.sweetlab.sweetride.attributedata;
+
+import com.sweetlab.sweetride.action.Action;
+import com.sweetlab.sweetride.action.ActionThread;
+import com.sweetlab.sweetride.action.GlobalActionId;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.ResourceManager;
+import com.sweetlab.sweetride.resource.VertexBufferResource;
+import com.sweetlab.sweetride.util.Util;
+
+import java.nio.Buffer;
+
+/**
+ * A vertex buffer living in a range of a buffer arena. Creating allocates the range, loading
+ * uploads the data to it and deleting frees it. The buffer pointer offset follows the range so
+ * vertex buffers of the same arena share buffer id and only differ in attribute offset.
+ */
+public class ArenaVertexBuffer extends VertexBufferResource implements ArenaBuffer {
+    /**
+     * Offset when no range is allocated.
+     */
+    private static final int NOT_ALLOCATED = -1;
+
+    /**
+     * The arena.
+     */
+    private final BufferArena mArena;
+
+    /**
+     * The buffer of data, kept to be able to re-upload when the arena moves the range.
+     */
+    private final Buffer mBuffer;
+
+    /**
+     * The vertex data.
+     */
+    private final VertexData mVertexData;
+
+    /**
+     * The buffer pointer.
+     */
+    private final BufferPointer mBufferPointer;
+
+    /**
+     * Action creating the buffer.
+     */
+    private final Action<GlobalActionId> mCreateAction;
+
+    /**
+     * Action loading the buffer.
+     */
+    private final Action<GlobalActionId> mLoadAction;
+
+    /**
+     * Offset of the range within the arena.
+     */
+    private int mOffset = NOT_ALLOCATED;
+
+    /**
+     * Constructor. Don't forget to create it to allocate a range.
+     *
+     * @param arena      The arena, must hold vertices.
+     * @param name       Name of attribute in shader program.
+     * @param vertexData Vertex data.
+     */
+    public ArenaVertexBuffer(BufferArena arena, String name, VertexData vertexData) {
+        if (arena.getContent() != BufferArena.Content.VERTICES) {
+            throw new RuntimeException("Vertex buffer needs an arena holding vertices, content = " + arena.getContent());
+        }
+        mArena = arena;
+        mBufferPointer = new BufferPointer(name, vertexData, 0, 0);
+        mVertexData = vertexData;
+        mBuffer = Util.createBuffer(vertexData.getData(), vertexData.getTotalByteCount());
+        mCreateAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_CREATE, ActionThread.GL);
+        mLoadAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_LOAD, ActionThread.GL);
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
+    /**
+     * Get the arena.
+     *
+     * @return The arena.
+     */
+    public BufferArena getArena() {
+        return mArena;
+    }
+
+    /**
+     * Get the id of the arena buffer once the range is allocated.
+     *
+     * @return The id.
+     */
+    @Override
+    public int getId() {
+        if (mOffset == NOT_ALLOCATED) {
+            return ResourceManager.INVALID_BUFFER_ID;
+        }
+        return mArena.getId();
+    }
+
+    @Override
+    public Buffer getBuffer() {
+        return mBuffer;
+    }
+
+    @Override
+    public int getTotalByteCount() {
+        return mVertexData.getTotalByteCount();
+    }
+
+    @Override
+    public BufferUsage getBufferUsage() {
+        return mArena.getBufferUsage();
+    }
+
+    @Override
+    public int getOffsetBytes() {
+        return mOffset;
+    }
+
+    @Override
+    public void setOffsetBytes(int offsetBytes) {
+        mOffset = offsetBytes;
+        mBufferPointer.setBaseOffset(offsetBytes);
+    }
+
+    @Override
+    public void load(BackendContext context) {
+        mArena.upload(context, this);
+    }
+
+    @Override
+    public boolean isCreated() {
+        return mOffset != NOT_ALLOCATED;
+    }
+
+    @Override
+    public void delete(BackendContext context) {
+        mArena.free(this);
+        setOffsetBytes(NOT_ALLOCATED);
+    }
+
+    @Override
+    public void create(BackendContext context) {
+        mArena.allocate(context, this);
+    }
+
+    @Override
+    public void restore() {
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
+    @Override
+    public int getAttributePointerCount() {
+        return 1;
+    }
+
+    @Override
+    public AttributePointer getAttributePointer(int index) {
+        return mBufferPointer;
+    }
+
+    @Override
+    public boolean handleAction(BackendContext context, Action<GlobalActionId> action) {
+        switch (action.getType()) {
+            case VERTEX_BUFFER_CREATE:
+                create(context);
+                return true;
+            case VERTEX_BUFFER_LOAD:
+                load(context);
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package com.sweetlab.sweetride.attributedata;
+
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.ResourceManager;
+import com.sweetlab.sweetride.resource.BufferResource;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A large gpu buffer that many small vertex or indices buffers are packed into. Each arena
+ * buffer gets a range from a first fit free list, freed ranges are merged with free neighbours.
+ * Meshes drawn from the same arena share one buffer id so the buffer is only bound once.
+ * <p/>
+ * When no free range is large enough the arena is defragmented, live ranges are compacted
+ * towards the start and re-uploaded from their buffers since GLES 2.0 can't copy between
+ * buffer ranges. If the total free bytes isn't enough either the arena grows to a new buffer of
+ * twice the size.
+ * <p/>
+ * Allocation, upload and free is done from GL thread, by the arena buffers when they are
+ * created, loaded and deleted. The stats can be read from any thread.
+ */
+public class BufferArena implements BufferResource {
+    /**
+     * What the arena holds.
+     */
+    public enum Content {
+        /**
+         * Vertex data, bound to the array target.
+         */
+        VERTICES,
+
+        /**
+         * Indices, bound to the element target.
+         */
+        INDICES
+    }
+
+    /**
+     * Ranges are aligned to this number of bytes.
+     */
+    public static final int ALIGNMENT = 4;
+
+    /**
+     * Orders arena buffers on offset.
+     */
+    private static final Comparator<ArenaBuffer> OFFSET_ORDER = new Comparator<ArenaBuffer>() {
+        @Override
+        public int compare(ArenaBuffer lhs, ArenaBuffer rhs) {
+            return lhs.getOffsetBytes() < rhs.getOffsetBytes() ? -1 : (lhs.getOffsetBytes() == rhs.getOffsetBytes() ? 0 : 1);
+        }
+    };
+
+    /**
+     * Free ranges, sorted on offset and never adjacent.
+     */
+    private final List<Block> mFreeBlocks = new ArrayList<>();
+
+    /**
+     * The live arena buffers.
+     */
+    private final List<ArenaBuffer> mAllocations = new ArrayList<>();
+
+    /**
+     * What the arena holds.
+     */
+    private final Content mContent;
+
+    /**
+     * The buffer usage hint.
+     */
+    private final BufferUsage mBufferUsage;
+
+    /**
+     * The capacity in bytes.
+     */
+    private int mCapacity;
+
+    /**
+     * Bytes allocated, including alignment.
+     */
+    private int mUsedBytes;
+
+    /**
+     * Bytes lost to alignment.
+     */
+    private int mWastedBytes;
+
+    /**
+     * Number of times the arena has been defragmented.
+     */
+    private int mDefragmentCount;
+
+    /**
+     * Number of times the arena has grown.
+     */
+    private int mGrowCount;
+
+    /**
+     * The buffer 'name'/id.
+     */
+    private int mBufferId = ResourceManager.INVALID_BUFFER_ID;
+
+    /**
+     * Constructor.
+     *
+     * @param content     What the arena holds.
+     * @param capacity    Initial capacity in bytes.
+     * @param bufferUsage Buffer usage hint.
+     */
+    public BufferArena(Content content, int capacity, BufferUsage bufferUsage) {
+        if (capacity <= 0) {
+            throw new RuntimeException("Buffer arena capacity must be positive, capacity = " + capacity);
+        }
+        mContent = content;
+        mCapacity = align(capacity);
+        mBufferUsage = bufferUsage;
+        mFreeBlocks.add(new Block(0, mCapacity));
+    }
+
+    /**
+     * Get what the arena holds.
+     *
+     * @return The content.
+     */
+    public Content getContent() {
+        return mContent;
+    }
+
+    @Override
+    public synchronized void create(BackendContext context) {
+        mBufferId = context.getResourceManager().generateBuffer();
+        load(context);
+    }
+
+    @Override
+    public synchronized boolean isCreated() {
+        return mBufferId != ResourceManager.INVALID_BUFFER_ID;
+    }
+
+    /**
+     * Delete the arena. All arena buffers are freed, they must be restored before used again.
+     *
+     * @param context Backend context.
+     */
+    @Override
+    public synchronized void delete(BackendContext context) {
+        context.getResourceManager().deleteBuffer(mBufferId);
+        mBufferId = ResourceManager.INVALID_BUFFER_ID;
+        mAllocations.clear();
+        mFreeBlocks.clear();
+        mFreeBlocks.add(new Block(0, mCapacity));
+        mUsedBytes = 0;
+        mWastedBytes = 0;
+    }
+
+    @Override
+    public synchronized int getId() {
+        return mBufferId;
+    }
+
+    /**
+     * The arena storage is allocated without data.
+     *
+     * @return Null.
+     */
+    @Override
+    public Buffer getBuffer() {
+        return null;
+    }
+
+    /**
+     * Get the capacity in bytes.
+     *
+     * @return The capacity.
+     */
+    @Override
+    public synchronized int getTotalByteCount() {
+        return mCapacity;
+    }
+
+    @Override
+    public BufferUsage getBufferUsage() {
+        return mBufferUsage;
+    }
+
+    /**
+     * Allocate the arena storage on the gpu, the content is undefined.
+     *
+     * @param context Backend context.
+     */
+    @Override
+    public synchronized void load(BackendContext context) {
+        if (mContent == Content.INDICES) {
+            context.getElementTarget().load(this);
+        } else {
+            context.getArrayTarget().load(this);
+        }
+    }
+
+    /**
+     * Allocate a range for an arena buffer, the offset is handed to the buffer. Creates the
+     * arena if needed. Call from GL thread.
+     *
+     * @param context Backend context.
+     * @param buffer  The arena buffer.
+     */
+    public synchronized void allocate(BackendContext context, ArenaBuffer buffer) {
+        if (!isCreated()) {
+            create(context);
+        }
+        final int byteCount = buffer.getTotalByteCount();
+        final int size = align(byteCount);
+        int offset = findFree(size);
+        if (offset < 0) {
+            if (getFreeBytes() >= size) {
+                defragment(context);
+            } else {
+                grow(context, size);
+            }
+            offset = findFree(size);
+        }
+        mAllocations.add(buffer);
+        mUsedBytes += size;
+        mWastedBytes += size - byteCount;
+        buffer.setOffsetBytes(offset);
+    }
+
+    /**
+     * Upload the data of an arena buffer to its range. Call from GL thread.
+     *
+     * @param context Backend context.
+     * @param buffer  The arena buffer.
+     */
+    public synchronized void upload(BackendContext context, ArenaBuffer buffer) {
+        if (mContent == Content.INDICES) {
+            context.getElementTarget().loadRange(this, buffer.getOffsetBytes(), buffer.getTotalByteCount(), buffer.getBuffer());
+        } else {
+            context.getArrayTarget().loadRange(this, buffer.getOffsetBytes(), buffer.getTotalByteCount(), buffer.getBuffer());
+        }
+    }
+
+    /**
+     * Free the range of an arena buffer. Call from GL thread.
+     *
+     * @param buffer The arena buffer.
+     */
+    public synchronized void free(ArenaBuffer buffer) {
+        if (!removeAllocation(buffer)) {
+            throw new RuntimeException("Trying to free buffer not allocated in arena " + buffer);
+        }
+        final int byteCount = buffer.getTotalByteCount();
+        final int size = align(byteCount);
+        mUsedBytes -= size;
+        mWastedBytes -= size - byteCount;
+        insertFree(buffer.getOffsetBytes(), size);
+    }
+
+    /**
+     * Compact live ranges towards the start of the arena, leaving one free range at the end.
+     * Moved ranges are re-uploaded. Call from GL thread.
+     *
+     * @param context Backend context.
+     */
+    public synchronized void defragment(BackendContext context) {
+        compact(context, false);
+        mDefragmentCount++;
+    }
+
+    /**
+     * Get the capacity in bytes.
+     *
+     * @return The capacity.
+     */
+    public synchronized int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * Get number of allocated bytes, including alignment.
+     *
+     * @return The used bytes.
+     */
+    public synchronized int getUsedBytes() {
+        return mUsedBytes;
+    }
+
+    /**
+     * Get number of free bytes.
+     *
+     * @return The free bytes.
+     */
+    public synchronized int getFreeBytes() {
+        return mCapacity - mUsedBytes;
+    }
+
+    /**
+     * Get number of bytes lost to alignment.
+     *
+     * @return The wasted bytes.
+     */
+    public synchronized int getWastedBytes() {
+        return mWastedBytes;
+    }
+
+    /**
+     * Get the size of the largest free range.
+     *
+     * @return The largest free range in bytes.
+     */
+    public synchronized int getLargestFreeBlock() {
+        int largest = 0;
+        for (int i = 0; i < mFreeBlocks.size(); i++) {
+            largest = Math.max(largest, mFreeBlocks.get(i).mSize);
+        }
+        return largest;
+    }
+
+    /**
+     * Get the number of free ranges.
+     *
+     * @return Number of free ranges.
+     */
+    public synchronized int getFreeBlockCount() {
+        return mFreeBlocks.size();
+    }
+
+    /**
+     * Get the fragmentation, the part of the free bytes not in the largest free range. 0 when all
+     * free bytes can be allocated at once, approaching 1 when spread in many small ranges.
+     *
+     * @return The fragmentation between 0 and 1.
+     */
+    public synchronized float getFragmentation() {
+        final int freeBytes = getFreeBytes();
+        if (freeBytes == 0) {
+            return 0;
+        }
+        return 1f - getLargestFreeBlock() / (float) freeBytes;
+    }
+
+    /**
+     * Get number of live arena buffers.
+     *
+     * @return The number of allocations.
+     */
+    public synchronized int getAllocationCount() {
+        return mAllocations.size();
+    }
+
+    /**
+     * Get number of times the arena has been defragmented.
+     *
+     * @return The defragment count.
+     */
+    public synchronized int getDefragmentCount() {
+        return mDefragmentCount;
+    }
+
+    /**
+     * Get number of times the arena has grown.
+     *
+     * @return The grow count.
+     */
+    public synchronized int getGrowCount() {
+        return mGrowCount;
+    }
+
+    /**
+     * Grow the arena into a new buffer with room for at least the size, all live ranges are
+     * compacted and re-uploaded.
+     *
+     * @param context Backend context.
+     * @param size    The aligned size that must fit.
+     */
+    private void grow(BackendContext context, int size) {
+        int capacity = mCapacity;
+        while (capacity - mUsedBytes < size) {
+            capacity *= 2;
+        }
+        context.getResourceManager().deleteBuffer(mBufferId);
+        mCapacity = capacity;
+        mBufferId = context.getResourceManager().generateBuffer();
+        load(context);
+        compact(context, true);
+        mGrowCount++;
+    }
+
+    /**
+     * Move live ranges towards the start of the arena in offset order.
+     *
+     * @param context   Backend context.
+     * @param uploadAll True to re-upload all ranges, false to only re-upload moved ranges.
+     */
+    private void compact(BackendContext context, boolean uploadAll) {
+        Collections.sort(mAllocations, OFFSET_ORDER);
+        int offset = 0;
+        final int count = mAllocations.size();
+        for (int i = 0; i < count; i++) {
+            ArenaBuffer buffer = mAllocations.get(i);
+            if (uploadAll || buffer.getOffsetBytes() != offset) {
+                buffer.setOffsetBytes(offset);
+                upload(context, buffer);
+            }
+            offset += align(buffer.getTotalByteCount());
+        }
+        mFreeBlocks.clear();
+        if (offset < mCapacity) {
+            mFreeBlocks.add(new Block(offset, mCapacity - offset));
+        }
+    }
+
+    /**
+     * Find first free range large enough and take the size from its start.
+     *
+     * @param size The aligned size.
+     * @return The offset or -1 if none large enough.
+     */
+    private int findFree(int size) {
+        final int count = mFreeBlocks.size();
+        for (int i = 0; i < count; i++) {
+            Block block = mFreeBlocks.get(i);
+            if (block.mSize >= size) {
+                final int offset = block.mOffset;
+                if (block.mSize == size) {
+                    mFreeBlocks.remove(i);
+                } else {
+                    block.mOffset += size;
+                    block.mSize -= size;
+                }
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Insert a free range, merging it with adjacent free ranges.
+     *
+     * @param offset The offset.
+     * @param size   The aligned size.
+     */
+    private void insertFree(int offset, int size) {
+        int index = 0;
+        final int count = mFreeBlocks.size();
+        while (index < count && mFreeBlocks.get(index).mOffset < offset) {
+            index++;
+        }
+
+        /**
+         * Merge with previous and next if adjacent.
+         */
+        Block previous = index > 0 ? mFreeBlocks.get(index - 1) : null;
+        Block next = index < count ? mFreeBlocks.get(index) : null;
+        if (previous != null && previous.mOffset + previous.mSize == offset) {
+            previous.mSize += size;
+            if (next != null && offset + size == next.mOffset) {
+                previous.mSize += next.mSize;
+                mFreeBlocks.remove(index);
+            }
+        } else if (next != null && offset + size == next.mOffset) {
+            next.mOffset = offset;
+            next.mSize += size;
+        } else {
+            mFreeBlocks.add(index, new Block(offset, size));
+        }
+    }
+
+    /**
+     * Remove a live arena buffer by identity.
+     *
+     * @param buffer The arena buffer.
+     * @return True if removed.
+     */
+    private boolean removeAllocation(ArenaBuffer buffer) {
+        final int count = mAllocations.size();
+        for (int i = 0; i < count; i++) {
+            if (mAllocations.get(i) == buffer) {
+                mAllocations.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Align a byte count up to the arena alignment.
+     *
+     * @param byteCount The byte count.
+     * @return The aligned byte count.
+     */
+    private static int align(int byteCount) {
+        return (byteCount + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+    }
+
+    /**
+     * A free range.
+     */
+    private static class Block {
+        /**
+         * Offset in bytes.
+         */
+        private int mOffset;
+
+        /**
+         * Size in bytes.
+         */
+        private int mSize;
+
+        /**
+         * Constructor.
+         *
+         * @param offset Offset in bytes.
+         * @param size   Size in bytes.
+         */
+        private Block(int offset, int size) {
+            mOffset = offset;
+            mSize = size;
+        }
+    }
+}
@@ -26,6 +26,12 @@ public class BufferPointer implements AttributePointer {
      */
     private final int mOffset;
 
+    /**
+     * Offset in bytes of the data within the buffer, non zero when the data lives in a range
+     * of a buffer arena.
+     */
+    private int mBaseOffset;
+
     /**
      * Constructor. This pointer most likely co-exists with other pointers within a interleaved
      * vertex buffer.
@@ -75,6 +81,16 @@ public class BufferPointer implements AttributePointer {
 
     @Override
     public int getOffsetBytes() {
-        return mOffset;
+        return mBaseOffset + mOffset;
+    }
+
+    /**
+     * Set offset in bytes of the data within the buffer. Set by the owning buffer when its
+     * range in a buffer arena is allocated or moved.
+     *
+     * @param baseOffset The offset in bytes.
+     */
+    public void setBaseOffset(int baseOffset) {
+        mBaseOffset = baseOffset;
     }
 }
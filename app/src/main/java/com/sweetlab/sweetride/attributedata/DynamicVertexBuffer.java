@@ -0,0 +1,537 @@
+package com.sweetlab.sweetride.attributedata;
+
+import com.sweetlab.sweetride.action.Action;
+import com.sweetlab.sweetride.action.ActionThread;
+import com.sweetlab.sweetride.action.GlobalActionId;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.ResourceManager;
+import com.sweetlab.sweetride.resource.VertexBufferResource;
+import com.sweetlab.sweetride.util.Util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * A vertex buffer for data that changes often, like particles, debug lines and hud quads.
+ * Instead of reloading the whole buffer only the changed ranges are uploaded with
+ * glBufferSubData.
+ * <p/>
+ * The gpu buffer is split into a ring of segments, each holding a full copy of the data. Each
+ * commit writes the next segment and the attribute pointer is moved to it once uploaded, so
+ * the cpu never writes into a segment the gpu may still be reading from. Every segment keeps
+ * its own dirty range, the union of all changes since it was last written, so only changed
+ * bytes are transferred. The segment count should be larger than the number of frames in
+ * flight, one more than the number of render queues.
+ * <p/>
+ * With orphaning enabled each commit orphans the gpu storage and uploads the whole segment,
+ * letting the driver hand out fresh storage instead of synchronizing. Useful with a single
+ * segment when most of the data changes every frame. Orphaning discards all segments, so the
+ * other segments are uploaded again from staging and marked fully dirty, since the main thread
+ * may be writing one of them while it is uploaded.
+ * <p/>
+ * Change data and commit from main thread, typically from onUpdate and at most once per frame.
+ */
+public class DynamicVertexBuffer extends VertexBufferResource {
+    /**
+     * Default number of segments, one more than the default number of render queues.
+     */
+    public static final int DEFAULT_SEGMENT_COUNT = 4;
+
+    /**
+     * Marks an empty range.
+     */
+    private static final int CLEAN = -1;
+
+    /**
+     * The vertex data.
+     */
+    private final VertexData mVertexData;
+
+    /**
+     * The buffer usage hint.
+     */
+    private final BufferUsage mBufferUsage;
+
+    /**
+     * The attribute pointer, pointing into the segment last uploaded.
+     */
+    private final SegmentPointer mPointer;
+
+    /**
+     * Number of segments in the ring.
+     */
+    private final int mSegmentCount;
+
+    /**
+     * Number of floats in each segment.
+     */
+    private final int mSegmentFloats;
+
+    /**
+     * Staging memory with the layout of the gpu buffer, all segments.
+     */
+    private final ByteBuffer mStaging;
+
+    /**
+     * Float view of the staging memory, written on main thread.
+     */
+    private final FloatBuffer mStagingFloats;
+
+    /**
+     * Byte view of the staging memory, read on GL thread.
+     */
+    private final ByteBuffer mUploadView;
+
+    /**
+     * First changed float by segment since segment was last written, main thread.
+     */
+    private final int[] mDirtyStart;
+
+    /**
+     * End of changed floats by segment since segment was last written, main thread.
+     */
+    private final int[] mDirtyEnd;
+
+    /**
+     * First byte to upload by segment, guarded by upload lock.
+     */
+    private final int[] mUploadStart;
+
+    /**
+     * End of bytes to upload by segment, guarded by upload lock.
+     */
+    private final int[] mUploadEnd;
+
+    /**
+     * First byte to upload by segment, GL thread copy.
+     */
+    private final int[] mCopyStart;
+
+    /**
+     * End of bytes to upload by segment, GL thread copy.
+     */
+    private final int[] mCopyEnd;
+
+    /**
+     * Lock guarding the ranges handed from main to GL thread.
+     */
+    private final Object mUploadLock = new Object();
+
+    /**
+     * Action creating the buffer.
+     */
+    private final Action<GlobalActionId> mCreateAction;
+
+    /**
+     * Action loading the buffer.
+     */
+    private final Action<GlobalActionId> mLoadAction;
+
+    /**
+     * Action uploading changed ranges.
+     */
+    private final Action<GlobalActionId> mUpdateAction;
+
+    /**
+     * Segment last committed, guarded by upload lock.
+     */
+    private int mCommittedSegment;
+
+    /**
+     * True if the gpu storage should be orphaned before next upload, guarded by upload lock.
+     */
+    private boolean mOrphanPending;
+
+    /**
+     * Segment last written, main thread.
+     */
+    private int mWriteSegment;
+
+    /**
+     * True if data has changed since last commit, main thread.
+     */
+    private boolean mChanged;
+
+    /**
+     * True if commits orphans the gpu storage, main thread.
+     */
+    private boolean mOrphaning;
+
+    /**
+     * Segment the attribute pointer points into, GL thread.
+     */
+    private int mDrawSegment;
+
+    /**
+     * The buffer 'name'/id.
+     */
+    private int mBufferId = ResourceManager.INVALID_BUFFER_ID;
+
+    /**
+     * Constructor with default number of segments.
+     *
+     * @param name        Name of attribute in shader program.
+     * @param vertexData  Vertex data, changed through this buffer.
+     * @param bufferUsage Buffer usage hint, typically dynamic or stream.
+     */
+    public DynamicVertexBuffer(String name, VertexData vertexData, BufferUsage bufferUsage) {
+        this(name, vertexData, bufferUsage, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param name         Name of attribute in shader program.
+     * @param vertexData   Vertex data, changed through this buffer.
+     * @param bufferUsage  Buffer usage hint, typically dynamic or stream.
+     * @param segmentCount Number of segments in the ring.
+     */
+    public DynamicVertexBuffer(String name, VertexData vertexData, BufferUsage bufferUsage, int segmentCount) {
+        if (segmentCount < 1) {
+            throw new RuntimeException("Dynamic vertex buffer needs at least one segment, count = " + segmentCount);
+        }
+        mVertexData = vertexData;
+        mBufferUsage = bufferUsage;
+        mSegmentCount = segmentCount;
+        mSegmentFloats = vertexData.getData().length;
+        mPointer = new SegmentPointer(name);
+
+        mStaging = Util.allocByteBuffer(segmentCount * vertexData.getTotalByteCount());
+        mStagingFloats = mStaging.asFloatBuffer();
+        for (int i = 0; i < segmentCount; i++) {
+            mStagingFloats.put(vertexData.getData());
+        }
+        mUploadView = mStaging.duplicate();
+
+        mDirtyStart = new int[segmentCount];
+        mDirtyEnd = new int[segmentCount];
+        mUploadStart = new int[segmentCount];
+        mUploadEnd = new int[segmentCount];
+        mCopyStart = new int[segmentCount];
+        mCopyEnd = new int[segmentCount];
+        Arrays.fill(mDirtyStart, CLEAN);
+        Arrays.fill(mUploadStart, CLEAN);
+
+        mCreateAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_CREATE, ActionThread.GL);
+        mLoadAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_LOAD, ActionThread.GL);
+        mUpdateAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_UPDATE, ActionThread.GL);
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
+    /**
+     * Get the vertex data. If changed directly, call invalidate with the changed range.
+     *
+     * @return The vertex data.
+     */
+    public VertexData getVertexData() {
+        return mVertexData;
+    }
+
+    /**
+     * Get number of segments in the ring.
+     *
+     * @return The number of segments.
+     */
+    public int getSegmentCount() {
+        return mSegmentCount;
+    }
+
+    /**
+     * Set if commits should orphan the gpu storage and upload whole segments.
+     *
+     * @param orphaning True to orphan.
+     */
+    public void setOrphaning(boolean orphaning) {
+        mOrphaning = orphaning;
+    }
+
+    /**
+     * Set vertices starting at vertex.
+     *
+     * @param firstVertex The first vertex to set.
+     * @param values      The values, a whole number of vertices.
+     */
+    public void set(int firstVertex, float[] values) {
+        final int vertexSize = mVertexData.getVertexSize();
+        if (values.length % vertexSize != 0) {
+            throw new RuntimeException("Values length, " + values.length + " is not a factor of vertex size, " + vertexSize);
+        }
+        final int vertexCount = values.length / vertexSize;
+        checkRange(firstVertex, vertexCount);
+        System.arraycopy(values, 0, mVertexData.getData(), firstVertex * vertexSize, values.length);
+        invalidate(firstVertex, vertexCount);
+    }
+
+    /**
+     * Mark vertices as changed.
+     *
+     * @param firstVertex The first changed vertex.
+     * @param vertexCount Number of changed vertices.
+     */
+    public void invalidate(int firstVertex, int vertexCount) {
+        checkRange(firstVertex, vertexCount);
+        if (vertexCount == 0) {
+            return;
+        }
+        final int vertexSize = mVertexData.getVertexSize();
+        final int start = firstVertex * vertexSize;
+        final int end = start + vertexCount * vertexSize;
+        for (int i = 0; i < mSegmentCount; i++) {
+            if (mDirtyStart[i] == CLEAN) {
+                mDirtyStart[i] = start;
+                mDirtyEnd[i] = end;
+            } else {
+                mDirtyStart[i] = Math.min(mDirtyStart[i], start);
+                mDirtyEnd[i] = Math.max(mDirtyEnd[i], end);
+            }
+        }
+        mChanged = true;
+    }
+
+    /**
+     * Mark all vertices as changed.
+     */
+    public void invalidate() {
+        invalidate(0, mVertexData.getVertexCount());
+    }
+
+    /**
+     * Commit changes since last commit. The changed ranges are written into the next segment
+     * and uploaded on GL thread. Call at most once per frame.
+     */
+    public void commit() {
+        if (!mChanged) {
+            return;
+        }
+        final int segment = (mWriteSegment + 1) % mSegmentCount;
+        final int start = mDirtyStart[segment];
+        final int end = mDirtyEnd[segment];
+        final int segmentOffset = segment * mSegmentFloats;
+        mStagingFloats.position(segmentOffset + start);
+        mStagingFloats.put(mVertexData.getData(), start, end - start);
+
+        final int uploadStart = mOrphaning ? 0 : start * Util.BYTES_PER_FLOAT;
+        final int uploadEnd = mOrphaning ? mSegmentFloats * Util.BYTES_PER_FLOAT : end * Util.BYTES_PER_FLOAT;
+        synchronized (mUploadLock) {
+            if (mUploadStart[segment] == CLEAN) {
+                mUploadStart[segment] = uploadStart;
+                mUploadEnd[segment] = uploadEnd;
+            } else {
+                mUploadStart[segment] = Math.min(mUploadStart[segment], uploadStart);
+                mUploadEnd[segment] = Math.max(mUploadEnd[segment], uploadEnd);
+            }
+            mCommittedSegment = segment;
+            mOrphanPending |= mOrphaning;
+        }
+
+        mDirtyStart[segment] = CLEAN;
+        if (mOrphaning) {
+            for (int i = 0; i < mSegmentCount; i++) {
+                if (i != segment) {
+                    mDirtyStart[i] = 0;
+                    mDirtyEnd[i] = mSegmentFloats;
+                }
+            }
+        }
+        mWriteSegment = segment;
+        mChanged = false;
+        addAction(mUpdateAction);
+    }
+
+    /**
+     * Upload committed ranges and move the attribute pointer to the last committed segment.
+     * Call from GL thread.
+     *
+     * @param context The backend context.
+     */
+    public void update(BackendContext context) {
+        final int segment;
+        final boolean orphan;
+        synchronized (mUploadLock) {
+            segment = mCommittedSegment;
+            orphan = mOrphanPending;
+            System.arraycopy(mUploadStart, 0, mCopyStart, 0, mSegmentCount);
+            System.arraycopy(mUploadEnd, 0, mCopyEnd, 0, mSegmentCount);
+            Arrays.fill(mUploadStart, CLEAN);
+            mOrphanPending = false;
+        }
+
+        /**
+         * Not created means a load is pending which uploads all segments.
+         */
+        if (isCreated()) {
+            final int segmentBytes = mVertexData.getTotalByteCount();
+            if (orphan) {
+                /**
+                 * The orphaned storage holds nothing, upload all segments. Ranges of other
+                 * segments are covered.
+                 */
+                context.getArrayTarget().orphan(this);
+                upload(context, 0, mSegmentCount * segmentBytes);
+            } else {
+                for (int i = 0; i < mSegmentCount; i++) {
+                    if (mCopyStart[i] != CLEAN) {
+                        upload(context, i * segmentBytes + mCopyStart[i], mCopyEnd[i] - mCopyStart[i]);
+                    }
+                }
+            }
+        }
+        mDrawSegment = segment;
+    }
+
+    @Override
+    public int getId() {
+        return mBufferId;
+    }
+
+    @Override
+    public Buffer getBuffer() {
+        return mStaging;
+    }
+
+    @Override
+    public int getTotalByteCount() {
+        return mSegmentCount * mVertexData.getTotalByteCount();
+    }
+
+    @Override
+    public BufferUsage getBufferUsage() {
+        return mBufferUsage;
+    }
+
+    @Override
+    public void load(BackendContext context) {
+        context.getArrayTarget().load(this);
+    }
+
+    @Override
+    public boolean isCreated() {
+        return mBufferId != ResourceManager.INVALID_BUFFER_ID;
+    }
+
+    @Override
+    public void delete(BackendContext context) {
+        context.getResourceManager().deleteBuffer(mBufferId);
+        mBufferId = ResourceManager.INVALID_BUFFER_ID;
+    }
+
+    @Override
+    public void create(BackendContext context) {
+        mBufferId = context.getResourceManager().generateBuffer();
+    }
+
+    @Override
+    public void restore() {
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
+    @Override
+    public int getAttributePointerCount() {
+        return 1;
+    }
+
+    @Override
+    public AttributePointer getAttributePointer(int index) {
+        return mPointer;
+    }
+
+    @Override
+    public boolean handleAction(BackendContext context, Action<GlobalActionId> action) {
+        switch (action.getType()) {
+            case VERTEX_BUFFER_CREATE:
+                create(context);
+                return true;
+            case VERTEX_BUFFER_LOAD:
+                load(context);
+                return true;
+            case VERTEX_BUFFER_UPDATE:
+                update(context);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Upload a range of the staging memory.
+     *
+     * @param context     The backend context.
+     * @param offsetBytes Offset in bytes into the gpu buffer.
+     * @param byteCount   Number of bytes.
+     */
+    private void upload(BackendContext context, int offsetBytes, int byteCount) {
+        mUploadView.position(offsetBytes);
+        context.getArrayTarget().loadRange(this, offsetBytes, byteCount, mUploadView);
+    }
+
+    /**
+     * Check that a vertex range is within the data.
+     *
+     * @param firstVertex The first vertex.
+     * @param vertexCount Number of vertices.
+     */
+    private void checkRange(int firstVertex, int vertexCount) {
+        if (firstVertex < 0 || vertexCount < 0 || firstVertex + vertexCount > mVertexData.getVertexCount()) {
+            throw new RuntimeException("Vertex range outside data, first = " + firstVertex + " count = " + vertexCount + " vertex count = " + mVertexData.getVertexCount());
+        }
+    }
+
+    /**
+     * Attribute pointer into the segment last uploaded.
+     */
+    private class SegmentPointer implements AttributePointer {
+        /**
+         * Name of attribute in shader program.
+         */
+        private final String mName;
+
+        /**
+         * Constructor.
+         *
+         * @param name Name of attribute in shader program.
+         */
+        private SegmentPointer(String name) {
+            mName = name;
+        }
+
+        @Override
+        public String getName() {
+            return mName;
+        }
+
+        @Override
+        public int getVertexCount() {
+            return mVertexData.getVertexCount();
+        }
+
+        @Override
+        public int getVertexByteSize() {
+            return mVertexData.getVertexByteSize();
+        }
+
+        @Override
+        public int getVertexSize() {
+            return mVertexData.getVertexSize();
+        }
+
+        @Override
+        public int getStrideBytes() {
+            return 0;
+        }
+
+        @Override
+        public boolean getShouldNormalize() {
+            return mVertexData.getShouldNormalize();
+        }
+
+        @Override
+        public int getOffsetBytes() {
+            return mDrawSegment * mVertexData.getTotalByteCount();
+        }
+    }
+}
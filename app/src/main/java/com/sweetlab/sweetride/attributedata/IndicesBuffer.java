@@ -8,6 +8,7 @@ import com.sweetlab.sweetride.context.BackendContext;
 import com.sweetlab.sweetride.context.BufferUsage;
 import com.sweetlab.sweetride.context.ResourceManager;
 import com.sweetlab.sweetride.resource.BufferResource;
+import com.sweetlab.sweetride.resource.EvictableResource;
 import com.sweetlab.sweetride.util.Util;
 
 import java.nio.Buffer;
@@ -16,7 +17,7 @@ import java.nio.ShortBuffer;
 /**
  * Indices buffer holding indices, used while drawing with indices.
  */
-public class IndicesBuffer extends NoHandleNotifier<GlobalActionId> implements BufferResource {
+public class IndicesBuffer extends NoHandleNotifier<GlobalActionId> implements BufferResource, EvictableResource {
     /**
      * Buffer holding the indices.
      */
@@ -37,6 +38,16 @@ public class IndicesBuffer extends NoHandleNotifier<GlobalActionId> implements B
      */
     private final BufferUsage mBufferUsage;
 
+    /**
+     * Action creating the buffer.
+     */
+    private final Action<GlobalActionId> mCreateAction;
+
+    /**
+     * Action loading the indices.
+     */
+    private final Action<GlobalActionId> mLoadAction;
+
     /**
      * The buffer 'name'/id.
      */
@@ -52,8 +63,10 @@ public class IndicesBuffer extends NoHandleNotifier<GlobalActionId> implements B
         mIndicesCount = data.length;
         mByteCount = data.length * Util.BYTES_PER_SHORT;
         mBuffer = createShortBuffer(data);
-        addAction(new Action<>(this, GlobalActionId.INDICES_CREATE, ActionThread.GL));
-        addAction(new Action<>(this, GlobalActionId.INDICES_LOAD, ActionThread.GL));
+        mCreateAction = new Action<>(this, GlobalActionId.INDICES_CREATE, ActionThread.GL);
+        mLoadAction = new Action<>(this, GlobalActionId.INDICES_LOAD, ActionThread.GL);
+        addAction(mCreateAction);
+        addAction(mLoadAction);
     }
 
     @Override
@@ -94,6 +107,18 @@ public class IndicesBuffer extends NoHandleNotifier<GlobalActionId> implements B
     @Override
     public void delete(BackendContext context) {
         context.getResourceManager().deleteBuffer(mBufferId);
+        mBufferId = ResourceManager.INVALID_BUFFER_ID;
+    }
+
+    @Override
+    public boolean isEvictable() {
+        return true;
+    }
+
+    @Override
+    public void restore() {
+        addAction(mCreateAction);
+        addAction(mLoadAction);
     }
 
     @Override
@@ -119,6 +144,24 @@ public class IndicesBuffer extends NoHandleNotifier<GlobalActionId> implements B
         return mIndicesCount;
     }
 
+    /**
+     * Get offset in bytes of the indices within the gpu buffer.
+     *
+     * @return The offset in bytes.
+     */
+    public int getOffsetBytes() {
+        return 0;
+    }
+
+    /**
+     * Get the size in bytes of the gpu buffer holding the indices.
+     *
+     * @return The size in bytes.
+     */
+    public int getBufferByteCount() {
+        return mByteCount;
+    }
+
     /**
      * Create a buffer from data array.
      *
@@ -34,6 +34,16 @@ public class InterleavedData extends NoHandleNotifier<GlobalActionId> implements
      */
     private final BufferUsage mBufferUsage;
 
+    /**
+     * Action creating the buffer.
+     */
+    private final Action<GlobalActionId> mCreateAction;
+
+    /**
+     * Action loading the buffer.
+     */
+    private final Action<GlobalActionId> mLoadAction;
+
     /**
      * The buffer 'name'/id.
      */
@@ -90,8 +100,10 @@ public class InterleavedData extends NoHandleNotifier<GlobalActionId> implements
         mBufferUsage = bufferUsage;
         mTotalByteCount = byteCount;
         mBuffer = Util.createBuffer(data, mTotalByteCount);
-        addAction(new Action<>(this, GlobalActionId.INTERLEAVED_BUFFER_CREATE, ActionThread.GL));
-        addAction(new Action<>(this, GlobalActionId.INTERLEAVED_BUFFER_LOAD, ActionThread.GL));
+        mCreateAction = new Action<>(this, GlobalActionId.INTERLEAVED_BUFFER_CREATE, ActionThread.GL);
+        mLoadAction = new Action<>(this, GlobalActionId.INTERLEAVED_BUFFER_LOAD, ActionThread.GL);
+        addAction(mCreateAction);
+        addAction(mLoadAction);
     }
 
     @Override
@@ -135,6 +147,14 @@ public class InterleavedData extends NoHandleNotifier<GlobalActionId> implements
         mBufferId = ResourceManager.INVALID_BUFFER_ID;
     }
 
+    /**
+     * Restore the actions that creates and loads the buffer. Call from main thread.
+     */
+    public void restore() {
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
     @Override
     public boolean handleAction(BackendContext context, Action<GlobalActionId> action) {
         switch (action.getType()) {
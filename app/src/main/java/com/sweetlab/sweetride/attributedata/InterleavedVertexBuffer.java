@@ -143,6 +143,11 @@ public class InterleavedVertexBuffer extends VertexBufferResource {
         mData.create(context);
     }
 
+    @Override
+    public void restore() {
+        mData.restore();
+    }
+
     @Override
     public boolean isCreated() {
         return mData.isCreated();
@@ -35,6 +35,16 @@ public class VertexBuffer extends VertexBufferResource {
      */
     private final BufferPointer mBufferPointer;
 
+    /**
+     * Action creating the buffer.
+     */
+    private final Action<GlobalActionId> mCreateAction;
+
+    /**
+     * Action loading the buffer.
+     */
+    private final Action<GlobalActionId> mLoadAction;
+
     /**
      * The buffer 'name'/id.
      */
@@ -52,8 +62,10 @@ public class VertexBuffer extends VertexBufferResource {
         mBufferUsage = bufferUsage;
         mVertexData = vertexData;
         mBuffer = Util.createBuffer(vertexData.getData(), vertexData.getTotalByteCount());
-        addAction(new Action<>(this, GlobalActionId.VERTEX_BUFFER_CREATE, ActionThread.GL));
-        addAction(new Action<>(this, GlobalActionId.VERTEX_BUFFER_LOAD, ActionThread.GL));
+        mCreateAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_CREATE, ActionThread.GL);
+        mLoadAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_LOAD, ActionThread.GL);
+        addAction(mCreateAction);
+        addAction(mLoadAction);
     }
 
     @Override
@@ -97,6 +109,12 @@ public class VertexBuffer extends VertexBufferResource {
         mBufferId = context.getResourceManager().generateBuffer();
     }
 
+    @Override
+    public void restore() {
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
     @Override
     public int getAttributePointerCount() {
         return 1;
@@ -9,6 +9,8 @@ import com.sweetlab.sweetride.math.Matrix44;
 import com.sweetlab.sweetride.math.Transform;
 import com.sweetlab.sweetride.math.Vec3;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Camera. Three axis camera with a frustrum.
  * <p/>
@@ -40,6 +42,11 @@ public class Camera extends NoHandleNotifier<GlobalActionId> {
      */
     public static final Vec3 sDefaultPos = new Vec3(0, 0, 0);
 
+    /**
+     * The stamp generator, 0 is reserved for no camera.
+     */
+    private static final AtomicInteger sStamp = new AtomicInteger();
+
     /**
      * Camera has been updated.
      */
@@ -100,6 +107,11 @@ public class Camera extends NoHandleNotifier<GlobalActionId> {
      */
     private final FrustrumPlanes mFrustrumPlanes = new FrustrumPlanes();
 
+    /**
+     * Stamp unique among all cameras, renewed each time the matrices are updated.
+     */
+    private int mStamp = sStamp.incrementAndGet();
+
     /**
      * Constructor.
      */
@@ -124,6 +136,7 @@ public class Camera extends NoHandleNotifier<GlobalActionId> {
             case FRUSTRUM_UPDATED:
                 updateMatrices();
                 mFrustrumPlanes.update(this);
+                mStamp = sStamp.incrementAndGet();
                 break;
             default:
                 break;
@@ -232,6 +245,16 @@ public class Camera extends NoHandleNotifier<GlobalActionId> {
         updateCamera();
     }
 
+    /**
+     * Get the stamp of the current matrices. Two reads returning the same stamp saw the same
+     * view and projection, also across cameras since stamps are unique among all cameras.
+     *
+     * @return The stamp, never 0.
+     */
+    public int getStamp() {
+        return mStamp;
+    }
+
     /**
      * Get the view matrix by reference.
      *
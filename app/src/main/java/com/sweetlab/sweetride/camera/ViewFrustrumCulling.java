@@ -11,6 +11,21 @@ import com.sweetlab.sweetride.math.Vec3;
  * Provides visibility testing for points and geometries.
  */
 public class ViewFrustrumCulling {
+    /**
+     * Plane mask with all six view frustrum planes.
+     */
+    public static final int ALL_PLANES = 0x3f;
+
+    /**
+     * Returned from cull when box is outside view frustrum.
+     */
+    public static final int OUTSIDE = -1;
+
+    /**
+     * Number of view frustrum planes.
+     */
+    private static final int PLANE_COUNT = 6;
+
     /**
      * Bounding box max (x,y,z) values
      */
@@ -113,6 +128,46 @@ public class ViewFrustrumCulling {
         return true;
     }
 
+    /**
+     * Cull bounding box against the view frustrum planes in the plane mask. Planes the box is fully
+     * inside of are removed from the returned mask, so a box inside a box that is fully inside
+     * the view frustrum doesn't need to be tested at all (mask 0).
+     *
+     * @param box       The bounding box, must not be empty.
+     * @param camera    The camera.
+     * @param planeMask The planes to test, bit index order is near, far, right, left, top, bottom.
+     * @return OUTSIDE or the mask of planes the box intersects, 0 if fully inside.
+     */
+    public int cull(BoundingBox box, Camera camera, int planeMask) {
+        box.getWidthVec(mWidthVec);
+        box.getHeightVec(mHeightVec);
+        box.getDepthVec(mDepthVec);
+        box.getMiddlePoint(mMiddlePoint);
+
+        int result = planeMask;
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            int bit = 1 << i;
+            if ((planeMask & bit) != 0) {
+                Plane plane = getPlane(camera, i);
+                plane.getNormal(mNormal);
+
+                float radius = Math.abs(mWidthVec.dot(mNormal));
+                radius += Math.abs(mHeightVec.dot(mNormal));
+                radius += Math.abs(mDepthVec.dot(mNormal));
+                radius /= 2;
+
+                float signedDistToPoint = plane.getSignedDistToPoint(mMiddlePoint);
+                if (signedDistToPoint <= -radius) {
+                    return OUTSIDE;
+                }
+                if (signedDistToPoint >= radius) {
+                    result &= ~bit;
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Check if geometry is visible, i.e inside camera view frustrum.
      *
@@ -148,4 +203,28 @@ public class ViewFrustrumCulling {
         float signedDistToPoint = plane.getSignedDistToPoint(mMiddlePoint);
         return signedDistToPoint > -radius;
     }
+
+    /**
+     * Get camera plane by cull bit index.
+     *
+     * @param camera The camera.
+     * @param index  The bit index.
+     * @return The plane.
+     */
+    private static Plane getPlane(Camera camera, int index) {
+        switch (index) {
+            case 0:
+                return camera.getNearPlane();
+            case 1:
+                return camera.getFarPlane();
+            case 2:
+                return camera.getRightPlane();
+            case 3:
+                return camera.getLeftPlane();
+            case 4:
+                return camera.getTopPlane();
+            default:
+                return camera.getBottomPlane();
+        }
+    }
 }
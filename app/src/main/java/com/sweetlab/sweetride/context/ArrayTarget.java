@@ -21,19 +21,19 @@ public class ArrayTarget {
     private static final int TARGET = GLES20.GL_ARRAY_BUFFER;
 
     /**
-     * The array target buffer binding.
+     * The backend context.
      */
-    private static final int BINDING = GLES20.GL_ARRAY_BUFFER_BINDING;
+    private final BackendContext mContext;
 
     /**
-     * Buffer to read GL information.
+     * If state and arguments should be validated.
      */
-    private final int[] mReadBuffer = new int[4];
+    private final boolean mValidate;
 
     /**
-     * The backend context.
+     * The GL implementation.
      */
-    private final BackendContext mContext;
+    private final GL mGL;
 
     /**
      * Constructor.
@@ -41,7 +41,9 @@ public class ArrayTarget {
      * @param backendContext The backend context.
      */
     public ArrayTarget(BackendContext backendContext) {
+        mGL = backendContext.getGL();
         mContext = backendContext;
+        mValidate = backendContext.isValidating();
     }
 
     /**
@@ -50,20 +52,56 @@ public class ArrayTarget {
      * @param attributeData Attribute data.
      */
     public void load(BufferResource attributeData) {
-        if (DebugOptions.DEBUG_ARRAY_TARGET) {
+        if (mValidate && DebugOptions.DEBUG_ARRAY_TARGET) {
             if (!attributeData.isCreated()) {
                 throw new RuntimeException("Trying to load attribute data that has not been created");
             }
         }
         final int bufferId = attributeData.getId();
         if (isBufferUnBound(bufferId)) {
-            GLES20.glBindBuffer(TARGET, bufferId);
+            bindBuffer(bufferId);
         }
 
         final Buffer data = attributeData.getBuffer();
         final int totalByteCount = attributeData.getTotalByteCount();
         final int bufferUsage = attributeData.getBufferUsage().getGlHint();
-        GLES20.glBufferData(TARGET, totalByteCount, data, bufferUsage);
+        mGL.glBufferData(TARGET, totalByteCount, data, bufferUsage);
+        mContext.getResourceManager().setByteCount(ResourceType.BUFFER, bufferId, totalByteCount);
+    }
+
+    /**
+     * Load a range of a buffer resource to gpu. The buffer must have been loaded before.
+     *
+     * @param attributeData Attribute data.
+     * @param offsetBytes   Offset in bytes into the gpu buffer.
+     * @param byteCount     Number of bytes to load.
+     * @param data          The data, read from its position.
+     */
+    public void loadRange(BufferResource attributeData, int offsetBytes, int byteCount, Buffer data) {
+        if (mValidate && DebugOptions.DEBUG_ARRAY_TARGET) {
+            if (offsetBytes < 0 || offsetBytes + byteCount > attributeData.getTotalByteCount()) {
+                throw new RuntimeException("Trying to load range outside attribute data, offset = " + offsetBytes + " count = " + byteCount);
+            }
+        }
+        final int bufferId = attributeData.getId();
+        if (isBufferUnBound(bufferId)) {
+            bindBuffer(bufferId);
+        }
+        mGL.glBufferSubData(TARGET, offsetBytes, byteCount, data);
+    }
+
+    /**
+     * Orphan the gpu storage of a buffer resource. The driver hands out new storage of the same
+     * size instead of waiting for the gpu to finish reading the old, content is undefined.
+     *
+     * @param attributeData Attribute data.
+     */
+    public void orphan(BufferResource attributeData) {
+        final int bufferId = attributeData.getId();
+        if (isBufferUnBound(bufferId)) {
+            bindBuffer(bufferId);
+        }
+        mGL.glBufferData(TARGET, attributeData.getTotalByteCount(), null, attributeData.getBufferUsage().getGlHint());
     }
 
 
@@ -79,7 +117,8 @@ public class ArrayTarget {
          */
         final int bufferId = resource.getId();
         if (isBufferUnBound(bufferId)) {
-            GLES20.glBindBuffer(TARGET, bufferId);
+            bindBuffer(bufferId);
+            mContext.getRenderStats().onBufferSwitch();
         }
 
         int count = resource.getAttributePointerCount();
@@ -92,13 +131,15 @@ public class ArrayTarget {
                  */
                 final int attributeLocation = attribute.getLocation();
                 if (isAttributeDisabled(attributeLocation)) {
-                    GLES20.glEnableVertexAttribArray(attributeLocation);
+                    mGL.glEnableVertexAttribArray(attributeLocation);
+                    mContext.getStateShadow().setAttribEnabled(attributeLocation, true);
                 }
 
                 /**
                  * Check if attribute has correct buffer bound. If not, reconfigure attribute.
                  */
-                if (getBoundAttributeBuffer(attributeLocation) != bufferId) {
+                final int offsetBytes = pointer.getOffsetBytes();
+                if (getBoundAttributeBuffer(attributeLocation) != bufferId || getBoundAttributeOffset(attributeLocation) != offsetBytes) {
                     final int dataVertexSize = pointer.getVertexSize();
                     if (dataVertexSize > attribute.getVertexSize()) {
                         throw new RuntimeException("Element count in data is larger than specified in shader " +
@@ -113,9 +154,9 @@ public class ArrayTarget {
                      */
                     final int strideBytes = pointer.getStrideBytes();
                     final boolean shouldNormalize = pointer.getShouldNormalize();
-                    final int offsetBytes = pointer.getOffsetBytes();
                     final int typeFamily = attribute.getTypeFamily();
-                    GLES20.glVertexAttribPointer(attributeLocation, dataVertexSize, typeFamily, shouldNormalize, strideBytes, offsetBytes);
+                    mGL.glVertexAttribPointer(attributeLocation, dataVertexSize, typeFamily, shouldNormalize, strideBytes, offsetBytes);
+                    mContext.getStateShadow().setAttribBuffer(attributeLocation, bufferId, offsetBytes);
                 }
             }
         }
@@ -128,15 +169,19 @@ public class ArrayTarget {
      * @param resource The vertex buffer resource.
      */
     public void disableAttribute(ShaderProgram program, VertexBufferResource resource) {
-        if (isNoBufferBound()) {
-            throw new RuntimeException("Can't disable active attribute with not bound buffer object to target GL_ARRAY_BUFFER");
+        if (mValidate) {
+            if (isNoBufferBound()) {
+                throw new RuntimeException("Can't disable active attribute with not bound buffer object to target GL_ARRAY_BUFFER, resource buffer = " + resource.getId());
+            }
         }
 
         int count = resource.getAttributePointerCount();
         for (int i = 0; i < count; i++) {
             Attribute attribute = program.getAttribute(resource.getAttributePointer(i).getName());
             if (attribute != null) {
-                GLES20.glDisableVertexAttribArray(attribute.getLocation());
+                final int attributeLocation = attribute.getLocation();
+                mGL.glDisableVertexAttribArray(attributeLocation);
+                mContext.getStateShadow().setAttribEnabled(attributeLocation, false);
             }
         }
     }
@@ -156,7 +201,8 @@ public class ArrayTarget {
          */
         final int bufferId = data.getId();
         if (isBufferUnBound(bufferId)) {
-            GLES20.glBindBuffer(TARGET, bufferId);
+            bindBuffer(bufferId);
+            mContext.getRenderStats().onBufferSwitch();
         }
 
         /**
@@ -164,13 +210,15 @@ public class ArrayTarget {
          */
         final int attributeLocation = attribute.getLocation();
         if (isAttributeDisabled(attributeLocation)) {
-            GLES20.glEnableVertexAttribArray(attributeLocation);
+            mGL.glEnableVertexAttribArray(attributeLocation);
+            mContext.getStateShadow().setAttribEnabled(attributeLocation, true);
         }
 
         /**
          * Check if attribute has correct buffer bound. If not, reconfigure attribute.
          */
-        if (getBoundAttributeBuffer(attributeLocation) != bufferId) {
+        final int offsetBytes = pointer.getOffsetBytes();
+        if (getBoundAttributeBuffer(attributeLocation) != bufferId || getBoundAttributeOffset(attributeLocation) != offsetBytes) {
             final int dataVertexSize = pointer.getVertexSize();
             if (dataVertexSize > attribute.getVertexSize()) {
                 throw new RuntimeException("Element count in data is larger than specified in shader " +
@@ -185,9 +233,9 @@ public class ArrayTarget {
              */
             final int strideBytes = pointer.getStrideBytes();
             final boolean shouldNormalize = pointer.getShouldNormalize();
-            final int offsetBytes = pointer.getOffsetBytes();
             final int typeFamily = attribute.getTypeFamily();
-            GLES20.glVertexAttribPointer(attributeLocation, dataVertexSize, typeFamily, shouldNormalize, strideBytes, offsetBytes);
+            mGL.glVertexAttribPointer(attributeLocation, dataVertexSize, typeFamily, shouldNormalize, strideBytes, offsetBytes);
+            mContext.getStateShadow().setAttribBuffer(attributeLocation, bufferId, offsetBytes);
         }
     }
 
@@ -197,10 +245,14 @@ public class ArrayTarget {
      * @param attribute The shader program attribute.
      */
     public void disableAttribute(Attribute attribute) {
-        if (isNoBufferBound()) {
-            throw new RuntimeException("Can't disable active attribute with not bound buffer object to target GL_ARRAY_BUFFER");
+        if (mValidate) {
+            if (isNoBufferBound()) {
+                throw new RuntimeException("Can't disable active attribute " + attribute.getName() + " with not bound buffer object to target GL_ARRAY_BUFFER");
+            }
         }
-        GLES20.glDisableVertexAttribArray(attribute.getLocation());
+        final int attributeLocation = attribute.getLocation();
+        mGL.glDisableVertexAttribArray(attributeLocation);
+        mContext.getStateShadow().setAttribEnabled(attributeLocation, false);
     }
 
     /**
@@ -211,13 +263,20 @@ public class ArrayTarget {
      * @param count      Number of vertices.
      */
     public void draw(int mode, int startIndex, int count) {
-        if (mContext.getState().readActiveProgram() <= ResourceManager.INVALID_PROGRAM_ID) {
-            throw new RuntimeException("Invalid shader program while array draw is called");
-        }
-        if (isNoBufferBound()) {
-            throw new RuntimeException("Can't draw without a bound buffer to GL_ARRAY_BUFFER");
+        if (mValidate) {
+            final int program = mContext.getState().readActiveProgram();
+            if (program <= ResourceManager.INVALID_PROGRAM_ID) {
+                throw new RuntimeException("Invalid shader program " + program + " while array draw is called, mode = " + mode + " count = " + count);
+            }
+            if (isNoBufferBound()) {
+                throw new RuntimeException("Can't draw without a bound buffer to GL_ARRAY_BUFFER, program = " + program + " mode = " + mode + " count = " + count);
+            }
+            if (startIndex < 0 || count < 0) {
+                throw new RuntimeException("Invalid array draw range, start index = " + startIndex + " count = " + count);
+            }
         }
-        GLES20.glDrawArrays(mode, startIndex, count);
+        mGL.glDrawArrays(mode, startIndex, count);
+        mContext.getRenderStats().onDrawCall();
     }
 
     /**
@@ -226,8 +285,8 @@ public class ArrayTarget {
      * @return True if target has buffer bound.
      */
     public boolean isNoBufferBound() {
-        GLES20.glGetIntegerv(BINDING, mReadBuffer, 0);
-        return mReadBuffer[0] == 0;
+        final int bufferId = mContext.getStateShadow().getArrayBuffer();
+        return bufferId == 0 || bufferId == GLStateShadow.UNKNOWN;
     }
 
     /**
@@ -238,12 +297,21 @@ public class ArrayTarget {
      */
     private boolean isBufferUnBound(int id) {
         if (id > 0) {
-            GLES20.glGetIntegerv(BINDING, mReadBuffer, 0);
-            return mReadBuffer[0] != id;
+            return mContext.getStateShadow().getArrayBuffer() != id;
         }
         return true;
     }
 
+    /**
+     * Bind buffer to target.
+     *
+     * @param id The buffer id.
+     */
+    private void bindBuffer(int id) {
+        mGL.glBindBuffer(TARGET, id);
+        mContext.getStateShadow().setArrayBuffer(id);
+    }
+
     /**
      * Get if attribute is disabled.
      *
@@ -251,8 +319,7 @@ public class ArrayTarget {
      * @return True if disabled.
      */
     public boolean isAttributeDisabled(int location) {
-        GLES20.glGetVertexAttribiv(location, GLES20.GL_VERTEX_ATTRIB_ARRAY_ENABLED, mReadBuffer, 0);
-        return mReadBuffer[0] == 0;
+        return mContext.getStateShadow().getAttribEnabled(location) != GLStateShadow.ATTRIB_ENABLED;
     }
 
     /**
@@ -262,7 +329,16 @@ public class ArrayTarget {
      * @return The buffer bound to attribute.
      */
     public int getBoundAttributeBuffer(int location) {
-        GLES20.glGetVertexAttribiv(location, GLES20.GL_VERTEX_ATTRIB_ARRAY_BUFFER_BINDING, mReadBuffer, 0);
-        return mReadBuffer[0];
+        return mContext.getStateShadow().getAttribBuffer(location);
+    }
+
+    /**
+     * Get the offset into its buffer of the attribute at location.
+     *
+     * @param location The attribute location.
+     * @return The offset in bytes or GLStateShadow.UNKNOWN.
+     */
+    public int getBoundAttributeOffset(int location) {
+        return mContext.getStateShadow().getAttribOffset(location);
     }
 }
@@ -43,13 +43,18 @@ public class AttributeExtractor {
      */
     private final int[] mType = new int[1];
 
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
     /**
      * Constructor.
      *
      * @param backendContext The backend context.
      */
-    @SuppressWarnings("unused")
     public AttributeExtractor(BackendContext backendContext) {
+        mGL = backendContext.getGL();
     }
 
     /**
@@ -59,14 +64,23 @@ public class AttributeExtractor {
      * @return Map of attributes.
      */
     public Map<String, Attribute> extract(ShaderProgram program) {
-        int id = program.getId();
-        GLES20.glGetProgramiv(id, GLES20.GL_ACTIVE_ATTRIBUTES, mCount, 0);
+        return extract(program.getId());
+    }
+
+    /**
+     * Extract all attributes from a linked program id.
+     *
+     * @param id The linked program id.
+     * @return Map of all attributes.
+     */
+    public Map<String, Attribute> extract(int id) {
+        mGL.glGetProgramiv(id, GLES20.GL_ACTIVE_ATTRIBUTES, mCount, 0);
         if (mCount[0] > 0) {
             Map<String, Attribute> map = new HashMap<>(mCount[0]);
             for (int i = 0; i < mCount[0]; i++) {
-                GLES20.glGetActiveAttrib(id, i, MAX_NAME_LENGTH, mNameLen, 0, mArraySize, 0, mType, 0, mName, 0);
+                mGL.glGetActiveAttrib(id, i, MAX_NAME_LENGTH, mNameLen, 0, mArraySize, 0, mType, 0, mName, 0);
                 String name = new String(mName, 0, mNameLen[0]);
-                int location = GLES20.glGetAttribLocation(id, name);
+                int location = mGL.glGetAttribLocation(id, name);
                 map.put(name, new Attribute(name, mArraySize[0], mType[0], location));
             }
             return map;
@@ -37,6 +37,9 @@ public class BackendActionHandler {
      * @return True if any action was handled, false if no actions where found.
      */
     public boolean handleActions(ActionNotifier notifier) {
+        if (!notifier.hasActions(ActionThread.GL)) {
+            return false;
+        }
         boolean actionHandled = false;
 
         /**
@@ -62,4 +65,21 @@ public class BackendActionHandler {
 
         return actionHandled;
     }
+
+    /**
+     * Handle a list of GL actions that already has been detached from their notifiers.
+     *
+     * @param actions The detached actions.
+     * @return True if any action was handled.
+     */
+    public boolean handleActions(List<Action> actions) {
+        boolean actionHandled = false;
+        final int actionCount = actions.size();
+        for (int i = 0; i < actionCount; i++) {
+            if (actions.get(i).handleAction(mContext)) {
+                actionHandled = true;
+            }
+        }
+        return actionHandled;
+    }
 }
@@ -1,10 +1,41 @@
 package com.sweetlab.sweetride.context;
 
+import com.sweetlab.sweetride.resource.ResourceReleaser;
+
 /**
  * Backend context. Must be created with GL context available. Each new frame, onNewFrame must be
  * called.
+ * <p/>
+ * The context comes in two flavours. The validating flavour checks GL state and arguments in the
+ * draw, enable and disable paths and throws with diagnostics when something is wrong. The fast
+ * flavour makes no checks and never queries GL in those paths.
  */
 public class BackendContext {
+    /**
+     * The backend flavour.
+     */
+    public enum Flavour {
+        /**
+         * Validate state and arguments, query GL when needed.
+         */
+        VALIDATING,
+
+        /**
+         * No validation and no GL queries in draw paths.
+         */
+        FAST
+    }
+
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
+    /**
+     * The flavour of this context.
+     */
+    private final Flavour mFlavour;
+
     /**
      * GL HW capabilities
      */
@@ -15,6 +46,16 @@ public class BackendContext {
      */
     private final RenderState mRenderSettings;
 
+    /**
+     * Mirror of the GL binding state.
+     */
+    private final GLStateShadow mStateShadow;
+
+    /**
+     * Per frame render statistics.
+     */
+    private final RenderStats mRenderStats;
+
     /**
      * Max number of texture units.
      */
@@ -30,6 +71,11 @@ public class BackendContext {
      */
     private ProgramLinker mProgramLinker;
 
+    /**
+     * Program cache.
+     */
+    private ProgramCache mProgramCache;
+
     /**
      * Uniform writer.
      */
@@ -86,13 +132,94 @@ public class BackendContext {
     private BackendActionHandler mBackendActionHandler;
 
     /**
-     * Constructor. Must be created with GL context available. Each new frame, onNewFrame must be
-     * called.
+     * Queue of work posted from any thread to be executed on GL thread.
+     */
+    private final GLWorkQueue mWorkQueue = new GLWorkQueue();
+
+    /**
+     * Releaser of resources no longer held, deleting them in this context.
+     */
+    private final ResourceReleaser mResourceReleaser = new ResourceReleaser();
+
+    /**
+     * Constructor. Creates a validating context. Must be created with GL context available.
+     * Each new frame, onNewFrame must be called.
      */
     public BackendContext() {
-        mCapabilities = new Capabilities();
+        this(Flavour.VALIDATING);
+    }
+
+    /**
+     * Constructor. Uses the Android GL implementation. Must be created with GL context available.
+     * Each new frame, onNewFrame must be called.
+     *
+     * @param flavour The flavour.
+     */
+    public BackendContext(Flavour flavour) {
+        this(new AndroidGL(), flavour);
+    }
+
+    /**
+     * Constructor. Must be created with the GL implementation ready for use. Each new frame,
+     * onNewFrame must be called.
+     *
+     * @param gl      The GL implementation.
+     * @param flavour The flavour.
+     */
+    public BackendContext(GL gl, Flavour flavour) {
+        mGL = gl;
+        mFlavour = flavour;
+        final boolean validating = flavour == Flavour.VALIDATING;
+        mCapabilities = new Capabilities(gl);
         mMaxNumberTextureUnits = mCapabilities.getMaxNumberTextureUnits();
-        mRenderSettings = new RenderState();
+        mRenderSettings = new RenderState(gl, validating);
+        mRenderStats = new RenderStats();
+        mStateShadow = new GLStateShadow(gl, mMaxNumberTextureUnits, mCapabilities.getMaxVertexAttribs(), validating);
+    }
+
+    /**
+     * Get the GL implementation. All GL calls of the backend goes through it.
+     *
+     * @return The GL implementation.
+     */
+    public GL getGL() {
+        return mGL;
+    }
+
+    /**
+     * Get the flavour of this context.
+     *
+     * @return The flavour.
+     */
+    public Flavour getFlavour() {
+        return mFlavour;
+    }
+
+    /**
+     * Check if this is a validating context.
+     *
+     * @return True if validating.
+     */
+    public boolean isValidating() {
+        return mFlavour == Flavour.VALIDATING;
+    }
+
+    /**
+     * Get the mirror of the GL binding state.
+     *
+     * @return The state shadow.
+     */
+    public GLStateShadow getStateShadow() {
+        return mStateShadow;
+    }
+
+    /**
+     * Get the per frame render statistics.
+     *
+     * @return The render statistics.
+     */
+    public RenderStats getRenderStats() {
+        return mRenderStats;
     }
 
     /**
@@ -137,6 +264,18 @@ public class BackendContext {
         return mProgramLinker;
     }
 
+    /**
+     * Get the program cache, sharing linked programs among shader programs with equal sources.
+     *
+     * @return The program cache.
+     */
+    public ProgramCache getProgramCache() {
+        if (mProgramCache == null) {
+            mProgramCache = new ProgramCache(this);
+        }
+        return mProgramCache;
+    }
+
     /**
      * Get shader program attribute extractor.
      *
@@ -269,10 +408,43 @@ public class BackendContext {
         return mBackendActionHandler;
     }
 
+    /**
+     * Get the releaser of resources no longer held. Used from main thread by the frame updating
+     * for this context, see Frame.setResourceReleaser.
+     *
+     * @return The resource releaser.
+     */
+    public ResourceReleaser getResourceReleaser() {
+        return mResourceReleaser;
+    }
+
+    /**
+     * Get the GL work queue. Any thread can post work, it is executed at the start of each
+     * rendered frame.
+     *
+     * @return The GL work queue.
+     */
+    public GLWorkQueue getWorkQueue() {
+        return mWorkQueue;
+    }
+
+    /**
+     * Must be called when the surface and GL context has been re-created. Any GL state
+     * mirrored on CPU side is invalid.
+     */
+    public void onSurfaceCreated() {
+        mStateShadow.invalidate();
+        mResourceReleaser.clear();
+        if (mProgramCache != null) {
+            mProgramCache.clear();
+        }
+    }
+
     /**
      * Must be called on each new frame.
      */
     public void onNewFrame() {
         mRenderSettings.resetClearOrder();
+        mRenderStats.onNewFrame();
     }
 }
@@ -91,6 +91,33 @@ public class BackendRenderSettings {
         mClearOrder = -1;
     }
 
+    /**
+     * Copy all settings from another render settings. Only copies values, does not touch
+     * GL state so it must not be used on the render state.
+     *
+     * @param other Settings to copy from.
+     */
+    public void set(BackendRenderSettings other) {
+        System.arraycopy(other.mClearColor, 0, mClearColor, 0, mClearColor.length);
+        System.arraycopy(other.mViewPort, 0, mViewPort, 0, mViewPort.length);
+        mBlendEqFunc = other.mBlendEqFunc;
+        mBlendSrcFact = other.mBlendSrcFact;
+        mBlendDstFact = other.mBlendDstFact;
+        mClearMask = other.mClearMask;
+        mClearDepth = other.mClearDepth;
+        mClearStencil = other.mClearStencil;
+        mBlend = other.mBlend;
+        mCullFace = other.mCullFace;
+        mDepthTest = other.mDepthTest;
+        mDither = other.mDither;
+        mPolygonOffsetFill = other.mPolygonOffsetFill;
+        mSampleAlphaToCoverage = other.mSampleAlphaToCoverage;
+        mSampleCoverage = other.mSampleCoverage;
+        mScissorTest = other.mScissorTest;
+        mStencilTest = other.mStencilTest;
+        mClearOrder = other.mClearOrder;
+    }
+
     /**
      * Set blend equation function.
      *
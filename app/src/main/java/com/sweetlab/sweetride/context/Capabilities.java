@@ -1,11 +1,20 @@
 package com.sweetlab.sweetride.context;
 
 import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Knows about the GL capabilities.
  */
 public class Capabilities {
+    /**
+     * Finds the major version in the GL version string, "OpenGL ES N.M vendor specific".
+     */
+    private static final Pattern VERSION = Pattern.compile("OpenGL ES (\\d+)");
+
     /**
      * Holds max number of texture units.
      */
@@ -16,17 +25,45 @@ public class Capabilities {
      */
     private final int mMaxRenderBufferSize;
 
+    /**
+     * Holds max number of vertex attributes.
+     */
+    private final int mMaxVertexAttribs;
+
+    /**
+     * Holds the major GL ES version.
+     */
+    private final int mMajorVersion;
+
+    /**
+     * Holds if linked programs can be read and loaded as binaries.
+     */
+    private final boolean mProgramBinarySupported;
+
     /**
      * Constructor. Must be called with GL context available.
+     *
+     * @param gl The GL implementation.
      */
-    public Capabilities() {
+    public Capabilities(GL gl) {
         int[] buf = new int[1];
 
-        GLES20.glGetIntegerv(GLES20.GL_MAX_TEXTURE_IMAGE_UNITS, buf, 0);
+        gl.glGetIntegerv(GLES20.GL_MAX_TEXTURE_IMAGE_UNITS, buf, 0);
         mMaxNumberTextureUnits = buf[0];
 
-        GLES20.glGetIntegerv(GLES20.GL_MAX_RENDERBUFFER_SIZE, buf, 0);
+        gl.glGetIntegerv(GLES20.GL_MAX_RENDERBUFFER_SIZE, buf, 0);
         mMaxRenderBufferSize = buf[0];
+
+        gl.glGetIntegerv(GLES20.GL_MAX_VERTEX_ATTRIBS, buf, 0);
+        mMaxVertexAttribs = buf[0];
+
+        mMajorVersion = readMajorVersion(gl.glGetString(GLES20.GL_VERSION));
+        if (mMajorVersion >= 3) {
+            gl.glGetIntegerv(GLES30.GL_NUM_PROGRAM_BINARY_FORMATS, buf, 0);
+            mProgramBinarySupported = buf[0] > 0;
+        } else {
+            mProgramBinarySupported = false;
+        }
     }
 
     /**
@@ -46,4 +83,48 @@ public class Capabilities {
     public int getMaxRenderBufferSize() {
         return mMaxRenderBufferSize;
     }
+
+    /**
+     * Get the maximum number of vertex attributes.
+     *
+     * @return Max number of vertex attributes.
+     */
+    public int getMaxVertexAttribs() {
+        return mMaxVertexAttribs;
+    }
+
+    /**
+     * Get the major GL ES version.
+     *
+     * @return The major version, 2 if unknown.
+     */
+    public int getMajorVersion() {
+        return mMajorVersion;
+    }
+
+    /**
+     * Check if linked programs can be read and loaded as binaries. Requires ES 3.0 and at
+     * least one binary format.
+     *
+     * @return True if supported.
+     */
+    public boolean isProgramBinarySupported() {
+        return mProgramBinarySupported;
+    }
+
+    /**
+     * Read the major version from the GL version string.
+     *
+     * @param version The version string.
+     * @return The major version, 2 if unknown.
+     */
+    private static int readMajorVersion(String version) {
+        if (version != null) {
+            Matcher matcher = VERSION.matcher(version);
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+        return 2;
+    }
 }
@@ -3,6 +3,7 @@ package com.sweetlab.sweetride.context;
 import android.opengl.GLES20;
 
 import com.sweetlab.sweetride.DebugOptions;
+import com.sweetlab.sweetride.attributedata.IndicesBuffer;
 import com.sweetlab.sweetride.resource.BufferResource;
 import com.sweetlab.sweetride.util.Util;
 
@@ -18,22 +19,29 @@ public class ElementTarget {
     private static final int TARGET = GLES20.GL_ELEMENT_ARRAY_BUFFER;
 
     /**
-     * The array target buffer binding.
+     * The backend context.
      */
-    private static final int BINDING = GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING;
+    private final BackendContext mContext;
 
     /**
-     * Buffer to read GL information.
+     * If state and arguments should be validated.
      */
-    private final int[] mReadBuffer = new int[4];
+    private final boolean mValidate;
+
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
 
     /**
      * Constructor.
      *
      * @param backendContext The backend context.
      */
-    @SuppressWarnings("unused")
     public ElementTarget(BackendContext backendContext) {
+        mGL = backendContext.getGL();
+        mContext = backendContext;
+        mValidate = backendContext.isValidating();
     }
 
     /**
@@ -42,21 +50,44 @@ public class ElementTarget {
      * @param indicesBuffer Indices buffer.
      */
     public void load(BufferResource indicesBuffer) {
-        if (DebugOptions.DEBUG_ELEMENT_TARGET) {
+        if (mValidate && DebugOptions.DEBUG_ELEMENT_TARGET) {
             if (!indicesBuffer.isCreated()) {
                 throw new RuntimeException("Trying to load indices data that has not been created");
             }
         }
         final int bufferId = indicesBuffer.getId();
         if (isBufferUnBound(bufferId)) {
-            GLES20.glBindBuffer(TARGET, bufferId);
+            bindBuffer(bufferId);
         }
 
         final Buffer data = indicesBuffer.getBuffer();
         final int totalByteCount = indicesBuffer.getTotalByteCount();
         final int bufferUsage = indicesBuffer.getBufferUsage().getGlHint();
 
-        GLES20.glBufferData(TARGET, totalByteCount, data, bufferUsage);
+        mGL.glBufferData(TARGET, totalByteCount, data, bufferUsage);
+        mContext.getStateShadow().setElementBufferSize(totalByteCount);
+        mContext.getResourceManager().setByteCount(ResourceType.BUFFER, bufferId, totalByteCount);
+    }
+
+    /**
+     * Load a range of a buffer resource to gpu. The buffer must have been loaded before.
+     *
+     * @param indicesBuffer Indices buffer.
+     * @param offsetBytes   Offset in bytes into the gpu buffer.
+     * @param byteCount     Number of bytes to load.
+     * @param data          The data, read from its position.
+     */
+    public void loadRange(BufferResource indicesBuffer, int offsetBytes, int byteCount, Buffer data) {
+        if (mValidate && DebugOptions.DEBUG_ELEMENT_TARGET) {
+            if (offsetBytes < 0 || offsetBytes + byteCount > indicesBuffer.getTotalByteCount()) {
+                throw new RuntimeException("Trying to load range outside indices data, offset = " + offsetBytes + " count = " + byteCount);
+            }
+        }
+        final int bufferId = indicesBuffer.getId();
+        if (isBufferUnBound(bufferId)) {
+            bindBuffer(bufferId);
+        }
+        mGL.glBufferSubData(TARGET, offsetBytes, byteCount, data);
     }
 
     /**
@@ -64,22 +95,31 @@ public class ElementTarget {
      *
      * @param indicesBuffer Indices buffer.
      */
-    public void enableElements(BufferResource indicesBuffer) {
+    public void enableElements(IndicesBuffer indicesBuffer) {
         /**
          * Check if buffer needs to be bound.
          */
         final int bufferId = indicesBuffer.getId();
         if (isBufferUnBound(bufferId)) {
-            GLES20.glBindBuffer(TARGET, bufferId);
+            bindBuffer(bufferId);
+            mContext.getRenderStats().onBufferSwitch();
         }
+
+        /**
+         * The data has been loaded when enabled, the size is the size of the buffer holding the
+         * indices.
+         */
+        mContext.getStateShadow().setElementBufferSize(indicesBuffer.getBufferByteCount());
     }
 
     /**
      * Disable indices buffer from elements target.
      */
     public void disableElements() {
-        if (isNoBufferBound()) {
-            throw new RuntimeException("Can't disable elements with not bound buffer object to target GL_ELEMENT_ARRAY_BUFFER");
+        if (mValidate) {
+            if (isNoBufferBound()) {
+                throw new RuntimeException("Can't disable elements with not bound buffer object to target GL_ELEMENT_ARRAY_BUFFER");
+            }
         }
         unBindBuffer();
     }
@@ -92,13 +132,21 @@ public class ElementTarget {
      * @param count  Number of indices to draw with.
      */
     public void draw(int mode, int offset, int count) {
-        if (isNoBufferBound()) {
-            throw new RuntimeException("Can't draw using elements without elements buffer object bound");
-        }
-        if (count * Util.BYTES_PER_SHORT > getBoundBufferSize()) {
-            throw new RuntimeException("Trying to draw with element count larger than available count = " + count + " buffer size = " + getBoundBufferSize());
+        if (mValidate) {
+            if (isNoBufferBound()) {
+                throw new RuntimeException("Can't draw using elements without elements buffer object bound, mode = " + mode + " count = " + count);
+            }
+            final int program = mContext.getState().readActiveProgram();
+            if (program <= ResourceManager.INVALID_PROGRAM_ID) {
+                throw new RuntimeException("Invalid shader program " + program + " while elements draw is called, mode = " + mode + " count = " + count);
+            }
+            final int bufferSize = getBoundBufferSize();
+            if (offset < 0 || count < 0 || offset + count * Util.BYTES_PER_SHORT > bufferSize) {
+                throw new RuntimeException("Trying to draw outside elements buffer, offset = " + offset + " count = " + count + " buffer size = " + bufferSize + " buffer = " + mContext.getStateShadow().getElementBuffer());
+            }
         }
-        GLES20.glDrawElements(mode, count, GLES20.GL_UNSIGNED_SHORT, offset);
+        mGL.glDrawElements(mode, count, GLES20.GL_UNSIGNED_SHORT, offset);
+        mContext.getRenderStats().onDrawCall();
     }
 
     /**
@@ -107,15 +155,25 @@ public class ElementTarget {
      * @return True no buffer is bound.
      */
     private boolean isNoBufferBound() {
-        GLES20.glGetIntegerv(BINDING, mReadBuffer, 0);
-        return mReadBuffer[0] == 0;
+        final int bufferId = mContext.getStateShadow().getElementBuffer();
+        return bufferId == 0 || bufferId == GLStateShadow.UNKNOWN;
     }
 
     /**
      * Remove any binding to target.
      */
     private void unBindBuffer() {
-        GLES20.glBindBuffer(TARGET, 0);
+        bindBuffer(0);
+    }
+
+    /**
+     * Bind buffer to target.
+     *
+     * @param id The buffer id.
+     */
+    private void bindBuffer(int id) {
+        mGL.glBindBuffer(TARGET, id);
+        mContext.getStateShadow().setElementBuffer(id);
     }
 
     /**
@@ -127,8 +185,7 @@ public class ElementTarget {
         if (isNoBufferBound()) {
             throw new RuntimeException("Can't read buffer size when no buffer object is bound to target GL_ELEMENT_ARRAY_BUFFER");
         }
-        GLES20.glGetBufferParameteriv(TARGET, GLES20.GL_BUFFER_SIZE, mReadBuffer, 0);
-        return mReadBuffer[0];
+        return mContext.getStateShadow().getElementBufferSize();
     }
 
     /**
@@ -139,8 +196,7 @@ public class ElementTarget {
      */
     private boolean isBufferUnBound(int id) {
         if (id > 0) {
-            GLES20.glGetIntegerv(BINDING, mReadBuffer, 0);
-            return mReadBuffer[0] != id;
+            return mContext.getStateShadow().getElementBuffer() != id;
         }
         return true;
     }
@@ -19,29 +19,32 @@ public class FrameBufferTarget {
     private static final int TARGET = GLES20.GL_FRAMEBUFFER;
 
     /**
-     * The frame buffer binding.
+     * The backend context.
      */
-    private static final int BINDING = GLES20.GL_FRAMEBUFFER_BINDING;
+    private final BackendContext mContext;
 
     /**
-     * Buffer to read GL information.
+     * The GL implementation.
      */
-    private final int[] mReadBuffer = new int[4];
+    private final GL mGL;
 
     /**
      * Constructor.
      *
      * @param context The backend context.
      */
-    @SuppressWarnings("unused")
     public FrameBufferTarget(BackendContext context) {
+        mGL = context.getGL();
+        mContext = context;
     }
 
     /**
      * Use the window frame buffer.
      */
     public void useWindowFrameBuffer() {
-        GLES20.glBindFramebuffer(TARGET, WINDOW_FRAMEBUFFER);
+        if (mContext.getStateShadow().getFrameBuffer() != WINDOW_FRAMEBUFFER) {
+            bindFrameBuffer(WINDOW_FRAMEBUFFER);
+        }
     }
 
     /**
@@ -52,7 +55,7 @@ public class FrameBufferTarget {
     public void useFrameBuffer(FrameBuffer buffer) {
         int id = buffer.getId();
         if (!isFrameBufferBound(id)) {
-            GLES20.glBindFramebuffer(TARGET, id);
+            bindFrameBuffer(id);
         }
     }
 
@@ -62,7 +65,7 @@ public class FrameBufferTarget {
      * @param attachment The color attachment.
      */
     public void setColorAttachment(ColorAttachment attachment) {
-        GLES20.glFramebufferTexture2D(TARGET, GLES20.GL_COLOR_ATTACHMENT0, attachment.getAttachmentType().getGlType(), attachment.getId(), 0);
+        mGL.glFramebufferTexture2D(TARGET, GLES20.GL_COLOR_ATTACHMENT0, attachment.getAttachmentType().getGlType(), attachment.getId(), 0);
     }
 
     /**
@@ -71,7 +74,7 @@ public class FrameBufferTarget {
      * @param attachment The depth attachment.
      */
     public void setDepthAttachment(DepthAttachment attachment) {
-        GLES20.glFramebufferRenderbuffer(TARGET, GLES20.GL_DEPTH_ATTACHMENT, attachment.getAttachmentType().getGlType(), attachment.getId());
+        mGL.glFramebufferRenderbuffer(TARGET, GLES20.GL_DEPTH_ATTACHMENT, attachment.getAttachmentType().getGlType(), attachment.getId());
     }
 
     /**
@@ -80,7 +83,7 @@ public class FrameBufferTarget {
      * @return True if complete.
      */
     public boolean checkIfComplete() {
-        int status = GLES20.glCheckFramebufferStatus(TARGET);
+        int status = mGL.glCheckFramebufferStatus(TARGET);
         return status == GLES20.GL_FRAMEBUFFER_COMPLETE;
     }
 
@@ -92,9 +95,18 @@ public class FrameBufferTarget {
      */
     private boolean isFrameBufferBound(int id) {
         if (id > 0) {
-            GLES20.glGetIntegerv(BINDING, mReadBuffer, 0);
-            return mReadBuffer[0] == id;
+            return mContext.getStateShadow().getFrameBuffer() == id;
         }
         return false;
     }
+
+    /**
+     * Bind frame buffer to target.
+     *
+     * @param id The frame buffer id.
+     */
+    private void bindFrameBuffer(int id) {
+        mGL.glBindFramebuffer(TARGET, id);
+        mContext.getStateShadow().setFrameBuffer(id);
+    }
 }
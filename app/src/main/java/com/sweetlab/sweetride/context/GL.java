@@ -0,0 +1,675 @@
+package com.sweetlab.sweetride.context;
+
+import android.graphics.Bitmap;
+
+import java.nio.Buffer;
+
+/**
+ * The GL calls made by the backend. Mirrors android.opengl.GLES20, and GLUtils for bitmaps, so
+ * the backend can run on top of the Android GL implementation or, without a device, on top of a
+ * recording implementation. The program binary calls are from GLES30 and must only be made on
+ * a context supporting them, see Capabilities.
+ */
+public interface GL {
+    /**
+     * Select active texture unit.
+     *
+     * @param texture The GL based texture unit, GL_TEXTURE0 + n.
+     */
+    void glActiveTexture(int texture);
+
+    /**
+     * Attach a shader to a program.
+     *
+     * @param program The program id.
+     * @param shader  The shader id.
+     */
+    void glAttachShader(int program, int shader);
+
+    /**
+     * Bind a buffer to a target.
+     *
+     * @param target The GL target.
+     * @param buffer The buffer id.
+     */
+    void glBindBuffer(int target, int buffer);
+
+    /**
+     * Bind a frame buffer to a target.
+     *
+     * @param target      The GL target.
+     * @param framebuffer The framebuffer id.
+     */
+    void glBindFramebuffer(int target, int framebuffer);
+
+    /**
+     * Bind a render buffer to a target.
+     *
+     * @param target       The GL target.
+     * @param renderbuffer The renderbuffer id.
+     */
+    void glBindRenderbuffer(int target, int renderbuffer);
+
+    /**
+     * Bind a texture to a target of the active texture unit.
+     *
+     * @param target  The GL target.
+     * @param texture The texture id.
+     */
+    void glBindTexture(int target, int texture);
+
+    /**
+     * Set the blend equation.
+     *
+     * @param mode The mode.
+     */
+    void glBlendEquation(int mode);
+
+    /**
+     * Set the blend factors.
+     *
+     * @param sfactor The source factor.
+     * @param dfactor The destination factor.
+     */
+    void glBlendFunc(int sfactor, int dfactor);
+
+    /**
+     * Create and initialize the data store of the bound buffer.
+     *
+     * @param target The GL target.
+     * @param size   The size.
+     * @param data   The data, may be null.
+     * @param usage  The usage hint.
+     */
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    /**
+     * Update a range of the data store of the bound buffer.
+     *
+     * @param target The GL target.
+     * @param offset The offset in bytes into the data store.
+     * @param size   The size in bytes.
+     * @param data   The data, read from its position.
+     */
+    void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    /**
+     * Check frame buffer completeness.
+     *
+     * @param target The GL target.
+     * @return The status.
+     */
+    int glCheckFramebufferStatus(int target);
+
+    /**
+     * Clear buffers.
+     *
+     * @param mask The buffer bit mask.
+     */
+    void glClear(int mask);
+
+    /**
+     * Set the clear color.
+     *
+     * @param red   The red component.
+     * @param green The green component.
+     * @param blue  The blue component.
+     * @param alpha The alpha component.
+     */
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    /**
+     * Set the clear depth.
+     *
+     * @param depth The depth value.
+     */
+    void glClearDepthf(float depth);
+
+    /**
+     * Set the clear stencil.
+     *
+     * @param s The stencil value.
+     */
+    void glClearStencil(int s);
+
+    /**
+     * Compile a shader.
+     *
+     * @param shader The shader id.
+     */
+    void glCompileShader(int shader);
+
+    /**
+     * Create a program.
+     *
+     * @return The program id or 0.
+     */
+    int glCreateProgram();
+
+    /**
+     * Create a shader.
+     *
+     * @param type The type.
+     * @return The shader id or 0.
+     */
+    int glCreateShader(int type);
+
+    /**
+     * Delete buffers.
+     *
+     * @param n       Number of names.
+     * @param buffers The buffers.
+     * @param offset  Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    /**
+     * Delete frame buffers.
+     *
+     * @param n            Number of names.
+     * @param framebuffers The framebuffers.
+     * @param offset       Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glDeleteFramebuffers(int n, int[] framebuffers, int offset);
+
+    /**
+     * Delete a program.
+     *
+     * @param program The program id.
+     */
+    void glDeleteProgram(int program);
+
+    /**
+     * Delete render buffers.
+     *
+     * @param n             Number of names.
+     * @param renderbuffers The renderbuffers.
+     * @param offset        Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset);
+
+    /**
+     * Delete a shader.
+     *
+     * @param shader The shader id.
+     */
+    void glDeleteShader(int shader);
+
+    /**
+     * Delete textures.
+     *
+     * @param n        Number of names.
+     * @param textures The textures.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    /**
+     * Disable a capability.
+     *
+     * @param cap The GL capability.
+     */
+    void glDisable(int cap);
+
+    /**
+     * Disable a vertex attribute array.
+     *
+     * @param index The index.
+     */
+    void glDisableVertexAttribArray(int index);
+
+    /**
+     * Draw from array data.
+     *
+     * @param mode  The mode.
+     * @param first The first vertex.
+     * @param count The count.
+     */
+    void glDrawArrays(int mode, int first, int count);
+
+    /**
+     * Draw from the bound element buffer.
+     *
+     * @param mode   The mode.
+     * @param count  The count.
+     * @param type   The type.
+     * @param offset Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glDrawElements(int mode, int count, int type, int offset);
+
+    /**
+     * Enable a capability.
+     *
+     * @param cap The GL capability.
+     */
+    void glEnable(int cap);
+
+    /**
+     * Enable a vertex attribute array.
+     *
+     * @param index The index.
+     */
+    void glEnableVertexAttribArray(int index);
+
+    /**
+     * Attach a render buffer to the bound frame buffer.
+     *
+     * @param target             The GL target.
+     * @param attachment         The attachment point.
+     * @param renderbuffertarget The render buffer target.
+     * @param renderbuffer       The renderbuffer id.
+     */
+    void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer);
+
+    /**
+     * Attach a texture to the bound frame buffer.
+     *
+     * @param target     The GL target.
+     * @param attachment The attachment point.
+     * @param textarget  The texture target.
+     * @param texture    The texture id.
+     * @param level      The mipmap level.
+     */
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    /**
+     * Generate buffer names.
+     *
+     * @param n       Number of names.
+     * @param buffers The buffers.
+     * @param offset  Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    /**
+     * Generate frame buffer names.
+     *
+     * @param n            Number of names.
+     * @param framebuffers The framebuffers.
+     * @param offset       Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    /**
+     * Generate render buffer names.
+     *
+     * @param n             Number of names.
+     * @param renderbuffers The renderbuffers.
+     * @param offset        Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGenRenderbuffers(int n, int[] renderbuffers, int offset);
+
+    /**
+     * Generate texture names.
+     *
+     * @param n        Number of names.
+     * @param textures The textures.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGenTextures(int n, int[] textures, int offset);
+
+    /**
+     * Read information about an active attribute.
+     *
+     * @param program      The program id.
+     * @param index        The index.
+     * @param bufsize      Size of the name array.
+     * @param length       Destination of the name length.
+     * @param lengthOffset Offset into length.
+     * @param size         The size.
+     * @param sizeOffset   Offset into size.
+     * @param type         The type.
+     * @param typeOffset   Offset into type.
+     * @param name         The name.
+     * @param nameOffset   Offset into name.
+     */
+    void glGetActiveAttrib(int program, int index, int bufsize, int[] length, int lengthOffset, int[] size, int sizeOffset, int[] type, int typeOffset, byte[] name, int nameOffset);
+
+    /**
+     * Read information about an active uniform.
+     *
+     * @param program      The program id.
+     * @param index        The index.
+     * @param bufsize      Size of the name array.
+     * @param length       Destination of the name length.
+     * @param lengthOffset Offset into length.
+     * @param size         The size.
+     * @param sizeOffset   Offset into size.
+     * @param type         The type.
+     * @param typeOffset   Offset into type.
+     * @param name         The name.
+     * @param nameOffset   Offset into name.
+     */
+    void glGetActiveUniform(int program, int index, int bufsize, int[] length, int lengthOffset, int[] size, int sizeOffset, int[] type, int typeOffset, byte[] name, int nameOffset);
+
+    /**
+     * Read the location of an attribute.
+     *
+     * @param program The program id.
+     * @param name    The name.
+     * @return The location.
+     */
+    int glGetAttribLocation(int program, String name);
+
+    /**
+     * Read boolean state.
+     *
+     * @param pname  The parameter name.
+     * @param params Destination of the read values.
+     * @param offset Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGetBooleanv(int pname, boolean[] params, int offset);
+
+    /**
+     * Read a parameter of the bound buffer.
+     *
+     * @param target The GL target.
+     * @param pname  The parameter name.
+     * @param params Destination of the read values.
+     * @param offset Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGetBufferParameteriv(int target, int pname, int[] params, int offset);
+
+    /**
+     * Read and clear the error flag.
+     *
+     * @return The error.
+     */
+    int glGetError();
+
+    /**
+     * Read float state.
+     *
+     * @param pname  The parameter name.
+     * @param params Destination of the read values.
+     * @param offset Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGetFloatv(int pname, float[] params, int offset);
+
+    /**
+     * Read integer state.
+     *
+     * @param pname  The parameter name.
+     * @param params Destination of the read values.
+     * @param offset Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGetIntegerv(int pname, int[] params, int offset);
+
+    /**
+     * Read the binary of a linked program. Requires ES 3.0.
+     *
+     * @param program            The program id.
+     * @param bufSize            Size of the destination buffer in bytes.
+     * @param length             Destination of the number of written bytes.
+     * @param lengthOffset       Offset into the length array.
+     * @param binaryFormat       Destination of the binary format.
+     * @param binaryFormatOffset Offset into the binary format array.
+     * @param binary             Destination of the binary.
+     */
+    void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary);
+
+    /**
+     * Read the program info log.
+     *
+     * @param program The program id.
+     * @return The log.
+     */
+    String glGetProgramInfoLog(int program);
+
+    /**
+     * Read a program parameter.
+     *
+     * @param program The program id.
+     * @param pname   The parameter name.
+     * @param params  Destination of the read values.
+     * @param offset  Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    /**
+     * Read the shader info log.
+     *
+     * @param shader The shader id.
+     * @return The log.
+     */
+    String glGetShaderInfoLog(int shader);
+
+    /**
+     * Read a shader parameter.
+     *
+     * @param shader The shader id.
+     * @param pname  The parameter name.
+     * @param params Destination of the read values.
+     * @param offset Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    /**
+     * Read a string describing the GL implementation.
+     *
+     * @param name The name, for instance GL_VERSION.
+     * @return The string.
+     */
+    String glGetString(int name);
+
+    /**
+     * Read the location of a uniform.
+     *
+     * @param program The program id.
+     * @param name    The name.
+     * @return The location.
+     */
+    int glGetUniformLocation(int program, String name);
+
+    /**
+     * Read a vertex attribute parameter.
+     *
+     * @param index  The index.
+     * @param pname  The parameter name.
+     * @param params Destination of the read values.
+     * @param offset Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glGetVertexAttribiv(int index, int pname, int[] params, int offset);
+
+    /**
+     * Link a program.
+     *
+     * @param program The program id.
+     */
+    void glLinkProgram(int program);
+
+    /**
+     * Load a program from a binary read with glGetProgramBinary. The link status tells if the
+     * binary was accepted. Requires ES 3.0.
+     *
+     * @param program      The program id.
+     * @param binaryFormat The binary format.
+     * @param binary       The binary.
+     * @param length       Length of the binary in bytes.
+     */
+    void glProgramBinary(int program, int binaryFormat, Buffer binary, int length);
+
+    /**
+     * Create the data store of the bound render buffer.
+     *
+     * @param target         The GL target.
+     * @param internalformat The internal format.
+     * @param width          The width.
+     * @param height         The height.
+     */
+    void glRenderbufferStorage(int target, int internalformat, int width, int height);
+
+    /**
+     * Set the source of a shader.
+     *
+     * @param shader The shader id.
+     * @param string The source code.
+     */
+    void glShaderSource(int shader, String string);
+
+    /**
+     * Specify a two dimensional texture image.
+     *
+     * @param target         The GL target.
+     * @param level          The mipmap level.
+     * @param internalformat The internal format.
+     * @param width          The width.
+     * @param height         The height.
+     * @param border         Must be 0.
+     * @param format         The format.
+     * @param type           The type.
+     * @param pixels         The pixels, may be null.
+     */
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, Buffer pixels);
+
+    /**
+     * Specify a two dimensional texture image straight from a bitmap, without copying the pixels
+     * into a buffer first. Format and type are decided by the bitmap config.
+     *
+     * @param target The GL target.
+     * @param level  The mipmap level.
+     * @param bitmap The bitmap.
+     * @param border Must be 0.
+     */
+    void texImage2D(int target, int level, Bitmap bitmap, int border);
+
+    /**
+     * Set a texture parameter.
+     *
+     * @param target The GL target.
+     * @param pname  The parameter name.
+     * @param param  The value.
+     */
+    void glTexParameteri(int target, int pname, int param);
+
+    /**
+     * Write float uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform1fv(int location, int count, float[] v, int offset);
+
+    /**
+     * Write int uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform1iv(int location, int count, int[] v, int offset);
+
+    /**
+     * Write vec2 uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform2fv(int location, int count, float[] v, int offset);
+
+    /**
+     * Write ivec2 uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform2iv(int location, int count, int[] v, int offset);
+
+    /**
+     * Write vec3 uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform3fv(int location, int count, float[] v, int offset);
+
+    /**
+     * Write ivec3 uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform3iv(int location, int count, int[] v, int offset);
+
+    /**
+     * Write vec4 uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform4fv(int location, int count, float[] v, int offset);
+
+    /**
+     * Write ivec4 uniform.
+     *
+     * @param location The uniform location.
+     * @param count    The count.
+     * @param v        The values.
+     * @param offset   Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniform4iv(int location, int count, int[] v, int offset);
+
+    /**
+     * Write mat3 uniform.
+     *
+     * @param location  The uniform location.
+     * @param count     The count.
+     * @param transpose Must be false.
+     * @param value     The values.
+     * @param offset    Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    /**
+     * Write mat4 uniform.
+     *
+     * @param location  The uniform location.
+     * @param count     The count.
+     * @param transpose Must be false.
+     * @param value     The values.
+     * @param offset    Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    /**
+     * Use a program.
+     *
+     * @param program The program id.
+     */
+    void glUseProgram(int program);
+
+    /**
+     * Configure a vertex attribute array from the bound array buffer.
+     *
+     * @param indx       The attribute location.
+     * @param size       The size.
+     * @param type       The type.
+     * @param normalized True if values should be normalized.
+     * @param stride     The stride in bytes.
+     * @param offset     Offset into the array, or byte offset into the bound buffer when drawing or configuring attributes.
+     */
+    void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int offset);
+
+    /**
+     * Set the view port.
+     *
+     * @param x      The x position.
+     * @param y      The y position.
+     * @param width  The width.
+     * @param height The height.
+     */
+    void glViewport(int x, int y, int width, int height);
+}
@@ -1,7 +1,5 @@
 package com.sweetlab.sweetride.context;
 
-import android.opengl.GLES20;
-
 import com.sweetlab.sweetride.DebugOptions;
 import com.sweetlab.sweetride.shader.ShaderProgram;
 
@@ -10,27 +8,38 @@ import com.sweetlab.sweetride.shader.ShaderProgram;
  */
 public class GLES20State {
     /**
-     * Buffer for reading GL information.
+     * The backend context.
+     */
+    private final BackendContext mContext;
+
+    /**
+     * If state and arguments should be validated.
      */
-    private final int[] buf = new int[1];
+    private final boolean mValidate;
+
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
 
     /**
      * Constructor.
      *
      * @param backendContext The backend context.
      */
-    @SuppressWarnings("unused")
     public GLES20State(BackendContext backendContext) {
+        mGL = backendContext.getGL();
+        mContext = backendContext;
+        mValidate = backendContext.isValidating() && DebugOptions.DEBUG_STATE;
     }
 
     /**
-     * Read the active shader program.
+     * Read the active shader program from the state shadow.
      *
-     * @return The active shader program.
+     * @return The active shader program or GLStateShadow.UNKNOWN.
      */
     public int readActiveProgram() {
-        GLES20.glGetIntegerv(GLES20.GL_CURRENT_PROGRAM, buf, 0);
-        return buf[0];
+        return mContext.getStateShadow().getProgram();
     }
 
     /**
@@ -39,11 +48,17 @@ public class GLES20State {
      * @param program The program to use.
      */
     public void useProgram(ShaderProgram program) {
-        if (DebugOptions.DEBUG_STATE) {
+        if (mValidate) {
             if (!program.isCreated()) {
-                throw new RuntimeException("Trying to use not linked program");
+                throw new RuntimeException("Trying to use not linked program " + program.getId());
             }
         }
-        GLES20.glUseProgram(program.getId());
+        final int programId = program.getId();
+        GLStateShadow shadow = mContext.getStateShadow();
+        if (shadow.getProgram() != programId) {
+            mGL.glUseProgram(programId);
+            shadow.setProgram(programId);
+            mContext.getRenderStats().onProgramSwitch();
+        }
     }
 }
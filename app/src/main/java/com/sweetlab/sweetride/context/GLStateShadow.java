@@ -0,0 +1,468 @@
+package com.sweetlab.sweetride.context;
+
+import android.opengl.GLES20;
+
+import com.sweetlab.sweetride.DebugOptions;
+
+import java.util.Arrays;
+
+/**
+ * CPU side mirror of the GL binding state. Targets update the mirror when they change GL state
+ * and consult it instead of querying GL, since each glGet* might force a pipeline sync.
+ * <p/>
+ * A value can be unknown, typically after the GL context has been re-created, an unknown value
+ * never matches so the next use will always write to GL. When validating and
+ * DebugOptions.DEBUG_GL_STATE_SHADOW is enabled all known values are cross checked against real
+ * GL state when read.
+ */
+public class GLStateShadow {
+    /**
+     * Value when the GL state is unknown.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Attribute array state disabled.
+     */
+    public static final int ATTRIB_DISABLED = 0;
+
+    /**
+     * Attribute array state enabled.
+     */
+    public static final int ATTRIB_ENABLED = 1;
+
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
+    /**
+     * If known values should be cross checked against GL when read.
+     */
+    private final boolean mCrossCheck;
+
+    /**
+     * Buffer to read GL information during cross check.
+     */
+    private final int[] mReadBuffer = new int[4];
+
+    /**
+     * Texture bound to the 2d target of each texture unit, zero based unit index.
+     */
+    private final int[] mTextureBindings;
+
+    /**
+     * Enabled state of each vertex attribute array.
+     */
+    private final int[] mAttribEnabled;
+
+    /**
+     * Buffer bound to each vertex attribute array.
+     */
+    private final int[] mAttribBuffers;
+
+    /**
+     * Offset in bytes of each vertex attribute array into its buffer.
+     */
+    private final int[] mAttribOffsets;
+
+    /**
+     * Buffer bound to GL_ARRAY_BUFFER.
+     */
+    private int mArrayBuffer;
+
+    /**
+     * Buffer bound to GL_ELEMENT_ARRAY_BUFFER.
+     */
+    private int mElementBuffer;
+
+    /**
+     * Size in bytes of the buffer bound to GL_ELEMENT_ARRAY_BUFFER.
+     */
+    private int mElementBufferSize;
+
+    /**
+     * The active texture unit, GL based number.
+     */
+    private int mActiveTexture;
+
+    /**
+     * The current program.
+     */
+    private int mProgram;
+
+    /**
+     * Frame buffer bound to GL_FRAMEBUFFER.
+     */
+    private int mFrameBuffer;
+
+    /**
+     * Render buffer bound to GL_RENDERBUFFER.
+     */
+    private int mRenderBuffer;
+
+    /**
+     * Constructor.
+     *
+     * @param gl               The GL implementation.
+     * @param maxTextureUnits  Max number of texture units.
+     * @param maxVertexAttribs Max number of vertex attributes.
+     * @param validate         True if values should be cross checked, see DebugOptions.DEBUG_GL_STATE_SHADOW.
+     */
+    public GLStateShadow(GL gl, int maxTextureUnits, int maxVertexAttribs, boolean validate) {
+        mGL = gl;
+        mCrossCheck = validate && DebugOptions.DEBUG_GL_STATE_SHADOW;
+        mTextureBindings = new int[maxTextureUnits];
+        mAttribEnabled = new int[maxVertexAttribs];
+        mAttribBuffers = new int[maxVertexAttribs];
+        mAttribOffsets = new int[maxVertexAttribs];
+        invalidate();
+    }
+
+    /**
+     * Mark all state as unknown. Must be called when the GL context has been re-created.
+     */
+    public void invalidate() {
+        Arrays.fill(mTextureBindings, UNKNOWN);
+        Arrays.fill(mAttribEnabled, UNKNOWN);
+        Arrays.fill(mAttribBuffers, UNKNOWN);
+        Arrays.fill(mAttribOffsets, UNKNOWN);
+        mArrayBuffer = UNKNOWN;
+        mElementBuffer = UNKNOWN;
+        mElementBufferSize = UNKNOWN;
+        mActiveTexture = UNKNOWN;
+        mProgram = UNKNOWN;
+        mFrameBuffer = UNKNOWN;
+        mRenderBuffer = UNKNOWN;
+    }
+
+    /**
+     * Get buffer bound to GL_ARRAY_BUFFER.
+     *
+     * @return The buffer id or UNKNOWN.
+     */
+    public int getArrayBuffer() {
+        if (mCrossCheck) {
+            crossCheck("GL_ARRAY_BUFFER_BINDING", GLES20.GL_ARRAY_BUFFER_BINDING, mArrayBuffer);
+        }
+        return mArrayBuffer;
+    }
+
+    /**
+     * Set buffer bound to GL_ARRAY_BUFFER.
+     *
+     * @param id The buffer id.
+     */
+    public void setArrayBuffer(int id) {
+        mArrayBuffer = id;
+    }
+
+    /**
+     * Get buffer bound to GL_ELEMENT_ARRAY_BUFFER.
+     *
+     * @return The buffer id or UNKNOWN.
+     */
+    public int getElementBuffer() {
+        if (mCrossCheck) {
+            crossCheck("GL_ELEMENT_ARRAY_BUFFER_BINDING", GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING, mElementBuffer);
+        }
+        return mElementBuffer;
+    }
+
+    /**
+     * Set buffer bound to GL_ELEMENT_ARRAY_BUFFER. The size becomes unknown.
+     *
+     * @param id The buffer id.
+     */
+    public void setElementBuffer(int id) {
+        mElementBuffer = id;
+        mElementBufferSize = UNKNOWN;
+    }
+
+    /**
+     * Get size in bytes of the buffer bound to GL_ELEMENT_ARRAY_BUFFER.
+     *
+     * @return The size in bytes or UNKNOWN.
+     */
+    public int getElementBufferSize() {
+        if (mCrossCheck) {
+            if (mElementBufferSize != UNKNOWN && mElementBuffer > 0) {
+                mGL.glGetBufferParameteriv(GLES20.GL_ELEMENT_ARRAY_BUFFER, GLES20.GL_BUFFER_SIZE, mReadBuffer, 0);
+                if (mReadBuffer[0] != mElementBufferSize) {
+                    throw new RuntimeException("GL state shadow mismatch GL_BUFFER_SIZE, shadow = " + mElementBufferSize + " GL = " + mReadBuffer[0]);
+                }
+            }
+        }
+        return mElementBufferSize;
+    }
+
+    /**
+     * Set size in bytes of the buffer bound to GL_ELEMENT_ARRAY_BUFFER.
+     *
+     * @param size The size in bytes.
+     */
+    public void setElementBufferSize(int size) {
+        mElementBufferSize = size;
+    }
+
+    /**
+     * Get the active texture unit.
+     *
+     * @return The GL based texture unit number or UNKNOWN.
+     */
+    public int getActiveTexture() {
+        if (mCrossCheck) {
+            crossCheck("GL_ACTIVE_TEXTURE", GLES20.GL_ACTIVE_TEXTURE, mActiveTexture);
+        }
+        return mActiveTexture;
+    }
+
+    /**
+     * Set the active texture unit.
+     *
+     * @param glBasedNr The GL based texture unit number.
+     */
+    public void setActiveTexture(int glBasedNr) {
+        mActiveTexture = glBasedNr;
+    }
+
+    /**
+     * Get texture bound to the 2d target of a texture unit.
+     *
+     * @param zeroBasedNr Zero based texture unit number.
+     * @return The texture id or UNKNOWN.
+     */
+    public int getTextureBinding(int zeroBasedNr) {
+        if (mCrossCheck) {
+            if (mActiveTexture == GLES20.GL_TEXTURE0 + zeroBasedNr) {
+                crossCheck("GL_TEXTURE_BINDING_2D", GLES20.GL_TEXTURE_BINDING_2D, mTextureBindings[zeroBasedNr]);
+            }
+        }
+        return mTextureBindings[zeroBasedNr];
+    }
+
+    /**
+     * Set texture bound to the 2d target of a texture unit.
+     *
+     * @param zeroBasedNr Zero based texture unit number.
+     * @param id          The texture id.
+     */
+    public void setTextureBinding(int zeroBasedNr, int id) {
+        mTextureBindings[zeroBasedNr] = id;
+    }
+
+    /**
+     * Get the enabled state of a vertex attribute array.
+     *
+     * @param location The attribute location.
+     * @return ATTRIB_ENABLED, ATTRIB_DISABLED or UNKNOWN.
+     */
+    public int getAttribEnabled(int location) {
+        if (mCrossCheck) {
+            if (mAttribEnabled[location] != UNKNOWN) {
+                mGL.glGetVertexAttribiv(location, GLES20.GL_VERTEX_ATTRIB_ARRAY_ENABLED, mReadBuffer, 0);
+                int enabled = mReadBuffer[0] == 0 ? ATTRIB_DISABLED : ATTRIB_ENABLED;
+                if (enabled != mAttribEnabled[location]) {
+                    throw new RuntimeException("GL state shadow mismatch GL_VERTEX_ATTRIB_ARRAY_ENABLED at location " + location + ", shadow = " + mAttribEnabled[location] + " GL = " + enabled);
+                }
+            }
+        }
+        return mAttribEnabled[location];
+    }
+
+    /**
+     * Set the enabled state of a vertex attribute array.
+     *
+     * @param location The attribute location.
+     * @param enabled  True if enabled.
+     */
+    public void setAttribEnabled(int location, boolean enabled) {
+        mAttribEnabled[location] = enabled ? ATTRIB_ENABLED : ATTRIB_DISABLED;
+    }
+
+    /**
+     * Get the buffer bound to a vertex attribute array.
+     *
+     * @param location The attribute location.
+     * @return The buffer id or UNKNOWN.
+     */
+    public int getAttribBuffer(int location) {
+        if (mCrossCheck) {
+            if (mAttribBuffers[location] != UNKNOWN) {
+                mGL.glGetVertexAttribiv(location, GLES20.GL_VERTEX_ATTRIB_ARRAY_BUFFER_BINDING, mReadBuffer, 0);
+                if (mReadBuffer[0] != mAttribBuffers[location]) {
+                    throw new RuntimeException("GL state shadow mismatch GL_VERTEX_ATTRIB_ARRAY_BUFFER_BINDING at location " + location + ", shadow = " + mAttribBuffers[location] + " GL = " + mReadBuffer[0]);
+                }
+            }
+        }
+        return mAttribBuffers[location];
+    }
+
+    /**
+     * Set the buffer bound to a vertex attribute array.
+     *
+     * @param location    The attribute location.
+     * @param id          The buffer id.
+     * @param offsetBytes The offset in bytes into the buffer.
+     */
+    public void setAttribBuffer(int location, int id, int offsetBytes) {
+        mAttribBuffers[location] = id;
+        mAttribOffsets[location] = offsetBytes;
+    }
+
+    /**
+     * Get the offset in bytes of a vertex attribute array into its buffer.
+     *
+     * @param location The attribute location.
+     * @return The offset or UNKNOWN.
+     */
+    public int getAttribOffset(int location) {
+        return mAttribOffsets[location];
+    }
+
+    /**
+     * Get the current program.
+     *
+     * @return The program id or UNKNOWN.
+     */
+    public int getProgram() {
+        if (mCrossCheck) {
+            crossCheck("GL_CURRENT_PROGRAM", GLES20.GL_CURRENT_PROGRAM, mProgram);
+        }
+        return mProgram;
+    }
+
+    /**
+     * Set the current program.
+     *
+     * @param id The program id.
+     */
+    public void setProgram(int id) {
+        mProgram = id;
+    }
+
+    /**
+     * Get frame buffer bound to GL_FRAMEBUFFER.
+     *
+     * @return The frame buffer id or UNKNOWN.
+     */
+    public int getFrameBuffer() {
+        if (mCrossCheck) {
+            crossCheck("GL_FRAMEBUFFER_BINDING", GLES20.GL_FRAMEBUFFER_BINDING, mFrameBuffer);
+        }
+        return mFrameBuffer;
+    }
+
+    /**
+     * Set frame buffer bound to GL_FRAMEBUFFER.
+     *
+     * @param id The frame buffer id.
+     */
+    public void setFrameBuffer(int id) {
+        mFrameBuffer = id;
+    }
+
+    /**
+     * Get render buffer bound to GL_RENDERBUFFER.
+     *
+     * @return The render buffer id or UNKNOWN.
+     */
+    public int getRenderBuffer() {
+        if (mCrossCheck) {
+            crossCheck("GL_RENDERBUFFER_BINDING", GLES20.GL_RENDERBUFFER_BINDING, mRenderBuffer);
+        }
+        return mRenderBuffer;
+    }
+
+    /**
+     * Set render buffer bound to GL_RENDERBUFFER.
+     *
+     * @param id The render buffer id.
+     */
+    public void setRenderBuffer(int id) {
+        mRenderBuffer = id;
+    }
+
+    /**
+     * Called when a buffer has been deleted. GL resets all bindings to a deleted buffer to zero.
+     *
+     * @param id The deleted buffer id.
+     */
+    public void onBufferDeleted(int id) {
+        if (mArrayBuffer == id) {
+            mArrayBuffer = 0;
+        }
+        if (mElementBuffer == id) {
+            mElementBuffer = 0;
+            mElementBufferSize = UNKNOWN;
+        }
+        for (int i = 0; i < mAttribBuffers.length; i++) {
+            if (mAttribBuffers[i] == id) {
+                mAttribBuffers[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Called when a texture has been deleted. GL resets all bindings to a deleted texture to zero.
+     *
+     * @param id The deleted texture id.
+     */
+    public void onTextureDeleted(int id) {
+        for (int i = 0; i < mTextureBindings.length; i++) {
+            if (mTextureBindings[i] == id) {
+                mTextureBindings[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Called when a program has been deleted. A deleted program stays current until another
+     * program is used, but its id can't be trusted afterwards.
+     *
+     * @param id The deleted program id.
+     */
+    public void onProgramDeleted(int id) {
+        if (mProgram == id) {
+            mProgram = UNKNOWN;
+        }
+    }
+
+    /**
+     * Called when a frame buffer has been deleted. GL reverts the binding to the window frame buffer.
+     *
+     * @param id The deleted frame buffer id.
+     */
+    public void onFrameBufferDeleted(int id) {
+        if (mFrameBuffer == id) {
+            mFrameBuffer = FrameBufferTarget.WINDOW_FRAMEBUFFER;
+        }
+    }
+
+    /**
+     * Called when a render buffer has been deleted. GL resets the binding to zero.
+     *
+     * @param id The deleted render buffer id.
+     */
+    public void onRenderBufferDeleted(int id) {
+        if (mRenderBuffer == id) {
+            mRenderBuffer = 0;
+        }
+    }
+
+    /**
+     * Cross check a known shadow value against GL.
+     *
+     * @param name   Name of the GL state, used in the error message.
+     * @param pname  The GL state to query.
+     * @param shadow The shadow value.
+     */
+    private void crossCheck(String name, int pname, int shadow) {
+        if (shadow != UNKNOWN) {
+            mGL.glGetIntegerv(pname, mReadBuffer, 0);
+            if (mReadBuffer[0] != shadow) {
+                throw new RuntimeException("GL state shadow mismatch " + name + ", shadow = " + shadow + " GL = " + mReadBuffer[0]);
+            }
+        }
+    }
+}
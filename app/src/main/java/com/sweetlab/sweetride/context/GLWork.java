@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.context;
+
+/**
+ * Work that must be executed on the GL thread, posted to the GL work queue from any thread.
+ */
+public interface GLWork {
+    /**
+     * Execute the work. Called on GL thread.
+     *
+     * @param context The backend context.
+     */
+    void execute(BackendContext context);
+}
@@ -0,0 +1,120 @@
+package com.sweetlab.sweetride.context;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock free queue of GL work. Any thread can post work, only the GL thread executes it. Posting
+ * swaps the tail entry and links the previous tail to the new entry, executing follows the links
+ * from the head entry. No thread ever waits for another.
+ * <p/>
+ * Work is executed in the order it was posted.
+ */
+public class GLWorkQueue {
+    /**
+     * The last posted entry.
+     */
+    private final AtomicReference<Entry> mTail;
+
+    /**
+     * The entry before the next entry to execute, only touched by the GL thread.
+     */
+    private Entry mHead;
+
+    /**
+     * Constructor.
+     */
+    public GLWorkQueue() {
+        Entry stub = new Entry(null);
+        mHead = stub;
+        mTail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Post work to be executed on GL thread. Call from any thread.
+     *
+     * @param work The work.
+     */
+    public void post(GLWork work) {
+        if (work == null) {
+            throw new RuntimeException("Trying to post null work");
+        }
+        Entry entry = new Entry(work);
+        Entry previous = mTail.getAndSet(entry);
+        previous.mNext = entry;
+    }
+
+    /**
+     * Check if queue is empty. Work being posted right now might not be seen.
+     *
+     * @return True if there is no work to execute.
+     */
+    public boolean isEmpty() {
+        return mHead.mNext == null;
+    }
+
+    /**
+     * Execute posted work until queue is empty or the time budget is spent. At least one work is
+     * executed if there is any, so the queue always makes progress. Call from GL thread.
+     *
+     * @param context     The backend context.
+     * @param budgetNanos The time budget in nanoseconds.
+     * @return Number of executed work.
+     */
+    public int execute(BackendContext context, long budgetNanos) {
+        if (mHead.mNext == null) {
+            return 0;
+        }
+        final long start = System.nanoTime();
+        int count = 0;
+        GLWork work = poll();
+        while (work != null) {
+            work.execute(context);
+            count++;
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+            work = poll();
+        }
+        return count;
+    }
+
+    /**
+     * Take next work to execute.
+     *
+     * @return The work or null if none.
+     */
+    private GLWork poll() {
+        Entry next = mHead.mNext;
+        if (next == null) {
+            return null;
+        }
+        GLWork work = next.mWork;
+        next.mWork = null;
+        mHead = next;
+        return work;
+    }
+
+    /**
+     * Queue entry.
+     */
+    private static class Entry {
+        /**
+         * The next entry, written by the posting thread and read by the GL thread.
+         */
+        private volatile Entry mNext;
+
+        /**
+         * The work.
+         */
+        private GLWork mWork;
+
+        /**
+         * Constructor.
+         *
+         * @param work The work.
+         */
+        private Entry(GLWork work) {
+            mWork = work;
+        }
+    }
+}
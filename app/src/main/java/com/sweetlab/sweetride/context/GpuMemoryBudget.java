@@ -0,0 +1,236 @@
+package com.sweetlab.sweetride.context;
+
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.resource.EvictableResource;
+import com.sweetlab.sweetride.resource.ReleasableResource;
+import com.sweetlab.sweetride.resource.TextureResource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caps the GPU memory used by buffers and textures. Resources used by the geometries drawn
+ * each frame are kept in least recently drawn order. When the resident bytes exceeds the
+ * budget the least recently drawn resources are evicted, their GL objects are deleted and
+ * their create and load actions restored. The CPU side source is kept so an evicted resource
+ * is uploaded again through the normal GL action path when drawn.
+ * <p/>
+ * Resources drawn this frame are never evicted, the budget may be exceeded if the visible
+ * resources doesn't fit. Only evictable resources are accounted, render target textures and
+ * textures that dropped their pixels are not since their content can't be uploaded again.
+ * <p/>
+ * Call from main thread.
+ */
+public class GpuMemoryBudget {
+    /**
+     * Resident resources in least recently drawn order, mapped to the frame last drawn.
+     */
+    private final LinkedHashMap<EvictableResource, Residency> mResident = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * The byte budget.
+     */
+    private long mByteBudget;
+
+    /**
+     * Bytes used by resident resources.
+     */
+    private long mResidentBytes;
+
+    /**
+     * Total number of evicted resources.
+     */
+    private int mEvictionCount;
+
+    /**
+     * The frame counter.
+     */
+    private int mFrame;
+
+    /**
+     * Constructor.
+     *
+     * @param byteBudget The byte budget.
+     */
+    public GpuMemoryBudget(long byteBudget) {
+        mByteBudget = byteBudget;
+    }
+
+    /**
+     * Set the byte budget.
+     *
+     * @param byteBudget The byte budget.
+     */
+    public void setByteBudget(long byteBudget) {
+        mByteBudget = byteBudget;
+    }
+
+    /**
+     * Get the byte budget.
+     *
+     * @return The byte budget.
+     */
+    public long getByteBudget() {
+        return mByteBudget;
+    }
+
+    /**
+     * Get bytes used by resident resources.
+     *
+     * @return The bytes.
+     */
+    public long getResidentBytes() {
+        return mResidentBytes;
+    }
+
+    /**
+     * Get number of resident resources.
+     *
+     * @return The number of resources.
+     */
+    public int getResidentCount() {
+        return mResident.size();
+    }
+
+    /**
+     * Get total number of evicted resources.
+     *
+     * @return The number of evictions.
+     */
+    public int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Must be called on each new frame.
+     */
+    public void onNewFrame() {
+        mFrame++;
+    }
+
+    /**
+     * Mark the resources of nodes drawn this frame as most recently drawn.
+     *
+     * @param nodes     The nodes.
+     * @param scheduler The upload scheduler that scheduled the nodes, null if none.
+     */
+    public void touch(List<Node> nodes, UploadScheduler scheduler) {
+        final int nodeCount = nodes.size();
+        for (int i = 0; i < nodeCount; i++) {
+            if (scheduler != null && scheduler.isDeferred(i)) {
+                continue;
+            }
+            Node node = nodes.get(i);
+            if (node instanceof Geometry) {
+                touch((Geometry) node);
+            }
+        }
+    }
+
+    /**
+     * Evict least recently drawn resources until within budget. The evicted resources must be
+     * deleted on GL thread.
+     *
+     * @param evictions List to add the evicted resources to.
+     */
+    public void evict(List<ReleasableResource> evictions) {
+        Iterator<Map.Entry<EvictableResource, Residency>> iterator = mResident.entrySet().iterator();
+        while (mResidentBytes > mByteBudget && iterator.hasNext()) {
+            Map.Entry<EvictableResource, Residency> entry = iterator.next();
+            if (entry.getValue().mDrawn == mFrame) {
+                break;
+            }
+            EvictableResource resource = entry.getKey();
+            iterator.remove();
+            mResidentBytes -= entry.getValue().mBytes;
+            if (resource.isConnected()) {
+                resource.restore();
+                evictions.add(resource);
+                mEvictionCount++;
+            }
+        }
+    }
+
+    /**
+     * Forget all resources, for instance when the GL context has been lost.
+     */
+    public void clear() {
+        mResident.clear();
+        mResidentBytes = 0;
+    }
+
+    /**
+     * Touch the resources of a geometry.
+     *
+     * @param geometry The geometry.
+     */
+    private void touch(Geometry geometry) {
+        Mesh mesh = geometry.getMesh();
+        if (mesh != null) {
+            final int bufferCount = mesh.getVertexBufferCount();
+            for (int i = 0; i < bufferCount; i++) {
+                touch(mesh.getVertexBuffer(i));
+            }
+            if (mesh.getIndicesBuffer() != null) {
+                touch(mesh.getIndicesBuffer());
+            }
+        }
+        Material material = geometry.getMaterial();
+        if (material != null) {
+            final int textureCount = material.getTextureCount();
+            for (int i = 0; i < textureCount; i++) {
+                TextureResource texture = material.getTexture(i);
+                if (texture instanceof EvictableResource) {
+                    touch((EvictableResource) texture);
+                }
+            }
+        }
+    }
+
+    /**
+     * Touch a resource.
+     *
+     * @param resource The resource.
+     */
+    private void touch(EvictableResource resource) {
+        if (!resource.isEvictable()) {
+            return;
+        }
+        Residency residency = mResident.get(resource);
+        if (residency == null) {
+            residency = new Residency(resource.getTotalByteCount());
+            mResident.put(resource, residency);
+            mResidentBytes += residency.mBytes;
+        }
+        residency.mDrawn = mFrame;
+    }
+
+    /**
+     * Bookkeeping of a resident resource.
+     */
+    private static class Residency {
+        /**
+         * The bytes of the resource when it became resident.
+         */
+        private final int mBytes;
+
+        /**
+         * The frame last drawn.
+         */
+        private int mDrawn;
+
+        /**
+         * Constructor.
+         *
+         * @param bytes The bytes of the resource.
+         */
+        private Residency(int bytes) {
+            mBytes = bytes;
+        }
+    }
+}
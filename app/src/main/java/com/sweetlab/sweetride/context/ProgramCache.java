@@ -0,0 +1,607 @@
+package com.sweetlab.sweetride.context;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+import android.support.annotation.Nullable;
+
+import com.sweetlab.sweetride.resource.SortId;
+import com.sweetlab.sweetride.shader.LinkedProgram;
+import com.sweetlab.sweetride.util.Util;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of linked programs keyed by their vertex and fragment sources. All shader programs with
+ * equal sources share one GL program and the attributes and uniforms reflected when it was
+ * linked, so equal materials neither compile, link nor query GL again. Shaders are cached by
+ * source as well, a stage shared by programs that otherwise differ is compiled once. Entries
+ * are reference counted and deleted when released by the last program.
+ * <p/>
+ * If a binary directory is set and the context supports program binaries, linked programs are
+ * stored there and on later runs loaded instead of compiled and linked. A binary the driver
+ * rejects, for instance after a driver update, is deleted and the program is built from source.
+ * <p/>
+ * GL thread only, except getSortId.
+ */
+public class ProgramCache {
+    /**
+     * Suffix of program binary files.
+     */
+    private static final String BINARY_SUFFIX = ".bin";
+
+    /**
+     * Charset used when hashing sources.
+     */
+    private static final Charset SOURCE_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Hex digits of binary file names.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The sort ids by sources, shared by all contexts and never forgotten.
+     */
+    private static final Map<SourceKey, Integer> sSortIds = new HashMap<>();
+
+    /**
+     * Backend context.
+     */
+    private final BackendContext mContext;
+
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
+    /**
+     * The linked programs.
+     */
+    private final Map<SourceKey, Entry> mPrograms = new HashMap<>();
+
+    /**
+     * The linked programs by GL id.
+     */
+    private final Map<Integer, Entry> mProgramIds = new HashMap<>();
+
+    /**
+     * The compiled vertex shaders by source.
+     */
+    private final Map<String, SharedShader> mVertexShaders = new HashMap<>();
+
+    /**
+     * The compiled fragment shaders by source.
+     */
+    private final Map<String, SharedShader> mFragmentShaders = new HashMap<>();
+
+    /**
+     * GL read buffer, binary length.
+     */
+    private final int[] mLength = new int[1];
+
+    /**
+     * GL read buffer, binary format.
+     */
+    private final int[] mFormat = new int[1];
+
+    /**
+     * Directory of program binaries, null if not stored.
+     */
+    private File mBinaryDirectory;
+
+    /**
+     * Number of compiled shaders.
+     */
+    private int mCompileCount;
+
+    /**
+     * Number of linked programs.
+     */
+    private int mLinkCount;
+
+    /**
+     * Number of programs loaded from binaries.
+     */
+    private int mBinaryLoadCount;
+
+    /**
+     * Number of acquires served by a cached program.
+     */
+    private int mHitCount;
+
+    /**
+     * Constructor.
+     *
+     * @param backendContext Backend context.
+     */
+    public ProgramCache(BackendContext backendContext) {
+        mContext = backendContext;
+        mGL = backendContext.getGL();
+    }
+
+    /**
+     * Get the sort id of a source pair. Programs with equal sources get the same sort id, so
+     * their draw packets are ordered together like they share the linked program. Known before
+     * any program is linked, see SortId. Any thread.
+     *
+     * @param vertexSource   The vertex shader source.
+     * @param fragmentSource The fragment shader source.
+     * @return The sort id.
+     */
+    public static int getSortId(String vertexSource, String fragmentSource) {
+        SourceKey key = new SourceKey(vertexSource, fragmentSource);
+        synchronized (sSortIds) {
+            Integer sortId = sSortIds.get(key);
+            if (sortId == null) {
+                sortId = SortId.next();
+                sSortIds.put(key, sortId);
+            }
+            return sortId;
+        }
+    }
+
+    /**
+     * Set the directory to store program binaries in, typically in app private storage. Only
+     * used if the context supports program binaries.
+     *
+     * @param directory The directory or null to not store binaries.
+     */
+    public void setBinaryDirectory(@Nullable File directory) {
+        mBinaryDirectory = directory;
+    }
+
+    /**
+     * Acquire the linked program for a source pair. Loaded from a stored binary, or compiled and
+     * linked, if not already cached. Each acquire must be matched by a release.
+     *
+     * @param vertexSource   The vertex shader source.
+     * @param fragmentSource The fragment shader source.
+     * @return The linked program or null if failed to link.
+     */
+    @Nullable
+    public LinkedProgram acquire(String vertexSource, String fragmentSource) {
+        SourceKey key = new SourceKey(vertexSource, fragmentSource);
+        Entry entry = mPrograms.get(key);
+        if (entry != null) {
+            entry.mRefCount++;
+            mHitCount++;
+            return entry.mProgram;
+        }
+
+        entry = loadBinary(key);
+        if (entry == null) {
+            entry = link(key);
+            if (entry == null) {
+                return null;
+            }
+        }
+        entry.mRefCount = 1;
+        mPrograms.put(key, entry);
+        mProgramIds.put(entry.mProgram.getId(), entry);
+        return entry.mProgram;
+    }
+
+    /**
+     * Release an acquired program. The GL program, and shaders not used by other programs, are
+     * deleted when released by the last holder. Programs acquired before the GL context was
+     * lost are ignored.
+     *
+     * @param program The program.
+     */
+    public void release(LinkedProgram program) {
+        Entry entry = mProgramIds.get(program.getId());
+        if (entry == null || entry.mProgram != program) {
+            return;
+        }
+        entry.mRefCount--;
+        if (entry.mRefCount == 0) {
+            mPrograms.remove(entry.mKey);
+            mProgramIds.remove(program.getId());
+            mContext.getResourceManager().deleteProgram(program.getId());
+            if (entry.mHoldsShaders) {
+                releaseShader(mVertexShaders, entry.mKey.mVertexSource);
+                releaseShader(mFragmentShaders, entry.mKey.mFragmentSource);
+            }
+        }
+    }
+
+    /**
+     * Forget all cached programs and shaders without deleting them. Call when the GL context
+     * has been re-created and the old objects are gone.
+     */
+    public void clear() {
+        mPrograms.clear();
+        mProgramIds.clear();
+        mVertexShaders.clear();
+        mFragmentShaders.clear();
+    }
+
+    /**
+     * Get number of cached programs.
+     *
+     * @return The number of programs.
+     */
+    public int getProgramCount() {
+        return mPrograms.size();
+    }
+
+    /**
+     * Get number of compiled shaders.
+     *
+     * @return The number of compiles.
+     */
+    public int getCompileCount() {
+        return mCompileCount;
+    }
+
+    /**
+     * Get number of linked programs.
+     *
+     * @return The number of links.
+     */
+    public int getLinkCount() {
+        return mLinkCount;
+    }
+
+    /**
+     * Get number of programs loaded from binaries.
+     *
+     * @return The number of loaded binaries.
+     */
+    public int getBinaryLoadCount() {
+        return mBinaryLoadCount;
+    }
+
+    /**
+     * Get number of acquires served by a cached program.
+     *
+     * @return The number of hits.
+     */
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Compile and link a program, store the binary if enabled.
+     *
+     * @param key The sources.
+     * @return The entry or null if failed.
+     */
+    private Entry link(SourceKey key) {
+        int vertexShader = acquireShader(mVertexShaders, key.mVertexSource, GLES20.GL_VERTEX_SHADER);
+        if (vertexShader == ResourceManager.INVALID_SHADER_ID) {
+            return null;
+        }
+        int fragmentShader = acquireShader(mFragmentShaders, key.mFragmentSource, GLES20.GL_FRAGMENT_SHADER);
+        if (fragmentShader == ResourceManager.INVALID_SHADER_ID) {
+            releaseShader(mVertexShaders, key.mVertexSource);
+            return null;
+        }
+        int id = mContext.getLinker().link(vertexShader, fragmentShader);
+        if (id == ResourceManager.INVALID_PROGRAM_ID) {
+            releaseShader(mVertexShaders, key.mVertexSource);
+            releaseShader(mFragmentShaders, key.mFragmentSource);
+            return null;
+        }
+        mLinkCount++;
+        storeBinary(key, id);
+        return new Entry(key, reflect(id), true);
+    }
+
+    /**
+     * Load a program from a stored binary. A binary that can't be read or is rejected by the
+     * driver is deleted.
+     *
+     * @param key The sources.
+     * @return The entry or null if no usable binary.
+     */
+    private Entry loadBinary(SourceKey key) {
+        File file = getBinaryFile(key);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        int format;
+        byte[] binary;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            format = in.readInt();
+            int length = in.readInt();
+            if (length <= 0 || length > file.length()) {
+                throw new IOException("Corrupt program binary " + file);
+            }
+            binary = new byte[length];
+            in.readFully(binary);
+        } catch (IOException e) {
+            close(in);
+            file.delete();
+            return null;
+        }
+        close(in);
+
+        ResourceManager resourceManager = mContext.getResourceManager();
+        int id = resourceManager.createProgram();
+        if (id == ResourceManager.INVALID_PROGRAM_ID) {
+            return null;
+        }
+        ByteBuffer buffer = Util.allocByteBuffer(binary.length);
+        buffer.put(binary);
+        buffer.rewind();
+        mGL.glProgramBinary(id, format, buffer, binary.length);
+        if (!mContext.getLinker().isLinked(id)) {
+            resourceManager.deleteProgram(id);
+            file.delete();
+            return null;
+        }
+        mBinaryLoadCount++;
+        return new Entry(key, reflect(id), false);
+    }
+
+    /**
+     * Store the binary of a linked program. Written to a temporary file first so a partially
+     * written binary is never loaded.
+     *
+     * @param key The sources.
+     * @param id  The linked program.
+     */
+    private void storeBinary(SourceKey key, int id) {
+        File file = getBinaryFile(key);
+        if (file == null) {
+            return;
+        }
+        mGL.glGetProgramiv(id, GLES30.GL_PROGRAM_BINARY_LENGTH, mLength, 0);
+        if (mLength[0] <= 0) {
+            return;
+        }
+        ByteBuffer buffer = Util.allocByteBuffer(mLength[0]);
+        mGL.glGetProgramBinary(id, mLength[0], mLength, 0, mFormat, 0, buffer);
+        byte[] binary = new byte[mLength[0]];
+        buffer.get(binary);
+
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new FileOutputStream(tmp));
+            out.writeInt(mFormat[0]);
+            out.writeInt(binary.length);
+            out.write(binary);
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+            }
+        } catch (IOException e) {
+            close(out);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Get the binary file of a source pair.
+     *
+     * @param key The sources.
+     * @return The file or null if binaries aren't stored.
+     */
+    private File getBinaryFile(SourceKey key) {
+        if (mBinaryDirectory == null || !mContext.getCapabilities().isProgramBinarySupported()) {
+            return null;
+        }
+        if (!mBinaryDirectory.isDirectory() && !mBinaryDirectory.mkdirs()) {
+            return null;
+        }
+        return new File(mBinaryDirectory, key.getDigest() + BINARY_SUFFIX);
+    }
+
+    /**
+     * Reflect the attributes and uniforms of a linked program.
+     *
+     * @param id The linked program.
+     * @return The linked program.
+     */
+    private LinkedProgram reflect(int id) {
+        return new LinkedProgram(id, mContext.getAttributeExtractor().extract(id), mContext.getUniformExtractor().extract(id));
+    }
+
+    /**
+     * Acquire a compiled shader, compiled if not already cached.
+     *
+     * @param shaders The cached shaders of the type.
+     * @param source  The source.
+     * @param type    GL_VERTEX_SHADER or GL_FRAGMENT_SHADER.
+     * @return The shader id or INVALID_SHADER_ID if failed to compile.
+     */
+    private int acquireShader(Map<String, SharedShader> shaders, String source, int type) {
+        SharedShader shader = shaders.get(source);
+        if (shader == null) {
+            ShaderCompiler compiler = mContext.getCompiler();
+            int id = type == GLES20.GL_VERTEX_SHADER ? compiler.compileVertexShader(source) : compiler.compileFragmentShader(source);
+            if (id == ResourceManager.INVALID_SHADER_ID) {
+                return id;
+            }
+            mCompileCount++;
+            shader = new SharedShader(id);
+            shaders.put(source, shader);
+        }
+        shader.mRefCount++;
+        return shader.mId;
+    }
+
+    /**
+     * Release a compiled shader, deleted when released by the last program.
+     *
+     * @param shaders The cached shaders of the type.
+     * @param source  The source.
+     */
+    private void releaseShader(Map<String, SharedShader> shaders, String source) {
+        SharedShader shader = shaders.get(source);
+        shader.mRefCount--;
+        if (shader.mRefCount == 0) {
+            shaders.remove(source);
+            mContext.getResourceManager().deleteShader(shader.mId);
+        }
+    }
+
+    /**
+     * Close a stream, ignoring errors.
+     *
+     * @param stream The stream, may be null.
+     */
+    private static void close(Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                /**
+                 * Nothing to do, the file is deleted or not used.
+                 */
+            }
+        }
+    }
+
+    /**
+     * A vertex and fragment source pair, the hash is computed once.
+     */
+    private static class SourceKey {
+        /**
+         * The vertex shader source.
+         */
+        private final String mVertexSource;
+
+        /**
+         * The fragment shader source.
+         */
+        private final String mFragmentSource;
+
+        /**
+         * The hash.
+         */
+        private final int mHash;
+
+        /**
+         * Constructor.
+         *
+         * @param vertexSource   The vertex shader source.
+         * @param fragmentSource The fragment shader source.
+         */
+        private SourceKey(String vertexSource, String fragmentSource) {
+            mVertexSource = vertexSource;
+            mFragmentSource = fragmentSource;
+            mHash = 31 * vertexSource.hashCode() + fragmentSource.hashCode();
+        }
+
+        /**
+         * Get a digest of the sources usable as file name.
+         *
+         * @return The SHA-1 digest in hex.
+         */
+        private String getDigest() {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("No SHA-1 digest available", e);
+            }
+            digest.update(mVertexSource.getBytes(SOURCE_CHARSET));
+            digest.update((byte) 0);
+            digest.update(mFragmentSource.getBytes(SOURCE_CHARSET));
+            byte[] bytes = digest.digest();
+            char[] hex = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+                hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+            }
+            return new String(hex);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SourceKey)) {
+                return false;
+            }
+            SourceKey other = (SourceKey) o;
+            return mHash == other.mHash && mVertexSource.equals(other.mVertexSource) && mFragmentSource.equals(other.mFragmentSource);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+    }
+
+    /**
+     * A cached program.
+     */
+    private static class Entry {
+        /**
+         * The sources.
+         */
+        private final SourceKey mKey;
+
+        /**
+         * The linked program.
+         */
+        private final LinkedProgram mProgram;
+
+        /**
+         * If the program holds the compiled shaders, false when loaded from a binary.
+         */
+        private final boolean mHoldsShaders;
+
+        /**
+         * Number of holders.
+         */
+        private int mRefCount;
+
+        /**
+         * Constructor.
+         *
+         * @param key          The sources.
+         * @param program      The linked program.
+         * @param holdsShaders If the program holds the compiled shaders.
+         */
+        private Entry(SourceKey key, LinkedProgram program, boolean holdsShaders) {
+            mKey = key;
+            mProgram = program;
+            mHoldsShaders = holdsShaders;
+        }
+    }
+
+    /**
+     * A cached compiled shader.
+     */
+    private static class SharedShader {
+        /**
+         * The shader id.
+         */
+        private final int mId;
+
+        /**
+         * Number of programs holding the shader.
+         */
+        private int mRefCount;
+
+        /**
+         * Constructor.
+         *
+         * @param id The shader id.
+         */
+        private SharedShader(int id) {
+            mId = id;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import android.util.Log;
 
 import com.sweetlab.sweetride.shader.FragmentShader;
 import com.sweetlab.sweetride.shader.VertexShader;
-import com.sweetlab.sweetride.util.Util;
 
 /**
  * Shader program linker.
@@ -21,12 +20,18 @@ public class ProgramLinker {
      */
     private final BackendContext mContext;
 
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
     /**
      * Constructor.
      *
      * @param backendContext Backend context.
      */
     public ProgramLinker(BackendContext backendContext) {
+        mGL = backendContext.getGL();
         mContext = backendContext;
     }
 
@@ -46,40 +51,56 @@ public class ProgramLinker {
             fragmentShader.create(mContext);
         }
 
+        int id = link(vertexShader.getId(), fragmentShader.getId());
+        if (id == ResourceManager.INVALID_PROGRAM_ID) {
+            Log.d("Peter100", "Could not link program.\n" + vertexShader.getSource() + "\n" + fragmentShader.getSource());
+        }
+        return id;
+    }
+
+    /**
+     * Link shader program from compiled shaders.
+     *
+     * @param vertexShaderId   The compiled vertex shader.
+     * @param fragmentShaderId The compiled fragment shader.
+     * @return Linked program id.
+     */
+    public int link(int vertexShaderId, int fragmentShaderId) {
         int id = mContext.getResourceManager().createProgram();
         if (id == GLES20.GL_FALSE) {
-            Log.d("Peter100", "Could not create program.\n " + vertexShader.getSource() + "\n" + fragmentShader.getSource());
+            Log.d("Peter100", "Could not create program.");
             return ResourceManager.INVALID_PROGRAM_ID;
         }
 
-        GLES20.glAttachShader(id, vertexShader.getId());
-        if (Util.hasGlError()) {
-            Log.d("Peter100", "Could not attach vertex shader to program. \n" + vertexShader.getSource());
+        mGL.glAttachShader(id, vertexShaderId);
+        if (mGL.glGetError() != GLES20.GL_NO_ERROR) {
+            Log.d("Peter100", "Could not attach vertex shader to program.");
             return ResourceManager.INVALID_PROGRAM_ID;
         }
-        GLES20.glAttachShader(id, fragmentShader.getId());
-        if (Util.hasGlError()) {
-            Log.d("Peter100", "Could not attach fragment shader to program. \n " + fragmentShader.getSource());
+        mGL.glAttachShader(id, fragmentShaderId);
+        if (mGL.glGetError() != GLES20.GL_NO_ERROR) {
+            Log.d("Peter100", "Could not attach fragment shader to program.");
         }
 
-        GLES20.glLinkProgram(id);
-        if (!readIsLinked(id)) {
-            Log.d("Peter100", "Could not create program, log = " + GLES20.glGetProgramInfoLog(id) + "\n" + vertexShader.getSource() + "\n" + fragmentShader.getSource());
-            GLES20.glDeleteProgram(id);
+        mGL.glLinkProgram(id);
+        if (!isLinked(id)) {
+            Log.d("Peter100", "Could not create program, log = " + mGL.glGetProgramInfoLog(id));
+            mContext.getResourceManager().deleteProgram(id);
             return ResourceManager.INVALID_PROGRAM_ID;
         }
         return id;
     }
 
     /**
-     * Read if program is a linked program.
+     * Read if program is a linked program, also true for a program loaded from an accepted
+     * binary.
      *
      * @param program program to check.
      * @return True if linked.
      */
-    private boolean readIsLinked(int program) {
+    public boolean isLinked(int program) {
         if (program > 0) {
-            GLES20.glGetProgramiv(program, GLES20.GL_LINK_STATUS, sReadParams, 0);
+            mGL.glGetProgramiv(program, GLES20.GL_LINK_STATUS, sReadParams, 0);
             return sReadParams[0] == GLES20.GL_TRUE;
         }
         return false;
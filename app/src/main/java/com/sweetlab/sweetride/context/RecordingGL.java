@@ -0,0 +1,1118 @@
+package com.sweetlab.sweetride.context;
+
+import android.graphics.Bitmap;
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A headless GL implementation. Nothing is rendered, instead object names, bindings, enabled
+ * capabilities and call counts are tracked so the backend can be driven and measured on a plain
+ * JVM, in unit tests and benchmarks.
+ * <p/>
+ * Shaders always compile and programs always link. Active attributes and uniforms of a linked
+ * program are found by scanning the shader sources for attribute and uniform declarations.
+ * <p/>
+ * When program binaries are supported the binary of a program is its shader sources, loading
+ * a binary scans them again.
+ */
+public class RecordingGL implements GL {
+    /**
+     * Max number of texture units reported.
+     */
+    public static final int MAX_TEXTURE_UNITS = 8;
+
+    /**
+     * Max number of vertex attributes reported.
+     */
+    public static final int MAX_VERTEX_ATTRIBS = 16;
+
+    /**
+     * Max render buffer size reported.
+     */
+    public static final int MAX_RENDER_BUFFER_SIZE = 4096;
+
+    /**
+     * The only program binary format.
+     */
+    public static final int PROGRAM_BINARY_FORMAT = 1;
+
+    /**
+     * Separates the shader sources in a program binary.
+     */
+    private static final char SOURCE_SEPARATOR = '\0';
+
+    /**
+     * Charset of program binaries.
+     */
+    private static final Charset BINARY_CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * Finds attribute and uniform declarations in shader sources.
+     */
+    private static final Pattern DECLARATION = Pattern.compile(
+            "\\b(attribute|uniform)\\s+(?:(?:lowp|mediump|highp)\\s+)?(\\w+)\\s+(\\w+)\\s*(?:\\[\\s*(\\d+)\\s*\\])?\\s*;");
+
+    /**
+     * An attribute or uniform found in a program.
+     */
+    private static class Variable {
+        /**
+         * The name.
+         */
+        final String mName;
+
+        /**
+         * The GL type.
+         */
+        final int mType;
+
+        /**
+         * The array size.
+         */
+        final int mSize;
+
+        /**
+         * Constructor.
+         *
+         * @param name The name.
+         * @param type The GL type.
+         * @param size The array size.
+         */
+        Variable(String name, int type, int size) {
+            mName = name;
+            mType = type;
+            mSize = size;
+        }
+    }
+
+    /**
+     * Number of calls per GL function.
+     */
+    private final Map<String, int[]> mCallCounts = new HashMap<>();
+
+    /**
+     * Integer state per parameter name.
+     */
+    private final Map<Integer, int[]> mIntegerState = new HashMap<>();
+
+    /**
+     * Float state per parameter name.
+     */
+    private final Map<Integer, float[]> mFloatState = new HashMap<>();
+
+    /**
+     * Enabled capabilities.
+     */
+    private final Set<Integer> mEnabledCaps = new HashSet<>();
+
+    /**
+     * Live buffers and their sizes in bytes.
+     */
+    private final Map<Integer, Integer> mBuffers = new HashMap<>();
+
+    /**
+     * Bytes uploaded to buffers since call counts were reset.
+     */
+    private long mUploadedBytes;
+
+    /**
+     * Live textures.
+     */
+    private final Set<Integer> mTextures = new HashSet<>();
+
+    /**
+     * Live frame buffers.
+     */
+    private final Set<Integer> mFrameBuffers = new HashSet<>();
+
+    /**
+     * Live render buffers.
+     */
+    private final Set<Integer> mRenderBuffers = new HashSet<>();
+
+    /**
+     * Live shaders and their sources.
+     */
+    private final Map<Integer, String> mShaders = new HashMap<>();
+
+    /**
+     * Live programs and their attached shaders.
+     */
+    private final Map<Integer, List<Integer>> mPrograms = new HashMap<>();
+
+    /**
+     * Shader sources of linked programs, separated by SOURCE_SEPARATOR.
+     */
+    private final Map<Integer, String> mLinkedSources = new HashMap<>();
+
+    /**
+     * Active attributes of linked programs.
+     */
+    private final Map<Integer, List<Variable>> mAttributes = new HashMap<>();
+
+    /**
+     * Active uniforms of linked programs.
+     */
+    private final Map<Integer, List<Variable>> mUniforms = new HashMap<>();
+
+    /**
+     * Texture bound to the 2d target of each texture unit.
+     */
+    private final int[] mTextureBindings = new int[MAX_TEXTURE_UNITS];
+
+    /**
+     * Enabled state of each vertex attribute array.
+     */
+    private final boolean[] mAttribEnabled = new boolean[MAX_VERTEX_ATTRIBS];
+
+    /**
+     * Buffer bound to each vertex attribute array.
+     */
+    private final int[] mAttribBuffers = new int[MAX_VERTEX_ATTRIBS];
+
+    /**
+     * Total number of calls.
+     */
+    private int mTotalCallCount;
+
+    /**
+     * Number of draw calls.
+     */
+    private int mDrawCallCount;
+
+    /**
+     * Next buffer, texture, frame buffer and render buffer name.
+     */
+    private int mNextName = 1;
+
+    /**
+     * Next shader and program name, shaders and programs share name space.
+     */
+    private int mNextProgramName = 1;
+
+    /**
+     * The error flag.
+     */
+    private int mError = GLES20.GL_NO_ERROR;
+
+    /**
+     * The GL version string.
+     */
+    private String mVersion = "OpenGL ES 2.0 RecordingGL";
+
+    /**
+     * Constructor.
+     *
+     * @param width  Surface width, initial view port width.
+     * @param height Surface height, initial view port height.
+     */
+    public RecordingGL(int width, int height) {
+        mIntegerState.put(GLES20.GL_VIEWPORT, new int[]{0, 0, width, height});
+        mIntegerState.put(GLES20.GL_MAX_TEXTURE_IMAGE_UNITS, new int[]{MAX_TEXTURE_UNITS});
+        mIntegerState.put(GLES20.GL_MAX_VERTEX_ATTRIBS, new int[]{MAX_VERTEX_ATTRIBS});
+        mIntegerState.put(GLES20.GL_MAX_RENDERBUFFER_SIZE, new int[]{MAX_RENDER_BUFFER_SIZE});
+        mIntegerState.put(GLES20.GL_ACTIVE_TEXTURE, new int[]{GLES20.GL_TEXTURE0});
+        mIntegerState.put(GLES20.GL_BLEND_EQUATION_RGB, new int[]{GLES20.GL_FUNC_ADD});
+        mIntegerState.put(GLES20.GL_BLEND_EQUATION_ALPHA, new int[]{GLES20.GL_FUNC_ADD});
+        mIntegerState.put(GLES20.GL_BLEND_SRC_RGB, new int[]{GLES20.GL_ONE});
+        mIntegerState.put(GLES20.GL_BLEND_SRC_ALPHA, new int[]{GLES20.GL_ONE});
+        mIntegerState.put(GLES20.GL_BLEND_DST_RGB, new int[]{GLES20.GL_ZERO});
+        mIntegerState.put(GLES20.GL_BLEND_DST_ALPHA, new int[]{GLES20.GL_ZERO});
+        mFloatState.put(GLES20.GL_DEPTH_CLEAR_VALUE, new float[]{1});
+        mFloatState.put(GLES20.GL_COLOR_CLEAR_VALUE, new float[4]);
+        mEnabledCaps.add(GLES20.GL_DITHER);
+    }
+
+    /**
+     * Get number of calls made to a GL function.
+     *
+     * @param name Name of GL function, for instance "glBindBuffer".
+     * @return Number of calls.
+     */
+    public int getCallCount(String name) {
+        int[] count = mCallCounts.get(name);
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * Get total number of GL calls.
+     *
+     * @return Number of calls.
+     */
+    public int getTotalCallCount() {
+        return mTotalCallCount;
+    }
+
+    /**
+     * Get number of draw calls, both arrays and elements.
+     *
+     * @return Number of draw calls.
+     */
+    public int getDrawCallCount() {
+        return mDrawCallCount;
+    }
+
+    /**
+     * Reset all call counts, typically at the start of a frame.
+     */
+    public void resetCallCounts() {
+        mCallCounts.clear();
+        mTotalCallCount = 0;
+        mDrawCallCount = 0;
+        mUploadedBytes = 0;
+    }
+
+    /**
+     * Get number of bytes uploaded to buffers with glBufferData and glBufferSubData since call
+     * counts were reset.
+     *
+     * @return The number of bytes.
+     */
+    public long getUploadedBytes() {
+        return mUploadedBytes;
+    }
+
+    /**
+     * Get number of live buffers.
+     *
+     * @return Number of buffers.
+     */
+    public int getBufferCount() {
+        return mBuffers.size();
+    }
+
+    /**
+     * Get number of live textures.
+     *
+     * @return Number of textures.
+     */
+    public int getTextureCount() {
+        return mTextures.size();
+    }
+
+    /**
+     * Set if program binaries are supported. Makes the implementation report ES 3.0 and one
+     * binary format. Call before creating the backend context.
+     *
+     * @param supported True if supported.
+     */
+    public void setProgramBinarySupported(boolean supported) {
+        mVersion = supported ? "OpenGL ES 3.0 RecordingGL" : "OpenGL ES 2.0 RecordingGL";
+        mIntegerState.put(GLES30.GL_NUM_PROGRAM_BINARY_FORMATS, new int[]{supported ? 1 : 0});
+    }
+
+    /**
+     * Get number of live programs.
+     *
+     * @return Number of programs.
+     */
+    public int getProgramCount() {
+        return mPrograms.size();
+    }
+
+    /**
+     * Get the buffer bound to a target.
+     *
+     * @param target GL_ARRAY_BUFFER or GL_ELEMENT_ARRAY_BUFFER.
+     * @return The bound buffer.
+     */
+    public int getBoundBuffer(int target) {
+        return getInteger(target == GLES20.GL_ARRAY_BUFFER ? GLES20.GL_ARRAY_BUFFER_BINDING : GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING);
+    }
+
+    /**
+     * Get the current program.
+     *
+     * @return The current program.
+     */
+    public int getCurrentProgram() {
+        return getInteger(GLES20.GL_CURRENT_PROGRAM);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("total = ").append(mTotalCallCount);
+        for (Map.Entry<String, int[]> entry : new TreeMap<>(mCallCounts).entrySet()) {
+            builder.append(' ').append(entry.getKey()).append(" = ").append(entry.getValue()[0]);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        count("glActiveTexture");
+        setInteger(GLES20.GL_ACTIVE_TEXTURE, texture);
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        count("glAttachShader");
+        List<Integer> shaders = mPrograms.get(program);
+        if (shaders == null || !mShaders.containsKey(shader)) {
+            mError = GLES20.GL_INVALID_VALUE;
+            return;
+        }
+        shaders.add(shader);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        count("glBindBuffer");
+        if (buffer != 0 && !mBuffers.containsKey(buffer)) {
+            mBuffers.put(buffer, 0);
+        }
+        setInteger(target == GLES20.GL_ARRAY_BUFFER ? GLES20.GL_ARRAY_BUFFER_BINDING : GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING, buffer);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        count("glBindFramebuffer");
+        setInteger(GLES20.GL_FRAMEBUFFER_BINDING, framebuffer);
+    }
+
+    @Override
+    public void glBindRenderbuffer(int target, int renderbuffer) {
+        count("glBindRenderbuffer");
+        setInteger(GLES20.GL_RENDERBUFFER_BINDING, renderbuffer);
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        count("glBindTexture");
+        mTextureBindings[getActiveUnit()] = texture;
+    }
+
+    @Override
+    public void glBlendEquation(int mode) {
+        count("glBlendEquation");
+        setInteger(GLES20.GL_BLEND_EQUATION_RGB, mode);
+        setInteger(GLES20.GL_BLEND_EQUATION_ALPHA, mode);
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        count("glBlendFunc");
+        setInteger(GLES20.GL_BLEND_SRC_RGB, sfactor);
+        setInteger(GLES20.GL_BLEND_SRC_ALPHA, sfactor);
+        setInteger(GLES20.GL_BLEND_DST_RGB, dfactor);
+        setInteger(GLES20.GL_BLEND_DST_ALPHA, dfactor);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        count("glBufferData");
+        int buffer = getBoundBuffer(target);
+        if (buffer == 0) {
+            mError = GLES20.GL_INVALID_OPERATION;
+            return;
+        }
+        mBuffers.put(buffer, size);
+        if (data != null) {
+            mUploadedBytes += size;
+        }
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        count("glBufferSubData");
+        int buffer = getBoundBuffer(target);
+        if (buffer == 0) {
+            mError = GLES20.GL_INVALID_OPERATION;
+            return;
+        }
+        if (offset < 0 || size < 0 || offset + size > mBuffers.get(buffer)) {
+            mError = GLES20.GL_INVALID_VALUE;
+            return;
+        }
+        mUploadedBytes += size;
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        count("glCheckFramebufferStatus");
+        return GLES20.GL_FRAMEBUFFER_COMPLETE;
+    }
+
+    @Override
+    public void glClear(int mask) {
+        count("glClear");
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        count("glClearColor");
+        mFloatState.put(GLES20.GL_COLOR_CLEAR_VALUE, new float[]{red, green, blue, alpha});
+    }
+
+    @Override
+    public void glClearDepthf(float depth) {
+        count("glClearDepthf");
+        mFloatState.put(GLES20.GL_DEPTH_CLEAR_VALUE, new float[]{depth});
+    }
+
+    @Override
+    public void glClearStencil(int s) {
+        count("glClearStencil");
+        setInteger(GLES20.GL_STENCIL_CLEAR_VALUE, s);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        count("glCompileShader");
+    }
+
+    @Override
+    public int glCreateProgram() {
+        count("glCreateProgram");
+        int program = mNextProgramName++;
+        mPrograms.put(program, new ArrayList<Integer>());
+        return program;
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        count("glCreateShader");
+        int shader = mNextProgramName++;
+        mShaders.put(shader, "");
+        return shader;
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        count("glDeleteBuffers");
+        for (int i = 0; i < n; i++) {
+            int buffer = buffers[offset + i];
+            mBuffers.remove(buffer);
+            if (getInteger(GLES20.GL_ARRAY_BUFFER_BINDING) == buffer) {
+                setInteger(GLES20.GL_ARRAY_BUFFER_BINDING, 0);
+            }
+            if (getInteger(GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING) == buffer) {
+                setInteger(GLES20.GL_ELEMENT_ARRAY_BUFFER_BINDING, 0);
+            }
+            for (int j = 0; j < mAttribBuffers.length; j++) {
+                if (mAttribBuffers[j] == buffer) {
+                    mAttribBuffers[j] = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        count("glDeleteFramebuffers");
+        for (int i = 0; i < n; i++) {
+            int framebuffer = framebuffers[offset + i];
+            mFrameBuffers.remove(framebuffer);
+            if (getInteger(GLES20.GL_FRAMEBUFFER_BINDING) == framebuffer) {
+                setInteger(GLES20.GL_FRAMEBUFFER_BINDING, 0);
+            }
+        }
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        count("glDeleteProgram");
+        mPrograms.remove(program);
+        mLinkedSources.remove(program);
+        mAttributes.remove(program);
+        mUniforms.remove(program);
+    }
+
+    @Override
+    public void glDeleteRenderbuffers(int n, int[] renderbuffers, int offset) {
+        count("glDeleteRenderbuffers");
+        for (int i = 0; i < n; i++) {
+            int renderbuffer = renderbuffers[offset + i];
+            mRenderBuffers.remove(renderbuffer);
+            if (getInteger(GLES20.GL_RENDERBUFFER_BINDING) == renderbuffer) {
+                setInteger(GLES20.GL_RENDERBUFFER_BINDING, 0);
+            }
+        }
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        count("glDeleteShader");
+        mShaders.remove(shader);
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        count("glDeleteTextures");
+        for (int i = 0; i < n; i++) {
+            int texture = textures[offset + i];
+            mTextures.remove(texture);
+            for (int j = 0; j < mTextureBindings.length; j++) {
+                if (mTextureBindings[j] == texture) {
+                    mTextureBindings[j] = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        count("glDisable");
+        mEnabledCaps.remove(cap);
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        count("glDisableVertexAttribArray");
+        mAttribEnabled[index] = false;
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        count("glDrawArrays");
+        mDrawCallCount++;
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        count("glDrawElements");
+        mDrawCallCount++;
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        count("glEnable");
+        mEnabledCaps.add(cap);
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        count("glEnableVertexAttribArray");
+        mAttribEnabled[index] = true;
+    }
+
+    @Override
+    public void glFramebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer) {
+        count("glFramebufferRenderbuffer");
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        count("glFramebufferTexture2D");
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        count("glGenBuffers");
+        for (int i = 0; i < n; i++) {
+            buffers[offset + i] = mNextName;
+            mBuffers.put(mNextName++, 0);
+        }
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        count("glGenFramebuffers");
+        for (int i = 0; i < n; i++) {
+            framebuffers[offset + i] = mNextName;
+            mFrameBuffers.add(mNextName++);
+        }
+    }
+
+    @Override
+    public void glGenRenderbuffers(int n, int[] renderbuffers, int offset) {
+        count("glGenRenderbuffers");
+        for (int i = 0; i < n; i++) {
+            renderbuffers[offset + i] = mNextName;
+            mRenderBuffers.add(mNextName++);
+        }
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        count("glGenTextures");
+        for (int i = 0; i < n; i++) {
+            textures[offset + i] = mNextName;
+            mTextures.add(mNextName++);
+        }
+    }
+
+    @Override
+    public void glGetActiveAttrib(int program, int index, int bufsize, int[] length, int lengthOffset, int[] size, int sizeOffset, int[] type, int typeOffset, byte[] name, int nameOffset) {
+        count("glGetActiveAttrib");
+        readVariable(mAttributes.get(program), index, bufsize, length, lengthOffset, size, sizeOffset, type, typeOffset, name, nameOffset);
+    }
+
+    @Override
+    public void glGetActiveUniform(int program, int index, int bufsize, int[] length, int lengthOffset, int[] size, int sizeOffset, int[] type, int typeOffset, byte[] name, int nameOffset) {
+        count("glGetActiveUniform");
+        readVariable(mUniforms.get(program), index, bufsize, length, lengthOffset, size, sizeOffset, type, typeOffset, name, nameOffset);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        count("glGetAttribLocation");
+        return findLocation(mAttributes.get(program), name);
+    }
+
+    @Override
+    public void glGetBooleanv(int pname, boolean[] params, int offset) {
+        count("glGetBooleanv");
+        params[offset] = mEnabledCaps.contains(pname);
+    }
+
+    @Override
+    public void glGetBufferParameteriv(int target, int pname, int[] params, int offset) {
+        count("glGetBufferParameteriv");
+        Integer size = mBuffers.get(getBoundBuffer(target));
+        params[offset] = size == null ? 0 : size;
+    }
+
+    @Override
+    public int glGetError() {
+        count("glGetError");
+        int error = mError;
+        mError = GLES20.GL_NO_ERROR;
+        return error;
+    }
+
+    @Override
+    public void glGetFloatv(int pname, float[] params, int offset) {
+        count("glGetFloatv");
+        float[] values = mFloatState.get(pname);
+        if (values != null) {
+            System.arraycopy(values, 0, params, offset, values.length);
+        } else {
+            params[offset] = 0;
+        }
+    }
+
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        count("glGetIntegerv");
+        if (pname == GLES20.GL_TEXTURE_BINDING_2D) {
+            params[offset] = mTextureBindings[getActiveUnit()];
+            return;
+        }
+        int[] values = mIntegerState.get(pname);
+        if (values != null) {
+            System.arraycopy(values, 0, params, offset, values.length);
+        } else {
+            params[offset] = 0;
+        }
+    }
+
+    @Override
+    public void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+        count("glGetProgramBinary");
+        String sources = mLinkedSources.get(program);
+        if (sources == null) {
+            mError = GLES20.GL_INVALID_OPERATION;
+            return;
+        }
+        byte[] bytes = sources.getBytes(BINARY_CHARSET);
+        if (bytes.length > bufSize) {
+            mError = GLES20.GL_INVALID_OPERATION;
+            return;
+        }
+        ByteBuffer destination = ((ByteBuffer) binary).duplicate();
+        destination.put(bytes);
+        length[lengthOffset] = bytes.length;
+        binaryFormat[binaryFormatOffset] = PROGRAM_BINARY_FORMAT;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        count("glGetProgramInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        count("glGetProgramiv");
+        switch (pname) {
+            case GLES20.GL_LINK_STATUS:
+                params[offset] = mAttributes.containsKey(program) ? GLES20.GL_TRUE : GLES20.GL_FALSE;
+                break;
+            case GLES20.GL_ACTIVE_ATTRIBUTES:
+                params[offset] = mAttributes.containsKey(program) ? mAttributes.get(program).size() : 0;
+                break;
+            case GLES20.GL_ACTIVE_UNIFORMS:
+                params[offset] = mUniforms.containsKey(program) ? mUniforms.get(program).size() : 0;
+                break;
+            case GLES30.GL_PROGRAM_BINARY_LENGTH:
+                params[offset] = mLinkedSources.containsKey(program) ? mLinkedSources.get(program).getBytes(BINARY_CHARSET).length : 0;
+                break;
+            default:
+                params[offset] = 0;
+        }
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        count("glGetShaderInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        count("glGetShaderiv");
+        if (pname == GLES20.GL_COMPILE_STATUS) {
+            params[offset] = mShaders.containsKey(shader) ? GLES20.GL_TRUE : GLES20.GL_FALSE;
+        } else {
+            params[offset] = 0;
+        }
+    }
+
+    @Override
+    public String glGetString(int name) {
+        count("glGetString");
+        return name == GLES20.GL_VERSION ? mVersion : "";
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        count("glGetUniformLocation");
+        return findLocation(mUniforms.get(program), name);
+    }
+
+    @Override
+    public void glGetVertexAttribiv(int index, int pname, int[] params, int offset) {
+        count("glGetVertexAttribiv");
+        if (pname == GLES20.GL_VERTEX_ATTRIB_ARRAY_ENABLED) {
+            params[offset] = mAttribEnabled[index] ? GLES20.GL_TRUE : GLES20.GL_FALSE;
+        } else if (pname == GLES20.GL_VERTEX_ATTRIB_ARRAY_BUFFER_BINDING) {
+            params[offset] = mAttribBuffers[index];
+        } else {
+            params[offset] = 0;
+        }
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        count("glLinkProgram");
+        List<Integer> shaders = mPrograms.get(program);
+        if (shaders == null) {
+            mError = GLES20.GL_INVALID_VALUE;
+            return;
+        }
+        StringBuilder sources = new StringBuilder();
+        for (Integer shader : shaders) {
+            String source = mShaders.get(shader);
+            if (source != null) {
+                sources.append(source).append(SOURCE_SEPARATOR);
+            }
+        }
+        link(program, sources.toString());
+    }
+
+    @Override
+    public void glProgramBinary(int program, int binaryFormat, Buffer binary, int length) {
+        count("glProgramBinary");
+        if (!mPrograms.containsKey(program)) {
+            mError = GLES20.GL_INVALID_VALUE;
+            return;
+        }
+        if (binaryFormat != PROGRAM_BINARY_FORMAT) {
+            /**
+             * Rejected binaries leave the program unlinked.
+             */
+            mLinkedSources.remove(program);
+            mAttributes.remove(program);
+            mUniforms.remove(program);
+            return;
+        }
+        ByteBuffer source = ((ByteBuffer) binary).duplicate();
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        link(program, new String(bytes, BINARY_CHARSET));
+    }
+
+    @Override
+    public void glRenderbufferStorage(int target, int internalformat, int width, int height) {
+        count("glRenderbufferStorage");
+    }
+
+    @Override
+    public void glShaderSource(int shader, String string) {
+        count("glShaderSource");
+        if (!mShaders.containsKey(shader)) {
+            mError = GLES20.GL_INVALID_VALUE;
+            return;
+        }
+        mShaders.put(shader, string);
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, Buffer pixels) {
+        count("glTexImage2D");
+    }
+
+    @Override
+    public void texImage2D(int target, int level, Bitmap bitmap, int border) {
+        count("texImage2D");
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        count("glTexParameteri");
+    }
+
+    @Override
+    public void glUniform1fv(int location, int count, float[] v, int offset) {
+        count("glUniform1fv");
+    }
+
+    @Override
+    public void glUniform1iv(int location, int count, int[] v, int offset) {
+        count("glUniform1iv");
+    }
+
+    @Override
+    public void glUniform2fv(int location, int count, float[] v, int offset) {
+        count("glUniform2fv");
+    }
+
+    @Override
+    public void glUniform2iv(int location, int count, int[] v, int offset) {
+        count("glUniform2iv");
+    }
+
+    @Override
+    public void glUniform3fv(int location, int count, float[] v, int offset) {
+        count("glUniform3fv");
+    }
+
+    @Override
+    public void glUniform3iv(int location, int count, int[] v, int offset) {
+        count("glUniform3iv");
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] v, int offset) {
+        count("glUniform4fv");
+    }
+
+    @Override
+    public void glUniform4iv(int location, int count, int[] v, int offset) {
+        count("glUniform4iv");
+    }
+
+    @Override
+    public void glUniformMatrix3fv(int location, int count, boolean transpose, float[] value, int offset) {
+        count("glUniformMatrix3fv");
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        count("glUniformMatrix4fv");
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        count("glUseProgram");
+        if (program != 0 && !mAttributes.containsKey(program)) {
+            mError = GLES20.GL_INVALID_OPERATION;
+            return;
+        }
+        setInteger(GLES20.GL_CURRENT_PROGRAM, program);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int indx, int size, int type, boolean normalized, int stride, int offset) {
+        count("glVertexAttribPointer");
+        mAttribBuffers[indx] = getInteger(GLES20.GL_ARRAY_BUFFER_BINDING);
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        count("glViewport");
+        mIntegerState.put(GLES20.GL_VIEWPORT, new int[]{x, y, width, height});
+    }
+
+    /**
+     * Link a program from its shader sources.
+     *
+     * @param program The program id.
+     * @param sources The shader sources, separated by SOURCE_SEPARATOR.
+     */
+    private void link(int program, String sources) {
+        List<Variable> attributes = new ArrayList<>();
+        List<Variable> uniforms = new ArrayList<>();
+        for (String source : sources.split(String.valueOf(SOURCE_SEPARATOR))) {
+            parseDeclarations(source, attributes, uniforms);
+        }
+        mLinkedSources.put(program, sources);
+        mAttributes.put(program, attributes);
+        mUniforms.put(program, uniforms);
+    }
+
+    /**
+     * Count a call.
+     *
+     * @param name Name of GL function.
+     */
+    private void count(String name) {
+        int[] count = mCallCounts.get(name);
+        if (count == null) {
+            count = new int[1];
+            mCallCounts.put(name, count);
+        }
+        count[0]++;
+        mTotalCallCount++;
+    }
+
+    /**
+     * Get single integer state.
+     *
+     * @param pname The parameter name.
+     * @return The value, 0 if never set.
+     */
+    private int getInteger(int pname) {
+        int[] values = mIntegerState.get(pname);
+        return values == null ? 0 : values[0];
+    }
+
+    /**
+     * Set single integer state.
+     *
+     * @param pname The parameter name.
+     * @param value The value.
+     */
+    private void setInteger(int pname, int value) {
+        int[] values = mIntegerState.get(pname);
+        if (values == null) {
+            values = new int[1];
+            mIntegerState.put(pname, values);
+        }
+        values[0] = value;
+    }
+
+    /**
+     * Get zero based active texture unit.
+     *
+     * @return The active unit.
+     */
+    private int getActiveUnit() {
+        return getInteger(GLES20.GL_ACTIVE_TEXTURE) - GLES20.GL_TEXTURE0;
+    }
+
+    /**
+     * Find location of a variable, the location is the index.
+     *
+     * @param variables The variables.
+     * @param name      Name to find.
+     * @return The location or -1 if not found.
+     */
+    private static int findLocation(List<Variable> variables, String name) {
+        if (variables != null) {
+            for (int i = 0; i < variables.size(); i++) {
+                if (variables.get(i).mName.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read information about a variable.
+     *
+     * @param variables  The variables.
+     * @param index      The variable index.
+     * @param bufsize    Size of the name array.
+     * @param length     Destination of the name length.
+     * @param lengthOffset Offset into length.
+     * @param size       Destination of the array size.
+     * @param sizeOffset Offset into size.
+     * @param type       Destination of the type.
+     * @param typeOffset Offset into type.
+     * @param name       Destination of the name.
+     * @param nameOffset Offset into name.
+     */
+    private void readVariable(List<Variable> variables, int index, int bufsize, int[] length, int lengthOffset, int[] size, int sizeOffset, int[] type, int typeOffset, byte[] name, int nameOffset) {
+        if (variables == null || index < 0 || index >= variables.size()) {
+            mError = GLES20.GL_INVALID_VALUE;
+            return;
+        }
+        Variable variable = variables.get(index);
+        byte[] bytes = variable.mName.getBytes();
+        int count = Math.min(bytes.length, bufsize - 1);
+        System.arraycopy(bytes, 0, name, nameOffset, count);
+        Arrays.fill(name, nameOffset + count, nameOffset + count + 1, (byte) 0);
+        length[lengthOffset] = count;
+        size[sizeOffset] = variable.mSize;
+        type[typeOffset] = variable.mType;
+    }
+
+    /**
+     * Find attribute and uniform declarations in shader source. Uniforms declared in both vertex
+     * and fragment shader are only added once.
+     *
+     * @param source     The shader source.
+     * @param attributes Found attributes are added here.
+     * @param uniforms   Found uniforms are added here.
+     */
+    private static void parseDeclarations(String source, List<Variable> attributes, List<Variable> uniforms) {
+        Matcher matcher = DECLARATION.matcher(source);
+        while (matcher.find()) {
+            int type = toGLType(matcher.group(2));
+            String name = matcher.group(3);
+            int size = matcher.group(4) == null ? 1 : Integer.parseInt(matcher.group(4));
+            List<Variable> list = "attribute".equals(matcher.group(1)) ? attributes : uniforms;
+            if (findLocation(list, name) == -1) {
+                list.add(new Variable(name, type, size));
+            }
+        }
+    }
+
+    /**
+     * Convert a GLSL type name to GL type.
+     *
+     * @param glslType The GLSL type name.
+     * @return The GL type.
+     */
+    private static int toGLType(String glslType) {
+        switch (glslType) {
+            case "float":
+                return GLES20.GL_FLOAT;
+            case "vec2":
+                return GLES20.GL_FLOAT_VEC2;
+            case "vec3":
+                return GLES20.GL_FLOAT_VEC3;
+            case "vec4":
+                return GLES20.GL_FLOAT_VEC4;
+            case "mat2":
+                return GLES20.GL_FLOAT_MAT2;
+            case "mat3":
+                return GLES20.GL_FLOAT_MAT3;
+            case "mat4":
+                return GLES20.GL_FLOAT_MAT4;
+            case "int":
+                return GLES20.GL_INT;
+            case "ivec2":
+                return GLES20.GL_INT_VEC2;
+            case "ivec3":
+                return GLES20.GL_INT_VEC3;
+            case "ivec4":
+                return GLES20.GL_INT_VEC4;
+            case "bool":
+                return GLES20.GL_BOOL;
+            case "sampler2D":
+                return GLES20.GL_SAMPLER_2D;
+            case "samplerCube":
+                return GLES20.GL_SAMPLER_CUBE;
+            default:
+                throw new RuntimeException("Unsupported GLSL type " + glslType);
+        }
+    }
+}
@@ -8,10 +8,6 @@ import com.sweetlab.sweetride.renderbuffer.RenderBuffer;
  * Render buffer target.
  */
 public class RenderBufferTarget {
-    /**
-     * Buffer to read GL information.
-     */
-    private final int[] mReadBuffer = new int[4];
     /**
      * Binding with this value unbinds any previously bound render buffer.
      */
@@ -23,17 +19,23 @@ public class RenderBufferTarget {
     private static final int TARGET = GLES20.GL_RENDERBUFFER;
 
     /**
-     * The render buffer binding.
+     * The backend context.
+     */
+    private final BackendContext mContext;
+
+    /**
+     * The GL implementation.
      */
-    private static final int BINDING = GLES20.GL_RENDERBUFFER_BINDING;
+    private final GL mGL;
 
     /**
      * Constructor.
      *
      * @param context The backend context.
      */
-    @SuppressWarnings("unused")
     public RenderBufferTarget(BackendContext context) {
+        mGL = context.getGL();
+        mContext = context;
     }
 
     /**
@@ -44,20 +46,20 @@ public class RenderBufferTarget {
     public void enable(RenderBuffer buffer) {
         int id = buffer.getId();
         if (!isRenderBufferBound(id)) {
-            GLES20.glBindRenderbuffer(TARGET, id);
+            bindRenderBuffer(id);
         }
 
         int format = buffer.getFormat();
         int width = buffer.getWidth();
         int height = buffer.getHeight();
-        GLES20.glRenderbufferStorage(TARGET, format, width, height);
+        mGL.glRenderbufferStorage(TARGET, format, width, height);
     }
 
     /**
      * Disable the render buffer target.
      */
     public void disable() {
-        GLES20.glBindRenderbuffer(TARGET, DISABLE_TARGET);
+        bindRenderBuffer(DISABLE_TARGET);
     }
 
     /**
@@ -68,9 +70,18 @@ public class RenderBufferTarget {
      */
     public boolean isRenderBufferBound(int id) {
         if (id > 0) {
-            GLES20.glGetIntegerv(BINDING, mReadBuffer, 0);
-            return mReadBuffer[0] == id;
+            return mContext.getStateShadow().getRenderBuffer() == id;
         }
         return false;
     }
+
+    /**
+     * Bind render buffer to target.
+     *
+     * @param id The render buffer id.
+     */
+    private void bindRenderBuffer(int id) {
+        mGL.glBindRenderbuffer(TARGET, id);
+        mContext.getStateShadow().setRenderBuffer(id);
+    }
 }
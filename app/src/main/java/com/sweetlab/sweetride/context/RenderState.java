@@ -9,6 +9,9 @@ import java.util.Arrays;
 /**
  * GL render state. Each (new) frame the clear order must be cleared in order
  * to clear to work.
+ * <p/>
+ * Settings are preferably used as render state blocks. Using the current block again is free
+ * and switching block only applies the fields that differ.
  */
 public class RenderState extends BackendRenderSettings {
     /**
@@ -24,14 +27,34 @@ public class RenderState extends BackendRenderSettings {
      */
     private float[] mFloatBuf = new float[4];
 
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
+    /**
+     * The block in use, null if unknown.
+     */
+    private RenderStateBlock mBlock;
+
+    /**
+     * If GL state should be cross checked when changed.
+     */
+    private final boolean mValidate;
+
     /**
      * Constructor.
+     *
+     * @param gl       The GL implementation.
+     * @param validate True if GL state should be cross checked, see DebugOptions.DEBUG_RENDER_SETTINGS.
      */
-    public RenderState() {
+    public RenderState(GL gl, boolean validate) {
+        mGL = gl;
+        mValidate = validate && DebugOptions.DEBUG_RENDER_SETTINGS;
         /**
          * When a GL context is first attached to a window, width and height are set to the dimensions of that window.
          */
-        GLES20.glGetIntegerv(GLES20.GL_VIEWPORT, mIntBuf, 0);
+        mGL.glGetIntegerv(GLES20.GL_VIEWPORT, mIntBuf, 0);
         mViewPort[0] = mIntBuf[0];
         mViewPort[1] = mIntBuf[1];
         mViewPort[2] = mIntBuf[2];
@@ -40,38 +63,38 @@ public class RenderState extends BackendRenderSettings {
 
     @Override
     public void setBlendEqFunc(int func) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetIntegerv(GLES20.GL_BLEND_EQUATION_RGB, mIntBuf, 0);
+        if (mValidate) {
+            mGL.glGetIntegerv(GLES20.GL_BLEND_EQUATION_RGB, mIntBuf, 0);
             if (mIntBuf[0] != mBlendEqFunc) {
                 throw new RuntimeException("RenderState diff rgb blend eq func " + " state = " + mBlendEqFunc + " gl = " + mIntBuf[0]);
             }
-            GLES20.glGetIntegerv(GLES20.GL_BLEND_EQUATION_ALPHA, mIntBuf, 0);
+            mGL.glGetIntegerv(GLES20.GL_BLEND_EQUATION_ALPHA, mIntBuf, 0);
             if (mIntBuf[0] != mBlendEqFunc) {
                 throw new RuntimeException("RenderState diff alpha blend eq func " + " state = " + mBlendEqFunc + " gl = " + mIntBuf[0]);
             }
         }
         if (mBlendEqFunc != func) {
             mBlendEqFunc = func;
-            GLES20.glBlendEquation(mBlendEqFunc);
+            mGL.glBlendEquation(mBlendEqFunc);
         }
     }
 
     @Override
     public void setBlendFact(int sFactor, int dFactor) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetIntegerv(GLES20.GL_BLEND_SRC_RGB, mIntBuf, 0);
+        if (mValidate) {
+            mGL.glGetIntegerv(GLES20.GL_BLEND_SRC_RGB, mIntBuf, 0);
             if (mIntBuf[0] != mBlendSrcFact) {
                 throw new RuntimeException("RenderState diff rgb blend src fact " + " state = " + mBlendSrcFact + " gl = " + mIntBuf[0]);
             }
-            GLES20.glGetIntegerv(GLES20.GL_BLEND_SRC_ALPHA, mIntBuf, 0);
+            mGL.glGetIntegerv(GLES20.GL_BLEND_SRC_ALPHA, mIntBuf, 0);
             if (mIntBuf[0] != mBlendSrcFact) {
                 throw new RuntimeException("RenderState diff alpha blend src fact " + " state = " + mBlendSrcFact + " gl = " + mIntBuf[0]);
             }
-            GLES20.glGetIntegerv(GLES20.GL_BLEND_DST_RGB, mIntBuf, 0);
+            mGL.glGetIntegerv(GLES20.GL_BLEND_DST_RGB, mIntBuf, 0);
             if (mIntBuf[0] != mBlendDstFact) {
                 throw new RuntimeException("RenderState diff rgb blend dst fact " + " state = " + mBlendDstFact + " gl = " + mIntBuf[0]);
             }
-            GLES20.glGetIntegerv(GLES20.GL_BLEND_DST_ALPHA, mIntBuf, 0);
+            mGL.glGetIntegerv(GLES20.GL_BLEND_DST_ALPHA, mIntBuf, 0);
             if (mIntBuf[0] != mBlendDstFact) {
                 throw new RuntimeException("RenderState diff alpha blend dst fact " + " state = " + mBlendDstFact + " gl = " + mIntBuf[0]);
             }
@@ -79,14 +102,14 @@ public class RenderState extends BackendRenderSettings {
         if (mBlendSrcFact != sFactor || mBlendDstFact != dFactor) {
             mBlendSrcFact = sFactor;
             mBlendDstFact = dFactor;
-            GLES20.glBlendFunc(mBlendSrcFact, mBlendDstFact);
+            mGL.glBlendFunc(mBlendSrcFact, mBlendDstFact);
         }
     }
 
     @Override
     public void setBlend(boolean blend) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_BLEND, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_BLEND, mBoolBuf, 0);
             if (mBoolBuf[0] != mBlend) {
                 throw new RuntimeException("RenderState diff blend " + " state = " + mBlend + " gl = " + mBoolBuf[0]);
             }
@@ -94,17 +117,17 @@ public class RenderState extends BackendRenderSettings {
         if (mBlend != blend) {
             mBlend = blend;
             if (blend) {
-                GLES20.glEnable(GLES20.GL_BLEND);
+                mGL.glEnable(GLES20.GL_BLEND);
             } else {
-                GLES20.glDisable(GLES20.GL_BLEND);
+                mGL.glDisable(GLES20.GL_BLEND);
             }
         }
     }
 
     @Override
     public void setCullFace(boolean cullFace) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_CULL_FACE, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_CULL_FACE, mBoolBuf, 0);
             if (mBoolBuf[0] != mCullFace) {
                 throw new RuntimeException("RenderState diff cull face" + " state = " + mCullFace + " gl = " + mBoolBuf[0]);
             }
@@ -112,17 +135,17 @@ public class RenderState extends BackendRenderSettings {
         if (mCullFace != cullFace) {
             mCullFace = cullFace;
             if (cullFace) {
-                GLES20.glEnable(GLES20.GL_CULL_FACE);
+                mGL.glEnable(GLES20.GL_CULL_FACE);
             } else {
-                GLES20.glDisable(GLES20.GL_CULL_FACE);
+                mGL.glDisable(GLES20.GL_CULL_FACE);
             }
         }
     }
 
     @Override
     public void setDepthTest(boolean depthTest) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_DEPTH_TEST, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_DEPTH_TEST, mBoolBuf, 0);
             if (mBoolBuf[0] != mDepthTest) {
                 throw new RuntimeException("RenderState diff depth test" + " state = " + mDepthTest + " gl = " + mBoolBuf[0]);
             }
@@ -130,17 +153,17 @@ public class RenderState extends BackendRenderSettings {
         if (mDepthTest != depthTest) {
             mDepthTest = depthTest;
             if (depthTest) {
-                GLES20.glEnable(GLES20.GL_DEPTH_TEST);
+                mGL.glEnable(GLES20.GL_DEPTH_TEST);
             } else {
-                GLES20.glDisable(GLES20.GL_DEPTH_TEST);
+                mGL.glDisable(GLES20.GL_DEPTH_TEST);
             }
         }
     }
 
     @Override
     public void setDither(boolean dither) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_DITHER, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_DITHER, mBoolBuf, 0);
             if (mBoolBuf[0] != mDither) {
                 throw new RuntimeException("RenderState diff dither" + " state = " + mDither + " gl = " + mBoolBuf[0]);
             }
@@ -148,17 +171,17 @@ public class RenderState extends BackendRenderSettings {
         if (mDither != dither) {
             mDither = dither;
             if (dither) {
-                GLES20.glEnable(GLES20.GL_DITHER);
+                mGL.glEnable(GLES20.GL_DITHER);
             } else {
-                GLES20.glDisable(GLES20.GL_DITHER);
+                mGL.glDisable(GLES20.GL_DITHER);
             }
         }
     }
 
     @Override
     public void setPolygonOffsetFill(boolean polygonOffsetFill) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_POLYGON_OFFSET_FILL, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_POLYGON_OFFSET_FILL, mBoolBuf, 0);
             if (mBoolBuf[0] != mPolygonOffsetFill) {
                 throw new RuntimeException("RenderState diff polygon offset fill" + " state = " + mPolygonOffsetFill + " gl = " + mBoolBuf[0]);
             }
@@ -166,17 +189,17 @@ public class RenderState extends BackendRenderSettings {
         if (mPolygonOffsetFill != polygonOffsetFill) {
             mPolygonOffsetFill = polygonOffsetFill;
             if (polygonOffsetFill) {
-                GLES20.glEnable(GLES20.GL_POLYGON_OFFSET_FILL);
+                mGL.glEnable(GLES20.GL_POLYGON_OFFSET_FILL);
             } else {
-                GLES20.glDisable(GLES20.GL_POLYGON_OFFSET_FILL);
+                mGL.glDisable(GLES20.GL_POLYGON_OFFSET_FILL);
             }
         }
     }
 
     @Override
     public void setSampleAlphaToCoverage(boolean sampleAlphaToCoverage) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_SAMPLE_ALPHA_TO_COVERAGE, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_SAMPLE_ALPHA_TO_COVERAGE, mBoolBuf, 0);
             if (mBoolBuf[0] != mSampleAlphaToCoverage) {
                 throw new RuntimeException("RenderState diff sample alpha to coverage" + " state = " + mSampleAlphaToCoverage + " gl = " + mBoolBuf[0]);
             }
@@ -184,17 +207,17 @@ public class RenderState extends BackendRenderSettings {
         if (mSampleAlphaToCoverage != sampleAlphaToCoverage) {
             mSampleAlphaToCoverage = sampleAlphaToCoverage;
             if (sampleAlphaToCoverage) {
-                GLES20.glEnable(GLES20.GL_SAMPLE_ALPHA_TO_COVERAGE);
+                mGL.glEnable(GLES20.GL_SAMPLE_ALPHA_TO_COVERAGE);
             } else {
-                GLES20.glDisable(GLES20.GL_SAMPLE_ALPHA_TO_COVERAGE);
+                mGL.glDisable(GLES20.GL_SAMPLE_ALPHA_TO_COVERAGE);
             }
         }
     }
 
     @Override
     public void setSampleCoverage(boolean sampleCoverage) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_SAMPLE_COVERAGE, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_SAMPLE_COVERAGE, mBoolBuf, 0);
             if (mBoolBuf[0] != mSampleCoverage) {
                 throw new RuntimeException("RenderState diff sample coverage" + " state = " + mSampleCoverage + " gl = " + mBoolBuf[0]);
             }
@@ -202,17 +225,17 @@ public class RenderState extends BackendRenderSettings {
         if (mSampleCoverage != sampleCoverage) {
             mSampleCoverage = sampleCoverage;
             if (sampleCoverage) {
-                GLES20.glEnable(GLES20.GL_SAMPLE_COVERAGE);
+                mGL.glEnable(GLES20.GL_SAMPLE_COVERAGE);
             } else {
-                GLES20.glDisable(GLES20.GL_SAMPLE_COVERAGE);
+                mGL.glDisable(GLES20.GL_SAMPLE_COVERAGE);
             }
         }
     }
 
     @Override
     public void setScissorTest(boolean scissorTest) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_SCISSOR_TEST, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_SCISSOR_TEST, mBoolBuf, 0);
             if (mBoolBuf[0] != mScissorTest) {
                 throw new RuntimeException("RenderState diff scissor test" + " state = " + mScissorTest + " gl = " + mBoolBuf[0]);
             }
@@ -220,17 +243,17 @@ public class RenderState extends BackendRenderSettings {
         if (mScissorTest != scissorTest) {
             mScissorTest = scissorTest;
             if (scissorTest) {
-                GLES20.glEnable(GLES20.GL_SCISSOR_TEST);
+                mGL.glEnable(GLES20.GL_SCISSOR_TEST);
             } else {
-                GLES20.glDisable(GLES20.GL_SCISSOR_TEST);
+                mGL.glDisable(GLES20.GL_SCISSOR_TEST);
             }
         }
     }
 
     @Override
     public void setStencilTest(boolean stencilTest) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetBooleanv(GLES20.GL_STENCIL_TEST, mBoolBuf, 0);
+        if (mValidate) {
+            mGL.glGetBooleanv(GLES20.GL_STENCIL_TEST, mBoolBuf, 0);
             if (mBoolBuf[0] != mStencilTest) {
                 throw new RuntimeException("RenderState diff stencil test" + " state = " + mStencilTest + " gl = " + mBoolBuf[0]);
             }
@@ -238,45 +261,45 @@ public class RenderState extends BackendRenderSettings {
         if (mStencilTest != stencilTest) {
             mStencilTest = stencilTest;
             if (stencilTest) {
-                GLES20.glEnable(GLES20.GL_STENCIL_TEST);
+                mGL.glEnable(GLES20.GL_STENCIL_TEST);
             } else {
-                GLES20.glDisable(GLES20.GL_STENCIL_TEST);
+                mGL.glDisable(GLES20.GL_STENCIL_TEST);
             }
         }
     }
 
     @Override
     public void setClearStencil(int stencil) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetIntegerv(GLES20.GL_STENCIL_CLEAR_VALUE, mIntBuf, 0);
+        if (mValidate) {
+            mGL.glGetIntegerv(GLES20.GL_STENCIL_CLEAR_VALUE, mIntBuf, 0);
             if (mIntBuf[0] != mClearStencil) {
                 throw new RuntimeException("RenderState diff stencil clear" + " state = " + mClearStencil + " gl = " + mIntBuf[0]);
             }
         }
         if (mClearStencil != stencil) {
             mClearStencil = stencil;
-            GLES20.glClearStencil(stencil);
+            mGL.glClearStencil(stencil);
         }
     }
 
     @Override
     public void setClearDepth(float depth) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetFloatv(GLES20.GL_DEPTH_CLEAR_VALUE, mFloatBuf, 0);
+        if (mValidate) {
+            mGL.glGetFloatv(GLES20.GL_DEPTH_CLEAR_VALUE, mFloatBuf, 0);
             if (Float.compare(mFloatBuf[0], mClearDepth) != 0) {
                 throw new RuntimeException("RenderState diff clear depth" + " state = " + mClearDepth + " gl = " + mFloatBuf[0]);
             }
         }
         if (Float.compare(mClearDepth, depth) != 0) {
             mClearDepth = depth;
-            GLES20.glClearDepthf(depth);
+            mGL.glClearDepthf(depth);
         }
     }
 
     @Override
     public void setClearColor(float[] color) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetFloatv(GLES20.GL_COLOR_CLEAR_VALUE, mFloatBuf, 0);
+        if (mValidate) {
+            mGL.glGetFloatv(GLES20.GL_COLOR_CLEAR_VALUE, mFloatBuf, 0);
             if (!Arrays.equals(mFloatBuf, mClearColor)) {
                 throw new RuntimeException("RenderState diff clear color" + " state = " +
                         mClearColor[0] + " " + mClearColor[1] + " " + mClearColor[2] + mClearColor[3] +
@@ -288,14 +311,14 @@ public class RenderState extends BackendRenderSettings {
             mClearColor[1] = color[1];
             mClearColor[2] = color[2];
             mClearColor[3] = color[3];
-            GLES20.glClearColor(color[0], color[1], color[2], color[3]);
+            mGL.glClearColor(color[0], color[1], color[2], color[3]);
         }
     }
 
     @Override
     public void setViewPort(int x, int y, int width, int height) {
-        if (DebugOptions.DEBUG_RENDER_SETTINGS) {
-            GLES20.glGetIntegerv(GLES20.GL_VIEWPORT, mIntBuf, 0);
+        if (mValidate) {
+            mGL.glGetIntegerv(GLES20.GL_VIEWPORT, mIntBuf, 0);
             if (!Arrays.equals(mIntBuf, mViewPort)) {
                 throw new RuntimeException("RenderState diff viewport" + " state = " +
                         mViewPort[0] + " " + mViewPort[1] + " " + mViewPort[2] + " " + mViewPort[3] +
@@ -307,7 +330,7 @@ public class RenderState extends BackendRenderSettings {
             mViewPort[1] = y;
             mViewPort[2] = width;
             mViewPort[3] = height;
-            GLES20.glViewport(x, y, width, height);
+            mGL.glViewport(x, y, width, height);
         }
     }
 
@@ -316,22 +339,52 @@ public class RenderState extends BackendRenderSettings {
      */
     public void resetClearOrder() {
         mClearOrder = -1;
+        mBlock = null;
     }
 
     /**
      * Clear using mask previously set.
      */
     public void clear() {
-        GLES20.glClear(mClearMask);
+        mGL.glClear(mClearMask);
     }
 
     /**
-     * Use the provided settings.
+     * Use the provided block. Nothing is done if the block is the current one, otherwise only
+     * the fields differing from the current block are applied.
+     *
+     * @param block Block to use.
+     * @return This.
+     */
+    public RenderState useSettings(RenderStateBlock block) {
+        if (mBlock != null && mBlock.getId() == block.getId()) {
+            return this;
+        }
+        if (mBlock == null) {
+            useSettings(block.mSettings);
+        } else {
+            int diff = block.getDiffMask(mBlock);
+            while (diff != 0) {
+                final int field = Integer.lowestOneBit(diff);
+                diff &= ~field;
+                applyField(block.mSettings, field);
+            }
+            if (mValidate && !this.equals(block.mSettings)) {
+                throw new RuntimeException("Mismatch between block state after usage");
+            }
+        }
+        mBlock = block;
+        return this;
+    }
+
+    /**
+     * Use the provided settings, all fields are compared.
      *
      * @param s Settings to use.
      * @return This.
      */
     public RenderState useSettings(BackendRenderSettings s) {
+        mBlock = null;
         if (!this.equals(s)) {
             setBlend(s.mBlend);
             setCullFace(s.mCullFace);
@@ -350,10 +403,71 @@ public class RenderState extends BackendRenderSettings {
             setClearColor(s.getClearColor());
             setViewPort(s.getViewPortX(), s.getViewPortY(), s.getViewPortWidth(), s.getViewPortHeight());
 
-            if (DebugOptions.DEBUG_RENDER_SETTINGS && !this.equals(s)) {
+            if (mValidate && !this.equals(s)) {
                 throw new RuntimeException("Mismatch between settings state after usage");
             }
         }
         return this;
     }
+
+    /**
+     * Apply one field of the settings.
+     *
+     * @param s     The settings.
+     * @param field The field, see RenderStateBlock.
+     */
+    private void applyField(BackendRenderSettings s, int field) {
+        switch (field) {
+            case RenderStateBlock.BLEND:
+                setBlend(s.mBlend);
+                break;
+            case RenderStateBlock.CULL_FACE:
+                setCullFace(s.mCullFace);
+                break;
+            case RenderStateBlock.DEPTH_TEST:
+                setDepthTest(s.mDepthTest);
+                break;
+            case RenderStateBlock.DITHER:
+                setDither(s.mDither);
+                break;
+            case RenderStateBlock.POLYGON_OFFSET_FILL:
+                setPolygonOffsetFill(s.mPolygonOffsetFill);
+                break;
+            case RenderStateBlock.SAMPLE_ALPHA_TO_COVERAGE:
+                setSampleAlphaToCoverage(s.mSampleAlphaToCoverage);
+                break;
+            case RenderStateBlock.SAMPLE_COVERAGE:
+                setSampleCoverage(s.mSampleCoverage);
+                break;
+            case RenderStateBlock.SCISSOR_TEST:
+                setScissorTest(s.mScissorTest);
+                break;
+            case RenderStateBlock.STENCIL_TEST:
+                setStencilTest(s.mStencilTest);
+                break;
+            case RenderStateBlock.BLEND_EQ_FUNC:
+                setBlendEqFunc(s.mBlendEqFunc);
+                break;
+            case RenderStateBlock.BLEND_FACT:
+                setBlendFact(s.mBlendSrcFact, s.mBlendDstFact);
+                break;
+            case RenderStateBlock.CLEAR:
+                setClear(s.getClearOrder(), s.getClearMask());
+                break;
+            case RenderStateBlock.CLEAR_STENCIL:
+                setClearStencil(s.mClearStencil);
+                break;
+            case RenderStateBlock.CLEAR_DEPTH:
+                setClearDepth(s.mClearDepth);
+                break;
+            case RenderStateBlock.CLEAR_COLOR:
+                setClearColor(s.getClearColor());
+                break;
+            case RenderStateBlock.VIEW_PORT:
+                setViewPort(s.getViewPortX(), s.getViewPortY(), s.getViewPortWidth(), s.getViewPortHeight());
+                break;
+            default:
+                throw new RuntimeException("Unknown render state field " + field);
+        }
+    }
 }
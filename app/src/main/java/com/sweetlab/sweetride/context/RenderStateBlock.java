@@ -0,0 +1,460 @@
+package com.sweetlab.sweetride.context;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An immutable, interned block of render settings. Equal settings compile into the same block,
+ * so the render state can compare blocks by id and skip all state work when the block in use
+ * is the current one. Each block has a precomputed mask of the fields that differ from the
+ * default settings, fields default in both of two blocks never need to be compared and fields
+ * default in only one of them, the XOR of the masks, always differ.
+ */
+public class RenderStateBlock {
+    /**
+     * Blend enable field.
+     */
+    public static final int BLEND = 1;
+
+    /**
+     * Cull face enable field.
+     */
+    public static final int CULL_FACE = 1 << 1;
+
+    /**
+     * Depth test enable field.
+     */
+    public static final int DEPTH_TEST = 1 << 2;
+
+    /**
+     * Dither enable field.
+     */
+    public static final int DITHER = 1 << 3;
+
+    /**
+     * Polygon offset fill enable field.
+     */
+    public static final int POLYGON_OFFSET_FILL = 1 << 4;
+
+    /**
+     * Sample alpha to coverage enable field.
+     */
+    public static final int SAMPLE_ALPHA_TO_COVERAGE = 1 << 5;
+
+    /**
+     * Sample coverage enable field.
+     */
+    public static final int SAMPLE_COVERAGE = 1 << 6;
+
+    /**
+     * Scissor test enable field.
+     */
+    public static final int SCISSOR_TEST = 1 << 7;
+
+    /**
+     * Stencil test enable field.
+     */
+    public static final int STENCIL_TEST = 1 << 8;
+
+    /**
+     * Blend equation field.
+     */
+    public static final int BLEND_EQ_FUNC = 1 << 9;
+
+    /**
+     * Blend factors field.
+     */
+    public static final int BLEND_FACT = 1 << 10;
+
+    /**
+     * Clear order and mask field.
+     */
+    public static final int CLEAR = 1 << 11;
+
+    /**
+     * Clear stencil field.
+     */
+    public static final int CLEAR_STENCIL = 1 << 12;
+
+    /**
+     * Clear depth field.
+     */
+    public static final int CLEAR_DEPTH = 1 << 13;
+
+    /**
+     * Clear color field.
+     */
+    public static final int CLEAR_COLOR = 1 << 14;
+
+    /**
+     * Viewport field.
+     */
+    public static final int VIEW_PORT = 1 << 15;
+
+    /**
+     * Mask with all fields.
+     */
+    public static final int ALL = (1 << 16) - 1;
+
+    /**
+     * Id of no block.
+     */
+    public static final int NO_ID = 0;
+
+    /**
+     * Interned blocks are dropped when reaching this count, so constantly changing settings
+     * doesn't grow the table forever. Dropped blocks stay valid, equal settings just get a
+     * new block.
+     */
+    private static final int MAX_INTERNED = 1024;
+
+    /**
+     * The default settings.
+     */
+    private static final BackendRenderSettings DEFAULT_SETTINGS = new BackendRenderSettings();
+
+    /**
+     * The interned blocks with settings as key.
+     */
+    private static final HashMap<BackendRenderSettings, RenderStateBlock> sInterned = new HashMap<>();
+
+    /**
+     * The last given id.
+     */
+    private static int sLastId = NO_ID;
+
+    /**
+     * The settings, never modified.
+     */
+    final BackendRenderSettings mSettings = new BackendRenderSettings();
+
+    /**
+     * The unique id.
+     */
+    private final int mId;
+
+    /**
+     * Mask of fields differing from default.
+     */
+    private final int mNonDefaultMask;
+
+    /**
+     * Constructor.
+     *
+     * @param settings The settings to copy.
+     * @param id       The unique id.
+     */
+    private RenderStateBlock(BackendRenderSettings settings, int id) {
+        mSettings.set(settings);
+        mId = id;
+        mNonDefaultMask = getDiffMask(mSettings, DEFAULT_SETTINGS, ALL);
+    }
+
+    /**
+     * Get the block of the settings, compiling a new block if there are no equal settings
+     * interned. The graph may be updated in parallel so interning is synchronized.
+     *
+     * @param settings The settings.
+     * @return The block.
+     */
+    public static synchronized RenderStateBlock intern(BackendRenderSettings settings) {
+        RenderStateBlock block = sInterned.get(settings);
+        if (block == null) {
+            if (sInterned.size() >= MAX_INTERNED) {
+                sInterned.clear();
+            }
+            block = new RenderStateBlock(settings, ++sLastId);
+            sInterned.put(block.mSettings, block);
+        }
+        return block;
+    }
+
+    /**
+     * Get the unique id, equal ids means equal settings.
+     *
+     * @return The id.
+     */
+    public int getId() {
+        return mId;
+    }
+
+    /**
+     * Get the mask of fields differing from default.
+     *
+     * @return The mask.
+     */
+    public int getNonDefaultMask() {
+        return mNonDefaultMask;
+    }
+
+    /**
+     * Get the clear order.
+     *
+     * @return The clear order.
+     */
+    public int getClearOrder() {
+        return mSettings.getClearOrder();
+    }
+
+    /**
+     * Get the blend equation function.
+     *
+     * @return The value.
+     */
+    public int getBlendEqFunc() {
+        return mSettings.getBlendEqFunc();
+    }
+
+    /**
+     * Get the blend source factor.
+     *
+     * @return The value.
+     */
+    public int getBlendSrcFact() {
+        return mSettings.getBlendSrcFact();
+    }
+
+    /**
+     * Get the blend destination factor.
+     *
+     * @return The value.
+     */
+    public int getBlendDstFact() {
+        return mSettings.getBlendDstFact();
+    }
+
+    /**
+     * Get the clear mask.
+     *
+     * @return The value.
+     */
+    public int getClearMask() {
+        return mSettings.getClearMask();
+    }
+
+    /**
+     * Get the clear color, must not be modified.
+     *
+     * @return The value.
+     */
+    public float[] getClearColor() {
+        return mSettings.getClearColor();
+    }
+
+    /**
+     * Get the clear depth.
+     *
+     * @return The value.
+     */
+    public float getClearDepth() {
+        return mSettings.getClearDepth();
+    }
+
+    /**
+     * Get the clear stencil.
+     *
+     * @return The value.
+     */
+    public int getClearStencil() {
+        return mSettings.getClearStencil();
+    }
+
+    /**
+     * Get if blending.
+     *
+     * @return The value.
+     */
+    public boolean getBlend() {
+        return mSettings.getBlend();
+    }
+
+    /**
+     * Get if culling faces.
+     *
+     * @return The value.
+     */
+    public boolean getCullFace() {
+        return mSettings.getCullFace();
+    }
+
+    /**
+     * Get if depth testing.
+     *
+     * @return The value.
+     */
+    public boolean getDepthTest() {
+        return mSettings.getDepthTest();
+    }
+
+    /**
+     * Get if dithering.
+     *
+     * @return The value.
+     */
+    public boolean getDither() {
+        return mSettings.getDither();
+    }
+
+    /**
+     * Get if polygon offset fill.
+     *
+     * @return The value.
+     */
+    public boolean getPolygonOffsetFill() {
+        return mSettings.getPolygonOffsetFill();
+    }
+
+    /**
+     * Get if sample alpha to coverage.
+     *
+     * @return The value.
+     */
+    public boolean getSampleAlphaToCoverage() {
+        return mSettings.getSampleAlphaToCoverage();
+    }
+
+    /**
+     * Get if sample coverage.
+     *
+     * @return The value.
+     */
+    public boolean getSampleCoverage() {
+        return mSettings.getSampleCoverage();
+    }
+
+    /**
+     * Get if scissor testing.
+     *
+     * @return The value.
+     */
+    public boolean getScissorTest() {
+        return mSettings.getScissorTest();
+    }
+
+    /**
+     * Get if stencil testing.
+     *
+     * @return The value.
+     */
+    public boolean getStencilTest() {
+        return mSettings.getStencilTest();
+    }
+
+    /**
+     * Get the viewport x.
+     *
+     * @return The value.
+     */
+    public int getViewPortX() {
+        return mSettings.getViewPortX();
+    }
+
+    /**
+     * Get the viewport y.
+     *
+     * @return The value.
+     */
+    public int getViewPortY() {
+        return mSettings.getViewPortY();
+    }
+
+    /**
+     * Get the viewport width.
+     *
+     * @return The value.
+     */
+    public int getViewPortWidth() {
+        return mSettings.getViewPortWidth();
+    }
+
+    /**
+     * Get the viewport height.
+     *
+     * @return The value.
+     */
+    public int getViewPortHeight() {
+        return mSettings.getViewPortHeight();
+    }
+
+    /**
+     * Get the mask of fields differing between this and another block.
+     *
+     * @param other The other block.
+     * @return The mask of differing fields.
+     */
+    public int getDiffMask(RenderStateBlock other) {
+        if (other.mId == mId) {
+            return 0;
+        }
+        final int either = mNonDefaultMask ^ other.mNonDefaultMask;
+        final int both = mNonDefaultMask & other.mNonDefaultMask;
+        return either | getDiffMask(mSettings, other.mSettings, both);
+    }
+
+    /**
+     * Compare the fields of a mask.
+     *
+     * @param a    The settings.
+     * @param b    The settings to compare with.
+     * @param mask The fields to compare.
+     * @return Mask of differing fields.
+     */
+    private static int getDiffMask(BackendRenderSettings a, BackendRenderSettings b, int mask) {
+        int diff = 0;
+        while (mask != 0) {
+            final int field = Integer.lowestOneBit(mask);
+            mask &= ~field;
+            if (!isEqual(a, b, field)) {
+                diff |= field;
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Compare one field.
+     *
+     * @param a     The settings.
+     * @param b     The settings to compare with.
+     * @param field The field.
+     * @return True if equal.
+     */
+    private static boolean isEqual(BackendRenderSettings a, BackendRenderSettings b, int field) {
+        switch (field) {
+            case BLEND:
+                return a.mBlend == b.mBlend;
+            case CULL_FACE:
+                return a.mCullFace == b.mCullFace;
+            case DEPTH_TEST:
+                return a.mDepthTest == b.mDepthTest;
+            case DITHER:
+                return a.mDither == b.mDither;
+            case POLYGON_OFFSET_FILL:
+                return a.mPolygonOffsetFill == b.mPolygonOffsetFill;
+            case SAMPLE_ALPHA_TO_COVERAGE:
+                return a.mSampleAlphaToCoverage == b.mSampleAlphaToCoverage;
+            case SAMPLE_COVERAGE:
+                return a.mSampleCoverage == b.mSampleCoverage;
+            case SCISSOR_TEST:
+                return a.mScissorTest == b.mScissorTest;
+            case STENCIL_TEST:
+                return a.mStencilTest == b.mStencilTest;
+            case BLEND_EQ_FUNC:
+                return a.mBlendEqFunc == b.mBlendEqFunc;
+            case BLEND_FACT:
+                return a.mBlendSrcFact == b.mBlendSrcFact && a.mBlendDstFact == b.mBlendDstFact;
+            case CLEAR:
+                return a.mClearOrder == b.mClearOrder && a.mClearMask == b.mClearMask;
+            case CLEAR_STENCIL:
+                return a.mClearStencil == b.mClearStencil;
+            case CLEAR_DEPTH:
+                return Float.compare(a.mClearDepth, b.mClearDepth) == 0;
+            case CLEAR_COLOR:
+                return Arrays.equals(a.mClearColor, b.mClearColor);
+            case VIEW_PORT:
+                return Arrays.equals(a.mViewPort, b.mViewPort);
+            default:
+                throw new RuntimeException("Unknown render state field " + field);
+        }
+    }
+}
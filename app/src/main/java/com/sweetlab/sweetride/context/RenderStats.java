@@ -0,0 +1,167 @@
+package com.sweetlab.sweetride.context;
+
+/**
+ * Per frame render statistics. Counts GL state switches and draw calls during the current frame
+ * and keeps the result of the previous frame. Only touched on GL thread.
+ */
+public class RenderStats {
+    /**
+     * Program switches this frame.
+     */
+    private int mProgramSwitches;
+
+    /**
+     * Texture binds this frame.
+     */
+    private int mTextureSwitches;
+
+    /**
+     * Buffer binds this frame.
+     */
+    private int mBufferSwitches;
+
+    /**
+     * Draw calls this frame.
+     */
+    private int mDrawCalls;
+
+    /**
+     * Program switches last frame.
+     */
+    private int mLastProgramSwitches;
+
+    /**
+     * Texture binds last frame.
+     */
+    private int mLastTextureSwitches;
+
+    /**
+     * Buffer binds last frame.
+     */
+    private int mLastBufferSwitches;
+
+    /**
+     * Draw calls last frame.
+     */
+    private int mLastDrawCalls;
+
+    /**
+     * Called when a new frame starts. Current counters becomes last frame counters.
+     */
+    public void onNewFrame() {
+        mLastProgramSwitches = mProgramSwitches;
+        mLastTextureSwitches = mTextureSwitches;
+        mLastBufferSwitches = mBufferSwitches;
+        mLastDrawCalls = mDrawCalls;
+        mProgramSwitches = 0;
+        mTextureSwitches = 0;
+        mBufferSwitches = 0;
+        mDrawCalls = 0;
+    }
+
+    /**
+     * Count a program switch.
+     */
+    public void onProgramSwitch() {
+        mProgramSwitches++;
+    }
+
+    /**
+     * Count a texture bind.
+     */
+    public void onTextureSwitch() {
+        mTextureSwitches++;
+    }
+
+    /**
+     * Count a buffer bind.
+     */
+    public void onBufferSwitch() {
+        mBufferSwitches++;
+    }
+
+    /**
+     * Count a draw call.
+     */
+    public void onDrawCall() {
+        mDrawCalls++;
+    }
+
+    /**
+     * Get number of program switches during current frame.
+     *
+     * @return Number of program switches.
+     */
+    public int getProgramSwitches() {
+        return mProgramSwitches;
+    }
+
+    /**
+     * Get number of texture binds during current frame.
+     *
+     * @return Number of texture binds.
+     */
+    public int getTextureSwitches() {
+        return mTextureSwitches;
+    }
+
+    /**
+     * Get number of buffer binds during current frame.
+     *
+     * @return Number of buffer binds.
+     */
+    public int getBufferSwitches() {
+        return mBufferSwitches;
+    }
+
+    /**
+     * Get number of draw calls during current frame.
+     *
+     * @return Number of draw calls.
+     */
+    public int getDrawCalls() {
+        return mDrawCalls;
+    }
+
+    /**
+     * Get number of program switches during last frame.
+     *
+     * @return Number of program switches.
+     */
+    public int getLastProgramSwitches() {
+        return mLastProgramSwitches;
+    }
+
+    /**
+     * Get number of texture binds during last frame.
+     *
+     * @return Number of texture binds.
+     */
+    public int getLastTextureSwitches() {
+        return mLastTextureSwitches;
+    }
+
+    /**
+     * Get number of buffer binds during last frame.
+     *
+     * @return Number of buffer binds.
+     */
+    public int getLastBufferSwitches() {
+        return mLastBufferSwitches;
+    }
+
+    /**
+     * Get number of draw calls during last frame.
+     *
+     * @return Number of draw calls.
+     */
+    public int getLastDrawCalls() {
+        return mLastDrawCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "programs = " + mLastProgramSwitches + " textures = " + mLastTextureSwitches +
+                " buffers = " + mLastBufferSwitches + " draws = " + mLastDrawCalls;
+    }
+}
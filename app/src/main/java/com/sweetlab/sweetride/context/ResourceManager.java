@@ -4,8 +4,13 @@ import android.opengl.GLES20;
 
 import com.sweetlab.sweetride.DebugOptions;
 
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
- * Managing resources.
+ * Managing resources. All generated and deleted GL resources are tracked together with the
+ * number of bytes loaded into them so that live resources can be reported, see getLeakReport.
  */
 public class ResourceManager {
     /**
@@ -38,13 +43,32 @@ public class ResourceManager {
      */
     private final int[] mBuf = new int[1];
 
+    /**
+     * The backend context.
+     */
+    private final BackendContext mContext;
+
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
+    /**
+     * Live resources by type, resource id mapped to loaded bytes.
+     */
+    private final EnumMap<ResourceType, Map<Integer, Integer>> mLive = new EnumMap<>(ResourceType.class);
+
     /**
      * Constructor.
      *
      * @param backendContext Backend context.
      */
-    @SuppressWarnings("unused")
     public ResourceManager(BackendContext backendContext) {
+        mGL = backendContext.getGL();
+        mContext = backendContext;
+        for (ResourceType type : ResourceType.values()) {
+            mLive.put(type, new HashMap<Integer, Integer>());
+        }
     }
 
     /**
@@ -54,7 +78,7 @@ public class ResourceManager {
      * @return The created shader.
      */
     public int createShader(int type) {
-        return GLES20.glCreateShader(type);
+        return track(ResourceType.SHADER, mGL.glCreateShader(type));
     }
 
     /**
@@ -63,7 +87,8 @@ public class ResourceManager {
      * @param id The shader id to delete.
      */
     public void deleteShader(int id) {
-        GLES20.glDeleteShader(id);
+        mGL.glDeleteShader(id);
+        untrack(ResourceType.SHADER, id);
     }
 
     /**
@@ -72,7 +97,7 @@ public class ResourceManager {
      * @return The shader program.
      */
     public int createProgram() {
-        return GLES20.glCreateProgram();
+        return track(ResourceType.PROGRAM, mGL.glCreateProgram());
     }
 
     /**
@@ -81,7 +106,9 @@ public class ResourceManager {
      * @param id The shader program.
      */
     public void deleteProgram(int id) {
-        GLES20.glDeleteProgram(id);
+        mGL.glDeleteProgram(id);
+        untrack(ResourceType.PROGRAM, id);
+        mContext.getStateShadow().onProgramDeleted(id);
     }
 
     /**
@@ -90,8 +117,8 @@ public class ResourceManager {
      * @return The generated buffer.
      */
     public int generateBuffer() {
-        GLES20.glGenBuffers(1, mBuf, 0);
-        return mBuf[0];
+        mGL.glGenBuffers(1, mBuf, 0);
+        return track(ResourceType.BUFFER, mBuf[0]);
     }
 
     /**
@@ -101,7 +128,9 @@ public class ResourceManager {
      */
     public void deleteBuffer(int id) {
         mBuf[0] = id;
-        GLES20.glDeleteBuffers(1, mBuf, 0);
+        mGL.glDeleteBuffers(1, mBuf, 0);
+        untrack(ResourceType.BUFFER, id);
+        mContext.getStateShadow().onBufferDeleted(id);
     }
 
     /**
@@ -110,8 +139,8 @@ public class ResourceManager {
      * @return The generated texture.
      */
     public int generateTexture() {
-        GLES20.glGenTextures(1, mBuf, 0);
-        return mBuf[0];
+        mGL.glGenTextures(1, mBuf, 0);
+        return track(ResourceType.TEXTURE, mBuf[0]);
     }
 
     /**
@@ -121,7 +150,9 @@ public class ResourceManager {
      */
     public void deleteTexture(int id) {
         mBuf[0] = id;
-        GLES20.glDeleteTextures(1, mBuf, 0);
+        mGL.glDeleteTextures(1, mBuf, 0);
+        untrack(ResourceType.TEXTURE, id);
+        mContext.getStateShadow().onTextureDeleted(id);
     }
 
     /**
@@ -130,8 +161,8 @@ public class ResourceManager {
      * @return The generated frame buffer.
      */
     public int generateFrameBuffer() {
-        GLES20.glGenFramebuffers(1, mBuf, 0);
-        return mBuf[0];
+        mGL.glGenFramebuffers(1, mBuf, 0);
+        return track(ResourceType.FRAME_BUFFER, mBuf[0]);
     }
 
     /**
@@ -141,7 +172,9 @@ public class ResourceManager {
      */
     public void deleteFrameBuffer(int id) {
         mBuf[0] = id;
-        GLES20.glDeleteFramebuffers(1, mBuf, 0);
+        mGL.glDeleteFramebuffers(1, mBuf, 0);
+        untrack(ResourceType.FRAME_BUFFER, id);
+        mContext.getStateShadow().onFrameBufferDeleted(id);
     }
 
     /**
@@ -150,13 +183,13 @@ public class ResourceManager {
      * @return The generated render buffer.
      */
     public int generateRenderBuffer() {
-        GLES20.glGenRenderbuffers(1, mBuf, 0);
+        mGL.glGenRenderbuffers(1, mBuf, 0);
         if (DebugOptions.DEBUG_RESOURCE_MANAGER) {
             if (mBuf[0] == INVALID_RENDER_BUFFER_ID) {
                 throw new RuntimeException("Generated an invalid render buffer id " + mBuf[0]);
             }
         }
-        return mBuf[0];
+        return track(ResourceType.RENDER_BUFFER, mBuf[0]);
     }
 
     /**
@@ -166,6 +199,98 @@ public class ResourceManager {
      */
     public void deleteRenderBuffer(int id) {
         mBuf[0] = id;
-        GLES20.glDeleteRenderbuffers(1, mBuf, 0);
+        mGL.glDeleteRenderbuffers(1, mBuf, 0);
+        untrack(ResourceType.RENDER_BUFFER, id);
+        mContext.getStateShadow().onRenderBufferDeleted(id);
+    }
+
+    /**
+     * Set number of bytes loaded into a live resource.
+     *
+     * @param type  The resource type.
+     * @param id    The resource id.
+     * @param bytes The number of bytes.
+     */
+    public void setByteCount(ResourceType type, int id, int bytes) {
+        Map<Integer, Integer> live = mLive.get(type);
+        if (live.containsKey(id)) {
+            live.put(id, bytes);
+        }
+    }
+
+    /**
+     * Get number of live resources of a type.
+     *
+     * @param type The resource type.
+     * @return The number of live resources.
+     */
+    public int getLiveCount(ResourceType type) {
+        return mLive.get(type).size();
+    }
+
+    /**
+     * Get number of bytes loaded into live resources of a type.
+     *
+     * @param type The resource type.
+     * @return The number of bytes.
+     */
+    public long getLiveBytes(ResourceType type) {
+        long bytes = 0;
+        for (Integer byteCount : mLive.get(type).values()) {
+            bytes += byteCount;
+        }
+        return bytes;
+    }
+
+    /**
+     * Get number of bytes loaded into all live resources.
+     *
+     * @return The number of bytes.
+     */
+    public long getTotalLiveBytes() {
+        long bytes = 0;
+        for (ResourceType type : ResourceType.values()) {
+            bytes += getLiveBytes(type);
+        }
+        return bytes;
+    }
+
+    /**
+     * Get a report of all live resources by type and bytes. Taken at intervals, a growing
+     * report tells that resources are leaking.
+     *
+     * @return The report.
+     */
+    public String getLeakReport() {
+        StringBuilder builder = new StringBuilder("Live GL resources, bytes = ").append(getTotalLiveBytes());
+        for (ResourceType type : ResourceType.values()) {
+            builder.append("\n").append(type).append(" count = ").append(getLiveCount(type))
+                    .append(" bytes = ").append(getLiveBytes(type));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Track a generated resource.
+     *
+     * @param type The resource type.
+     * @param id   The resource id.
+     * @return The resource id.
+     */
+    private int track(ResourceType type, int id) {
+        if (id != 0) {
+            mLive.get(type).put(id, 0);
+        }
+        return id;
+    }
+
+    /**
+     * Stop tracking a deleted resource.
+     *
+     * @param type The resource type.
+     * @param id   The resource id.
+     */
+    private void untrack(ResourceType type, int id) {
+        mLive.get(type).remove(id);
     }
 }
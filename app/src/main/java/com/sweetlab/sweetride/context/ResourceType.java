@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.context;
+
+/**
+ * Type of GL resource tracked by the resource manager.
+ */
+public enum ResourceType {
+    BUFFER,
+    TEXTURE,
+    PROGRAM,
+    SHADER,
+    FRAME_BUFFER,
+    RENDER_BUFFER
+}
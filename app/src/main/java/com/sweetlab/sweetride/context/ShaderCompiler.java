@@ -17,12 +17,18 @@ public class ShaderCompiler {
      */
     private final BackendContext mContext;
 
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
     /**
      * Constructor.
      *
      * @param backendContext Backend context.
      */
     public ShaderCompiler(BackendContext backendContext) {
+        mGL = backendContext.getGL();
         mContext = backendContext;
     }
 
@@ -60,12 +66,12 @@ public class ShaderCompiler {
             return ResourceManager.INVALID_SHADER_ID;
         }
 
-        GLES20.glShaderSource(id, source);
-        GLES20.glCompileShader(id);
+        mGL.glShaderSource(id, source);
+        mGL.glCompileShader(id);
 
         if (!readIsCompiled(id)) {
-            Log.d("Peter100", "Can't create shader\n" + GLES20.glGetShaderInfoLog(id));
-            GLES20.glDeleteShader(id);
+            Log.d("Peter100", "Can't create shader\n" + mGL.glGetShaderInfoLog(id));
+            mContext.getResourceManager().deleteShader(id);
             return ResourceManager.INVALID_SHADER_ID;
         }
         return id;
@@ -79,7 +85,7 @@ public class ShaderCompiler {
      */
     private boolean readIsCompiled(int id) {
         if (id > 0) {
-            GLES20.glGetShaderiv(id, GLES20.GL_COMPILE_STATUS, sBuf, 0);
+            mGL.glGetShaderiv(id, GLES20.GL_COMPILE_STATUS, sBuf, 0);
             return sBuf[0] == GLES20.GL_TRUE;
         }
         return false;
@@ -5,8 +5,6 @@ import android.opengl.GLES20;
 
 import com.sweetlab.sweetride.resource.TextureResource;
 import com.sweetlab.sweetride.shader.ShaderProgram;
-import com.sweetlab.sweetride.shader.ProgramUniform;
-import com.sweetlab.sweetride.util.Util;
 
 import java.nio.Buffer;
 
@@ -20,19 +18,14 @@ public class TextureUnit2DTarget {
     private static final int TARGET = GLES20.GL_TEXTURE_2D;
 
     /**
-     * The texture 2D binding.
+     * The backend context.
      */
-    private static final int BINDING = GLES20.GL_TEXTURE_BINDING_2D;
+    private final BackendContext mContext;
 
     /**
-     * GL read buffer.
+     * If state and arguments should be validated.
      */
-    private final int[] mReadBuffer = new int[4];
-
-    /**
-     * The backend context.
-     */
-    private final BackendContext mContext;
+    private final boolean mValidate;
 
     /**
      * The GL texture unit number of this target. This variable is used in various GL commands.
@@ -45,6 +38,11 @@ public class TextureUnit2DTarget {
      */
     private final int[] mZeroBasedNr = new int[1];
 
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
     /**
      * Constructor.
      *
@@ -53,7 +51,9 @@ public class TextureUnit2DTarget {
      * @param glBasedNr   GL based texture unit number, GL_TEXTURE0 + (0, 1, 2, 3 ... etc)
      */
     public TextureUnit2DTarget(BackendContext context, int zeroBasedNr, int glBasedNr) {
+        mGL = context.getGL();
         mContext = context;
+        mValidate = context.isValidating();
         mZeroBasedNr[0] = zeroBasedNr;
         mGLUnitNr = glBasedNr;
     }
@@ -65,17 +65,17 @@ public class TextureUnit2DTarget {
      */
     public void load(TextureResource texture) {
         if (isUnitInActive()) {
-            GLES20.glActiveTexture(mGLUnitNr);
+            activateUnit();
         }
 
         int textureId = texture.getId();
         if (!isTextureBoundToTarget(textureId)) {
-            GLES20.glBindTexture(TARGET, textureId);
+            bindTexture(textureId);
         }
 
         texImage2D(TARGET, texture, 0);
 
-        GLES20.glBindTexture(TARGET, 0);
+        bindTexture(0);
     }
 
     /**
@@ -87,18 +87,18 @@ public class TextureUnit2DTarget {
      */
     public void setFilter(TextureResource texture, int min, int mag) {
         if (isUnitInActive()) {
-            GLES20.glActiveTexture(mGLUnitNr);
+            activateUnit();
         }
 
         int textureId = texture.getId();
         if (!isTextureBoundToTarget(textureId)) {
-            GLES20.glBindTexture(TARGET, textureId);
+            bindTexture(textureId);
         }
 
-        GLES20.glTexParameteri(TARGET, GLES20.GL_TEXTURE_MIN_FILTER, min);
-        GLES20.glTexParameteri(TARGET, GLES20.GL_TEXTURE_MAG_FILTER, mag);
+        mGL.glTexParameteri(TARGET, GLES20.GL_TEXTURE_MIN_FILTER, min);
+        mGL.glTexParameteri(TARGET, GLES20.GL_TEXTURE_MAG_FILTER, mag);
 
-        GLES20.glBindTexture(TARGET, 0);
+        bindTexture(0);
     }
 
     /**
@@ -108,23 +108,29 @@ public class TextureUnit2DTarget {
      * @param texture Texture.
      */
     public void enable(ShaderProgram program, TextureResource texture) {
-        if (mContext.getState().readActiveProgram() != program.getId()) {
-            throw new RuntimeException("Provided program during texture enable is not the currently active");
+        if (mValidate) {
+            final int activeProgram = mContext.getState().readActiveProgram();
+            if (activeProgram != program.getId()) {
+                throw new RuntimeException("Provided program " + program.getId() + " during texture enable of " + texture.getName() + " is not the currently active " + activeProgram);
+            }
+            if (!texture.isCreated()) {
+                throw new RuntimeException("Trying to enable texture " + texture.getName() + " that has not been created");
+            }
         }
 
-        String name = texture.getName();
-        ProgramUniform programUniform = program.getUniform(name);
-        if (programUniform != null) {
+        final int slot = program.getUniformSlot(texture.getName());
+        if (slot != ShaderProgram.NO_SLOT) {
             if (isUnitInActive()) {
-                GLES20.glActiveTexture(mGLUnitNr);
+                activateUnit();
             }
 
             int textureId = texture.getId();
             if (!isTextureBoundToTarget(textureId)) {
-                GLES20.glBindTexture(TARGET, textureId);
+                bindTexture(textureId);
+                mContext.getRenderStats().onTextureSwitch();
             }
 
-            mContext.getUniformWriter().writeInt(program, name, mZeroBasedNr);
+            mContext.getUniformWriter().writeInt(program, slot, mZeroBasedNr);
         }
     }
 
@@ -133,11 +139,11 @@ public class TextureUnit2DTarget {
      */
     public void disable(TextureResource texture) {
         if (isUnitInActive()) {
-            GLES20.glActiveTexture(mGLUnitNr);
+            activateUnit();
         }
         int textureId = texture.getId();
         if (isTextureBoundToTarget(textureId)) {
-            GLES20.glBindTexture(TARGET, 0);
+            bindTexture(0);
         }
     }
 
@@ -147,17 +153,25 @@ public class TextureUnit2DTarget {
      * @return True if inactive.
      */
     private boolean isUnitInActive() {
-        return getActiveTextureUnit() != mGLUnitNr;
+        return mContext.getStateShadow().getActiveTexture() != mGLUnitNr;
     }
 
     /**
-     * Get active texture unit.
+     * Make the unit this target belongs to active.
+     */
+    private void activateUnit() {
+        mGL.glActiveTexture(mGLUnitNr);
+        mContext.getStateShadow().setActiveTexture(mGLUnitNr);
+    }
+
+    /**
+     * Bind texture to target, the unit must be active.
      *
-     * @return The active texture unit.
+     * @param id The texture id.
      */
-    private int getActiveTextureUnit() {
-        GLES20.glGetIntegerv(GLES20.GL_ACTIVE_TEXTURE, mReadBuffer, 0);
-        return mReadBuffer[0];
+    private void bindTexture(int id) {
+        mGL.glBindTexture(TARGET, id);
+        mContext.getStateShadow().setTextureBinding(mZeroBasedNr[0], id);
     }
 
     /**
@@ -168,8 +182,7 @@ public class TextureUnit2DTarget {
      */
     private boolean isTextureBoundToTarget(int id) {
         if (id > 0) {
-            GLES20.glGetIntegerv(BINDING, mReadBuffer, 0);
-            return mReadBuffer[0] == id;
+            return mContext.getStateShadow().getTextureBinding(mZeroBasedNr[0]) == id;
         }
         return false;
     }
@@ -187,12 +200,17 @@ public class TextureUnit2DTarget {
         final int width = texture.getWidth();
         final int height = texture.getHeight();
 
-        Buffer rgbBuffer = null;
-        Bitmap data = texture.getData();
+        Buffer pixels = texture.getPixels();
+        Bitmap data = pixels == null ? texture.getData() : null;
         if (data != null) {
-            rgbBuffer = Util.bitmapToBuffer(data);
+            /**
+             * Upload straight from the bitmap, the pixels are never copied into a buffer.
+             */
+            mGL.texImage2D(target, level, data, 0);
+        } else {
+            mGL.glTexImage2D(target, level, texelFormat, width, height, 0, texelFormat, texelType, pixels);
         }
-
-        GLES20.glTexImage2D(target, level, texelFormat, width, height, 0, texelFormat, texelType, rgbBuffer);
+        mContext.getResourceManager().setByteCount(ResourceType.TEXTURE, texture.getId(), texture.getTotalByteCount());
     }
+
 }
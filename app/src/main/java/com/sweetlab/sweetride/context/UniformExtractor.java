@@ -43,13 +43,18 @@ public class UniformExtractor {
      */
     private final byte[] mName = new byte[MAX_NAME_LENGTH];
 
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
     /**
      * Constructor.
      *
      * @param backendContext Backend context.
      */
-    @SuppressWarnings("unused")
     public UniformExtractor(BackendContext backendContext) {
+        mGL = backendContext.getGL();
     }
 
     /**
@@ -59,14 +64,23 @@ public class UniformExtractor {
      * @return Map of all uniforms.
      */
     public Map<String, ProgramUniform> extract(ShaderProgram program) {
-        int id = program.getId();
-        GLES20.glGetProgramiv(id, GLES20.GL_ACTIVE_UNIFORMS, mCount, 0);
+        return extract(program.getId());
+    }
+
+    /**
+     * Extract all uniforms from a linked program id.
+     *
+     * @param id The linked program id.
+     * @return Map of all uniforms.
+     */
+    public Map<String, ProgramUniform> extract(int id) {
+        mGL.glGetProgramiv(id, GLES20.GL_ACTIVE_UNIFORMS, mCount, 0);
         if (mCount[0] > 0) {
             Map<String, ProgramUniform> map = new HashMap<>(mCount[0]);
             for (int i = 0; i < mCount[0]; i++) {
-                GLES20.glGetActiveUniform(id, i, MAX_NAME_LENGTH, mNameSize, 0, mArraySize, 0, mType, 0, mName, 0);
+                mGL.glGetActiveUniform(id, i, MAX_NAME_LENGTH, mNameSize, 0, mArraySize, 0, mType, 0, mName, 0);
                 String name = new String(mName, 0, mNameSize[0]);
-                int location = GLES20.glGetUniformLocation(id, name);
+                int location = mGL.glGetUniformLocation(id, name);
                 map.put(name, new ProgramUniform(name, mArraySize[0], mType[0], location));
             }
             return map;
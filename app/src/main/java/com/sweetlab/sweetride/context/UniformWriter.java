@@ -7,7 +7,8 @@ import com.sweetlab.sweetride.shader.ShaderProgram;
 import com.sweetlab.sweetride.shader.ProgramUniform;
 
 /**
- * Shader uniform writer.
+ * Shader uniform writer. Uniforms are written by slot, see UniformBinding, and each program
+ * uniform keeps a shadow of the last written value so unchanged values are not written again.
  */
 public class UniformWriter {
     /**
@@ -25,13 +26,25 @@ public class UniformWriter {
      */
     private final BackendContext mContext;
 
+    /**
+     * If uniform writes should be validated.
+     */
+    private final boolean mValidate;
+
+    /**
+     * The GL implementation.
+     */
+    private final GL mGL;
+
     /**
      * Constructor.
      *
      * @param backendContext Backend context.
      */
     public UniformWriter(BackendContext backendContext) {
+        mGL = backendContext.getGL();
         mContext = backendContext;
+        mValidate = backendContext.isValidating() && DebugOptions.DEBUG_UNIFORM_WRITES;
     }
 
     /**
@@ -41,100 +54,143 @@ public class UniformWriter {
      * @param name    Name of uniform in program.
      */
     public void writeDefault(ShaderProgram program, String name) {
-        ProgramUniform programUniform = program.getUniform(name);
-        if (programUniform != null) {
+        final int slot = program.getUniformSlot(name);
+        if (slot != ShaderProgram.NO_SLOT) {
+            ProgramUniform programUniform = program.getUniform(slot);
             if (isFloatType(programUniform)) {
-                writeFloat(program, name, sFloatDefault);
+                writeFloat(program, slot, sFloatDefault, 0);
             } else if (isIntType(programUniform)) {
-                writeInt(program, name, sIntDefault);
+                writeInt(program, slot, sIntDefault);
             }
         }
     }
 
     /**
      * Write data to uniform. Writing to uniform requires that correct shader program is in use.
+     * Prefer writing by slot, see UniformBinding.
      *
      * @param program Shader program to access.
      * @param name    Uniform in shader program.
      * @param data    Data to write, the actual amount written is known by shader uniform.
      */
     public void writeFloat(ShaderProgram program, String name, float[] data) {
-        ProgramUniform programUniform = program.getUniform(name);
-        if (programUniform != null) {
-            if (DebugOptions.DEBUG_UNIFORM_WRITES) {
-                int activeProgram = mContext.getState().readActiveProgram();
-                if (activeProgram != program.getId()) {
-                    throw new RuntimeException("UniformWriter.writeFloat with wrong program. Active = " + activeProgram + " but trying to write to " + program.getId());
-                }
-            }
+        final int slot = program.getUniformSlot(name);
+        if (slot != ShaderProgram.NO_SLOT) {
+            writeFloat(program, slot, data, 0);
+        }
+    }
 
-            if (isFloatType(programUniform)) {
-                int location = programUniform.getLocation();
-                switch (programUniform.getElementCount()) {
-                    case 1:
-                        GLES20.glUniform1fv(location, 1, data, 0);
-                        break;
-                    case 2:
-                        GLES20.glUniform2fv(location, 1, data, 0);
-                        break;
-                    case 3:
-                        GLES20.glUniform3fv(location, 1, data, 0);
-                        break;
-                    case 4:
-                        GLES20.glUniform4fv(location, 1, data, 0);
-                        break;
-                    case 9:
-                        GLES20.glUniformMatrix3fv(location, 1, false, data, 0);
-                        break;
-                    case 16:
-                        GLES20.glUniformMatrix4fv(location, 1, false, data, 0);
-                        break;
-                    default:
-                        throw new RuntimeException("Unsupported size in UniformWriter.writeFloat " + programUniform.getElementCount());
-                }
+    /**
+     * Write data to uniform by slot. Writing to uniform requires that correct shader program is
+     * in use. Nothing is written if the program already has the value.
+     *
+     * @param program Shader program to access.
+     * @param slot    Uniform slot in shader program, NO_SLOT is ignored.
+     * @param data    Data to write, the actual amount written is known by shader uniform.
+     * @param offset  Offset into data.
+     */
+    public void writeFloat(ShaderProgram program, int slot, float[] data, int offset) {
+        if (slot == ShaderProgram.NO_SLOT) {
+            return;
+        }
+        if (mValidate) {
+            validateProgram(program, "writeFloat");
+        }
+
+        ProgramUniform programUniform = program.getUniform(slot);
+        if (isFloatType(programUniform) && programUniform.updateFloatShadow(data, offset)) {
+            int location = programUniform.getLocation();
+            switch (programUniform.getElementCount()) {
+                case 1:
+                    mGL.glUniform1fv(location, 1, data, offset);
+                    break;
+                case 2:
+                    mGL.glUniform2fv(location, 1, data, offset);
+                    break;
+                case 3:
+                    mGL.glUniform3fv(location, 1, data, offset);
+                    break;
+                case 4:
+                    mGL.glUniform4fv(location, 1, data, offset);
+                    break;
+                case 9:
+                    mGL.glUniformMatrix3fv(location, 1, false, data, offset);
+                    break;
+                case 16:
+                    mGL.glUniformMatrix4fv(location, 1, false, data, offset);
+                    break;
+                default:
+                    throw new RuntimeException("Unsupported size in UniformWriter.writeFloat " + programUniform.getElementCount());
             }
         }
     }
 
     /**
      * Write data to uniform. Writing to uniform requires that correct shader program is in use.
+     * Prefer writing by slot, see UniformBinding.
      *
      * @param program Shader program to access.
      * @param name    Uniform in shader program.
      * @param data    Data to write, the actual amount written is known by shader uniform.
      */
     public void writeInt(ShaderProgram program, String name, int[] data) {
-        ProgramUniform programUniform = program.getUniform(name);
-        if (programUniform != null) {
-            if (DebugOptions.DEBUG_UNIFORM_WRITES) {
-                int activeProgram = mContext.getState().readActiveProgram();
-                if (activeProgram != program.getId()) {
-                    throw new RuntimeException("UniformWriter.writeInt with wrong program. Active = " + activeProgram + " but trying to write to " + program.getId());
-                }
-            }
+        final int slot = program.getUniformSlot(name);
+        if (slot != ShaderProgram.NO_SLOT) {
+            writeInt(program, slot, data);
+        }
+    }
+
+    /**
+     * Write data to uniform by slot. Writing to uniform requires that correct shader program is
+     * in use. Nothing is written if the program already has the value.
+     *
+     * @param program Shader program to access.
+     * @param slot    Uniform slot in shader program, NO_SLOT is ignored.
+     * @param data    Data to write, the actual amount written is known by shader uniform.
+     */
+    public void writeInt(ShaderProgram program, int slot, int[] data) {
+        if (slot == ShaderProgram.NO_SLOT) {
+            return;
+        }
+        if (mValidate) {
+            validateProgram(program, "writeInt");
+        }
 
-            if (isIntType(programUniform)) {
-                int location = programUniform.getLocation();
-                switch (programUniform.getElementCount()) {
-                    case 1:
-                        GLES20.glUniform1iv(location, 1, data, 0);
-                        break;
-                    case 2:
-                        GLES20.glUniform2iv(location, 1, data, 0);
-                        break;
-                    case 3:
-                        GLES20.glUniform3iv(location, 1, data, 0);
-                        break;
-                    case 4:
-                        GLES20.glUniform4iv(location, 1, data, 0);
-                        break;
-                    default:
-                        throw new RuntimeException("Unsupported size in UniformWriter.writeInt " + programUniform.getElementCount());
-                }
+        ProgramUniform programUniform = program.getUniform(slot);
+        if (isIntType(programUniform) && programUniform.updateIntShadow(data)) {
+            int location = programUniform.getLocation();
+            switch (programUniform.getElementCount()) {
+                case 1:
+                    mGL.glUniform1iv(location, 1, data, 0);
+                    break;
+                case 2:
+                    mGL.glUniform2iv(location, 1, data, 0);
+                    break;
+                case 3:
+                    mGL.glUniform3iv(location, 1, data, 0);
+                    break;
+                case 4:
+                    mGL.glUniform4iv(location, 1, data, 0);
+                    break;
+                default:
+                    throw new RuntimeException("Unsupported size in UniformWriter.writeInt " + programUniform.getElementCount());
             }
         }
     }
 
+    /**
+     * Check that the program is the active one.
+     *
+     * @param program Shader program to access.
+     * @param method  The writing method, for the error message.
+     */
+    private void validateProgram(ShaderProgram program, String method) {
+        int activeProgram = mContext.getState().readActiveProgram();
+        if (activeProgram != program.getId()) {
+            throw new RuntimeException("UniformWriter." + method + " with wrong program. Active = " + activeProgram + " but trying to write to " + program.getId());
+        }
+    }
+
     /**
      * Check if uniform is a float uniform.
      *
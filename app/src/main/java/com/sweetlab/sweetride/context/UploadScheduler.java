@@ -0,0 +1,257 @@
+package com.sweetlab.sweetride.context;
+
+import com.sweetlab.sweetride.action.Action;
+import com.sweetlab.sweetride.action.ActionNotifier;
+import com.sweetlab.sweetride.action.ActionThread;
+import com.sweetlab.sweetride.action.GlobalActionId;
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.math.Vec3;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.resource.BufferResource;
+import com.sweetlab.sweetride.resource.TextureResource;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Spreads buffer and texture uploads over several frames. Each frame a byte budget is shared
+ * by the nodes about to be rendered that has pending uploads. Nodes are given budget in
+ * priority order, nearest to the camera first. Nodes that doesn't fit are deferred, their
+ * actions are left pending and they are not rendered until a later frame has budget for them.
+ * <p/>
+ * Only visible nodes are ever scheduled since culled nodes never reach rendering. At least one
+ * node is given budget each frame so uploads larger than the budget still make progress.
+ * <p/>
+ * Call from main thread.
+ */
+public class UploadScheduler {
+    /**
+     * Initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Temporary storage of camera position.
+     */
+    private final Vec3 mCameraPos = new Vec3();
+
+    /**
+     * The byte budget per frame.
+     */
+    private int mByteBudget;
+
+    /**
+     * Bytes given to nodes this frame.
+     */
+    private int mUsedBytes;
+
+    /**
+     * Number of nodes deferred this frame.
+     */
+    private int mDeferredCount;
+
+    /**
+     * Deferred flag by node index of last scheduled node list.
+     */
+    private boolean[] mDeferred = new boolean[DEFAULT_CAPACITY];
+
+    /**
+     * Node index by candidate, sorted on priority.
+     */
+    private int[] mCandidates = new int[DEFAULT_CAPACITY];
+
+    /**
+     * Priority by candidate, lower first.
+     */
+    private float[] mPriorities = new float[DEFAULT_CAPACITY];
+
+    /**
+     * Upload bytes by candidate.
+     */
+    private int[] mBytes = new int[DEFAULT_CAPACITY];
+
+    /**
+     * Constructor.
+     *
+     * @param byteBudget The byte budget per frame.
+     */
+    public UploadScheduler(int byteBudget) {
+        mByteBudget = byteBudget;
+    }
+
+    /**
+     * Set the byte budget per frame.
+     *
+     * @param byteBudget The byte budget.
+     */
+    public void setByteBudget(int byteBudget) {
+        mByteBudget = byteBudget;
+    }
+
+    /**
+     * Get the byte budget per frame.
+     *
+     * @return The byte budget.
+     */
+    public int getByteBudget() {
+        return mByteBudget;
+    }
+
+    /**
+     * Must be called on each new frame.
+     */
+    public void onNewFrame() {
+        mUsedBytes = 0;
+        mDeferredCount = 0;
+    }
+
+    /**
+     * Schedule the uploads of nodes about to be rendered. Use isDeferred to know which nodes
+     * that must wait for a later frame.
+     *
+     * @param nodes  The nodes.
+     * @param camera The camera used for priority, null to keep node order.
+     */
+    public void schedule(List<Node> nodes, Camera camera) {
+        final int nodeCount = nodes.size();
+        ensureCapacity(nodeCount);
+        Arrays.fill(mDeferred, 0, nodeCount, false);
+        if (camera != null) {
+            camera.getPosition(mCameraPos);
+        }
+
+        /**
+         * Collect nodes with pending uploads, sorted on priority.
+         */
+        int candidateCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            Node node = nodes.get(i);
+            if (node.hasActions(ActionThread.GL)) {
+                int bytes = getUploadBytes(node);
+                if (bytes > 0) {
+                    float priority = camera != null ? getDistanceSquared(node) : i;
+                    insert(candidateCount++, i, priority, bytes);
+                }
+            }
+        }
+
+        /**
+         * Give budget in priority order.
+         */
+        for (int i = 0; i < candidateCount; i++) {
+            int bytes = mBytes[i];
+            if (mUsedBytes == 0 || mUsedBytes + bytes <= mByteBudget) {
+                mUsedBytes += bytes;
+            } else {
+                mDeferred[mCandidates[i]] = true;
+                mDeferredCount++;
+            }
+        }
+    }
+
+    /**
+     * Check if node at index in last scheduled node list must wait for a later frame.
+     *
+     * @param index The node index.
+     * @return True if deferred.
+     */
+    public boolean isDeferred(int index) {
+        return mDeferred[index];
+    }
+
+    /**
+     * Get number of bytes given to nodes this frame.
+     *
+     * @return The bytes.
+     */
+    public int getUsedBytes() {
+        return mUsedBytes;
+    }
+
+    /**
+     * Get number of nodes deferred this frame.
+     *
+     * @return The number of deferred nodes.
+     */
+    public int getDeferredCount() {
+        return mDeferredCount;
+    }
+
+    /**
+     * Get the number of bytes the pending GL actions of a notifier will upload.
+     *
+     * @param notifier The notifier.
+     * @return The bytes, 0 if nothing to upload.
+     */
+    public static int getUploadBytes(ActionNotifier<GlobalActionId> notifier) {
+        int bytes = 0;
+        final int actionCount = notifier.getActionCount();
+        for (int i = 0; i < actionCount; i++) {
+            Action<GlobalActionId> action = notifier.getAction(i);
+            switch (action.getType()) {
+                case VERTEX_BUFFER_LOAD:
+                case INDICES_LOAD:
+                case INTERLEAVED_BUFFER_LOAD:
+                    bytes += ((BufferResource) action.getSource()).getTotalByteCount();
+                    break;
+                case TEXTURE_LOAD:
+                    bytes += ((TextureResource) action.getSource()).getTotalByteCount();
+                    break;
+                default:
+                    break;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Get the squared distance from camera to node.
+     *
+     * @param node The node.
+     * @return The squared distance.
+     */
+    private float getDistanceSquared(Node node) {
+        float[] m = node.getWorldTransform().getMatrix().m;
+        float dx = m[12] - mCameraPos.x;
+        float dy = m[13] - mCameraPos.y;
+        float dz = m[14] - mCameraPos.z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Insert candidate keeping candidates sorted on priority. Equal priorities keeps insert
+     * order.
+     *
+     * @param count    Number of candidates before insert.
+     * @param index    The node index.
+     * @param priority The priority.
+     * @param bytes    The upload bytes.
+     */
+    private void insert(int count, int index, float priority, int bytes) {
+        int pos = count;
+        while (pos > 0 && mPriorities[pos - 1] > priority) {
+            mCandidates[pos] = mCandidates[pos - 1];
+            mPriorities[pos] = mPriorities[pos - 1];
+            mBytes[pos] = mBytes[pos - 1];
+            pos--;
+        }
+        mCandidates[pos] = index;
+        mPriorities[pos] = priority;
+        mBytes[pos] = bytes;
+    }
+
+    /**
+     * Ensure storage for number of nodes.
+     *
+     * @param capacity Number of nodes.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > mDeferred.length) {
+            int newCapacity = Math.max(capacity, mDeferred.length * 2);
+            mDeferred = new boolean[newCapacity];
+            mCandidates = new int[newCapacity];
+            mPriorities = new float[newCapacity];
+            mBytes = new int[newCapacity];
+        }
+    }
+}
@@ -11,6 +11,11 @@ import com.sweetlab.sweetride.demo.game.GameApplication;
  * Demo gl surface view. Will create the demo application.
  */
 public class MainContentView extends EngineView {
+    /**
+     * Byte budget for buffer and texture uploads each frame.
+     */
+    private static final int UPLOAD_BUDGET = 256 * 1024;
+
     /**
      * GL application.
      */
@@ -29,6 +34,7 @@ public class MainContentView extends EngineView {
     protected UserApplication createUserApplication() {
 //        mDemoApplication = new DemoApplication(getContext());
 //        return mDemoApplication;
+        setUploadBudget(UPLOAD_BUDGET);
         mGameApplication = new GameApplication(getContext());
         return mGameApplication;
     }
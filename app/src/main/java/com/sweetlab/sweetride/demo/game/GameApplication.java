@@ -23,9 +23,8 @@ import com.sweetlab.sweetride.node.rendersettings.BlendDstFact;
 import com.sweetlab.sweetride.node.rendersettings.BlendSrcFact;
 import com.sweetlab.sweetride.node.rendersettings.ClearBit;
 import com.sweetlab.sweetride.rendernode.DefaultRenderNode;
-import com.sweetlab.sweetride.texture.Texture2D;
-
-import rx.functions.Action1;
+import com.sweetlab.sweetride.texture.StreamedTexture2D;
+import com.sweetlab.sweetride.texture.TextureStreamer;
 
 /**
  * A game application.
@@ -51,6 +50,11 @@ public class GameApplication extends UserApplication {
      */
     private static final float FAR_FIELD = 100f;
 
+    /**
+     * Texture bytes handed over to the GL thread per frame.
+     */
+    private static final int TEXTURE_BYTE_BUDGET = 1024 * 1024;
+
     /**
      * Default system window render node.
      */
@@ -66,6 +70,11 @@ public class GameApplication extends UserApplication {
      */
     private final Grid mGrid;
 
+    /**
+     * Streams the textures.
+     */
+    private final TextureStreamer mTextureStreamer = new TextureStreamer(TEXTURE_BYTE_BUDGET);
+
     /**
      * The camera used.
      */
@@ -89,6 +98,7 @@ public class GameApplication extends UserApplication {
 
         mContext = context;
         mGameRenderNode.enableViewFrustrumCulling(true);
+        mGameRenderNode.enableDrawSorting(true);
         mGameRenderNode.getRenderSettings().setClearColor(new float[]{0.0f, 0.0f, 0.0f, 1});
         mGameRenderNode.getRenderSettings().setClear(0, ClearBit.COLOR_BUFFER_BIT, ClearBit.DEPTH_BUFFER_BIT);
         mGameRenderNode.getRenderSettings().setDepthTest(true);
@@ -100,14 +110,10 @@ public class GameApplication extends UserApplication {
         AssetsLoader assetsLoader = new AssetsLoader(mContext.getApplicationContext());
         BitmapFactory.Options options = new BitmapFactory.Options();
         options.inPreferredConfig = Bitmap.Config.ARGB_8888;
-        assetsLoader.loadBitmap(R.drawable.grass, options).subscribe(new Action1<Bitmap>() {
-            @Override
-            public void call(Bitmap bitmap) {
-                Texture2D texture = new Texture2D("s_texture", bitmap, MinFilter.NEAREST, MagFilter.NEAREST);
-                mUnlimitedTerrain = new UnlimitedTerrain(0, 0, mGrid, texture);
-                mGameRenderNode.addChild(mUnlimitedTerrain);
-            }
-        });
+        StreamedTexture2D texture = new StreamedTexture2D("s_texture", assetsLoader.createDecoder(R.drawable.grass, options), MinFilter.NEAREST, MagFilter.NEAREST);
+        mTextureStreamer.stream(texture);
+        mUnlimitedTerrain = new UnlimitedTerrain(0, 0, mGrid, texture);
+        mGameRenderNode.addChild(mUnlimitedTerrain);
 
     }
 
@@ -145,9 +151,15 @@ public class GameApplication extends UserApplication {
 
     @Override
     public void onUpdate(float dt) {
+        mTextureStreamer.update();
         Logger.log(GameLogs.TERRAIN, "Update" + dt);
     }
 
+    @Override
+    public void onDestroy() {
+        mTextureStreamer.shutdown();
+    }
+
     /**
      * The player listener.
      */
@@ -4,6 +4,8 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 
+import com.sweetlab.sweetride.texture.BitmapDecoder;
+
 import rx.Observable;
 import rx.Subscriber;
 import rx.android.schedulers.AndroidSchedulers;
@@ -45,6 +47,22 @@ public class AssetsLoader {
         }).observeOn(AndroidSchedulers.mainThread()).subscribeOn(Schedulers.io());
     }
 
+    /**
+     * Create a texture decoder decoding a bitmap asset, used to stream textures.
+     *
+     * @param asset   Bitmap asset.
+     * @param options Bitmap options.
+     * @return The decoder.
+     */
+    public BitmapDecoder createDecoder(final int asset, final BitmapFactory.Options options) {
+        return new BitmapDecoder() {
+            @Override
+            protected Bitmap decodeBitmap() {
+                return BitmapFactory.decodeResource(mContext.getResources(), asset, options);
+            }
+        };
+    }
+
     /**
      * Load bitmap. Up to caller to decide which scheduler to observeOn and subscribeOn.
      *
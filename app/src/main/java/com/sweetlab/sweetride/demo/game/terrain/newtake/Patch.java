@@ -1,8 +1,8 @@
 package com.sweetlab.sweetride.demo.game.terrain.newtake;
 
-import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.attributedata.ArenaVertexBuffer;
+import com.sweetlab.sweetride.attributedata.BufferArena;
 import com.sweetlab.sweetride.attributedata.VertexData;
-import com.sweetlab.sweetride.context.BufferUsage;
 import com.sweetlab.sweetride.demo.game.terrain.height.PatchHeightData;
 import com.sweetlab.sweetride.demo.game.terrain.indices.PatchIndicesBuffer;
 import com.sweetlab.sweetride.geometry.Geometry;
@@ -11,7 +11,7 @@ import com.sweetlab.sweetride.material.Material;
 import com.sweetlab.sweetride.mesh.Mesh;
 import com.sweetlab.sweetride.node.Node;
 import com.sweetlab.sweetride.pool.Poolable;
-import com.sweetlab.sweetride.texture.Texture2D;
+import com.sweetlab.sweetride.resource.TextureResource;
 
 /**
  * A poolable patch. The reused parts are
@@ -37,6 +37,11 @@ public class Patch extends Node implements Poolable {
      */
     private final Geometry mGeometry;
 
+    /**
+     * The arena the height vertex buffers are packed into.
+     */
+    private final BufferArena mHeightArena;
+
     /**
      * The height data.
      */
@@ -45,15 +50,17 @@ public class Patch extends Node implements Poolable {
     /**
      * The height vertex buffer, held to be able to remove when pooled.
      */
-    private VertexBuffer mHeightVertexBuffer;
+    private ArenaVertexBuffer mHeightVertexBuffer;
 
     /**
      * Constructor.
      *
-     * @param geometry The geometry.
+     * @param geometry    The geometry.
+     * @param heightArena The arena the height vertex buffers are packed into.
      */
-    public Patch(Geometry geometry) {
+    public Patch(Geometry geometry, BufferArena heightArena) {
         mGeometry = geometry;
+        mHeightArena = heightArena;
         addChild(geometry);
     }
 
@@ -64,6 +71,7 @@ public class Patch extends Node implements Poolable {
         if (mesh != null) {
             mesh.setIndicesBuffer(null);
             mesh.removeVertexBuffer(mHeightVertexBuffer);
+            mHeightVertexBuffer = null;
             mesh.setBoundingBox(null);
         } else {
             throw new RuntimeException("Patch mesh null while resetting, can't be.");
@@ -111,7 +119,7 @@ public class Patch extends Node implements Poolable {
     public void setHeightData(PatchHeightData heightData) {
         mHeightData = heightData;
         VertexData vertexData = heightData.createVertexData();
-        mHeightVertexBuffer = new VertexBuffer(HEIGHT_ATTRIBUTE, vertexData, BufferUsage.STATIC);
+        mHeightVertexBuffer = new ArenaVertexBuffer(mHeightArena, HEIGHT_ATTRIBUTE, vertexData);
         Mesh mesh = mGeometry.getMesh();
         if (mesh != null) {
             mesh.addVertexBuffer(mHeightVertexBuffer);
@@ -132,7 +140,7 @@ public class Patch extends Node implements Poolable {
      *
      * @param texture The texture.
      */
-    public void addTexture(Texture2D texture) {
+    public void addTexture(TextureResource texture) {
         Material material = mGeometry.getMaterial();
         if (material != null) {
             material.addTexture(texture);
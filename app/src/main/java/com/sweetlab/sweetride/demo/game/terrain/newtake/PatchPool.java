@@ -1,7 +1,10 @@
 package com.sweetlab.sweetride.demo.game.terrain.newtake;
 
+import com.sweetlab.sweetride.attributedata.BufferArena;
+import com.sweetlab.sweetride.context.BufferUsage;
 import com.sweetlab.sweetride.geometry.Geometry;
 import com.sweetlab.sweetride.pool.Pool;
+import com.sweetlab.sweetride.util.Util;
 
 import java.util.Stack;
 
@@ -9,6 +12,11 @@ import java.util.Stack;
  * A patch pool.
  */
 public class PatchPool implements Pool<Patch> {
+    /**
+     * Number of patch heights the height arena initially has room for.
+     */
+    private static final int INITIAL_ARENA_PATCHES = 16;
+
     /**
      * The pool stack.
      */
@@ -19,6 +27,11 @@ public class PatchPool implements Pool<Patch> {
      */
     private final BaseGeometryFactory mFactory;
 
+    /**
+     * The arena all patch heights are packed into.
+     */
+    private final BufferArena mHeightArena;
+
     /**
      * Constructor.
      *
@@ -28,13 +41,16 @@ public class PatchPool implements Pool<Patch> {
      */
     public PatchPool(int size, float width, float depth) {
         mFactory = new BaseGeometryFactory(size, width, depth);
+        final int resolution = (1 << size) + 1;
+        final int heightBytes = resolution * resolution * Util.BYTES_PER_FLOAT;
+        mHeightArena = new BufferArena(BufferArena.Content.VERTICES, INITIAL_ARENA_PATCHES * heightBytes, BufferUsage.STATIC);
     }
 
     @Override
     public Patch get() {
         if (mStack.isEmpty()) {
             Geometry baseGeometry = mFactory.createBaseGeometry();
-            return new Patch(baseGeometry);
+            return new Patch(baseGeometry, mHeightArena);
         }
         return mStack.pop();
     }
@@ -8,7 +8,7 @@ import com.sweetlab.sweetride.demo.game.terrain.indices.PatchIndicesBufferCache;
 import com.sweetlab.sweetride.intersect.BoundingBox;
 import com.sweetlab.sweetride.math.Vec3;
 import com.sweetlab.sweetride.node.Node;
-import com.sweetlab.sweetride.texture.Texture2D;
+import com.sweetlab.sweetride.resource.TextureResource;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -93,7 +93,7 @@ public class UnlimitedTerrain extends Node {
      * The patch texture
      * TODO: this is just temporary to have something.
      */
-    private final Texture2D mTexture;
+    private final TextureResource mTexture;
 
     /**
      * Constructor. Creates a UnlimitedTerrain.
@@ -102,7 +102,7 @@ public class UnlimitedTerrain extends Node {
      * @param gridPosZ The world grid position.
      * @param texture  Texture to use.
      */
-    public UnlimitedTerrain(int gridPosX, int gridPosZ, Grid grid, Texture2D texture) {
+    public UnlimitedTerrain(int gridPosX, int gridPosZ, Grid grid, TextureResource texture) {
         mGrid = grid;
         mTexture = texture;
 
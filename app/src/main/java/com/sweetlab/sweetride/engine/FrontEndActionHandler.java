@@ -23,6 +23,9 @@ public class FrontEndActionHandler {
      * @return True if any action was handled, false if no actions where found.
      */
     public boolean handleActions(ActionNotifier notifier) {
+        if (!notifier.hasActions(ActionThread.MAIN)) {
+            return false;
+        }
         boolean actionHandled = false;
 
         /**
@@ -2,22 +2,32 @@ package com.sweetlab.sweetride.engine.frame;
 
 import com.sweetlab.sweetride.UserApplication;
 import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.GpuMemoryBudget;
 import com.sweetlab.sweetride.engine.frame.render.RenderFrame;
 import com.sweetlab.sweetride.engine.frame.update.UpdateFrame;
+import com.sweetlab.sweetride.engine.profiler.FrameProfiler;
 import com.sweetlab.sweetride.node.Node;
 import com.sweetlab.sweetride.pool.RenderTaskPool;
+import com.sweetlab.sweetride.resource.ResourceReleaser;
 
 import java.util.ArrayDeque;
 
 /**
- * A single complete frame. Call update from main thread and render from GL thread. Has an internal
- * queue that is shared between update and render.
+ * A pipelined frame. Call update from main thread and render from GL thread. Has a ring of render
+ * queues so the main thread can build frame N+1 while the GL thread drains frame N. The threads
+ * hand off queues without locking.
  */
 public class Frame {
     /**
-     * The render queue. Update phase adds to queue and render phase removes from queue.
+     * Default number of render queues, one being rendered while the next is built. A spare
+     * queue would only let the main thread run a further frame ahead, adding a frame of latency.
      */
-    private final ArrayDeque<RenderTask> mRenderQueue = new ArrayDeque<>();
+    public static final int DEFAULT_QUEUE_COUNT = 2;
+
+    /**
+     * The render queues. Update phase fills and publishes a queue, render phase drains it.
+     */
+    private final RenderQueueRing mRenderQueues;
 
     /**
      * The frame update.
@@ -29,31 +39,145 @@ public class Frame {
      */
     private final RenderFrame mRender;
 
+    /**
+     * Profiler shared by update and render.
+     */
+    private final FrameProfiler mProfiler = new FrameProfiler();
+
     /**
      * Constructor.
      */
     public Frame() {
+        this(DEFAULT_QUEUE_COUNT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param queueCount Number of render queues.
+     */
+    public Frame(int queueCount) {
         RenderTaskPool taskPool = new RenderTaskPool();
-        mUpdate = new UpdateFrame(taskPool);
-        mRender = new RenderFrame(taskPool);
+        mRenderQueues = new RenderQueueRing(queueCount);
+        mUpdate = new UpdateFrame(taskPool, mProfiler);
+        mRender = new RenderFrame(taskPool, mProfiler);
     }
 
     /**
-     * Make a frame update on main thread. Call from main thread.
+     * Enable or disable the transform store used to calculate world transforms. Call from main
+     * thread.
+     *
+     * @param enable True to enable.
+     */
+    public void setTransformStoreEnabled(boolean enable) {
+        mUpdate.setTransformStoreEnabled(enable);
+    }
+
+    /**
+     * Enable or disable parallel update of independent graph branches. Call from main thread.
+     *
+     * @param enable True to enable.
+     */
+    public void setParallelUpdateEnabled(boolean enable) {
+        mUpdate.setParallelUpdateEnabled(enable);
+    }
+
+    /**
+     * Set the byte budget for buffer and texture uploads each frame. Call from main thread.
+     *
+     * @param bytes The budget, 0 or less to upload everything when first rendered.
+     */
+    public void setUploadBudget(int bytes) {
+        mUpdate.setUploadBudget(bytes);
+    }
+
+    /**
+     * Set the GPU memory budget for buffers and textures. Call from main thread.
+     *
+     * @param bytes The budget, 0 or less to not cap memory.
+     */
+    public void setMemoryBudget(long bytes) {
+        mUpdate.setMemoryBudget(bytes);
+    }
+
+    /**
+     * Get the GPU memory budget.
+     *
+     * @return The budget or null if not enabled.
+     */
+    public GpuMemoryBudget getMemoryBudget() {
+        return mUpdate.getMemoryBudget();
+    }
+
+    /**
+     * Set the releaser deleting resources no longer held, normally the one of the backend
+     * context rendering the frame. Call from main thread before first update.
+     *
+     * @param releaser The releaser or null to not delete released resources.
+     */
+    public void setResourceReleaser(ResourceReleaser releaser) {
+        mUpdate.setResourceReleaser(releaser);
+    }
+
+    /**
+     * Set the time budget for GL work posted to the backend context work queue, executed at the
+     * start of each rendered frame.
+     *
+     * @param nanos The budget in nanoseconds.
+     */
+    public void setGLWorkBudget(long nanos) {
+        mRender.setWorkBudget(nanos);
+    }
+
+    /**
+     * Make a frame update on main thread. Call from main thread. If the GL thread is lagging
+     * behind and all render queues are pending the update is skipped.
      *
      * @param application Application to update.
      * @param root        Root node of scene graph to start update on.
+     * @return True if a frame was built and published.
      */
-    public void update(UserApplication application, Node root) {
-        mUpdate.update(application, root, mRenderQueue);
+    public boolean update(UserApplication application, Node root) {
+        ArrayDeque<RenderTask> queue = mRenderQueues.acquireWrite();
+        if (queue == null) {
+            return false;
+        }
+        mUpdate.update(application, root, queue);
+        mRenderQueues.publish();
+        return true;
     }
 
     /**
-     * Render the frame on GL thread. Call from GL thread.
+     * Render the oldest published frame on GL thread. Call from GL thread.
      *
      * @param context The backend context.
+     * @return True if a frame was rendered.
+     */
+    public boolean render(BackendContext context) {
+        ArrayDeque<RenderTask> queue = mRenderQueues.acquireRead();
+        if (queue == null) {
+            return false;
+        }
+        mRender.render(context, queue);
+        mRenderQueues.release();
+        return true;
+    }
+
+    /**
+     * Get the number of frames that has been built but not yet rendered.
+     *
+     * @return The number of pending frames.
+     */
+    public int getPendingCount() {
+        return mRenderQueues.getPendingCount();
+    }
+
+    /**
+     * Get the frame profiler. Only records when DebugOptions.DEBUG_FRAME_PROFILER is set.
+     *
+     * @return The frame profiler.
      */
-    public void render(BackendContext context) {
-        mRender.render(context, mRenderQueue);
+    public FrameProfiler getProfiler() {
+        return mProfiler;
     }
 }
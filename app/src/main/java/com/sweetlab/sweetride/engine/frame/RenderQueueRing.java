@@ -0,0 +1,103 @@
+package com.sweetlab.sweetride.engine.frame;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed ring of render queues shared between exactly one producer (main thread update) and
+ * exactly one consumer (GL thread render). The producer fills a free queue and publishes it,
+ * the consumer drains published queues in the order they were published and releases them.
+ * Hand off is done with two atomic counters, no locking is involved and no published queue is
+ * ever dropped or overwritten.
+ */
+public class RenderQueueRing {
+    /**
+     * The render queues.
+     */
+    private final ArrayDeque<RenderTask>[] mQueues;
+
+    /**
+     * Number of queues published by the producer. Only written by the producer.
+     */
+    private final AtomicLong mPublished = new AtomicLong();
+
+    /**
+     * Number of queues released by the consumer. Only written by the consumer.
+     */
+    private final AtomicLong mReleased = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param queueCount Number of queues, must be at least 2 for update and render to overlap.
+     */
+    @SuppressWarnings("unchecked")
+    public RenderQueueRing(int queueCount) {
+        if (queueCount < 1) {
+            throw new RuntimeException("Render queue ring needs at least one queue, got " + queueCount);
+        }
+        mQueues = new ArrayDeque[queueCount];
+        for (int i = 0; i < queueCount; i++) {
+            mQueues[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Get the number of queues in the ring.
+     *
+     * @return The number of queues.
+     */
+    public int getQueueCount() {
+        return mQueues.length;
+    }
+
+    /**
+     * Get the queue to fill. Call from producer thread.
+     *
+     * @return The queue to fill or null if all queues are published and not yet released.
+     */
+    public ArrayDeque<RenderTask> acquireWrite() {
+        long published = mPublished.get();
+        if (published - mReleased.get() >= mQueues.length) {
+            return null;
+        }
+        return mQueues[(int) (published % mQueues.length)];
+    }
+
+    /**
+     * Publish the queue returned by the last acquire write. Call from producer thread.
+     */
+    public void publish() {
+        mPublished.incrementAndGet();
+    }
+
+    /**
+     * Get the oldest published queue. Call from consumer thread.
+     *
+     * @return The oldest published queue or null if there is nothing published.
+     */
+    public ArrayDeque<RenderTask> acquireRead() {
+        long released = mReleased.get();
+        if (released == mPublished.get()) {
+            return null;
+        }
+        return mQueues[(int) (released % mQueues.length)];
+    }
+
+    /**
+     * Release the queue returned by the last acquire read, making it free to fill again.
+     * Call from consumer thread.
+     */
+    public void release() {
+        mReleased.incrementAndGet();
+    }
+
+    /**
+     * Get the number of published queues that has not yet been released.
+     *
+     * @return The number of pending queues.
+     */
+    public int getPendingCount() {
+        return (int) (mPublished.get() - mReleased.get());
+    }
+}
@@ -1,63 +1,220 @@
 package com.sweetlab.sweetride.engine.frame;
 
-import com.sweetlab.sweetride.context.BackendActionHandler;
+import com.sweetlab.sweetride.action.Action;
+import com.sweetlab.sweetride.action.ActionThread;
+import com.sweetlab.sweetride.camera.Camera;
 import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.UploadScheduler;
+import com.sweetlab.sweetride.engine.uniform.CameraUniforms;
 import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.pool.DrawPacketPool;
 import com.sweetlab.sweetride.pool.Poolable;
+import com.sweetlab.sweetride.renderer.DrawPacket;
+import com.sweetlab.sweetride.renderer.DrawPacketSorter;
 import com.sweetlab.sweetride.renderer.NodeRenderer;
+import com.sweetlab.sweetride.resource.ReleasableResource;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * A task container used for rendering. Has nodes and a renderer.
+ * A task container used for rendering. Has draw packets recorded from nodes, a renderer and the
+ * GL actions detached from the nodes when the task was set. Set on main thread, handled and
+ * rendered on GL thread. The GL thread never touches the nodes.
  */
 public class RenderTask implements Poolable {
     /**
-     * List of nodes to render.
+     * List of draw packets to render.
      */
-    private final List<Node> mNodes = new ArrayList<>();
+    private final List<DrawPacket> mPackets = new ArrayList<>();
+
+    /**
+     * GL actions detached from the nodes, handled on GL thread before rendering.
+     */
+    private final List<Action> mActions = new ArrayList<>();
+
+    /**
+     * Released resources to delete on GL thread before handling actions.
+     */
+    private final List<ReleasableResource> mDeletions = new ArrayList<>();
+
+    /**
+     * Pool to get and return draw packets.
+     */
+    private final DrawPacketPool mPacketPool;
+
+    /**
+     * Draw packet sorter.
+     */
+    private final DrawPacketSorter mSorter = new DrawPacketSorter();
+
+    /**
+     * Camera level engine uniforms shared by all packets.
+     */
+    private final CameraUniforms mCameraUniforms = new CameraUniforms();
 
     /**
      * Renderer to use.
      */
     private NodeRenderer mRenderer;
 
+    /**
+     * Constructor with a private draw packet pool.
+     */
+    public RenderTask() {
+        this(new DrawPacketPool());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param packetPool Pool of draw packets.
+     */
+    public RenderTask(DrawPacketPool packetPool) {
+        mPacketPool = packetPool;
+    }
+
     @Override
     public void reset() {
         mRenderer = null;
-        mNodes.clear();
+        final int count = mPackets.size();
+        for (int i = 0; i < count; i++) {
+            mPacketPool.put(mPackets.get(i));
+        }
+        mPackets.clear();
+        mActions.clear();
+        mDeletions.clear();
+    }
+
+    /**
+     * Add released resources to delete on GL thread, see ResourceReleaser. Call from main
+     * thread.
+     *
+     * @param resources The resources.
+     */
+    public void addDeletions(List<ReleasableResource> resources) {
+        mDeletions.addAll(resources);
     }
 
     /**
-     * Set task information.
+     * Set task information. Each node is recorded into a draw packet and all pending GL actions
+     * of the nodes are detached from the action graph and kept in the task so that the GL thread
+     * never touches the scene graph while the main thread is updating it. Call from main thread.
      *
      * @param renderer Renderer to use.
-     * @param nodes    List of nodes to render, shallow copy is created.
+     * @param nodes    List of nodes to render.
      */
     public void set(NodeRenderer renderer, List<Node> nodes) {
+        set(renderer, nodes, null, null);
+    }
+
+    /**
+     * Set task information with uploads scheduled over frames. Nodes the scheduler defers are
+     * left untouched, keeping their pending actions, and are not rendered this frame. Call from
+     * main thread.
+     *
+     * @param renderer  Renderer to use.
+     * @param nodes     List of nodes to render.
+     * @param scheduler The upload scheduler or null to upload everything now.
+     * @param camera    The camera used for upload priority and camera level engine uniforms,
+     *                  may be null.
+     */
+    public void set(NodeRenderer renderer, List<Node> nodes, UploadScheduler scheduler, Camera camera) {
         mRenderer = renderer;
-        mNodes.addAll(nodes);
+        mCameraUniforms.set(camera);
+        if (scheduler != null) {
+            scheduler.schedule(nodes, camera);
+        }
+        final int count = nodes.size();
+        for (int i = 0; i < count; i++) {
+            if (scheduler != null && scheduler.isDeferred(i)) {
+                continue;
+            }
+            Node node = nodes.get(i);
+            detachActions(node);
+            DrawPacket packet = mPacketPool.get();
+            node.record(packet);
+            packet.setCameraUniforms(mCameraUniforms);
+            mPackets.add(packet);
+        }
     }
 
     /**
-     * Handle all GL actions.
+     * Sort the recorded draw packets to minimize state changes. Call from main thread after set.
+     *
+     * @param camera Camera used for depth ordering, null if depth should be ignored.
+     */
+    public void sort(Camera camera) {
+        mSorter.sort(mPackets, camera);
+    }
+
+    /**
+     * Delete released resources and handle all GL actions. Deletions are made first since a
+     * resource held again after being released is created by the actions.
      *
      * @param context Backend context.
      */
     public void handleActions(BackendContext context) {
-        BackendActionHandler actionHandler = context.getActionHandler();
-        for (Node node : mNodes) {
-            actionHandler.handleActions(node);
+        final int deleteCount = mDeletions.size();
+        for (int i = 0; i < deleteCount; i++) {
+            ReleasableResource resource = mDeletions.get(i);
+            if (resource.isCreated()) {
+                resource.delete(context);
+            }
         }
+        mDeletions.clear();
+        context.getActionHandler().handleActions(mActions);
+        mActions.clear();
+    }
+
+    /**
+     * Get the renderer.
+     *
+     * @return The renderer.
+     */
+    public NodeRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    /**
+     * Get the recorded draw packets.
+     *
+     * @return The draw packets by reference.
+     */
+    public List<DrawPacket> getPackets() {
+        return mPackets;
     }
 
     /**
-     * Render nodes.
+     * Render draw packets.
      *
      * @param context Backend context.
      */
     public void render(BackendContext context) {
-        mRenderer.render(context, mNodes);
+        mRenderer.render(context, mPackets);
+    }
+
+    /**
+     * Detach GL actions from node. Actions are collected before removed since removing
+     * modifies the list of actions in node.
+     *
+     * @param node Node to detach GL actions from.
+     */
+    private void detachActions(Node node) {
+        if (!node.hasActions(ActionThread.GL)) {
+            return;
+        }
+        int start = mActions.size();
+        int actionCount = node.getActionCount();
+        for (int i = 0; i < actionCount; i++) {
+            Action action = node.getAction(i);
+            if (action.getHandleThread().equals(ActionThread.GL)) {
+                mActions.add(action);
+            }
+        }
+        int end = mActions.size();
+        for (int i = start; i < end; i++) {
+            mActions.get(i).remove();
+        }
     }
 }
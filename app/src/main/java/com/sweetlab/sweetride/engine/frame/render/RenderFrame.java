@@ -1,10 +1,13 @@
 package com.sweetlab.sweetride.engine.frame.render;
 
+import android.opengl.GLES20;
+
 import com.sweetlab.sweetride.DebugOptions;
 import com.sweetlab.sweetride.context.BackendContext;
 import com.sweetlab.sweetride.engine.frame.RenderTask;
+import com.sweetlab.sweetride.engine.profiler.FramePhase;
+import com.sweetlab.sweetride.engine.profiler.FrameProfiler;
 import com.sweetlab.sweetride.pool.RenderTaskPool;
-import com.sweetlab.sweetride.util.Util;
 
 import java.util.ArrayDeque;
 
@@ -12,19 +15,54 @@ import java.util.ArrayDeque;
  * Render frame.
  */
 public class RenderFrame {
+    /**
+     * Default time budget for queued GL work each frame, in nanoseconds.
+     */
+    public static final long DEFAULT_WORK_BUDGET = 2000000;
 
     /**
      * The render task pool to recycle render tasks.
      */
     private final RenderTaskPool mTaskPool;
 
+    /**
+     * The frame profiler.
+     */
+    private final FrameProfiler mProfiler;
+
+    /**
+     * Time budget for queued GL work each frame, in nanoseconds.
+     */
+    private volatile long mWorkBudget = DEFAULT_WORK_BUDGET;
+
     /**
      * Constructor.
      *
      * @param taskPool Pool of render tasks object.
      */
     public RenderFrame(RenderTaskPool taskPool) {
+        this(taskPool, new FrameProfiler());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param taskPool Pool of render tasks object.
+     * @param profiler Profiler to record render phases into.
+     */
+    public RenderFrame(RenderTaskPool taskPool, FrameProfiler profiler) {
         mTaskPool = taskPool;
+        mProfiler = profiler;
+    }
+
+    /**
+     * Set the time budget for queued GL work each frame. Work left when the budget is spent is
+     * executed next frame.
+     *
+     * @param nanos The budget in nanoseconds.
+     */
+    public void setWorkBudget(long nanos) {
+        mWorkBudget = nanos;
     }
 
     /**
@@ -34,10 +72,36 @@ public class RenderFrame {
      * @param queue   Queue of render node tasks.
      */
     public void render(BackendContext context, ArrayDeque<RenderTask> queue) {
+        long start = 0;
+        long time = 0;
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            start = mProfiler.start();
+        }
+
+        /**
+         * Execute work posted to the GL work queue.
+         */
+        if (!context.getWorkQueue().isEmpty()) {
+            context.getWorkQueue().execute(context, mWorkBudget);
+            if (DebugOptions.DEBUG_FRAME_PROFILER) {
+                mProfiler.record(FramePhase.GL_WORK, start);
+            }
+        }
+
         while (!queue.isEmpty()) {
             RenderTask renderTask = queue.removeFirst();
+            if (DebugOptions.DEBUG_FRAME_PROFILER) {
+                time = mProfiler.start();
+            }
             renderTask.handleActions(context);
+            if (DebugOptions.DEBUG_FRAME_PROFILER) {
+                time = mProfiler.record(FramePhase.GL_ACTIONS, time);
+            }
+
             renderTask.render(context);
+            if (DebugOptions.DEBUG_FRAME_PROFILER) {
+                mProfiler.record(FramePhase.DRAW, time);
+            }
 
             /**
              * Recycle the render task.
@@ -47,11 +111,15 @@ public class RenderFrame {
             /**
              * Check for errors.
              */
-            if (DebugOptions.DEBUG_DRAW) {
-                if (Util.hasGlError()) {
+            if (DebugOptions.DEBUG_DRAW && context.isValidating()) {
+                if (context.getGL().glGetError() != GLES20.GL_NO_ERROR) {
                     throw new RuntimeException("GL error during render");
                 }
             }
         }
+
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            mProfiler.record(FramePhase.RENDER, start);
+        }
     }
 }
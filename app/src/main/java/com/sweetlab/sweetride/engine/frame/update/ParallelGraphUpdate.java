@@ -0,0 +1,215 @@
+package com.sweetlab.sweetride.engine.frame.update;
+
+import com.sweetlab.sweetride.action.ActionNotifier;
+import com.sweetlab.sweetride.node.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Graph update where branches marked as independent are updated in parallel. The graph is first
+ * updated on the calling thread, skipping independent branches. The independent branches are then
+ * updated by a pool of worker threads together with the calling thread, each thread taking the
+ * next branch not yet taken until all are done. The calling thread waits for all branches before
+ * returning.
+ * <p/>
+ * While branches are updated in parallel, action propagation is guarded by a lock so that actions
+ * raised on worker threads are merged safely into notifiers shared between branches.
+ * <p/>
+ * World transforms are resolved lazily through the parents. Before dispatching, the world
+ * transforms of the branch parents are resolved on the calling thread, so workers only read
+ * shared ancestors and never combine into them concurrently.
+ */
+public class ParallelGraphUpdate {
+    /**
+     * The worker threads.
+     */
+    private final ExecutorService mExecutor;
+
+    /**
+     * Number of worker threads.
+     */
+    private final int mWorkerCount;
+
+    /**
+     * The independent branches of current update.
+     */
+    private final List<Node> mBranches = new ArrayList<>();
+
+    /**
+     * Index of the next branch to update.
+     */
+    private final AtomicInteger mNextBranch = new AtomicInteger();
+
+    /**
+     * Lock guarding action propagation during parallel update.
+     */
+    private final Object mActionLock = new Object();
+
+    /**
+     * Worker updating branches.
+     */
+    private final Runnable mWorker = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                updateBranches();
+            } catch (Throwable t) {
+                mError.compareAndSet(null, t);
+            } finally {
+                onWorkerDone();
+            }
+        }
+    };
+
+    /**
+     * Number of workers not yet done.
+     */
+    private int mPendingWorkers;
+
+    /**
+     * Delta time of current update.
+     */
+    private volatile float mDelta;
+
+    /**
+     * First error thrown during the parallel part of the update.
+     */
+    private final AtomicReference<Throwable> mError = new AtomicReference<>();
+
+    /**
+     * Constructor. Uses one worker thread less than number of processors since the calling thread
+     * takes part in the update.
+     */
+    public ParallelGraphUpdate() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param workerCount Number of worker threads.
+     */
+    public ParallelGraphUpdate(int workerCount) {
+        mWorkerCount = workerCount;
+        mExecutor = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "GraphUpdate-" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Update the graph. Returns when all branches has been updated.
+     *
+     * @param root The root node.
+     * @param dt   Delta time between frames.
+     */
+    public void update(Node root, float dt) {
+        mBranches.clear();
+        root.update(dt, mBranches);
+        if (mBranches.isEmpty()) {
+            return;
+        }
+
+        /**
+         * Resolve shared ancestors before any worker reads them.
+         */
+        for (int i = 0; i < mBranches.size(); i++) {
+            Node parent = mBranches.get(i).getParent();
+            if (parent != null) {
+                parent.getWorldTransform();
+            }
+        }
+
+        mDelta = dt;
+        mNextBranch.set(0);
+        mError.set(null);
+        int workerCount = Math.min(mWorkerCount, mBranches.size() - 1);
+        synchronized (this) {
+            mPendingWorkers = workerCount;
+        }
+
+        ActionNotifier.setParallelLock(mActionLock);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                mExecutor.execute(mWorker);
+            }
+            try {
+                updateBranches();
+            } catch (Throwable t) {
+                mError.compareAndSet(null, t);
+            }
+
+            /**
+             * Barrier, all branches must be updated before continuing.
+             */
+            awaitWorkers();
+        } finally {
+            ActionNotifier.setParallelLock(null);
+            mBranches.clear();
+        }
+
+        Throwable error = mError.getAndSet(null);
+        if (error != null) {
+            throw new RuntimeException("Error during parallel graph update", error);
+        }
+    }
+
+    /**
+     * Stop the worker threads.
+     */
+    public void shutdown() {
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Update branches until all branches are taken.
+     */
+    private void updateBranches() {
+        final float dt = mDelta;
+        final int count = mBranches.size();
+        int index = mNextBranch.getAndIncrement();
+        while (index < count) {
+            mBranches.get(index).update(dt);
+            index = mNextBranch.getAndIncrement();
+        }
+    }
+
+    /**
+     * Called by a worker when done.
+     */
+    private synchronized void onWorkerDone() {
+        mPendingWorkers--;
+        if (mPendingWorkers == 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait for all workers to finish.
+     */
+    private synchronized void awaitWorkers() {
+        boolean interrupted = false;
+        while (mPendingWorkers > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
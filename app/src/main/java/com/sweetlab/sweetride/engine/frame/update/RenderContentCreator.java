@@ -1,5 +1,8 @@
 package com.sweetlab.sweetride.engine.frame.update;
 
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.context.GpuMemoryBudget;
+import com.sweetlab.sweetride.context.UploadScheduler;
 import com.sweetlab.sweetride.engine.frame.RenderTask;
 import com.sweetlab.sweetride.pool.RenderTaskPool;
 import com.sweetlab.sweetride.renderer.NodeRenderer;
@@ -22,6 +25,16 @@ public class RenderContentCreator {
      */
     private final RenderTaskPool mTaskPool;
 
+    /**
+     * The upload scheduler, null if uploads are not scheduled.
+     */
+    private UploadScheduler mUploadScheduler;
+
+    /**
+     * The GPU memory budget, null if memory isn't capped.
+     */
+    private GpuMemoryBudget mMemoryBudget;
+
     /**
      * Constructor.
      *
@@ -31,6 +44,24 @@ public class RenderContentCreator {
         mTaskPool = taskPool;
     }
 
+    /**
+     * Set the upload scheduler spreading buffer and texture uploads over frames.
+     *
+     * @param scheduler The scheduler or null to upload everything when first rendered.
+     */
+    public void setUploadScheduler(UploadScheduler scheduler) {
+        mUploadScheduler = scheduler;
+    }
+
+    /**
+     * Set the GPU memory budget marking the resources of drawn geometries.
+     *
+     * @param budget The budget or null to not cap memory.
+     */
+    public void setMemoryBudget(GpuMemoryBudget budget) {
+        mMemoryBudget = budget;
+    }
+
     /**
      * Create a list of render tasks.
      *
@@ -38,6 +69,13 @@ public class RenderContentCreator {
      * @param renderQueue The render queue.
      */
     public void create(GraphContent content, ArrayDeque<RenderTask> renderQueue) {
+        if (mUploadScheduler != null) {
+            mUploadScheduler.onNewFrame();
+        }
+        if (mMemoryBudget != null) {
+            mMemoryBudget.onNewFrame();
+        }
+
         /**
          * For each render node, collect nodes and place in a render node task and add
          * task to render queue.
@@ -48,8 +86,15 @@ public class RenderContentCreator {
             if (renderer != null) {
                 mGroupCollector.collect(renderNode);
 
+                Camera camera = renderNode.findCamera();
                 RenderTask task = mTaskPool.get();
-                task.set(renderer, mGroupCollector.getResult());
+                task.set(renderer, mGroupCollector.getResult(), mUploadScheduler, camera);
+                if (mMemoryBudget != null) {
+                    mMemoryBudget.touch(mGroupCollector.getResult(), mUploadScheduler);
+                }
+                if (renderNode.isDrawSortingEnabled()) {
+                    task.sort(camera);
+                }
                 renderQueue.addLast(task);
 
                 mGroupCollector.reset();
@@ -4,6 +4,7 @@ import com.sweetlab.sweetride.camera.Camera;
 import com.sweetlab.sweetride.camera.ViewFrustrumCulling;
 import com.sweetlab.sweetride.engine.TraverseHelper;
 import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.intersect.BoundingBox;
 import com.sweetlab.sweetride.node.Node;
 import com.sweetlab.sweetride.node.NodeVisitor;
 import com.sweetlab.sweetride.pool.Poolable;
@@ -16,6 +17,13 @@ import java.util.List;
  * Collect nodes for a specific render node. This collector ignores sub branches that
  * contains other render nodes. If view frustrum culling is enabled in the render node
  * geometries will be culled and not collected if they are outside view frustrum.
+ * <p/>
+ * The nodes of a render node are kept by the render node between frames and only collected
+ * again when the branch has changed. Without culling the kept nodes are used directly.
+ * <p/>
+ * When culling, whole branches are rejected by testing the branch bounding box, and branches
+ * fully inside the view frustrum are collected without further testing. Culling uses the camera
+ * of the render node.
  */
 public class RenderNodeContentCollector implements Poolable {
     /**
@@ -24,24 +32,34 @@ public class RenderNodeContentCollector implements Poolable {
     private final ViewFrustrumCulling mViewFrustrumCulling = new ViewFrustrumCulling();
 
     /**
-     * The provided storage to collect into.
+     * Storage used when geometries are culled.
      */
-    private List<Node> mContent = new ArrayList<>();
+    private final List<Node> mContent = new ArrayList<>();
 
     /**
-     * The parent render node.
+     * The collected result.
      */
-    private RenderNode mParent;
+    private List<Node> mResult = mContent;
 
     /**
-     * Internal node visitor.
+     * The camera to cull against.
+     */
+    private Camera mCamera;
+
+    /**
+     * The view frustrum planes the current branch intersects.
+     */
+    private int mPlaneMask;
+
+    /**
+     * Internal node visitor used when culling.
      */
-    private InternalVisitor mVisitor = new InternalVisitor();
+    private final NodeVisitor mVisitor = new InternalVisitor();
 
     @Override
     public void reset() {
         mContent.clear();
-        mParent = null;
+        mResult = mContent;
     }
 
     /**
@@ -51,12 +69,20 @@ public class RenderNodeContentCollector implements Poolable {
      * @param parent Parent to start traversing from.
      */
     public void collect(RenderNode parent) {
-        mParent = parent;
+        if (!parent.isViewFrustrumCullingEnabled()) {
+            mResult = parent.getBranchNodes();
+            return;
+        }
+
+        mContent.clear();
+        mCamera = parent.findCamera();
+        mPlaneMask = mCamera != null ? ViewFrustrumCulling.ALL_PLANES : 0;
         mContent.add(parent);
-        int childCount = parent.getChildCount();
-        for (int i = 0; i < childCount; i++) {
-            parent.getChild(i).accept(mVisitor);
+        if (cullBranch(parent)) {
+            TraverseHelper.depthFirst(parent, mVisitor);
         }
+        mCamera = null;
+        mResult = mContent;
     }
 
     /**
@@ -65,7 +91,28 @@ public class RenderNodeContentCollector implements Poolable {
      * @return The content by reference.
      */
     public List<Node> getResult() {
-        return mContent;
+        return mResult;
+    }
+
+    /**
+     * Cull branch against the planes in current plane mask. Updates the plane mask with the planes
+     * the branch intersects.
+     *
+     * @param node The branch node.
+     * @return True if branch is visible and should be traversed.
+     */
+    private boolean cullBranch(Node node) {
+        if (mPlaneMask != 0) {
+            BoundingBox box = node.getBranchBox();
+            if (box != null && !box.isEmpty()) {
+                int planeMask = mViewFrustrumCulling.cull(box, mCamera, mPlaneMask);
+                if (planeMask == ViewFrustrumCulling.OUTSIDE) {
+                    return false;
+                }
+                mPlaneMask = planeMask;
+            }
+        }
+        return true;
     }
 
     /**
@@ -74,21 +121,33 @@ public class RenderNodeContentCollector implements Poolable {
     private class InternalVisitor implements NodeVisitor {
         @Override
         public void visit(Node node) {
-            mContent.add(node);
-            TraverseHelper.depthFirst(node, this);
+            int planeMask = mPlaneMask;
+            if (cullBranch(node)) {
+                mContent.add(node);
+                TraverseHelper.depthFirst(node, this);
+            }
+            mPlaneMask = planeMask;
         }
 
         @Override
         public void visit(Geometry geometry) {
-            if (mParent.isViewFrustrumCullingEnabled()) {
-                Camera camera = geometry.findCamera();
-                if (camera != null && mViewFrustrumCulling.isVisible(geometry, camera)) {
+            if (mCamera == null) {
+                return;
+            }
+            int planeMask = mPlaneMask;
+            if (cullBranch(geometry)) {
+                /**
+                 * The branch box includes children, the geometry itself needs a test of its own
+                 * when it has children.
+                 */
+                BoundingBox box = geometry.getBoundingBox();
+                if (geometry.getChildCount() == 0 || mPlaneMask == 0 || box.isEmpty() ||
+                        mViewFrustrumCulling.cull(box, mCamera, mPlaneMask) != ViewFrustrumCulling.OUTSIDE) {
                     mContent.add(geometry);
                 }
-            } else {
-                mContent.add(geometry);
+                TraverseHelper.depthFirst(geometry, this);
             }
-            TraverseHelper.depthFirst(geometry, this);
+            mPlaneMask = planeMask;
         }
 
         @Override
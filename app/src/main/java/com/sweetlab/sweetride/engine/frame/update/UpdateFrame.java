@@ -2,15 +2,24 @@ package com.sweetlab.sweetride.engine.frame.update;
 
 import android.os.SystemClock;
 
+import com.sweetlab.sweetride.DebugOptions;
 import com.sweetlab.sweetride.UserApplication;
+import com.sweetlab.sweetride.context.GpuMemoryBudget;
+import com.sweetlab.sweetride.context.UploadScheduler;
 import com.sweetlab.sweetride.engine.FrontEndActionHandler;
 import com.sweetlab.sweetride.engine.frame.RenderTask;
+import com.sweetlab.sweetride.engine.profiler.FramePhase;
+import com.sweetlab.sweetride.engine.profiler.FrameProfiler;
+import com.sweetlab.sweetride.geometry.Geometry;
 import com.sweetlab.sweetride.node.Node;
-import com.sweetlab.sweetride.pool.GraphContentPool;
+import com.sweetlab.sweetride.node.TransformStore;
 import com.sweetlab.sweetride.pool.RenderTaskPool;
 import com.sweetlab.sweetride.rendernode.RenderNode;
+import com.sweetlab.sweetride.resource.ReleasableResource;
+import com.sweetlab.sweetride.resource.ResourceReleaser;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -23,9 +32,9 @@ public class UpdateFrame {
     private final DeltaTime mDeltaTime = new DeltaTime();
 
     /**
-     * A pool of graph content storage objects.
+     * The graph content, kept between frames and only collected again when the graph has changed.
      */
-    private final GraphContentPool mGraphContentPool = new GraphContentPool();
+    private final GraphContent mGraphContent = new GraphContent();
 
     /**
      * Graph content collector.
@@ -42,9 +51,155 @@ public class UpdateFrame {
      */
     private final RenderContentCreator mRenderContentCreator;
 
+    /**
+     * The frame profiler.
+     */
+    private final FrameProfiler mProfiler;
+
+    /**
+     * Released resources to delete, kept until a frame has a render task to delete them in.
+     */
+    private final List<ReleasableResource> mDeletions = new ArrayList<>();
+
+    /**
+     * The root the graph content was collected from.
+     */
+    private Node mCollectedRoot;
+
+    /**
+     * The branch version of the root when graph content was collected.
+     */
+    private int mCollectedBranchVersion;
+
+    /**
+     * The transform store, null if not enabled.
+     */
+    private TransformStore mTransformStore;
 
+    /**
+     * The parallel graph update, null if not enabled.
+     */
+    private ParallelGraphUpdate mParallelUpdate;
+
+    /**
+     * The upload scheduler, null if not enabled.
+     */
+    private UploadScheduler mUploadScheduler;
+
+    /**
+     * The GPU memory budget, null if not enabled.
+     */
+    private GpuMemoryBudget mMemoryBudget;
+
+    /**
+     * The resource releaser, null if released resources are not deleted.
+     */
+    private ResourceReleaser mReleaser;
+
+    /**
+     * Constructor.
+     *
+     * @param taskPool Pool of render tasks object.
+     */
     public UpdateFrame(RenderTaskPool taskPool) {
+        this(taskPool, new FrameProfiler());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param taskPool Pool of render tasks object.
+     * @param profiler Profiler to record update phases into.
+     */
+    public UpdateFrame(RenderTaskPool taskPool, FrameProfiler profiler) {
         mRenderContentCreator = new RenderContentCreator(taskPool);
+        mProfiler = profiler;
+    }
+
+    /**
+     * Enable or disable the transform store. When enabled world transforms of all nodes are
+     * calculated in one pass after graph update, see TransformStore.
+     *
+     * @param enable True to enable.
+     */
+    public void setTransformStoreEnabled(boolean enable) {
+        if (enable && mTransformStore == null) {
+            mTransformStore = new TransformStore();
+        } else if (!enable && mTransformStore != null) {
+            mTransformStore.clear();
+            mTransformStore = null;
+        }
+    }
+
+    /**
+     * Enable or disable parallel graph update. When enabled branches marked as independent,
+     * see Node.setIndependentUpdate, are updated in parallel on worker threads.
+     *
+     * @param enable True to enable.
+     */
+    public void setParallelUpdateEnabled(boolean enable) {
+        if (enable && mParallelUpdate == null) {
+            mParallelUpdate = new ParallelGraphUpdate();
+        } else if (!enable && mParallelUpdate != null) {
+            mParallelUpdate.shutdown();
+            mParallelUpdate = null;
+        }
+    }
+
+    /**
+     * Set the byte budget for buffer and texture uploads each frame, see UploadScheduler.
+     *
+     * @param bytes The budget, 0 or less to upload everything when first rendered.
+     */
+    public void setUploadBudget(int bytes) {
+        if (bytes > 0) {
+            if (mUploadScheduler == null) {
+                mUploadScheduler = new UploadScheduler(bytes);
+                mRenderContentCreator.setUploadScheduler(mUploadScheduler);
+            } else {
+                mUploadScheduler.setByteBudget(bytes);
+            }
+        } else if (mUploadScheduler != null) {
+            mUploadScheduler = null;
+            mRenderContentCreator.setUploadScheduler(null);
+        }
+    }
+
+    /**
+     * Set the GPU memory budget for buffers and textures, see GpuMemoryBudget.
+     *
+     * @param bytes The budget, 0 or less to not cap memory.
+     */
+    public void setMemoryBudget(long bytes) {
+        if (bytes > 0) {
+            if (mMemoryBudget == null) {
+                mMemoryBudget = new GpuMemoryBudget(bytes);
+                mRenderContentCreator.setMemoryBudget(mMemoryBudget);
+            } else {
+                mMemoryBudget.setByteBudget(bytes);
+            }
+        } else if (mMemoryBudget != null) {
+            mMemoryBudget = null;
+            mRenderContentCreator.setMemoryBudget(null);
+        }
+    }
+
+    /**
+     * Get the GPU memory budget.
+     *
+     * @return The budget or null if not enabled.
+     */
+    public GpuMemoryBudget getMemoryBudget() {
+        return mMemoryBudget;
+    }
+
+    /**
+     * Set the releaser deleting resources no longer held, see ResourceReleaser.
+     *
+     * @param releaser The releaser or null to not delete released resources.
+     */
+    public void setResourceReleaser(ResourceReleaser releaser) {
+        mReleaser = releaser;
     }
 
     /**
@@ -55,60 +210,106 @@ public class UpdateFrame {
      * @param renderQueue The render queue.
      */
     public void update(UserApplication application, Node root, ArrayDeque<RenderTask> renderQueue) {
+        long start = 0;
+        long time = 0;
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            start = mProfiler.start();
+            time = start;
+        }
+
         /**
-         * Run application and graph update.
+         * Delta time since last frame.
          */
-        userUpdate(application, root);
+        float delta = mDeltaTime.get(SystemClock.uptimeMillis()) / 1000f;
+
+        /**
+         * Update application.
+         */
+        application.onUpdate(delta);
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            time = mProfiler.record(FramePhase.APPLICATION_UPDATE, time);
+        }
 
         /**
-         * Get a graph content storage from pool.
+         * Update graph.
          */
-        GraphContent graphContent = mGraphContentPool.get();
+        if (mParallelUpdate != null) {
+            mParallelUpdate.update(root, delta);
+        } else {
+            root.update(delta);
+        }
+        if (mTransformStore != null) {
+            mTransformStore.update(root);
+        }
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            time = mProfiler.record(FramePhase.GRAPH_UPDATE, time);
+        }
 
         /**
-         * Collect graph content into graph content storage.
+         * Collect graph content if nodes has been added or removed since last frame.
          */
-        mGraphContentCollector.collect(root, graphContent);
+        GraphContent graphContent = collect(root);
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            time = mProfiler.record(FramePhase.COLLECT, time);
+        }
 
         /**
          * Handle all actions.
          */
         handleActions(graphContent);
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            time = mProfiler.record(FramePhase.HANDLE_ACTIONS, time);
+        }
 
         /**
-         * Create render content.
+         * Collect released resources to delete.
          */
-        mRenderContentCreator.create(graphContent, renderQueue);
+        if (mReleaser != null) {
+            mReleaser.collect(mDeletions);
+        }
 
         /**
-         * Pool the graph content storage.
+         * Create render content.
          */
-        mGraphContentPool.put(graphContent);
-    }
+        mRenderContentCreator.create(graphContent, renderQueue);
+        if (mMemoryBudget != null) {
+            mMemoryBudget.evict(mDeletions);
+        }
+        if (!mDeletions.isEmpty() && !renderQueue.isEmpty()) {
+            renderQueue.peekFirst().addDeletions(mDeletions);
+            mDeletions.clear();
+        }
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            mProfiler.record(FramePhase.CREATE_RENDER_CONTENT, time);
+        }
 
+        if (DebugOptions.DEBUG_FRAME_PROFILER) {
+            mProfiler.record(FramePhase.UPDATE, start);
+        }
+    }
 
     /**
-     * Update user application and graph.
+     * Collect graph content. The previous content is reused as long as the root is the same and
+     * no nodes has been added or removed in the graph.
+     *
+     * @param root The root node.
+     * @return The graph content.
      */
-    private void userUpdate(UserApplication application, Node root) {
-        /**
-         * Delta time since last frame.
-         */
-        float delta = mDeltaTime.get(SystemClock.uptimeMillis()) / 1000f;
-
-        /**
-         * Update application.
-         */
-        application.onUpdate(delta);
-
-        /**
-         * Update graph.
-         */
-        root.update(delta);
+    private GraphContent collect(Node root) {
+        int branchVersion = root.getBranchVersion();
+        if (root != mCollectedRoot || branchVersion != mCollectedBranchVersion) {
+            mGraphContent.reset();
+            mGraphContentCollector.collect(root, mGraphContent);
+            mCollectedRoot = root;
+            mCollectedBranchVersion = branchVersion;
+        }
+        return mGraphContent;
     }
 
     /**
-     * Handle all actions generated during user update.
+     * Handle all actions generated during user update. Resources removed from a mesh or material
+     * come with an action, so geometries with handled actions hand removed resources over to the
+     * releaser.
      */
     private void handleActions(GraphContent content) {
         List<RenderNode> renderNodes = content.getRenderNodes();
@@ -117,7 +318,9 @@ public class UpdateFrame {
         }
         List<Node> nodes = content.getNodes();
         for (Node node : nodes) {
-            mActionHandler.handleActions(node);
+            if (mActionHandler.handleActions(node) && node instanceof Geometry) {
+                ((Geometry) node).releaseRemoved(mReleaser);
+            }
         }
     }
 }
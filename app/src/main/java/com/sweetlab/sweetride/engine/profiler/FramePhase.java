@@ -0,0 +1,57 @@
+package com.sweetlab.sweetride.engine.profiler;
+
+/**
+ * Profiled phases of a frame. Update phases are recorded on main thread and render phases on
+ * GL thread.
+ */
+public enum FramePhase {
+    /**
+     * User application update.
+     */
+    APPLICATION_UPDATE,
+
+    /**
+     * Scene graph update.
+     */
+    GRAPH_UPDATE,
+
+    /**
+     * Graph content collection.
+     */
+    COLLECT,
+
+    /**
+     * Main thread action handling.
+     */
+    HANDLE_ACTIONS,
+
+    /**
+     * Render content creation, recording and sorting draw packets.
+     */
+    CREATE_RENDER_CONTENT,
+
+    /**
+     * The whole update.
+     */
+    UPDATE,
+
+    /**
+     * GL work queue execution at start of render.
+     */
+    GL_WORK,
+
+    /**
+     * GL action handling, one sample per render task.
+     */
+    GL_ACTIONS,
+
+    /**
+     * Drawing, one sample per render task.
+     */
+    DRAW,
+
+    /**
+     * The whole render.
+     */
+    RENDER
+}
@@ -0,0 +1,201 @@
+package com.sweetlab.sweetride.engine.profiler;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation free frame phase profiler. Keeps the latest nanosecond timings of each phase in a
+ * fixed size ring buffer and calculates rolling percentiles on demand.
+ * <p/>
+ * Each phase must only be recorded from one thread. Reading percentiles from another thread is
+ * allowed, the result may then miss the very latest sample. Recording is only done by the engine
+ * when DebugOptions.DEBUG_FRAME_PROFILER is set, otherwise the recording code is compiled away.
+ */
+public class FrameProfiler {
+    /**
+     * Default number of samples kept per phase.
+     */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    /**
+     * Percentiles reported.
+     */
+    private static final int[] PERCENTILES = new int[]{50, 95, 99};
+
+    /**
+     * Log tag.
+     */
+    private static final String TAG = "FrameProfiler";
+
+    /**
+     * Ring buffer of samples per phase.
+     */
+    private final long[][] mSamples;
+
+    /**
+     * Number of samples ever written per phase.
+     */
+    private final int[] mWriteCounts;
+
+    /**
+     * Scratch buffer used when sorting samples.
+     */
+    private final long[] mScratch;
+
+    /**
+     * Mask to wrap write index.
+     */
+    private final int mMask;
+
+    /**
+     * Constructor.
+     */
+    public FrameProfiler() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity Number of samples kept per phase, must be a power of two.
+     */
+    public FrameProfiler(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new RuntimeException("Profiler capacity must be a power of two, got " + capacity);
+        }
+        FramePhase[] phases = FramePhase.values();
+        mSamples = new long[phases.length][capacity];
+        mWriteCounts = new int[phases.length];
+        mScratch = new long[capacity];
+        mMask = capacity - 1;
+    }
+
+    /**
+     * Get a start time to record a phase from.
+     *
+     * @return The start time in nanoseconds.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record a phase that started at given time and ended now. The returned end time can be used
+     * as start time of the next phase.
+     *
+     * @param phase      The phase.
+     * @param startNanos The start time in nanoseconds.
+     * @return The end time in nanoseconds.
+     */
+    public long record(FramePhase phase, long startNanos) {
+        long now = System.nanoTime();
+        int index = phase.ordinal();
+        mSamples[index][mWriteCounts[index] & mMask] = now - startNanos;
+        mWriteCounts[index]++;
+        return now;
+    }
+
+    /**
+     * Get number of samples available for a phase.
+     *
+     * @param phase The phase.
+     * @return Number of samples, at most the capacity.
+     */
+    public int getSampleCount(FramePhase phase) {
+        return Math.min(mWriteCounts[phase.ordinal()], mMask + 1);
+    }
+
+    /**
+     * Get a rolling percentile of a phase.
+     *
+     * @param phase      The phase.
+     * @param percentile The percentile, 0 to 100.
+     * @return The time in nanoseconds, 0 if there are no samples.
+     */
+    public synchronized long getPercentile(FramePhase phase, int percentile) {
+        int count = sortSamples(phase);
+        return count == 0 ? 0 : mScratch[(count - 1) * percentile / 100];
+    }
+
+    /**
+     * Get rolling p50, p95 and p99 of a phase.
+     *
+     * @param phase The phase.
+     * @param dst   Destination of at least three values, nanoseconds.
+     */
+    public synchronized void getPercentiles(FramePhase phase, long[] dst) {
+        int count = sortSamples(phase);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            dst[i] = count == 0 ? 0 : mScratch[(count - 1) * PERCENTILES[i] / 100];
+        }
+    }
+
+    /**
+     * Forget all samples.
+     */
+    public synchronized void reset() {
+        Arrays.fill(mWriteCounts, 0);
+    }
+
+    /**
+     * Create a report of p50, p95 and p99 in microseconds of all phases.
+     *
+     * @return The report.
+     */
+    public synchronized String createReport() {
+        StringBuilder builder = new StringBuilder();
+        for (FramePhase phase : FramePhase.values()) {
+            int count = sortSamples(phase);
+            builder.append(phase.name()).append(" n = ").append(count);
+            for (int percentile : PERCENTILES) {
+                long nanos = count == 0 ? 0 : mScratch[(count - 1) * percentile / 100];
+                builder.append(" p").append(percentile).append(" = ").append(TimeUnit.NANOSECONDS.toMicros(nanos)).append("us");
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Dump report to logcat.
+     */
+    public void logReport() {
+        for (String line : createReport().split("\n")) {
+            Log.d(TAG, line);
+        }
+    }
+
+    /**
+     * Dump report to file.
+     *
+     * @param file The file to write.
+     * @throws IOException If file could not be written.
+     */
+    public void writeReport(File file) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(createReport());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Copy samples of a phase into scratch buffer and sort them.
+     *
+     * @param phase The phase.
+     * @return Number of samples sorted.
+     */
+    private int sortSamples(FramePhase phase) {
+        int count = getSampleCount(phase);
+        System.arraycopy(mSamples[phase.ordinal()], 0, mScratch, 0, count);
+        Arrays.sort(mScratch, 0, count);
+        return count;
+    }
+}
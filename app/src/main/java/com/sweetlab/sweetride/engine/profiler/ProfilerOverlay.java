@@ -0,0 +1,180 @@
+package com.sweetlab.sweetride.engine.profiler;
+
+import com.sweetlab.sweetride.attributedata.IndicesBuffer;
+import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.attributedata.VerticesData;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.node.NodeController;
+import com.sweetlab.sweetride.rendernode.AndroidRenderNode;
+import com.sweetlab.sweetride.shader.FragmentShader;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.VertexShader;
+import com.sweetlab.sweetride.uniform.FloatUniform;
+
+/**
+ * A debug overlay showing the frame profiler. Each frame phase is a row of three overlapping
+ * bars, p99 behind p95 behind p50. A full width bar is one frame at 60 fps. Add to the engine
+ * root, it renders on top of what is rendered before it.
+ */
+public class ProfilerOverlay extends AndroidRenderNode {
+    /**
+     * Vertex shader.
+     */
+    private static final String VERTEX_SHADER =
+            "attribute vec4 a_Pos; \n" +
+                    "uniform mat4 u_worldViewProjMat; \n" +
+                    "void main() { " +
+                    "    gl_Position = u_worldViewProjMat * a_Pos;" +
+                    "} ";
+
+    /**
+     * Fragment shader.
+     */
+    private static final String FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+                    "uniform vec4 u_Color;\n" +
+                    "void main() {\n" +
+                    "gl_FragColor = u_Color;\n" +
+                    "}";
+
+    /**
+     * Frame budget in nanoseconds that a full width bar represents.
+     */
+    private static final long FRAME_BUDGET_NANOS = 16666667;
+
+    /**
+     * Number of frames between bar updates.
+     */
+    private static final int REFRESH_FRAMES = 30;
+
+    /**
+     * Bar colors, p50, p95 and p99.
+     */
+    private static final float[][] COLORS = new float[][]{
+            {0.2f, 0.9f, 0.2f, 1},
+            {0.9f, 0.7f, 0.1f, 1},
+            {0.9f, 0.1f, 0.1f, 1}};
+
+    /**
+     * The profiler to show.
+     */
+    private final FrameProfiler mProfiler;
+
+    /**
+     * Bars per phase, p50, p95 and p99.
+     */
+    private final Geometry[][] mBars;
+
+    /**
+     * Percentiles read from profiler.
+     */
+    private final long[] mPercentiles = new long[3];
+
+    /**
+     * Max bar width in pixels.
+     */
+    private final float mMaxWidth;
+
+    /**
+     * Bar height in pixels.
+     */
+    private final float mBarHeight;
+
+    /**
+     * Frames left until next bar update.
+     */
+    private int mFramesToRefresh;
+
+    /**
+     * Constructor.
+     *
+     * @param profiler      The profiler to show.
+     * @param surfaceWidth  The surface width.
+     * @param surfaceHeight The surface height.
+     */
+    public ProfilerOverlay(FrameProfiler profiler, int surfaceWidth, int surfaceHeight) {
+        super(surfaceWidth, surfaceHeight);
+        mProfiler = profiler;
+        mMaxWidth = surfaceWidth / 3f;
+        mBarHeight = surfaceHeight / 60f;
+
+        ShaderProgram program = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(FRAGMENT_SHADER));
+        Mesh mesh = createUnitQuad();
+
+        FramePhase[] phases = FramePhase.values();
+        mBars = new Geometry[phases.length][COLORS.length];
+        for (int phase = 0; phase < phases.length; phase++) {
+            /**
+             * Add slowest first so faster percentiles are drawn on top.
+             */
+            for (int i = COLORS.length - 1; i >= 0; i--) {
+                Material material = new Material();
+                material.setShaderProgram(program);
+                FloatUniform color = new FloatUniform("u_Color");
+                color.set(COLORS[i]);
+                Geometry bar = new Geometry();
+                bar.setMaterial(material);
+                bar.setMesh(mesh);
+                bar.addUniform(color);
+                mBars[phase][i] = bar;
+                addChild(bar);
+                setBar(phase, i, 0);
+            }
+        }
+
+        addNodeController(new NodeController() {
+            @Override
+            public boolean onUpdate(float dt) {
+                if (--mFramesToRefresh <= 0) {
+                    mFramesToRefresh = REFRESH_FRAMES;
+                    refresh();
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Read percentiles from profiler and resize bars.
+     */
+    private void refresh() {
+        FramePhase[] phases = FramePhase.values();
+        for (int phase = 0; phase < phases.length; phase++) {
+            mProfiler.getPercentiles(phases[phase], mPercentiles);
+            for (int i = 0; i < mPercentiles.length; i++) {
+                setBar(phase, i, mPercentiles[i]);
+            }
+        }
+    }
+
+    /**
+     * Set bar size and position.
+     *
+     * @param phase Phase row.
+     * @param index Percentile index.
+     * @param nanos The time in nanoseconds.
+     */
+    private void setBar(int phase, int index, long nanos) {
+        float width = Math.min(mMaxWidth, Math.max(1, mMaxWidth * nanos / FRAME_BUDGET_NANOS));
+        Geometry bar = mBars[phase][index];
+        bar.getModelTransform().setScale(width, mBarHeight, 1);
+        bar.getModelTransform().setTranslate(mBarHeight, mBarHeight * (1 + phase * 1.5f), 0);
+    }
+
+    /**
+     * Create a quad from origin to (1, 1).
+     *
+     * @return The mesh.
+     */
+    private static Mesh createUnitQuad() {
+        Mesh mesh = new Mesh(MeshDrawingMode.TRIANGLE_STRIP);
+        float[] vertices = new float[]{0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 1, 0};
+        mesh.addVertexBuffer(new VertexBuffer("a_Pos", new VerticesData(vertices), BufferUsage.STATIC));
+        mesh.setIndicesBuffer(new IndicesBuffer(new short[]{0, 1, 2, 3}, BufferUsage.STATIC));
+        return mesh;
+    }
+}
@@ -0,0 +1,94 @@
+package com.sweetlab.sweetride.engine.uniform;
+
+import android.support.annotation.Nullable;
+
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.context.UniformWriter;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.UniformBinding;
+
+/**
+ * Snapshot of the camera level engine uniforms, view and projection. Taken once per camera and
+ * frame on main thread and shared by all draw packets of the render task, instead of each
+ * geometry keeping and recording its own copies.
+ * <p/>
+ * A snapshot is stamped with the camera stamp, so snapshots of the same camera state share stamp
+ * also across render tasks. Uniform values stay in a linked program, so the stamp written is kept
+ * in the program and the snapshot is only uploaded to a program that has not seen it yet, at most
+ * once per program and frame and not at all while the camera is still.
+ */
+public class CameraUniforms {
+    /**
+     * Number of floats per matrix.
+     */
+    private static final int MATRIX_FLOATS = 16;
+
+    /**
+     * Binding to the view matrix uniform.
+     */
+    private final UniformBinding mViewBinding = new UniformBinding(EngineUniformRegistry.getName(EngineUniformType.VIEW));
+
+    /**
+     * Binding to the projection matrix uniform.
+     */
+    private final UniformBinding mProjectionBinding = new UniformBinding(EngineUniformRegistry.getName(EngineUniformType.PROJECTION));
+
+    /**
+     * The view matrix.
+     */
+    private final float[] mView = new float[MATRIX_FLOATS];
+
+    /**
+     * The projection matrix.
+     */
+    private final float[] mProjection = new float[MATRIX_FLOATS];
+
+    /**
+     * The snapshot stamp, 0 if no camera.
+     */
+    private int mStamp;
+
+    /**
+     * Take a snapshot of the camera. The matrices are only copied if the camera has been updated
+     * since the current snapshot. Call from main thread, or from GL thread when drawing immediately.
+     *
+     * @param camera The camera or null if none.
+     */
+    public void set(@Nullable Camera camera) {
+        if (camera == null) {
+            mStamp = 0;
+            return;
+        }
+        int stamp = camera.getStamp();
+        if (stamp != mStamp) {
+            System.arraycopy(camera.getViewMatrix().m, 0, mView, 0, MATRIX_FLOATS);
+            System.arraycopy(camera.getFrustrum().getProjectionMatrix().m, 0, mProjection, 0, MATRIX_FLOATS);
+            mStamp = stamp;
+        }
+    }
+
+    /**
+     * Get the snapshot stamp.
+     *
+     * @return The stamp, 0 if no camera.
+     */
+    public int getStamp() {
+        return mStamp;
+    }
+
+    /**
+     * Write the snapshot to the program, unless the program already has it. The program must
+     * be in use. Call from GL thread.
+     *
+     * @param program The shader program.
+     * @param writer  The uniform writer.
+     */
+    public void write(ShaderProgram program, UniformWriter writer) {
+        if (mStamp == 0 || program.getCameraUniformStamp() == mStamp) {
+            return;
+        }
+        writer.writeFloat(program, mViewBinding.getSlot(program), mView, 0);
+        writer.writeFloat(program, mProjectionBinding.getSlot(program), mProjection, 0);
+        program.setCameraUniformStamp(mStamp);
+    }
+}
@@ -1,6 +1,7 @@
 package com.sweetlab.sweetride.engine.uniform;
 
 import com.sweetlab.sweetride.math.Matrix44;
+import com.sweetlab.sweetride.shader.UniformBinding;
 
 /**
  * Engine uniform.
@@ -13,6 +14,13 @@ public interface EngineUniform {
      */
     String getName();
 
+    /**
+     * Get the binding to the uniform slot in the shader program. GL thread only.
+     *
+     * @return The binding.
+     */
+    UniformBinding getBinding();
+
     /**
      * Get the matrix.
      *
@@ -0,0 +1,125 @@
+package com.sweetlab.sweetride.engine.uniform;
+
+import com.sweetlab.sweetride.shader.ShaderProgram;
+
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Global registry of active engine uniforms, shared by all geometries. Given a shader program
+ * the registry provides a mask of the engine uniform types active in the program, see getMask.
+ * If the shader program has not yet been created, all engine uniforms are reported active.
+ * Once the shader program is created, the actual mask is resolved and placed in the registry
+ * for future queries.
+ * <p/>
+ * Engine uniforms are either per object, calculated by each geometry, or camera level,
+ * calculated once per camera and frame, see CameraUniforms.
+ */
+public class EngineUniformRegistry {
+    /**
+     * The engine uniform types.
+     */
+    private static final EngineUniformType[] TYPES = EngineUniformType.values();
+
+    /**
+     * Mask with all engine uniforms.
+     */
+    public static final int ALL = (1 << TYPES.length) - 1;
+
+    /**
+     * Mask with the camera level engine uniforms.
+     */
+    public static final int CAMERA = (1 << EngineUniformType.VIEW.ordinal()) | (1 << EngineUniformType.PROJECTION.ordinal());
+
+    /**
+     * Mask with the per object engine uniforms.
+     */
+    public static final int OBJECT = ALL & ~CAMERA;
+
+    /**
+     * The shader uniform names indexed by engine uniform type ordinal.
+     */
+    private static final String[] NAMES = new String[TYPES.length];
+
+    /**
+     * The shared registry.
+     */
+    private static final EngineUniformRegistry sInstance = new EngineUniformRegistry();
+
+    static {
+        List<EngineUniform> list = new EngineUniforms().createList();
+        for (EngineUniform uniform : list) {
+            NAMES[uniform.getType().ordinal()] = uniform.getName();
+        }
+    }
+
+    /**
+     * Active engine uniform masks with shader program as key. Programs are weakly referenced
+     * so the registry doesn't keep released programs alive.
+     */
+    private final WeakHashMap<ShaderProgram, Integer> mActive = new WeakHashMap<>();
+
+    /**
+     * Get the shared registry.
+     *
+     * @return The registry.
+     */
+    public static EngineUniformRegistry getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Get the mask bit of an engine uniform type.
+     *
+     * @param type The engine uniform type.
+     * @return The mask bit.
+     */
+    public static int getMask(EngineUniformType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * Get the shader uniform name of an engine uniform type.
+     *
+     * @param type The engine uniform type.
+     * @return The shader uniform name.
+     */
+    public static String getName(EngineUniformType type) {
+        return NAMES[type.ordinal()];
+    }
+
+    /**
+     * Get the mask of active engine uniforms in program. The graph may be updated in parallel
+     * so the registry is synchronized.
+     *
+     * @param program Shader program.
+     * @return The mask of active engine uniforms.
+     */
+    public synchronized int getActive(ShaderProgram program) {
+        if (!program.isCreated()) {
+            return ALL;
+        }
+        Integer active = mActive.get(program);
+        if (active == null) {
+            active = getActiveInProgram(program);
+            mActive.put(program, active);
+        }
+        return active;
+    }
+
+    /**
+     * Get active engine uniforms in the shader program.
+     *
+     * @param program Shader program.
+     * @return Mask of active uniforms.
+     */
+    private static int getActiveInProgram(ShaderProgram program) {
+        int active = 0;
+        for (EngineUniformType type : TYPES) {
+            if (program.getUniform(NAMES[type.ordinal()]) != null) {
+                active |= getMask(type);
+            }
+        }
+        return active;
+    }
+}
@@ -37,4 +37,19 @@ public class EngineUniforms {
 
         return list;
     }
+
+    /**
+     * Create a new list of the per object engine uniforms, the camera level uniforms are
+     * shared through CameraUniforms.
+     *
+     * @return List of per object engine uniforms.
+     */
+    public List<EngineUniform> createObjectList() {
+        List<EngineUniform> list = new ArrayList<>();
+        list.add(new ModelMatrix());
+        list.add(new WorldMatrix());
+        list.add(new WorldViewMatrix());
+        list.add(new WorldViewProjectionMatrix());
+        return list;
+    }
 }
@@ -1,6 +1,7 @@
 package com.sweetlab.sweetride.engine.uniform;
 
 import com.sweetlab.sweetride.math.Matrix44;
+import com.sweetlab.sweetride.shader.UniformBinding;
 
 /**
  * The projection engine uniform matrix.
@@ -11,9 +12,19 @@ public class ProjectionMatrix implements EngineUniform {
      */
     private final Matrix44 mMatrix = new Matrix44();
 
+    /**
+     * The binding to the uniform slot.
+     */
+    private final UniformBinding mBinding = new UniformBinding("u_projMat");
+
     @Override
     public String getName() {
-        return "u_projMat";
+        return mBinding.getName();
+    }
+
+    @Override
+    public UniformBinding getBinding() {
+        return mBinding;
     }
 
     @Override
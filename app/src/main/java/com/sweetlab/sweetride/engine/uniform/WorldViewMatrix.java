@@ -1,6 +1,7 @@
 package com.sweetlab.sweetride.engine.uniform;
 
 import com.sweetlab.sweetride.math.Matrix44;
+import com.sweetlab.sweetride.shader.UniformBinding;
 
 /**
  * The world view engine uniform matrix.
@@ -11,9 +12,19 @@ public class WorldViewMatrix implements EngineUniform {
      */
     private final Matrix44 mMatrix = new Matrix44();
 
+    /**
+     * The binding to the uniform slot.
+     */
+    private final UniformBinding mBinding = new UniformBinding("u_worldViewMat");
+
     @Override
     public String getName() {
-        return "u_worldViewMat";
+        return mBinding.getName();
+    }
+
+    @Override
+    public UniformBinding getBinding() {
+        return mBinding;
     }
 
     @Override
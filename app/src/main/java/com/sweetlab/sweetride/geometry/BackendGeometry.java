@@ -1,51 +1,60 @@
 package com.sweetlab.sweetride.geometry;
 
-import com.sweetlab.sweetride.DebugOptions;
-import com.sweetlab.sweetride.attributedata.IndicesBuffer;
-import com.sweetlab.sweetride.context.ArrayTarget;
+import android.support.annotation.Nullable;
+
+import com.sweetlab.sweetride.camera.Camera;
 import com.sweetlab.sweetride.context.BackendContext;
-import com.sweetlab.sweetride.context.ElementTarget;
-import com.sweetlab.sweetride.context.TextureUnit;
-import com.sweetlab.sweetride.context.TextureUnitManager;
-import com.sweetlab.sweetride.context.UniformWriter;
+import com.sweetlab.sweetride.engine.uniform.CameraUniforms;
 import com.sweetlab.sweetride.engine.uniform.EngineUniform;
+import com.sweetlab.sweetride.engine.uniform.EngineUniformRegistry;
 import com.sweetlab.sweetride.material.BackendMaterial;
 import com.sweetlab.sweetride.mesh.BackendMesh;
-import com.sweetlab.sweetride.shader.ProgramUniform;
-import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.renderer.DrawPacket;
 import com.sweetlab.sweetride.uniform.CustomUniform;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Backend geometry.
+ * Backend geometry. Holds the handled geometry state which is recorded into draw packets
+ * on main thread.
  */
 public class BackendGeometry {
     /**
-     * The mesh reference used by GL thread.
+     * The mesh reference to record.
      */
     private BackendMesh mMesh;
 
     /**
-     * The material reference used by GL thread.
+     * The material reference to record.
      */
     private BackendMaterial mMaterial;
 
     /**
-     * List of custom uniforms used by GL thread.
+     * List of custom uniforms to record.
      */
     private final List<CustomUniform> mCustomUniforms = new ArrayList<>();
 
     /**
-     * This is a temporary list of taken texture units used during drawing.
+     * Packet used when drawing immediately.
+     */
+    private final DrawPacket mImmediatePacket = new DrawPacket();
+
+    /**
+     * Camera level engine uniforms of immediate drawing.
      */
-    private final List<TextureUnit> mTextureUnits = new ArrayList<>();
+    private final CameraUniforms mImmediateCameraUniforms = new CameraUniforms();
 
     /**
-     * List of active engine uniforms.
+     * The per object engine uniforms, owned by the geometry.
      */
-    private final List<EngineUniform> mEngineUniforms = new ArrayList<>();
+    private List<EngineUniform> mEngineUniforms = Collections.emptyList();
+
+    /**
+     * Mask of active engine uniforms.
+     */
+    private int mActiveEngineUniforms;
 
     /**
      * Set the mesh reference.
@@ -76,13 +85,14 @@ public class BackendGeometry {
     }
 
     /**
-     * Set the active engine uniforms.
+     * Set the per object engine uniforms. The matrices are copied when recorded.
      *
-     * @param list List of engine uniforms.
+     * @param list   List of per object engine uniforms by reference.
+     * @param active Mask of active engine uniforms, see EngineUniformRegistry.
      */
-    public void setEngineUniforms(List<EngineUniform> list) {
-        mEngineUniforms.clear();
-        mEngineUniforms.addAll(list);
+    public void setEngineUniforms(List<EngineUniform> list, int active) {
+        mEngineUniforms = list;
+        mActiveEngineUniforms = active;
     }
 
     /**
@@ -114,163 +124,56 @@ public class BackendGeometry {
     }
 
     /**
-     * Draw the geometry. The drawing will be performed on outside decided framebuffer or
-     * default window system (frame buffer).
+     * Record the geometry into a draw packet. Nothing is recorded if the geometry is not
+     * drawable. Call from main thread.
      *
-     * @param context The backend context.
+     * @param packet The packet to record into.
      */
-    public void draw(BackendContext context) {
+    public void record(DrawPacket packet) {
         if (isDrawable()) {
-            /**
-             * Enable attributes.
-             */
-            enableAttributes(context);
-
-            /**
-             * Use shader program.
-             */
-            context.getState().useProgram(mMaterial.getShaderProgram());
-
-            /**
-             * Enable textures.
-             */
-            enableTextures(context);
-
-            /**
-             * Write custom uniforms.
-             */
-            writeCustomUniforms(context);
-
-            /**
-             * Write the engine uniforms.
-             */
-            writeEngineUniforms(context);
-
-            /**
-             * Draw.
-             */
-            drawGeometry(context);
-
-            /**
-             * Disable textures.
-             */
-            disableTextures(context);
-
-            /**
-             * Disable attributes.
-             */
-            disableAttributes(context);
-        }
-    }
+            packet.setProgram(mMaterial.getShaderProgram());
 
-    /**
-     * Write engine uniforms if they are found in the shader program.
-     *
-     * @param context Backend context.
-     */
-    private void writeEngineUniforms(BackendContext context) {
-        ShaderProgram program = mMaterial.getShaderProgram();
-        UniformWriter uniformWriter = context.getUniformWriter();
-        for (EngineUniform engineUniforms : mEngineUniforms) {
-            String name = engineUniforms.getName();
-            ProgramUniform programUniform = program.getUniform(name);
-            if (programUniform != null) {
-                uniformWriter.writeFloat(program, name, engineUniforms.getMatrix().m);
+            final int vbCount = mMesh.getVertexBufferCount();
+            for (int i = 0; i < vbCount; i++) {
+                packet.addVertexBuffer(mMesh.getVertexBuffer(i));
             }
-        }
-    }
+            packet.setMesh(mMesh.getMode().getGlMode(), mMesh.getVertexCount(), mMesh.getIndicesBuffer());
 
-    /**
-     * Write custom uniforms.
-     *
-     * @param context Backend context.
-     */
-    private void writeCustomUniforms(BackendContext context) {
-        ShaderProgram program = mMaterial.getShaderProgram();
-        for (CustomUniform uniform : mCustomUniforms) {
-            uniform.writeProgramUniform(context, program);
-        }
-    }
-
-    /**
-     * Enable attributes.
-     *
-     * @param context Backend context.
-     */
-    private void enableAttributes(BackendContext context) {
-        final int vbCount = mMesh.getVertexBufferCount();
-        final ArrayTarget arrayTarget = context.getArrayTarget();
-        final ShaderProgram shaderProgram = mMaterial.getShaderProgram();
-        for (int i = 0; i < vbCount; i++) {
-            arrayTarget.enableAttribute(shaderProgram, mMesh.getVertexBuffer(i));
-        }
-    }
-
-    /**
-     * Disable attributes.
-     *
-     * @param context Backend context.
-     */
-    private void disableAttributes(BackendContext context) {
-        final int vbCount = mMesh.getVertexBufferCount();
-        final ArrayTarget arrayTarget = context.getArrayTarget();
-        final ShaderProgram shaderProgram = mMaterial.getShaderProgram();
-        for (int i = 0; i < vbCount; i++) {
-            arrayTarget.disableAttribute(shaderProgram, mMesh.getVertexBuffer(i));
-        }
-    }
+            final int textureCount = mMaterial.getTextureCount();
+            for (int i = 0; i < textureCount; i++) {
+                packet.addTexture(mMaterial.getTexture(i));
+            }
 
-    /**
-     * Enable textures.
-     *
-     * @param context Backend context.
-     */
-    private void enableTextures(BackendContext context) {
-        final ShaderProgram program = mMaterial.getShaderProgram();
-        final TextureUnitManager textureUnitManager = context.getTextureUnitManager();
-        final int textureCount = mMaterial.getTextureCount();
-        for (int i = 0; i < textureCount; i++) {
-            TextureUnit textureUnit = textureUnitManager.takeTextureUnit();
-            mTextureUnits.add(textureUnit);
-            textureUnit.getTexture2DTarget().enable(program, mMaterial.getTexture(i));
-        }
-    }
+            for (CustomUniform uniform : mCustomUniforms) {
+                uniform.record(packet);
+            }
 
-    /**
-     * Disable textures.
-     *
-     * @param context Backend context.
-     */
-    private void disableTextures(BackendContext context) {
-        final int textureCount = mMaterial.getTextureCount();
-        final TextureUnitManager textureUnitManager = context.getTextureUnitManager();
-        for (int i = (textureCount - 1); i > -1; i--) {
-            TextureUnit textureUnit = mTextureUnits.get(i);
-            textureUnit.getTexture2DTarget().disable(mMaterial.getTexture(i));
-            textureUnitManager.returnTextureUnit(textureUnit);
-        }
-        if (DebugOptions.DEBUG_GEOMETRY) {
-            if (mTextureUnits.size() != textureCount) {
-                throw new RuntimeException("Mismatch between number of textures and texture units = " + mTextureUnits.size() + " texture count = " + textureCount);
+            final int engineUniformCount = mEngineUniforms.size();
+            for (int i = 0; i < engineUniformCount; i++) {
+                EngineUniform engineUniform = mEngineUniforms.get(i);
+                if ((mActiveEngineUniforms & EngineUniformRegistry.getMask(engineUniform.getType())) != 0) {
+                    packet.addEngineUniform(engineUniform.getBinding(), engineUniform.getMatrix());
+                }
             }
         }
-        mTextureUnits.clear();
     }
 
     /**
-     * Draw using array or elements target.
+     * Draw the geometry immediately. The drawing will be performed on outside decided
+     * framebuffer or default window system (frame buffer). Camera level engine uniforms are
+     * written from a snapshot of the camera taken now.
      *
-     * @param context Backend context.
+     * @param context The backend context.
+     * @param camera  The camera or null if none.
      */
-    private void drawGeometry(BackendContext context) {
-        final IndicesBuffer ib = mMesh.getIndicesBuffer();
-        if (ib == null) {
-            context.getArrayTarget().draw(mMesh.getMode().getGlMode(), 0, mMesh.getVertexCount());
-        } else {
-            ElementTarget elementTarget = context.getElementTarget();
-            elementTarget.enableElements(ib);
-            elementTarget.draw(mMesh.getMode().getGlMode(), 0, ib.getIndicesCount());
-            elementTarget.disableElements();
+    public void draw(BackendContext context, @Nullable Camera camera) {
+        if (isDrawable()) {
+            mImmediatePacket.reset();
+            record(mImmediatePacket);
+            mImmediateCameraUniforms.set(camera);
+            mImmediatePacket.setCameraUniforms(mImmediateCameraUniforms);
+            mImmediatePacket.drawGeometry(context);
+            mImmediatePacket.reset();
         }
     }
 
@@ -280,36 +183,7 @@ public class BackendGeometry {
      * @return True if drawable.
      */
     private boolean isDrawable() {
-        if (mMaterial != null && mMesh != null) {
-            if (mMaterial.getShaderProgram() != null && mMesh.getVertexBufferCount() > 0) {
-                if (DebugOptions.DEBUG_GEOMETRY) {
-                    if (!mMaterial.getShaderProgram().isCreated()) {
-                        throw new RuntimeException("Trying to draw with a program that is not created");
-                    }
-                    int count;
-
-                    count = mMaterial.getTextureCount();
-                    for (int i = 0; i < count; i++) {
-                        if (!mMaterial.getTexture(i).isCreated()) {
-                            throw new RuntimeException("Trying to draw with a texture that is not created");
-                        }
-                    }
-
-                    count = mMesh.getVertexBufferCount();
-                    for (int i = 0; i < count; i++) {
-                        if (!mMesh.getVertexBuffer(i).isCreated()) {
-                            throw new RuntimeException("Trying to draw with a vertex buffer that is not created");
-                        }
-                    }
-
-                    IndicesBuffer indicesBuffer = mMesh.getIndicesBuffer();
-                    if (indicesBuffer != null && !indicesBuffer.isCreated()) {
-                        throw new RuntimeException("Trying to draw with a indices buffer that is not created");
-                    }
-                }
-                return true;
-            }
-        }
-        return false;
+        return mMaterial != null && mMesh != null &&
+                mMaterial.getShaderProgram() != null && mMesh.getVertexBufferCount() > 0;
     }
 }
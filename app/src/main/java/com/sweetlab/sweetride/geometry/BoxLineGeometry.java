@@ -1,6 +1,6 @@
 package com.sweetlab.sweetride.geometry;
 
-import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.attributedata.DynamicVertexBuffer;
 import com.sweetlab.sweetride.attributedata.VerticesData;
 import com.sweetlab.sweetride.context.BufferUsage;
 import com.sweetlab.sweetride.context.MeshDrawingMode;
@@ -105,26 +105,43 @@ public class BoxLineGeometry extends Geometry {
      */
     private final Vec3[] mPoints = new Vec3[NBR_BOX_CORNERS];
 
+    /**
+     * The line vertices, changed in place when the box is updated.
+     */
+    private final DynamicVertexBuffer mVertexBuffer = new DynamicVertexBuffer(ATTRIBUTE_NAME,
+            new VerticesData(new float[NBR_LINES * 2 * 3]), BufferUsage.DYNAMIC);
+
+    /**
+     * The line mesh.
+     */
+    private final Mesh mLineMesh = new Mesh(MeshDrawingMode.LINES);
+
     /**
      * Constructor. Empty geometry until updateBox is called.
      */
     public BoxLineGeometry() {
+        for (int i = 0; i < mPoints.length; i++) {
+            mPoints[i] = new Vec3();
+        }
+        mLineMesh.addVertexBuffer(mVertexBuffer);
         Material material = new Material();
         material.setShaderProgram(new ShaderProgram(new VertexShader(VERTEX_SRC), new FragmentShader(FRAGMENT_SRC)));
         setMaterial(material);
     }
 
     /**
-     * Update with a new box.
+     * Update with a new box. The changed vertices are uploaded into the existing buffer.
      *
      * @param box The new box.
      */
     public void updateBox(BoundingBox box) {
         buildPoints(box);
-        Mesh mesh = new Mesh(MeshDrawingMode.LINES);
-        VertexBuffer vb = new VertexBuffer(ATTRIBUTE_NAME, createVertices(), BufferUsage.STATIC);
-        mesh.addVertexBuffer(vb);
-        setMesh(mesh);
+        fillVertices(mVertexBuffer.getVertexData().getData());
+        mVertexBuffer.invalidate();
+        mVertexBuffer.commit();
+        if (getMesh() != mLineMesh) {
+            setMesh(mLineMesh);
+        }
     }
 
     /**
@@ -149,10 +166,6 @@ public class BoxLineGeometry extends Geometry {
      * @param box The bounding box.
      */
     private void buildPoints(BoundingBox box) {
-        for (int i = 0; i < mPoints.length; i++) {
-            mPoints[i] = new Vec3();
-        }
-
         box.getMax(mMax);
         box.getMin(mMin);
 
@@ -168,12 +181,11 @@ public class BoxLineGeometry extends Geometry {
     }
 
     /**
-     * Create vertices.
+     * Fill vertices.
      *
-     * @return The vertices array.
+     * @param data The vertices array to fill, 72 floats.
      */
-    private VerticesData createVertices() {
-        float[] data = new float[NBR_LINES * 2 * 3]; // 72
+    private void fillVertices(float[] data) {
         /**
          * Line AB.
          */
@@ -293,7 +305,5 @@ public class BoxLineGeometry extends Geometry {
         data[69] = mPoints[H].x;
         data[70] = mPoints[H].y;
         data[71] = mPoints[H].z;
-
-        return new VerticesData(data);
     }
 }
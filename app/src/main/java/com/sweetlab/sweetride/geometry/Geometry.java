@@ -10,13 +10,18 @@ import com.sweetlab.sweetride.camera.Camera;
 import com.sweetlab.sweetride.camera.LowerLeftBox;
 import com.sweetlab.sweetride.context.BackendContext;
 import com.sweetlab.sweetride.engine.uniform.EngineUniform;
-import com.sweetlab.sweetride.engine.uniform.EngineUniformCache;
+import com.sweetlab.sweetride.engine.uniform.EngineUniformRegistry;
+import com.sweetlab.sweetride.engine.uniform.EngineUniforms;
 import com.sweetlab.sweetride.intersect.BoundingBox;
 import com.sweetlab.sweetride.material.Material;
 import com.sweetlab.sweetride.math.Matrix44;
+import com.sweetlab.sweetride.math.Vec3;
 import com.sweetlab.sweetride.mesh.Mesh;
 import com.sweetlab.sweetride.node.Node;
 import com.sweetlab.sweetride.node.NodeVisitor;
+import com.sweetlab.sweetride.renderer.DrawPacket;
+import com.sweetlab.sweetride.renderer.RenderQueue;
+import com.sweetlab.sweetride.resource.ResourceReleaser;
 import com.sweetlab.sweetride.shader.ShaderProgram;
 import com.sweetlab.sweetride.uniform.CustomUniform;
 
@@ -55,9 +60,9 @@ public class Geometry extends Node {
     private final List<CustomUniform> mCustomUniforms = new ArrayList<>();
 
     /**
-     * The supported engine uniforms.
+     * The per object engine uniforms, camera level uniforms are shared per render task.
      */
-    private final EngineUniformCache mEngineUniformCache = new EngineUniformCache();
+    private final List<EngineUniform> mEngineUniforms = new EngineUniforms().createObjectList();
 
     /**
      * The geometry bounding box.
@@ -94,6 +99,21 @@ public class Geometry extends Node {
      */
     private BoxLineGeometry mBoxLineGeometry;
 
+    /**
+     * The render queue used when draw sorting is enabled.
+     */
+    private RenderQueue mRenderQueue = RenderQueue.OPAQUE;
+
+    /**
+     * Temporary storage of the bounding box middle point.
+     */
+    private final Vec3 mCenter = new Vec3();
+
+    /**
+     * If the bounding box must be calculated from mesh box and world transform.
+     */
+    private boolean mIsBoundingBoxDirty = true;
+
     @Override
     public void accept(NodeVisitor visitor) {
         visitor.visit(this);
@@ -105,16 +125,10 @@ public class Geometry extends Node {
         switch (action.getType()) {
             case NODE_TRANSFORM_UPDATED:
                 addAction(mEngineUniformChange);
-                if (mMesh != null) {
-                    BoundingBox meshBox = mMesh.getBoundingBox();
-                    if (meshBox != null) {
-                        /**
-                         * Transform has changed, transform the geometry bounding box.
-                         */
-                        mBoundingBox.set(meshBox);
-                        mBoundingBox.transform(getModelTransform().getMatrix());
-                    }
-                }
+                /**
+                 * Transform has changed, the geometry bounding box must be transformed again.
+                 */
+                mIsBoundingBoxDirty = true;
                 break;
 
             case NODE_FRUSTRUM_UPDATED:
@@ -126,15 +140,11 @@ public class Geometry extends Node {
                 /**
                  * Geometry has a new mesh.
                  */
+                mIsBoundingBoxDirty = true;
+                setBranchBoxDirty();
                 if (mMesh != null) {
                     BoundingBox meshBox = mMesh.getBoundingBox();
                     if (meshBox != null) {
-                        /**
-                         * Take new mesh bounding box and transform the geometry bounding box.
-                         */
-                        mBoundingBox.set(meshBox);
-                        mBoundingBox.transform(getModelTransform().getMatrix());
-
                         /**
                          * If bounding box is to be drawn, update with potentially new mesh
                          * box.
@@ -150,6 +160,8 @@ public class Geometry extends Node {
                 /**
                  * Mesh has a new bounding box.
                  */
+                mIsBoundingBoxDirty = true;
+                setBranchBoxDirty();
                 if (mBoxLineGeometry != null) {
                     mBoxLineGeometry.updateBox(mMesh.getBoundingBox());
                 }
@@ -167,11 +179,11 @@ public class Geometry extends Node {
                 if (mMaterial != null) {
                     ShaderProgram shaderProgram = mMaterial.getShaderProgram();
                     if (shaderProgram != null) {
-                        List<EngineUniform> engineUniforms = mEngineUniformCache.getEngineUniforms(shaderProgram);
-                        if (!engineUniforms.isEmpty()) {
-                            updateEngineUniforms(engineUniforms);
+                        final int active = EngineUniformRegistry.getInstance().getActive(shaderProgram);
+                        if ((active & EngineUniformRegistry.OBJECT) != 0) {
+                            updateEngineUniforms(active);
                         }
-                        mBackendGeometry.setEngineUniforms(engineUniforms);
+                        mBackendGeometry.setEngineUniforms(mEngineUniforms, active);
                     }
                 }
                 return true;
@@ -194,7 +206,7 @@ public class Geometry extends Node {
         if (!mOnTouchListeners.isEmpty()) {
             Camera camera = findCamera();
             if (camera != null) {
-                if (mTouchEventHandler.onTouchEvent(event, camera, mBoundingBox, mOnTouchListeners)) {
+                if (mTouchEventHandler.onTouchEvent(event, camera, getBoundingBox(), mOnTouchListeners)) {
                     return true;
                 }
             }
@@ -204,8 +216,47 @@ public class Geometry extends Node {
 
     @Override
     public void draw(BackendContext context) {
-        super.draw(context);
-        mBackendGeometry.draw(context);
+        useRenderSettings(context);
+        mBackendGeometry.draw(context, findCamera());
+    }
+
+    @Override
+    public void record(DrawPacket packet) {
+        super.record(packet);
+        if (mMaterial != null) {
+            final int textureCount = mMaterial.getTextureCount();
+            for (int i = 0; i < textureCount; i++) {
+                mMaterial.getTexture(i).onUse();
+            }
+        }
+        mBackendGeometry.record(packet);
+        packet.setRenderQueue(mRenderQueue);
+        BoundingBox box = getBoundingBox();
+        if (box.isEmpty()) {
+            float[] world = getWorldTransform().getMatrix().m;
+            packet.setCenter(world[12], world[13], world[14]);
+        } else {
+            box.getMiddlePoint(mCenter);
+            packet.setCenter(mCenter.x, mCenter.y, mCenter.z);
+        }
+    }
+
+    /**
+     * Set the render queue, used when the render node has draw sorting enabled.
+     *
+     * @param renderQueue The render queue.
+     */
+    public void setRenderQueue(RenderQueue renderQueue) {
+        mRenderQueue = renderQueue;
+    }
+
+    /**
+     * Get the render queue.
+     *
+     * @return The render queue.
+     */
+    public RenderQueue getRenderQueue() {
+        return mRenderQueue;
     }
 
     /**
@@ -234,14 +285,29 @@ public class Geometry extends Node {
     }
 
     /**
-     * Get this geometries bounding box. The box can be empty.
+     * Get this geometries world space bounding box. The box can be empty.
      *
      * @return The geometries bounding box.
      */
     public BoundingBox getBoundingBox() {
+        if (mIsBoundingBoxDirty) {
+            BoundingBox meshBox = mMesh != null ? mMesh.getBoundingBox() : null;
+            if (meshBox != null) {
+                mBoundingBox.set(meshBox);
+                mBoundingBox.transform(getWorldTransform().getMatrix());
+            } else {
+                mBoundingBox.setEmpty();
+            }
+            mIsBoundingBoxDirty = false;
+        }
         return mBoundingBox;
     }
 
+    @Override
+    protected BoundingBox getShapeBox() {
+        return getBoundingBox();
+    }
+
     /**
      * Set mesh. Null allowed.
      *
@@ -301,6 +367,21 @@ public class Geometry extends Node {
         return mMaterial;
     }
 
+    /**
+     * Hand resources removed from the mesh and material over to a releaser, see
+     * ResourceReleaser. Call from main thread.
+     *
+     * @param releaser The releaser or null to not release the resources.
+     */
+    public void releaseRemoved(@Nullable ResourceReleaser releaser) {
+        if (mMesh != null) {
+            mMesh.releaseRemoved(releaser);
+        }
+        if (mMaterial != null) {
+            mMaterial.releaseRemoved(releaser);
+        }
+    }
+
     /**
      * Add on touch listener.
      *
@@ -338,13 +419,18 @@ public class Geometry extends Node {
     }
 
     /**
-     * Update active engine uniforms from node/camera content.
+     * Update active per object engine uniforms from node/camera content.
      *
-     * @param engineUniforms List of active engine uniforms.
+     * @param active Mask of active engine uniforms.
      */
-    private void updateEngineUniforms(List<EngineUniform> engineUniforms) {
+    private void updateEngineUniforms(int active) {
         Camera camera = findCamera();
-        for (EngineUniform uniform : engineUniforms) {
+        final int count = mEngineUniforms.size();
+        for (int i = 0; i < count; i++) {
+            EngineUniform uniform = mEngineUniforms.get(i);
+            if ((active & EngineUniformRegistry.getMask(uniform.getType())) == 0) {
+                continue;
+            }
             switch (uniform.getType()) {
                 case MODEL:
                     uniform.getMatrix().set(getModelTransform().getMatrix());
@@ -352,16 +438,6 @@ public class Geometry extends Node {
                 case WORLD:
                     uniform.getMatrix().set(getWorldTransform().getMatrix());
                     break;
-                case VIEW:
-                    if (camera != null) {
-                        uniform.getMatrix().set(camera.getViewMatrix());
-                    }
-                    break;
-                case PROJECTION:
-                    if (camera != null) {
-                        uniform.getMatrix().set(camera.getFrustrum().getProjectionMatrix());
-                    }
-                    break;
                 case WORLD_VIEW:
                     if (camera != null) {
                         Matrix44 world = getWorldTransform().getMatrix();
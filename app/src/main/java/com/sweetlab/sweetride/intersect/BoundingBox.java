@@ -125,6 +125,36 @@ public class BoundingBox extends NoHandleNotifier<GlobalActionId> {
         addAction(mBoxChanged);
     }
 
+    /**
+     * Set the box empty.
+     */
+    public void setEmpty() {
+        resetMinMax();
+        mWidthVec.set(0, 0, 0);
+        mHeightVec.set(0, 0, 0);
+        mDepthVec.set(0, 0, 0);
+        mMiddlePoint.set(0, 0, 0);
+        mIsEmpty = true;
+        addAction(mBoxChanged);
+    }
+
+    /**
+     * Expand the box so that it also encloses the other box. Expanding with an empty box
+     * does nothing.
+     *
+     * @param box The box to enclose.
+     */
+    public void expand(BoundingBox box) {
+        if (box.mIsEmpty) {
+            return;
+        }
+        mMin.set(Math.min(mMin.x, box.mMin.x), Math.min(mMin.y, box.mMin.y), Math.min(mMin.z, box.mMin.z));
+        mMax.set(Math.max(mMax.x, box.mMax.x), Math.max(mMax.y, box.mMax.y), Math.max(mMax.z, box.mMax.z));
+        setVectors(mMin, mMax);
+        mIsEmpty = false;
+        addAction(mBoxChanged);
+    }
+
     @Override
     public boolean handleAction(Action<GlobalActionId> action) {
         switch (action.getType()) {
@@ -1,10 +1,14 @@
 package com.sweetlab.sweetride.material;
 
+import android.support.annotation.Nullable;
+
 import com.sweetlab.sweetride.action.Action;
 import com.sweetlab.sweetride.action.ActionThread;
 import com.sweetlab.sweetride.action.GlobalActionId;
 import com.sweetlab.sweetride.action.NoHandleNotifier;
 import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.resource.ReleasableResource;
+import com.sweetlab.sweetride.resource.ResourceReleaser;
 import com.sweetlab.sweetride.resource.TextureResource;
 import com.sweetlab.sweetride.shader.ShaderProgram;
 
@@ -30,6 +34,11 @@ public class Material extends NoHandleNotifier<GlobalActionId> {
      */
     private final List<TextureResource> mTextures = new ArrayList<>();
 
+    /**
+     * Resources removed and not yet handed over to a releaser.
+     */
+    private final List<ReleasableResource> mRemoved = new ArrayList<>();
+
     /**
      * The backend material.
      */
@@ -55,13 +64,15 @@ public class Material extends NoHandleNotifier<GlobalActionId> {
     }
 
     /**
-     * Set shader program to use.
+     * Set shader program to use. A replaced program no longer held by any material is
+     * released, see ResourceReleaser.
      *
      * @param program Shader program.
      */
     public void setShaderProgram(ShaderProgram program) {
         if (mShaderProgram != null) {
             disconnectNotifier(mShaderProgram);
+            mRemoved.add(mShaderProgram);
         }
         mShaderProgram = program;
         connectNotifier(mShaderProgram);
@@ -75,18 +86,21 @@ public class Material extends NoHandleNotifier<GlobalActionId> {
      */
     public void addTexture(TextureResource texture) {
         mTextures.add(texture);
+        texture.onUse();
         connectNotifier(texture);
         addAction(mTextureChange);
     }
 
     /**
-     * Remove texture.
+     * Remove texture. The texture is released if no longer held by any material, see
+     * ResourceReleaser.
      *
      * @param texture Texture.
      */
     public void removeTexture(TextureResource texture) {
         if (mTextures.remove(texture)) {
             disconnectNotifier(texture);
+            mRemoved.add(texture);
             addAction(mTextureChange);
         }
     }
@@ -145,4 +159,20 @@ public class Material extends NoHandleNotifier<GlobalActionId> {
     public BackendMaterial getBackendMaterial() {
         return mBackendMaterial;
     }
+
+    /**
+     * Hand resources removed since last call over to a releaser, see ResourceReleaser. Call
+     * from main thread.
+     *
+     * @param releaser The releaser or null to not release the resources.
+     */
+    public void releaseRemoved(@Nullable ResourceReleaser releaser) {
+        if (releaser != null) {
+            final int count = mRemoved.size();
+            for (int i = 0; i < count; i++) {
+                releaser.release(mRemoved.get(i));
+            }
+        }
+        mRemoved.clear();
+    }
 }
@@ -7,10 +7,11 @@ import com.sweetlab.sweetride.action.ActionThread;
 import com.sweetlab.sweetride.action.GlobalActionId;
 import com.sweetlab.sweetride.action.NoHandleNotifier;
 import com.sweetlab.sweetride.attributedata.IndicesBuffer;
-import com.sweetlab.sweetride.attributedata.VertexBuffer;
 import com.sweetlab.sweetride.context.BackendContext;
 import com.sweetlab.sweetride.context.MeshDrawingMode;
 import com.sweetlab.sweetride.intersect.BoundingBox;
+import com.sweetlab.sweetride.resource.ReleasableResource;
+import com.sweetlab.sweetride.resource.ResourceReleaser;
 import com.sweetlab.sweetride.resource.VertexBufferResource;
 
 import java.util.ArrayList;
@@ -41,6 +42,11 @@ public class Mesh extends NoHandleNotifier<GlobalActionId> {
      */
     private final List<VertexBufferResource> mVertexBuffers = new ArrayList<>();
 
+    /**
+     * Resources removed and not yet handed over to a releaser.
+     */
+    private final List<ReleasableResource> mRemoved = new ArrayList<>();
+
     /**
      * The drawing mode.
      */
@@ -94,13 +100,15 @@ public class Mesh extends NoHandleNotifier<GlobalActionId> {
     }
 
     /**
-     * Set the indices buffer to use. Null allowed to not use indices.
+     * Set the indices buffer to use. Null allowed to not use indices. A replaced indices buffer
+     * no longer held by any mesh is released, see ResourceReleaser.
      *
      * @param indicesBuffer The indices buffer.
      */
     public void setIndicesBuffer(@Nullable IndicesBuffer indicesBuffer) {
         if (mIndicesBuffer != null) {
             disconnectNotifier(mIndicesBuffer);
+            mRemoved.add(mIndicesBuffer);
         }
         mIndicesBuffer = indicesBuffer;
         if (mIndicesBuffer != null) {
@@ -131,13 +139,15 @@ public class Mesh extends NoHandleNotifier<GlobalActionId> {
     }
 
     /**
-     * Remove vertex buffer.
+     * Remove vertex buffer. The vertex buffer is released if no longer held by any mesh, see
+     * ResourceReleaser.
      *
      * @param vertexBuffer The vertex buffer.
      */
-    public void removeVertexBuffer(VertexBuffer vertexBuffer) {
+    public void removeVertexBuffer(VertexBufferResource vertexBuffer) {
         if (mVertexBuffers.remove(vertexBuffer)) {
             disconnectNotifier(vertexBuffer);
+            mRemoved.add(vertexBuffer);
             addAction(mVertexBuffersChanged);
         } else {
             throw new RuntimeException("Can't remove vertex buffer from mesh since it doesn't have it " + vertexBuffer);
@@ -243,4 +253,20 @@ public class Mesh extends NoHandleNotifier<GlobalActionId> {
     public BackendMesh getBackendMesh() {
         return mBackendMesh;
     }
+
+    /**
+     * Hand resources removed since last call over to a releaser, see ResourceReleaser. Call
+     * from main thread.
+     *
+     * @param releaser The releaser or null to not release the resources.
+     */
+    public void releaseRemoved(@Nullable ResourceReleaser releaser) {
+        if (releaser != null) {
+            final int count = mRemoved.size();
+            for (int i = 0; i < count; i++) {
+                releaser.release(mRemoved.get(i));
+            }
+        }
+        mRemoved.clear();
+    }
 }
@@ -1,5 +1,6 @@
 package com.sweetlab.sweetride.node;
 
+import android.support.annotation.Nullable;
 import android.view.MotionEvent;
 
 import com.sweetlab.sweetride.DebugOptions;
@@ -10,7 +11,9 @@ import com.sweetlab.sweetride.action.NoHandleNotifier;
 import com.sweetlab.sweetride.camera.Camera;
 import com.sweetlab.sweetride.camera.LowerLeftBox;
 import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.intersect.BoundingBox;
 import com.sweetlab.sweetride.math.Transform;
+import com.sweetlab.sweetride.renderer.DrawPacket;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -70,6 +73,46 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
      */
     private Camera mCamera;
 
+    /**
+     * The branch version, changes when a node is added or removed anywhere in this branch.
+     */
+    private int mBranchVersion;
+
+    /**
+     * The world space bounding box enclosing all shapes in this branch.
+     */
+    private final BoundingBox mBranchBox = new BoundingBox();
+
+    /**
+     * If the branch box must be calculated again.
+     */
+    private boolean mIsBranchBoxDirty = true;
+
+    /**
+     * If all shapes in this branch has a bounding box.
+     */
+    private boolean mIsBranchBounded;
+
+    /**
+     * The transform store keeping this nodes world matrix, null if not used.
+     */
+    private TransformStore mTransformStore;
+
+    /**
+     * The slot in the transform store.
+     */
+    private int mTransformSlot = -1;
+
+    /**
+     * The transform store stamp of the world transform.
+     */
+    private int mTransformStamp;
+
+    /**
+     * If the branch starting at this node is independent during update.
+     */
+    private boolean mIsIndependentUpdate;
+
     /**
      * Constructor.
      */
@@ -96,6 +139,10 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
         switch (action.getType()) {
             case NODE_TRANSFORM_UPDATED:
                 mWorldTransform.mark();
+                setBranchBoxDirty();
+                if (mTransformStore != null) {
+                    mTransformStore.setDirty(mTransformSlot);
+                }
                 break;
 
             case FRUSTRUM_UPDATED:
@@ -106,6 +153,9 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
             case CAMERA_UPDATED:
                 // fall through.
             case TRANSFORM_UPDATED:
+                if (mTransformStore != null) {
+                    mTransformStore.setLocalDirty(mTransformSlot);
+                }
                 // fall through.
             case NODE_CAMERA_SET:
                 setGraphTransformUpdated();
@@ -123,7 +173,16 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
      * @param context The backend context.
      */
     public void draw(BackendContext context) {
-        mRenderSettings.useSettings(context);
+        mRenderSettings.useClearSettings(context);
+    }
+
+    /**
+     * Record this node into a draw packet. Call from main thread.
+     *
+     * @param packet The draw packet.
+     */
+    public void record(DrawPacket packet) {
+        mRenderSettings.record(packet);
     }
 
     /**
@@ -135,6 +194,7 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
         if (!mChildren.contains(child)) {
             mChildren.add(child);
             child.mParent = this;
+            onBranchChanged();
             child.setGraphTransformUpdated();
             child.mRenderSettings.inherit(mRenderSettings);
             if (findCamera() != null) {
@@ -151,11 +211,94 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
     public void removeChild(Node child) {
         if (mChildren.remove(child)) {
             child.mParent = null;
+            onBranchChanged();
         } else if (DebugOptions.DEBUG_NODE) {
             throw new RuntimeException("Trying to remove a child that doesn't exist");
         }
     }
 
+    /**
+     * Get the branch version. The version changes each time a node is added or removed anywhere
+     * in the branch starting at this node, it is used to know when collected content of a
+     * branch must be collected again.
+     *
+     * @return The branch version.
+     */
+    public int getBranchVersion() {
+        return mBranchVersion;
+    }
+
+    /**
+     * Step the branch version of this node and all nodes above.
+     */
+    private void onBranchChanged() {
+        Node node = this;
+        while (node != null) {
+            node.mBranchVersion++;
+            node = node.mParent;
+        }
+        setBranchBoxDirty();
+    }
+
+    /**
+     * Get the world space bounding box enclosing all shapes in this branch, i.e this node and
+     * all nodes below. The box is calculated when asked for after transforms, shapes or children
+     * has changed.
+     *
+     * @return The branch box, empty if no shapes in branch. Null if any shape in branch lacks
+     * a bounding box and the branch therefore can't be bounded.
+     */
+    @Nullable
+    public BoundingBox getBranchBox() {
+        if (mIsBranchBoxDirty) {
+            mBranchBox.setEmpty();
+            mIsBranchBounded = true;
+
+            BoundingBox shapeBox = getShapeBox();
+            if (shapeBox != null) {
+                if (shapeBox.isEmpty()) {
+                    mIsBranchBounded = false;
+                } else {
+                    mBranchBox.expand(shapeBox);
+                }
+            }
+
+            final int childCount = mChildren.size();
+            for (int i = 0; i < childCount; i++) {
+                BoundingBox childBox = mChildren.get(i).getBranchBox();
+                if (childBox == null) {
+                    mIsBranchBounded = false;
+                } else {
+                    mBranchBox.expand(childBox);
+                }
+            }
+            mIsBranchBoxDirty = false;
+        }
+        return mIsBranchBounded ? mBranchBox : null;
+    }
+
+    /**
+     * Get the world space bounding box of the shape of this node, a plain node has no shape.
+     *
+     * @return The shape box, empty if the shape has no box. Null if no shape.
+     */
+    @Nullable
+    protected BoundingBox getShapeBox() {
+        return null;
+    }
+
+    /**
+     * Set branch box dirty for this node and all nodes above. Nodes above a dirty node are
+     * always dirty so the walk stops at the first already dirty node.
+     */
+    protected void setBranchBoxDirty() {
+        Node node = this;
+        while (node != null && !node.mIsBranchBoxDirty) {
+            node.mIsBranchBoxDirty = true;
+            node = node.mParent;
+        }
+    }
+
     /**
      * Add node controller.
      *
@@ -198,6 +341,15 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
         addAction(mCameraSet);
     }
 
+    /**
+     * Get the parent.
+     *
+     * @return The parent or null if root or not attached.
+     */
+    public Node getParent() {
+        return mParent;
+    }
+
     /**
      * Find camera by searching upwards in the graph.
      *
@@ -228,6 +380,17 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
      * @return The world transform.
      */
     public Transform getWorldTransform() {
+        if (mTransformStore != null) {
+            int stamp = mTransformStore.getStamp(mTransformSlot);
+            if (stamp != 0) {
+                if (stamp != mTransformStamp) {
+                    mTransformStore.getWorld(mTransformSlot, mWorldTransform.getMatrix());
+                    mTransformStamp = stamp;
+                    mWorldTransform.clearMark();
+                }
+                return mWorldTransform;
+            }
+        }
         if (mWorldTransform.isMarked()) {
             if (mParent != null) {
                 mWorldTransform.combine(mParent.getWorldTransform(), mModelTransform);
@@ -239,6 +402,18 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
         return mWorldTransform;
     }
 
+    /**
+     * Set the transform store slot. Called by the transform store.
+     *
+     * @param store The transform store or null.
+     * @param slot  The slot, -1 if no store.
+     */
+    void setTransformSlot(TransformStore store, int slot) {
+        mTransformStore = store;
+        mTransformSlot = slot;
+        mTransformStamp = 0;
+    }
+
     /**
      * Accepts a node visitor.
      *
@@ -255,6 +430,18 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
      * @param dt Delta time between frames.
      */
     public void update(float dt) {
+        update(dt, null);
+    }
+
+    /**
+     * Called by the engine, each frame. Same as update but sub branches with independent update
+     * enabled are not updated, instead they are added to the provided list to be updated later,
+     * possibly on another thread.
+     *
+     * @param dt                  Delta time between frames.
+     * @param independentBranches Storage of independent branches, null to update all.
+     */
+    public void update(float dt, @Nullable List<Node> independentBranches) {
         if (!mNodeControllers.isEmpty()) {
             Iterator<NodeController> iterator = mNodeControllers.iterator();
             while (iterator.hasNext()) {
@@ -266,13 +453,38 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
 
         if (onUpdate(dt)) {
             Iterator<Node> iterator = mChildren.iterator();
-            //noinspection WhileLoopReplaceableByForEach
             while (iterator.hasNext()) {
-                iterator.next().update(dt);
+                Node child = iterator.next();
+                if (independentBranches != null && child.mIsIndependentUpdate) {
+                    independentBranches.add(child);
+                } else {
+                    child.update(dt, independentBranches);
+                }
             }
         }
     }
 
+    /**
+     * Set if the branch starting at this node is independent of the rest of the graph during
+     * update, which allows it to be updated in parallel with other independent branches when
+     * parallel update is enabled. Controllers and onUpdate of an independent branch must only
+     * change nodes in the branch and objects not shared with other branches.
+     *
+     * @param independent True if independent.
+     */
+    public void setIndependentUpdate(boolean independent) {
+        mIsIndependentUpdate = independent;
+    }
+
+    /**
+     * Check if the branch starting at this node is independent during update.
+     *
+     * @return True if independent.
+     */
+    public boolean isIndependentUpdate() {
+        return mIsIndependentUpdate;
+    }
+
     /**
      * Get render settings.
      *
@@ -321,22 +533,27 @@ public class Node extends NoHandleNotifier<GlobalActionId> {
     }
 
     /**
-     * Set transform dirty in whole graph.
+     * Set transform dirty in whole graph. The node transform action is raised, not added, since
+     * nothing needs to handle it. Each node marks what depends on the world transform and only
+     * the actions that has work to do, like engine uniforms in geometries, become pending.
      */
     private void setGraphTransformUpdated() {
-        addAction(mTransformUpdated);
-        for (Node child : mChildren) {
-            child.setGraphTransformUpdated();
+        raiseAction(mTransformUpdated);
+        final int childCount = mChildren.size();
+        for (int i = 0; i < childCount; i++) {
+            mChildren.get(i).setGraphTransformUpdated();
         }
     }
 
     /**
-     * Set frustrum dirty in whole graph.
+     * Set frustrum dirty in whole graph. The node frustrum action is raised, not added, since
+     * nothing needs to handle it.
      */
     private void setGraphFrustrumUpdated() {
-        addAction(mFrustrumUpdated);
-        for (Node child : mChildren) {
-            child.setGraphFrustrumUpdated();
+        raiseAction(mFrustrumUpdated);
+        final int childCount = mChildren.size();
+        for (int i = 0; i < childCount; i++) {
+            mChildren.get(i).setGraphFrustrumUpdated();
         }
     }
 
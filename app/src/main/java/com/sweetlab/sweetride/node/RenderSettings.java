@@ -8,6 +8,7 @@ import com.sweetlab.sweetride.action.GlobalActionId;
 import com.sweetlab.sweetride.action.NoHandleNotifier;
 import com.sweetlab.sweetride.context.BackendContext;
 import com.sweetlab.sweetride.context.BackendRenderSettings;
+import com.sweetlab.sweetride.context.RenderStateBlock;
 import com.sweetlab.sweetride.engine.FrontEndActionHandler;
 import com.sweetlab.sweetride.node.rendersettings.BlendDstFact;
 import com.sweetlab.sweetride.node.rendersettings.BlendEquationFunc;
@@ -32,6 +33,7 @@ import com.sweetlab.sweetride.node.rendersettings.SampleCoverageSetting;
 import com.sweetlab.sweetride.node.rendersettings.ScissorTestSetting;
 import com.sweetlab.sweetride.node.rendersettings.StencilTestSetting;
 import com.sweetlab.sweetride.node.rendersettings.ViewPortSetting;
+import com.sweetlab.sweetride.renderer.DrawPacket;
 
 /**
  * Render setting.
@@ -65,6 +67,12 @@ public class RenderSettings extends NoHandleNotifier<GlobalActionId> {
      */
     private final BackendRenderSettings mBackendRenderSettings = new BackendRenderSettings();
 
+    /**
+     * The settings compiled into a block, compiled again when settings has changed. Read
+     * from GL thread when drawing immediately.
+     */
+    private volatile RenderStateBlock mBlock;
+
     /**
      * Internal action handler.
      */
@@ -105,6 +113,7 @@ public class RenderSettings extends NoHandleNotifier<GlobalActionId> {
                     }
                 }
                 mInternalHandler.handleActions(mInternal);
+                mBlock = RenderStateBlock.intern(mBackendRenderSettings);
                 return true;
         }
         return super.handleAction(action);
@@ -147,6 +156,7 @@ public class RenderSettings extends NoHandleNotifier<GlobalActionId> {
         mInternal.connectNotifier(mClearDepthSetting);
         mInternal.connectNotifier(mClearStencilSetting);
         mInternal.connectNotifier(mViewPortSetting);
+        mBlock = RenderStateBlock.intern(mBackendRenderSettings);
     }
 
     /**
@@ -586,16 +596,48 @@ public class RenderSettings extends NoHandleNotifier<GlobalActionId> {
         }
     }
 
+    /**
+     * Get the settings compiled into a block.
+     *
+     * @return The block.
+     */
+    public RenderStateBlock getBlock() {
+        return mBlock;
+    }
+
     /**
      * Use this render settings.
      *
      * @param context Backend context.
      */
     public void useSettings(BackendContext context) {
-        final boolean clear = mClearSetting.getClearOrder() > context.getRenderState().getClearOrder();
-        context.getRenderState().useSettings(mBackendRenderSettings);
+        final RenderStateBlock block = mBlock;
+        final boolean clear = block.getClearOrder() > context.getRenderState().getClearOrder();
+        context.getRenderState().useSettings(block);
         if (clear) {
             context.getRenderState().clear();
         }
     }
+
+    /**
+     * Use this render settings only if they clear. Nodes not drawing anything have no other use
+     * of the render state.
+     *
+     * @param context Backend context.
+     */
+    public void useClearSettings(BackendContext context) {
+        if (mBlock.getClearOrder() > context.getRenderState().getClearOrder()) {
+            useSettings(context);
+        }
+    }
+
+    /**
+     * Record this render settings into a draw packet. The block is immutable and recorded by
+     * reference. Call from main thread.
+     *
+     * @param packet The draw packet.
+     */
+    public void record(DrawPacket packet) {
+        packet.setRenderSettings(mBlock);
+    }
 }
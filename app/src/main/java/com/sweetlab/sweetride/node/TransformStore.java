@@ -0,0 +1,290 @@
+package com.sweetlab.sweetride.node;
+
+import com.sweetlab.sweetride.math.Matrix44;
+
+/**
+ * Optional storage of local and world matrices for all nodes in a graph. The matrices are kept
+ * in large float arrays indexed by node slot. Slots are assigned depth first so a parent always
+ * comes before its children and a branch occupies a continuous range of slots.
+ * <p/>
+ * Nodes report transform changes by slot and update recalculates only the dirty range in one
+ * linear pass. Local matrices are only copied from node model transforms that changed, so moving
+ * a branch only touches the arrays. Node.getWorldTransform copies the stored world matrix when
+ * asked for instead of walking up the graph. Slots are assigned again when nodes are added or
+ * removed in the graph.
+ * <p/>
+ * Call from main thread.
+ */
+public class TransformStore {
+    /**
+     * Number of floats per matrix.
+     */
+    private static final int MATRIX_SIZE = 16;
+
+    /**
+     * Initial slot capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * The nodes by slot.
+     */
+    private Node[] mNodes = new Node[DEFAULT_CAPACITY];
+
+    /**
+     * The parent slot by slot, -1 if no parent in store.
+     */
+    private int[] mParents = new int[DEFAULT_CAPACITY];
+
+    /**
+     * Dirty flag by slot, world matrix must be calculated.
+     */
+    private boolean[] mDirty = new boolean[DEFAULT_CAPACITY];
+
+    /**
+     * Local dirty flag by slot, local matrix must be copied from node.
+     */
+    private boolean[] mLocalDirty = new boolean[DEFAULT_CAPACITY];
+
+    /**
+     * The local matrices.
+     */
+    private float[] mLocal = new float[DEFAULT_CAPACITY * MATRIX_SIZE];
+
+    /**
+     * The update stamp by slot, changes each time the world matrix of a slot is calculated.
+     */
+    private int[] mStamps = new int[DEFAULT_CAPACITY];
+
+    /**
+     * The world matrices.
+     */
+    private float[] mWorld = new float[DEFAULT_CAPACITY * MATRIX_SIZE];
+
+    /**
+     * Number of used slots.
+     */
+    private int mCount;
+
+    /**
+     * First dirty slot.
+     */
+    private int mDirtyStart = Integer.MAX_VALUE;
+
+    /**
+     * Last dirty slot.
+     */
+    private int mDirtyEnd = -1;
+
+    /**
+     * The root slots were assigned from.
+     */
+    private Node mRoot;
+
+    /**
+     * The branch version of root when slots were assigned.
+     */
+    private int mBranchVersion;
+
+    /**
+     * The current update stamp.
+     */
+    private int mStamp = 1;
+
+    /**
+     * Update world transforms of all nodes in the graph. Assigns slots first if the root or the
+     * graph structure has changed.
+     *
+     * @param root The root node.
+     */
+    public void update(Node root) {
+        int branchVersion = root.getBranchVersion();
+        if (root != mRoot || branchVersion != mBranchVersion) {
+            assignSlots(root);
+            mRoot = root;
+            mBranchVersion = branchVersion;
+        }
+
+        final int end = Math.min(mDirtyEnd, mCount - 1);
+        for (int slot = mDirtyStart; slot <= end; slot++) {
+            if (mDirty[slot]) {
+                int offset = slot * MATRIX_SIZE;
+                int parent = mParents[slot];
+                if (parent < 0) {
+                    /**
+                     * The root can have a parent outside the store.
+                     */
+                    System.arraycopy(mNodes[slot].getWorldTransform().getMatrix().m, 0, mWorld, offset, MATRIX_SIZE);
+                } else {
+                    if (mLocalDirty[slot]) {
+                        System.arraycopy(mNodes[slot].getModelTransform().getMatrix().m, 0, mLocal, offset, MATRIX_SIZE);
+                        mLocalDirty[slot] = false;
+                    }
+                    mult(mWorld, offset, mWorld, parent * MATRIX_SIZE, mLocal, offset);
+                }
+                mStamps[slot] = mStamp;
+                mDirty[slot] = false;
+            }
+        }
+        mStamp++;
+        mDirtyStart = Integer.MAX_VALUE;
+        mDirtyEnd = -1;
+    }
+
+    /**
+     * Release all nodes from the store.
+     */
+    public void clear() {
+        for (int i = 0; i < mCount; i++) {
+            mNodes[i].setTransformSlot(null, -1);
+            mNodes[i] = null;
+        }
+        mCount = 0;
+        mRoot = null;
+        mDirtyStart = Integer.MAX_VALUE;
+        mDirtyEnd = -1;
+    }
+
+    /**
+     * Get number of used slots.
+     *
+     * @return Number of slots.
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Get the update stamp of a slot. The stamp changes each time the world matrix of the slot is
+     * calculated.
+     *
+     * @param slot The slot.
+     * @return The stamp, 0 if not yet calculated.
+     */
+    int getStamp(int slot) {
+        return mDirty[slot] ? 0 : mStamps[slot];
+    }
+
+    /**
+     * Copy world matrix of slot.
+     *
+     * @param slot The slot.
+     * @param dst  The destination matrix.
+     */
+    void getWorld(int slot, Matrix44 dst) {
+        System.arraycopy(mWorld, slot * MATRIX_SIZE, dst.m, 0, MATRIX_SIZE);
+    }
+
+    /**
+     * Set slot dirty, the world matrix will be calculated on next update.
+     *
+     * @param slot The slot.
+     */
+    void setDirty(int slot) {
+        mDirty[slot] = true;
+        if (slot < mDirtyStart) {
+            mDirtyStart = slot;
+        }
+        if (slot > mDirtyEnd) {
+            mDirtyEnd = slot;
+        }
+    }
+
+    /**
+     * Set local matrix of slot dirty, the local matrix will be copied from the node on next
+     * update.
+     *
+     * @param slot The slot.
+     */
+    void setLocalDirty(int slot) {
+        mLocalDirty[slot] = true;
+        setDirty(slot);
+    }
+
+    /**
+     * Assign slots depth first starting at root. All slots are set dirty.
+     *
+     * @param root The root node.
+     */
+    private void assignSlots(Node root) {
+        clear();
+        addNode(root, -1);
+    }
+
+    /**
+     * Add node and all nodes below.
+     *
+     * @param node   The node.
+     * @param parent The parent slot.
+     */
+    private void addNode(Node node, int parent) {
+        int slot = mCount++;
+        ensureCapacity(mCount);
+        mNodes[slot] = node;
+        mParents[slot] = parent;
+        node.setTransformSlot(this, slot);
+        setLocalDirty(slot);
+
+        final int childCount = node.getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            addNode(node.getChild(i), slot);
+        }
+    }
+
+    /**
+     * Ensure storage for number of slots.
+     *
+     * @param capacity Number of slots.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > mNodes.length) {
+            int newCapacity = Math.max(capacity, mNodes.length * 2);
+            Node[] nodes = new Node[newCapacity];
+            System.arraycopy(mNodes, 0, nodes, 0, mNodes.length);
+            mNodes = nodes;
+            int[] parents = new int[newCapacity];
+            System.arraycopy(mParents, 0, parents, 0, mParents.length);
+            mParents = parents;
+            boolean[] dirty = new boolean[newCapacity];
+            System.arraycopy(mDirty, 0, dirty, 0, mDirty.length);
+            mDirty = dirty;
+            boolean[] localDirty = new boolean[newCapacity];
+            System.arraycopy(mLocalDirty, 0, localDirty, 0, mLocalDirty.length);
+            mLocalDirty = localDirty;
+            float[] local = new float[newCapacity * MATRIX_SIZE];
+            System.arraycopy(mLocal, 0, local, 0, mLocal.length);
+            mLocal = local;
+            int[] stamps = new int[newCapacity];
+            System.arraycopy(mStamps, 0, stamps, 0, mStamps.length);
+            mStamps = stamps;
+            float[] world = new float[newCapacity * MATRIX_SIZE];
+            System.arraycopy(mWorld, 0, world, 0, mWorld.length);
+            mWorld = world;
+        }
+    }
+
+    /**
+     * Multiplies matrices, prod = a * b, same layout as Matrix44. The product must not overlap
+     * the left side.
+     *
+     * @param prod     The product array.
+     * @param prodOff  The product offset.
+     * @param a        The left side array.
+     * @param aOff     The left side offset.
+     * @param b        The right side array.
+     * @param bOff     The right side offset.
+     */
+    private static void mult(float[] prod, int prodOff, float[] a, int aOff, float[] b, int bOff) {
+        float b0 = b[bOff], b1 = b[bOff + 1], b2 = b[bOff + 2], b3 = b[bOff + 3];
+        float b4 = b[bOff + 4], b5 = b[bOff + 5], b6 = b[bOff + 6], b7 = b[bOff + 7];
+        float b8 = b[bOff + 8], b9 = b[bOff + 9], b10 = b[bOff + 10], b11 = b[bOff + 11];
+        float b12 = b[bOff + 12], b13 = b[bOff + 13], b14 = b[bOff + 14], b15 = b[bOff + 15];
+        for (int i = 0; i < 4; i++) {
+            float ai0 = a[aOff + i], ai1 = a[aOff + 4 + i], ai2 = a[aOff + 8 + i], ai3 = a[aOff + 12 + i];
+            prod[prodOff + i] = ai0 * b0 + ai1 * b1 + ai2 * b2 + ai3 * b3;
+            prod[prodOff + i + 4] = ai0 * b4 + ai1 * b5 + ai2 * b6 + ai3 * b7;
+            prod[prodOff + i + 8] = ai0 * b8 + ai1 * b9 + ai2 * b10 + ai3 * b11;
+            prod[prodOff + i + 12] = ai0 * b12 + ai1 * b13 + ai2 * b14 + ai3 * b15;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.sweetlab.sweetride.pool;
+
+import com.sweetlab.sweetride.renderer.DrawPacket;
+
+import java.util.Stack;
+
+/**
+ * A pool of draw packet objects.
+ */
+public class DrawPacketPool implements Pool<DrawPacket> {
+    /**
+     * The pool content.
+     */
+    private final Stack<DrawPacket> mStack = new Stack<>();
+
+    @Override
+    public synchronized DrawPacket get() {
+        if (mStack.isEmpty()) {
+            return new DrawPacket();
+        }
+        return mStack.pop();
+    }
+
+    @Override
+    public synchronized void put(DrawPacket object) {
+        object.reset();
+        mStack.push(object);
+    }
+}
@@ -13,10 +13,15 @@ public class RenderTaskPool implements Pool<RenderTask> {
      */
     private final Stack<RenderTask> mStack = new Stack<>();
 
+    /**
+     * The draw packet pool shared by all render tasks.
+     */
+    private final DrawPacketPool mPacketPool = new DrawPacketPool();
+
     @Override
     public synchronized RenderTask get() {
         if (mStack.isEmpty()) {
-            return new RenderTask();
+            return new RenderTask(mPacketPool);
         }
         return mStack.pop();
     }
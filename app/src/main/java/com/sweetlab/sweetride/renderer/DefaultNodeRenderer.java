@@ -1,7 +1,6 @@
 package com.sweetlab.sweetride.renderer;
 
 import com.sweetlab.sweetride.context.BackendContext;
-import com.sweetlab.sweetride.node.Node;
 
 import java.util.List;
 
@@ -10,10 +9,11 @@ import java.util.List;
  */
 public class DefaultNodeRenderer implements NodeRenderer {
     @Override
-    public void render(BackendContext context, List<Node> list) {
+    public void render(BackendContext context, List<DrawPacket> list) {
         context.getFrameBufferTarget().useWindowFrameBuffer();
-        for (Node node : list) {
-            node.draw(context);
+        final int count = list.size();
+        for (int i = 0; i < count; i++) {
+            list.get(i).draw(context);
         }
     }
 }
@@ -0,0 +1,546 @@
+package com.sweetlab.sweetride.renderer;
+
+import com.sweetlab.sweetride.DebugOptions;
+import com.sweetlab.sweetride.attributedata.IndicesBuffer;
+import com.sweetlab.sweetride.context.ArrayTarget;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BackendRenderSettings;
+import com.sweetlab.sweetride.context.ElementTarget;
+import com.sweetlab.sweetride.context.RenderState;
+import com.sweetlab.sweetride.context.RenderStateBlock;
+import com.sweetlab.sweetride.context.TextureUnit;
+import com.sweetlab.sweetride.context.TextureUnitManager;
+import com.sweetlab.sweetride.context.UniformWriter;
+import com.sweetlab.sweetride.engine.uniform.CameraUniforms;
+import com.sweetlab.sweetride.math.Matrix44;
+import com.sweetlab.sweetride.pool.Poolable;
+import com.sweetlab.sweetride.resource.TextureResource;
+import com.sweetlab.sweetride.resource.VertexBufferResource;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.UniformBinding;
+
+import java.util.Arrays;
+
+/**
+ * A recorded draw command. Recorded on main thread from a node and consumed on GL thread by
+ * a node renderer. A packet holds a copy of everything the GL thread needs, render settings,
+ * uniform values and references to the GPU resources to use, so the GL thread never reads
+ * scene graph state.
+ * <p/>
+ * Resources are referenced by object rather than GL id since they might be created by the
+ * GL actions of the same render task, they are only mutated on GL thread.
+ */
+public class DrawPacket implements Poolable {
+    /**
+     * Number of floats per matrix uniform.
+     */
+    public static final int MATRIX_FLOATS = 16;
+
+    /**
+     * Number of floats reserved per custom uniform, corresponds to a 4x4 matrix.
+     */
+    public static final int UNIFORM_FLOATS = 16;
+
+    /**
+     * Initial capacity of the arrays, grown when needed.
+     */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /**
+     * The render settings, an immutable block.
+     */
+    private RenderStateBlock mRenderSettings;
+
+    /**
+     * The vertex buffers.
+     */
+    private VertexBufferResource[] mVertexBuffers = new VertexBufferResource[INITIAL_CAPACITY];
+
+    /**
+     * The textures.
+     */
+    private TextureResource[] mTextures = new TextureResource[INITIAL_CAPACITY];
+
+    /**
+     * Texture units taken during drawing.
+     */
+    private TextureUnit[] mTextureUnits = new TextureUnit[INITIAL_CAPACITY];
+
+    /**
+     * Engine uniform bindings.
+     */
+    private UniformBinding[] mEngineUniformBindings = new UniformBinding[INITIAL_CAPACITY];
+
+    /**
+     * Engine uniform matrices, MATRIX_FLOATS per uniform.
+     */
+    private float[] mEngineUniformData = new float[INITIAL_CAPACITY * MATRIX_FLOATS];
+
+    /**
+     * Custom uniform bindings.
+     */
+    private UniformBinding[] mCustomUniformBindings = new UniformBinding[INITIAL_CAPACITY];
+
+    /**
+     * Custom uniform values, UNIFORM_FLOATS per uniform.
+     */
+    private float[] mCustomUniformData = new float[INITIAL_CAPACITY * UNIFORM_FLOATS];
+
+    /**
+     * The render queue.
+     */
+    private RenderQueue mRenderQueue = RenderQueue.OPAQUE;
+
+    /**
+     * World space center of the geometry, used for depth sorting.
+     */
+    private float mCenterX, mCenterY, mCenterZ;
+
+    /**
+     * The shader program, null if packet only carries render settings.
+     */
+    private ShaderProgram mProgram;
+
+    /**
+     * The camera level engine uniforms shared by the render task, null if none.
+     */
+    private CameraUniforms mCameraUniforms;
+
+    /**
+     * The indices buffer, null if drawing arrays.
+     */
+    private IndicesBuffer mIndicesBuffer;
+
+    /**
+     * The GL drawing mode.
+     */
+    private int mMode;
+
+    /**
+     * Number of vertices to draw when drawing arrays.
+     */
+    private int mVertexCount;
+
+    /**
+     * Number of vertex buffers.
+     */
+    private int mVertexBufferCount;
+
+    /**
+     * Number of textures.
+     */
+    private int mTextureCount;
+
+    /**
+     * Number of engine uniforms.
+     */
+    private int mEngineUniformCount;
+
+    /**
+     * Number of custom uniforms.
+     */
+    private int mCustomUniformCount;
+
+    @Override
+    public void reset() {
+        Arrays.fill(mVertexBuffers, 0, mVertexBufferCount, null);
+        Arrays.fill(mTextures, 0, mTextureCount, null);
+        Arrays.fill(mEngineUniformBindings, 0, mEngineUniformCount, null);
+        Arrays.fill(mCustomUniformBindings, 0, mCustomUniformCount, null);
+        mRenderSettings = null;
+        mRenderQueue = RenderQueue.OPAQUE;
+        mCenterX = 0;
+        mCenterY = 0;
+        mCenterZ = 0;
+        mProgram = null;
+        mCameraUniforms = null;
+        mIndicesBuffer = null;
+        mMode = 0;
+        mVertexCount = 0;
+        mVertexBufferCount = 0;
+        mTextureCount = 0;
+        mEngineUniformCount = 0;
+        mCustomUniformCount = 0;
+    }
+
+    /**
+     * Record render settings.
+     *
+     * @param settings Settings block, immutable so kept by reference.
+     */
+    public void setRenderSettings(RenderStateBlock settings) {
+        mRenderSettings = settings;
+    }
+
+    /**
+     * Record render settings, compiled into a block.
+     *
+     * @param settings Settings to compile.
+     */
+    public void setRenderSettings(BackendRenderSettings settings) {
+        mRenderSettings = RenderStateBlock.intern(settings);
+    }
+
+    /**
+     * Record the render queue.
+     *
+     * @param renderQueue The render queue.
+     */
+    public void setRenderQueue(RenderQueue renderQueue) {
+        mRenderQueue = renderQueue;
+    }
+
+    /**
+     * Record the world space center of the geometry.
+     *
+     * @param x The x value.
+     * @param y The y value.
+     * @param z The z value.
+     */
+    public void setCenter(float x, float y, float z) {
+        mCenterX = x;
+        mCenterY = y;
+        mCenterZ = z;
+    }
+
+    /**
+     * Record the shader program.
+     *
+     * @param program The shader program.
+     */
+    public void setProgram(ShaderProgram program) {
+        mProgram = program;
+    }
+
+    /**
+     * Record mesh information.
+     *
+     * @param mode          GL drawing mode.
+     * @param vertexCount   Number of vertices when drawing arrays.
+     * @param indicesBuffer Indices buffer or null if drawing arrays.
+     */
+    public void setMesh(int mode, int vertexCount, IndicesBuffer indicesBuffer) {
+        mMode = mode;
+        mVertexCount = vertexCount;
+        mIndicesBuffer = indicesBuffer;
+    }
+
+    /**
+     * Record a vertex buffer.
+     *
+     * @param vertexBuffer The vertex buffer.
+     */
+    public void addVertexBuffer(VertexBufferResource vertexBuffer) {
+        if (mVertexBufferCount == mVertexBuffers.length) {
+            mVertexBuffers = Arrays.copyOf(mVertexBuffers, mVertexBufferCount * 2);
+        }
+        mVertexBuffers[mVertexBufferCount++] = vertexBuffer;
+    }
+
+    /**
+     * Record a texture.
+     *
+     * @param texture The texture.
+     */
+    public void addTexture(TextureResource texture) {
+        if (mTextureCount == mTextures.length) {
+            mTextures = Arrays.copyOf(mTextures, mTextureCount * 2);
+            mTextureUnits = Arrays.copyOf(mTextureUnits, mTextureCount * 2);
+        }
+        mTextures[mTextureCount++] = texture;
+    }
+
+    /**
+     * Set the camera level engine uniforms, shared by reference.
+     *
+     * @param cameraUniforms The camera uniforms.
+     */
+    public void setCameraUniforms(CameraUniforms cameraUniforms) {
+        mCameraUniforms = cameraUniforms;
+    }
+
+    /**
+     * Record an engine uniform matrix.
+     *
+     * @param binding Binding to the uniform in program.
+     * @param matrix  The matrix to copy.
+     */
+    public void addEngineUniform(UniformBinding binding, Matrix44 matrix) {
+        if (mEngineUniformCount == mEngineUniformBindings.length) {
+            mEngineUniformBindings = Arrays.copyOf(mEngineUniformBindings, mEngineUniformCount * 2);
+            mEngineUniformData = Arrays.copyOf(mEngineUniformData, mEngineUniformCount * 2 * MATRIX_FLOATS);
+        }
+        mEngineUniformBindings[mEngineUniformCount] = binding;
+        System.arraycopy(matrix.m, 0, mEngineUniformData, mEngineUniformCount * MATRIX_FLOATS, MATRIX_FLOATS);
+        mEngineUniformCount++;
+    }
+
+    /**
+     * Record a custom float uniform.
+     *
+     * @param binding Binding to the uniform in program.
+     * @param data    The data to copy.
+     * @param length  Number of floats to copy, at most UNIFORM_FLOATS.
+     */
+    public void addCustomUniform(UniformBinding binding, float[] data, int length) {
+        if (mCustomUniformCount == mCustomUniformBindings.length) {
+            mCustomUniformBindings = Arrays.copyOf(mCustomUniformBindings, mCustomUniformCount * 2);
+            mCustomUniformData = Arrays.copyOf(mCustomUniformData, mCustomUniformCount * 2 * UNIFORM_FLOATS);
+        }
+        mCustomUniformBindings[mCustomUniformCount] = binding;
+        System.arraycopy(data, 0, mCustomUniformData, mCustomUniformCount * UNIFORM_FLOATS, length);
+        mCustomUniformCount++;
+    }
+
+    /**
+     * Check if this packet draws anything or only carries render settings.
+     *
+     * @return True if drawable.
+     */
+    public boolean isDrawable() {
+        return mProgram != null && mVertexBufferCount > 0;
+    }
+
+    /**
+     * Get the recorded render settings.
+     *
+     * @return The render settings.
+     */
+    public RenderStateBlock getRenderSettings() {
+        return mRenderSettings;
+    }
+
+    /**
+     * Get the render queue.
+     *
+     * @return The render queue.
+     */
+    public RenderQueue getRenderQueue() {
+        return mRenderQueue;
+    }
+
+    /**
+     * Get world space center x.
+     *
+     * @return The x value.
+     */
+    public float getCenterX() {
+        return mCenterX;
+    }
+
+    /**
+     * Get world space center y.
+     *
+     * @return The y value.
+     */
+    public float getCenterY() {
+        return mCenterY;
+    }
+
+    /**
+     * Get world space center z.
+     *
+     * @return The z value.
+     */
+    public float getCenterZ() {
+        return mCenterZ;
+    }
+
+    /**
+     * Get the shader program.
+     *
+     * @return The shader program or null.
+     */
+    public ShaderProgram getProgram() {
+        return mProgram;
+    }
+
+    /**
+     * Get number of vertex buffers.
+     *
+     * @return The count.
+     */
+    public int getVertexBufferCount() {
+        return mVertexBufferCount;
+    }
+
+    /**
+     * Get vertex buffer at index.
+     *
+     * @param index Index to fetch from.
+     * @return The vertex buffer.
+     */
+    public VertexBufferResource getVertexBuffer(int index) {
+        return mVertexBuffers[index];
+    }
+
+    /**
+     * Get the indices buffer.
+     *
+     * @return The indices buffer or null.
+     */
+    public IndicesBuffer getIndicesBuffer() {
+        return mIndicesBuffer;
+    }
+
+    /**
+     * Get number of textures.
+     *
+     * @return The count.
+     */
+    public int getTextureCount() {
+        return mTextureCount;
+    }
+
+    /**
+     * Get texture at index.
+     *
+     * @param index Index to fetch from.
+     * @return The texture.
+     */
+    public TextureResource getTexture(int index) {
+        return mTextures[index];
+    }
+
+    /**
+     * Draw the packet, use render settings and draw geometry if any. Packets not drawing
+     * anything only use the render settings if they clear.
+     *
+     * @param context Backend context.
+     */
+    public void draw(BackendContext context) {
+        if (isDrawable()) {
+            useRenderSettings(context);
+            drawGeometry(context);
+        } else if (mRenderSettings.getClearOrder() > context.getRenderState().getClearOrder()) {
+            useRenderSettings(context);
+        }
+    }
+
+    /**
+     * Use the recorded render settings. Clears if the settings clear order is higher than
+     * the current.
+     *
+     * @param context Backend context.
+     */
+    public void useRenderSettings(BackendContext context) {
+        RenderState renderState = context.getRenderState();
+        final boolean clear = mRenderSettings.getClearOrder() > renderState.getClearOrder();
+        renderState.useSettings(mRenderSettings);
+        if (clear) {
+            renderState.clear();
+        }
+    }
+
+    /**
+     * Draw the geometry part of the packet. The drawing will be performed on outside decided
+     * framebuffer or default window system (frame buffer).
+     *
+     * @param context Backend context.
+     */
+    public void drawGeometry(BackendContext context) {
+        if (DebugOptions.DEBUG_GEOMETRY) {
+            checkCreated();
+        }
+
+        /**
+         * Enable attributes.
+         */
+        final ArrayTarget arrayTarget = context.getArrayTarget();
+        for (int i = 0; i < mVertexBufferCount; i++) {
+            arrayTarget.enableAttribute(mProgram, mVertexBuffers[i]);
+        }
+
+        /**
+         * Use shader program.
+         */
+        context.getState().useProgram(mProgram);
+
+        /**
+         * Enable textures.
+         */
+        final TextureUnitManager textureUnitManager = context.getTextureUnitManager();
+        for (int i = 0; i < mTextureCount; i++) {
+            TextureUnit textureUnit = textureUnitManager.takeTextureUnit();
+            mTextureUnits[i] = textureUnit;
+            textureUnit.getTexture2DTarget().enable(mProgram, mTextures[i]);
+        }
+
+        /**
+         * Write custom and engine uniforms.
+         */
+        final UniformWriter uniformWriter = context.getUniformWriter();
+        for (int i = 0; i < mCustomUniformCount; i++) {
+            final int slot = mCustomUniformBindings[i].getSlot(mProgram);
+            uniformWriter.writeFloat(mProgram, slot, mCustomUniformData, i * UNIFORM_FLOATS);
+        }
+        writeEngineUniforms(uniformWriter);
+
+        /**
+         * Draw using array or elements target.
+         */
+        if (mIndicesBuffer == null) {
+            arrayTarget.draw(mMode, 0, mVertexCount);
+        } else {
+            ElementTarget elementTarget = context.getElementTarget();
+            elementTarget.enableElements(mIndicesBuffer);
+            elementTarget.draw(mMode, mIndicesBuffer.getOffsetBytes(), mIndicesBuffer.getIndicesCount());
+            elementTarget.disableElements();
+        }
+
+        /**
+         * Disable textures.
+         */
+        for (int i = (mTextureCount - 1); i > -1; i--) {
+            TextureUnit textureUnit = mTextureUnits[i];
+            textureUnit.getTexture2DTarget().disable(mTextures[i]);
+            textureUnitManager.returnTextureUnit(textureUnit);
+            mTextureUnits[i] = null;
+        }
+
+        /**
+         * Disable attributes.
+         */
+        for (int i = 0; i < mVertexBufferCount; i++) {
+            arrayTarget.disableAttribute(mProgram, mVertexBuffers[i]);
+        }
+    }
+
+    /**
+     * Write engine uniforms that are found in the shader program. The camera level uniforms
+     * are only written if the program doesn't have them already.
+     *
+     * @param uniformWriter The uniform writer.
+     */
+    private void writeEngineUniforms(UniformWriter uniformWriter) {
+        if (mCameraUniforms != null) {
+            mCameraUniforms.write(mProgram, uniformWriter);
+        }
+        for (int i = 0; i < mEngineUniformCount; i++) {
+            final int slot = mEngineUniformBindings[i].getSlot(mProgram);
+            uniformWriter.writeFloat(mProgram, slot, mEngineUniformData, i * MATRIX_FLOATS);
+        }
+    }
+
+    /**
+     * Check that all referenced resources are created.
+     */
+    private void checkCreated() {
+        if (!mProgram.isCreated()) {
+            throw new RuntimeException("Trying to draw with a program that is not created");
+        }
+        for (int i = 0; i < mTextureCount; i++) {
+            if (!mTextures[i].isCreated()) {
+                throw new RuntimeException("Trying to draw with a texture that is not created");
+            }
+        }
+        for (int i = 0; i < mVertexBufferCount; i++) {
+            if (!mVertexBuffers[i].isCreated()) {
+                throw new RuntimeException("Trying to draw with a vertex buffer that is not created");
+            }
+        }
+        if (mIndicesBuffer != null && !mIndicesBuffer.isCreated()) {
+            throw new RuntimeException("Trying to draw with a indices buffer that is not created");
+        }
+    }
+}
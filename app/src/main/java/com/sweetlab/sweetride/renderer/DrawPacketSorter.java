@@ -0,0 +1,261 @@
+package com.sweetlab.sweetride.renderer;
+
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.camera.Frustrum;
+import com.sweetlab.sweetride.context.RenderStateBlock;
+import com.sweetlab.sweetride.math.Matrix44;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sorts draw packets using 64 bit sort keys and a radix sort. The key layout, most significant
+ * first, is:
+ * <p/>
+ * layer (6 bits, clear order) | queue (2 bits) | queue specific part (55 bits)
+ * <p/>
+ * Packets only carrying render settings use queue 0 and keep collection order. Opaque packets
+ * use queue 1 and are ordered by program (12 bits), texture set (12 bits), first vertex buffer
+ * (12 bits) and finally quantized view depth front to back (19 bits). Transparent packets use
+ * queue 2 and are ordered back to front by quantized view depth (19 bits) keeping collection
+ * order for equal depths. The layer keeps clears in clear order so a clear never ends up after
+ * geometry it should be drawn on top of.
+ * <p/>
+ * Keys are built on main thread, so programs, textures and buffers are identified by their sort
+ * ids, never by GL ids that the GL thread assigns when creating them.
+ * <p/>
+ * The radix sort is stable and allocation free once the internal arrays have grown.
+ */
+public class DrawPacketSorter {
+    /**
+     * Queue for packets that only carries render settings.
+     */
+    private static final long QUEUE_SETTINGS = 0;
+
+    /**
+     * Queue for opaque packets.
+     */
+    private static final long QUEUE_OPAQUE = 1;
+
+    /**
+     * Queue for transparent packets.
+     */
+    private static final long QUEUE_TRANSPARENT = 2;
+
+    /**
+     * Bit positions and masks of the key parts.
+     */
+    private static final int LAYER_SHIFT = 57;
+    private static final long LAYER_MASK = 0x3F;
+    private static final int QUEUE_SHIFT = 55;
+    private static final int PROGRAM_SHIFT = 43;
+    private static final int TEXTURE_SHIFT = 31;
+    private static final int BUFFER_SHIFT = 19;
+    private static final long ID_MASK = 0xFFF;
+    private static final int TRANSPARENT_DEPTH_SHIFT = 36;
+    private static final long DEPTH_MASK = 0x7FFFF;
+    private static final long SEQUENCE_MASK = (1L << 36) - 1;
+
+    /**
+     * Number of bits sorted per radix pass.
+     */
+    private static final int RADIX_BITS = 8;
+
+    /**
+     * Number of buckets per radix pass.
+     */
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    /**
+     * Bucket counters.
+     */
+    private final int[] mCounts = new int[RADIX];
+
+    /**
+     * The sort keys.
+     */
+    private long[] mKeys = new long[0];
+
+    /**
+     * Temporary sort keys.
+     */
+    private long[] mKeysTmp = new long[0];
+
+    /**
+     * Packet indices following the keys.
+     */
+    private int[] mIndices = new int[0];
+
+    /**
+     * Temporary packet indices.
+     */
+    private int[] mIndicesTmp = new int[0];
+
+    /**
+     * Packets copied before reordering.
+     */
+    private DrawPacket[] mPackets = new DrawPacket[0];
+
+    /**
+     * Sort the list of packets in place.
+     *
+     * @param packets The packets to sort.
+     * @param camera  The camera used for view depth, null if depth should be ignored.
+     */
+    public void sort(List<DrawPacket> packets, Camera camera) {
+        final int count = packets.size();
+        if (count < 2) {
+            return;
+        }
+        ensureCapacity(count);
+
+        for (int i = 0; i < count; i++) {
+            mKeys[i] = createKey(packets.get(i), i, camera);
+            mIndices[i] = i;
+        }
+
+        radixSort(count);
+
+        for (int i = 0; i < count; i++) {
+            mPackets[i] = packets.get(i);
+        }
+        for (int i = 0; i < count; i++) {
+            packets.set(i, mPackets[mIndices[i]]);
+        }
+        Arrays.fill(mPackets, 0, count, null);
+    }
+
+    /**
+     * Create sort key for a packet.
+     *
+     * @param packet   The packet.
+     * @param sequence The collection order of the packet.
+     * @param camera   The camera, null if depth should be ignored.
+     * @return The sort key.
+     */
+    public static long createKey(DrawPacket packet, int sequence, Camera camera) {
+        RenderStateBlock settings = packet.getRenderSettings();
+        long layer = Math.max(0, Math.min(LAYER_MASK, settings.getClearOrder() + 1));
+        long key = layer << LAYER_SHIFT;
+
+        if (!packet.isDrawable()) {
+            return key | (QUEUE_SETTINGS << QUEUE_SHIFT) | (sequence & SEQUENCE_MASK);
+        }
+
+        long depth = quantizeDepth(packet, camera);
+        if (packet.getRenderQueue() == RenderQueue.TRANSPARENT) {
+            long backToFront = DEPTH_MASK - depth;
+            return key | (QUEUE_TRANSPARENT << QUEUE_SHIFT) |
+                    (backToFront << TRANSPARENT_DEPTH_SHIFT) | (sequence & SEQUENCE_MASK);
+        }
+
+        long program = packet.getProgram().getSortId() & ID_MASK;
+        long textures = 0;
+        final int textureCount = packet.getTextureCount();
+        for (int i = 0; i < textureCount; i++) {
+            textures = textures * 31 + packet.getTexture(i).getSortId();
+        }
+        textures &= ID_MASK;
+        long buffer = packet.getVertexBuffer(0).getSortId() & ID_MASK;
+        return key | (QUEUE_OPAQUE << QUEUE_SHIFT) | (program << PROGRAM_SHIFT) |
+                (textures << TEXTURE_SHIFT) | (buffer << BUFFER_SHIFT) | depth;
+    }
+
+    /**
+     * Quantize the view depth of the packet into the range between near and far plane.
+     *
+     * @param packet The packet.
+     * @param camera The camera, null gives depth 0.
+     * @return The quantized depth.
+     */
+    private static long quantizeDepth(DrawPacket packet, Camera camera) {
+        if (camera == null) {
+            return 0;
+        }
+        float[] view = camera.getViewMatrix().m;
+        float viewZ = view[2] * packet.getCenterX() + view[6] * packet.getCenterY() +
+                view[10] * packet.getCenterZ() + view[14];
+
+        Frustrum frustrum = camera.getFrustrum();
+        float range = frustrum.mFar - frustrum.mNear;
+        if (range <= 0) {
+            return 0;
+        }
+
+        /**
+         * Camera looks down negative z.
+         */
+        float normalized = (-viewZ - frustrum.mNear) / range;
+        if (normalized <= 0) {
+            return 0;
+        }
+        if (normalized >= 1) {
+            return DEPTH_MASK;
+        }
+        return (long) (normalized * DEPTH_MASK);
+    }
+
+    /**
+     * Least significant digit radix sort of keys and indices. Passes where all keys share
+     * the same digit are skipped.
+     *
+     * @param count Number of keys.
+     */
+    private void radixSort(int count) {
+        long[] keys = mKeys;
+        long[] keysTmp = mKeysTmp;
+        int[] indices = mIndices;
+        int[] indicesTmp = mIndicesTmp;
+
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(mCounts, 0);
+            for (int i = 0; i < count; i++) {
+                mCounts[(int) ((keys[i] >>> shift) & (RADIX - 1))]++;
+            }
+            if (mCounts[(int) ((keys[0] >>> shift) & (RADIX - 1))] == count) {
+                continue;
+            }
+
+            int sum = 0;
+            for (int b = 0; b < RADIX; b++) {
+                int c = mCounts[b];
+                mCounts[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < count; i++) {
+                int bucket = (int) ((keys[i] >>> shift) & (RADIX - 1));
+                int dst = mCounts[bucket]++;
+                keysTmp[dst] = keys[i];
+                indicesTmp[dst] = indices[i];
+            }
+
+            long[] swapKeys = keys;
+            keys = keysTmp;
+            keysTmp = swapKeys;
+            int[] swapIndices = indices;
+            indices = indicesTmp;
+            indicesTmp = swapIndices;
+        }
+
+        mKeys = keys;
+        mKeysTmp = keysTmp;
+        mIndices = indices;
+        mIndicesTmp = indicesTmp;
+    }
+
+    /**
+     * Make sure internal arrays can hold count elements.
+     *
+     * @param count The count.
+     */
+    private void ensureCapacity(int count) {
+        if (mKeys.length < count) {
+            int capacity = Math.max(count, mKeys.length * 2);
+            mKeys = new long[capacity];
+            mKeysTmp = new long[capacity];
+            mIndices = new int[capacity];
+            mIndicesTmp = new int[capacity];
+            mPackets = new DrawPacket[capacity];
+        }
+    }
+}
@@ -1,19 +1,18 @@
 package com.sweetlab.sweetride.renderer;
 
 import com.sweetlab.sweetride.context.BackendContext;
-import com.sweetlab.sweetride.node.Node;
 
 import java.util.List;
 
 /**
- * Renderer that renders nodes.
+ * Renderer that renders draw packets recorded from nodes.
  */
 public interface NodeRenderer {
     /**
-     * Render the provided list of nodes.
+     * Render the provided list of draw packets.
      *
      * @param context Backend context.
-     * @param list    List of nodes to render.
+     * @param list    List of draw packets to render.
      */
-    void render(BackendContext context, List<Node> list);
+    void render(BackendContext context, List<DrawPacket> list);
 }
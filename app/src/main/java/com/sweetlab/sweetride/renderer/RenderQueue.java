@@ -0,0 +1,17 @@
+package com.sweetlab.sweetride.renderer;
+
+/**
+ * Render queue of a geometry, decides how the geometry is ordered when draw sorting is enabled
+ * in the render node.
+ */
+public enum RenderQueue {
+    /**
+     * Opaque geometry, ordered to minimize state changes and then front to back for early z.
+     */
+    OPAQUE,
+
+    /**
+     * Transparent geometry, drawn after opaque geometry ordered back to front.
+     */
+    TRANSPARENT
+}
@@ -1,9 +1,14 @@
 package com.sweetlab.sweetride.rendernode;
 
+import com.sweetlab.sweetride.engine.TraverseHelper;
+import com.sweetlab.sweetride.geometry.Geometry;
 import com.sweetlab.sweetride.node.Node;
 import com.sweetlab.sweetride.node.NodeVisitor;
 import com.sweetlab.sweetride.renderer.NodeRenderer;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A render node. Provides way of rendering geometry. Nodes can be added to this render node.
  */
@@ -18,6 +23,26 @@ public class RenderNode extends Node {
      */
     private boolean mIsViewFrustrumCullingEnabled;
 
+    /**
+     * If draw sorting is enabled or not.
+     */
+    private boolean mIsDrawSortingEnabled;
+
+    /**
+     * The nodes belonging to this render node, kept between frames.
+     */
+    private final List<Node> mBranchNodes = new ArrayList<>();
+
+    /**
+     * Visitor collecting branch nodes.
+     */
+    private final NodeVisitor mBranchVisitor = new BranchVisitor();
+
+    /**
+     * The branch version the branch nodes was collected at.
+     */
+    private int mCollectedBranchVersion = -1;
+
     @Override
     public void accept(NodeVisitor visitor) {
         visitor.visit(this);
@@ -58,4 +83,67 @@ public class RenderNode extends Node {
     public boolean isViewFrustrumCullingEnabled() {
         return mIsViewFrustrumCullingEnabled;
     }
+
+    /**
+     * Set if draw sorting should be enabled or not. When enabled draws are ordered by sort key
+     * to minimize state changes, see DrawPacketSorter. Geometries that depend on collection
+     * order, typically transparent ones, must use the transparent render queue.
+     *
+     * @param enable True if enabled.
+     */
+    public void enableDrawSorting(boolean enable) {
+        mIsDrawSortingEnabled = enable;
+    }
+
+    /**
+     * Check if draw sorting is enabled.
+     *
+     * @return True if enabled.
+     */
+    public boolean isDrawSortingEnabled() {
+        return mIsDrawSortingEnabled;
+    }
+
+    /**
+     * Get the nodes belonging to this render node, this render node first followed by all nodes
+     * depth first. Sub branches that starts with other render nodes are not included. The list is
+     * only collected again when nodes has been added or removed in this branch, otherwise the same
+     * list is returned.
+     *
+     * @return The nodes by reference, do not modify.
+     */
+    public List<Node> getBranchNodes() {
+        int branchVersion = getBranchVersion();
+        if (mCollectedBranchVersion != branchVersion) {
+            mBranchNodes.clear();
+            mBranchNodes.add(this);
+            TraverseHelper.depthFirst(this, mBranchVisitor);
+            mCollectedBranchVersion = branchVersion;
+        }
+        return mBranchNodes;
+    }
+
+    /**
+     * Visitor collecting branch nodes.
+     */
+    private class BranchVisitor implements NodeVisitor {
+        @Override
+        public void visit(Node node) {
+            mBranchNodes.add(node);
+            TraverseHelper.depthFirst(node, this);
+        }
+
+        @Override
+        public void visit(Geometry geometry) {
+            mBranchNodes.add(geometry);
+            TraverseHelper.depthFirst(geometry, this);
+        }
+
+        @Override
+        public void visit(RenderNode renderNode) {
+            /**
+             * Visiting another render node, do not continue.
+             */
+        }
+    }
 }
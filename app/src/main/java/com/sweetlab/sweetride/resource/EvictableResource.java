@@ -0,0 +1,21 @@
+package com.sweetlab.sweetride.resource;
+
+/**
+ * A resource that can be evicted from the GPU when over the memory budget and uploaded again
+ * from its CPU side source when drawn, see GpuMemoryBudget.
+ */
+public interface EvictableResource extends ReleasableResource {
+    /**
+     * Get number of bytes the resource occupies on the GPU.
+     *
+     * @return The number of bytes.
+     */
+    int getTotalByteCount();
+
+    /**
+     * Check if the resource can be evicted, false if the CPU side source is gone.
+     *
+     * @return True if evictable.
+     */
+    boolean isEvictable();
+}
@@ -0,0 +1,20 @@
+package com.sweetlab.sweetride.resource;
+
+/**
+ * A resource whose GL object is deleted when no longer held, see ResourceReleaser. The
+ * resource is held as long as it is connected to a mesh or material.
+ */
+public interface ReleasableResource extends Resource {
+    /**
+     * Check if the resource is held.
+     *
+     * @return True if held.
+     */
+    boolean isConnected();
+
+    /**
+     * Restore the actions that creates and loads the resource, so that it is created again
+     * if held after being deleted. Call from main thread.
+     */
+    void restore();
+}
@@ -0,0 +1,136 @@
+package com.sweetlab.sweetride.resource;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of resources no longer held by any mesh or material. A released resource is
+ * deleted a few frames later unless it is held again before that, avoiding stalls when
+ * deleting GL objects the GPU might still use and avoiding delete/create when a resource is
+ * just moved between holders. Deletion is done on GL thread, see RenderTask.
+ * <p/>
+ * Resources that can't be uploaded again once deleted are excluded and kept alive, so they can
+ * be held again later. These are evictable resources reporting isEvictable false, like textures
+ * releasing their bitmap once loaded.
+ * <p/>
+ * Owned by the backend context whose GL objects it deletes, and used by the frame updating for
+ * that context, see Frame.setResourceReleaser. Holders keep resources they drop until the frame
+ * hands them over, see Geometry.releaseRemoved. Call from main thread, except clear.
+ */
+public class ResourceReleaser {
+    /**
+     * Number of frames a resource must be released before deleted.
+     */
+    public static final int DELETE_DELAY = 3;
+
+    /**
+     * Initial capacity of released resources.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The released resources.
+     */
+    private ReleasableResource[] mReleased = new ReleasableResource[DEFAULT_CAPACITY];
+
+    /**
+     * The frame each released resource was released, parallel to the released resources.
+     */
+    private int[] mReleaseFrames = new int[DEFAULT_CAPACITY];
+
+    /**
+     * Number of released resources.
+     */
+    private int mReleasedCount;
+
+    /**
+     * The frame counter, advanced by collect.
+     */
+    private int mFrame;
+
+    /**
+     * Release a resource if no longer held and possible to upload again. Releasing a resource
+     * that is already released restarts the delay.
+     *
+     * @param resource The resource.
+     */
+    public synchronized void release(ReleasableResource resource) {
+        if (resource.isConnected() || !isRestorable(resource)) {
+            return;
+        }
+        for (int i = 0; i < mReleasedCount; i++) {
+            if (mReleased[i] == resource) {
+                mReleaseFrames[i] = mFrame;
+                return;
+            }
+        }
+        if (mReleasedCount == mReleased.length) {
+            mReleased = Arrays.copyOf(mReleased, mReleasedCount * 2);
+            mReleaseFrames = Arrays.copyOf(mReleaseFrames, mReleasedCount * 2);
+        }
+        mReleased[mReleasedCount] = resource;
+        mReleaseFrames[mReleasedCount] = mFrame;
+        mReleasedCount++;
+    }
+
+    /**
+     * Collect resources released long enough to be deleted. Resources held again are
+     * forgotten. Call once each frame.
+     *
+     * @param deletions List to add the resources to delete to.
+     */
+    public synchronized void collect(List<ReleasableResource> deletions) {
+        mFrame++;
+        for (int i = mReleasedCount - 1; i >= 0; i--) {
+            ReleasableResource resource = mReleased[i];
+            if (resource.isConnected() || !isRestorable(resource)) {
+                remove(i);
+            } else if (mFrame - mReleaseFrames[i] >= DELETE_DELAY) {
+                resource.restore();
+                deletions.add(resource);
+                remove(i);
+            }
+        }
+    }
+
+    /**
+     * Get number of released resources waiting to be deleted.
+     *
+     * @return The number of resources.
+     */
+    public synchronized int getReleasedCount() {
+        return mReleasedCount;
+    }
+
+    /**
+     * Forget all released resources, for instance when the GL context has been lost. Any
+     * thread.
+     */
+    public synchronized void clear() {
+        Arrays.fill(mReleased, 0, mReleasedCount, null);
+        mReleasedCount = 0;
+    }
+
+    /**
+     * Check if a resource can be uploaded again after being deleted.
+     *
+     * @param resource The resource.
+     * @return True if restorable.
+     */
+    private static boolean isRestorable(ReleasableResource resource) {
+        return !(resource instanceof EvictableResource) || ((EvictableResource) resource).isEvictable();
+    }
+
+    /**
+     * Remove released resource at index by moving the last one into its place.
+     *
+     * @param index The index.
+     */
+    private void remove(int index) {
+        int last = mReleasedCount - 1;
+        mReleased[index] = mReleased[last];
+        mReleaseFrames[index] = mReleaseFrames[last];
+        mReleased[last] = null;
+        mReleasedCount = last;
+    }
+}
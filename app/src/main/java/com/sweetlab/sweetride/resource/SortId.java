@@ -0,0 +1,30 @@
+package com.sweetlab.sweetride.resource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out sort ids to resources when they are constructed. Unlike GL ids a sort id is known
+ * from construction on, so the main thread can build draw packet sort keys from resources the
+ * GL thread has not created yet.
+ */
+public final class SortId {
+    /**
+     * The last handed out id.
+     */
+    private static final AtomicInteger sLast = new AtomicInteger();
+
+    /**
+     * No instances.
+     */
+    private SortId() {
+    }
+
+    /**
+     * Get the next sort id. Thread safe.
+     *
+     * @return The sort id, starting at 1.
+     */
+    public static int next() {
+        return sLast.incrementAndGet();
+    }
+}
@@ -16,17 +16,65 @@ import com.sweetlab.sweetride.context.TexelFormat;
 import com.sweetlab.sweetride.context.TexelType;
 import com.sweetlab.sweetride.context.TextureType;
 
+import java.nio.Buffer;
+
 /**
  * A backend texture resource. Can also be used as an frame buffer color OR depth frame buffer
  * attachment.
  */
-public abstract class TextureResource extends NoHandleNotifier<GlobalActionId> implements Resource, ColorAttachment, DepthAttachment {
+public abstract class TextureResource extends NoHandleNotifier<GlobalActionId> implements ReleasableResource, ColorAttachment, DepthAttachment {
+    /**
+     * Sort id used when ordering draw packets, see SortId.
+     */
+    private final int mSortId = SortId.next();
+
+    /**
+     * Action creating the texture.
+     */
+    private final Action<GlobalActionId> mCreateAction;
+
+    /**
+     * Action loading the texture.
+     */
+    private final Action<GlobalActionId> mLoadAction;
+
     /**
      * Constructor.
      */
     public TextureResource() {
-        addAction(new Action<>(this, GlobalActionId.TEXTURE_CREATE, ActionThread.GL));
-        addAction(new Action<>(this, GlobalActionId.TEXTURE_LOAD, ActionThread.GL));
+        mCreateAction = new Action<>(this, GlobalActionId.TEXTURE_CREATE, ActionThread.GL);
+        mLoadAction = new Action<>(this, GlobalActionId.TEXTURE_LOAD, ActionThread.GL);
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
+    @Override
+    public void restore() {
+        addAction(mCreateAction);
+        addAction(mLoadAction);
+    }
+
+    /**
+     * Get the sort id, assigned at construction and stable for the lifetime of the texture.
+     *
+     * @return The sort id.
+     */
+    public int getSortId() {
+        return mSortId;
+    }
+
+    /**
+     * Called on main thread when the texture is attached to a material and each time it is
+     * recorded for drawing. Does nothing by default.
+     */
+    public void onUse() {
+    }
+
+    /**
+     * Load the texture again, keeping the texture id.
+     */
+    protected void reload() {
+        addAction(mLoadAction);
     }
 
     @Override
@@ -79,6 +127,17 @@ public abstract class TextureResource extends NoHandleNotifier<GlobalActionId> i
     @Nullable
     public abstract Bitmap getData();
 
+    /**
+     * Get pixels ready for upload. When non null they are used instead of converting the data
+     * bitmap while uploading.
+     *
+     * @return The pixels, or null.
+     */
+    @Nullable
+    public Buffer getPixels() {
+        return null;
+    }
+
     /**
      * Get the GL format.
      *
@@ -93,6 +152,21 @@ public abstract class TextureResource extends NoHandleNotifier<GlobalActionId> i
      */
     public abstract TexelType getTexelType();
 
+    /**
+     * Get number of bytes the texture occupies on the GPU, without mipmaps.
+     *
+     * @return The number of bytes.
+     */
+    public int getTotalByteCount() {
+        final int texelBytes;
+        if (getTexelType() == TexelType.UNSIGNED_SHORT_5_6_5) {
+            texelBytes = 2;
+        } else {
+            texelBytes = getTexelFormat() == TexelFormat.RGBA ? 4 : 3;
+        }
+        return getWidth() * getHeight() * texelBytes;
+    }
+
     /**
      * Get the texture type.
      *
@@ -7,7 +7,21 @@ import com.sweetlab.sweetride.attributedata.AttributePointer;
 /**
  * A vertex buffer resource which is a buffer resource.
  */
-public abstract class VertexBufferResource extends NoHandleNotifier<GlobalActionId> implements BufferResource {
+public abstract class VertexBufferResource extends NoHandleNotifier<GlobalActionId> implements BufferResource, EvictableResource {
+    /**
+     * Sort id used when ordering draw packets, see SortId.
+     */
+    private final int mSortId = SortId.next();
+
+    /**
+     * Get the sort id, assigned at construction and stable for the lifetime of the buffer.
+     *
+     * @return The sort id.
+     */
+    public int getSortId() {
+        return mSortId;
+    }
+
     /**
      * Get number of attribute pointers.
      *
@@ -22,4 +36,14 @@ public abstract class VertexBufferResource extends NoHandleNotifier<GlobalAction
      * @return The attribute pointer.
      */
     public abstract AttributePointer getAttributePointer(int index);
+
+    /**
+     * Vertex buffers keep their data and can always be evicted.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isEvictable() {
+        return true;
+    }
 }
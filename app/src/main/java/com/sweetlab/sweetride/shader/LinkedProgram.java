@@ -0,0 +1,138 @@
+package com.sweetlab.sweetride.shader;
+
+import java.util.Map;
+
+/**
+ * A linked GL program and the attributes and uniforms reflected from it. Shared by all shader
+ * programs with equal sources, see ProgramCache. The uniform value shadows and the camera
+ * uniform stamp describe the GL program, so they are shared as well. GL thread only.
+ */
+public class LinkedProgram {
+    /**
+     * The linked id.
+     */
+    private final int mId;
+
+    /**
+     * The attributes.
+     */
+    private final Map<String, Attribute> mAttributes;
+
+    /**
+     * The uniforms.
+     */
+    private final Map<String, ProgramUniform> mUniforms;
+
+    /**
+     * The uniforms indexed by slot.
+     */
+    private final ProgramUniform[] mUniformSlots;
+
+    /**
+     * Stamp of the camera uniforms last written to the program, 0 if none.
+     */
+    private int mCameraUniformStamp;
+
+    /**
+     * Constructor. Assigns the uniform slots.
+     *
+     * @param id         The linked id.
+     * @param attributes The reflected attributes.
+     * @param uniforms   The reflected uniforms.
+     */
+    public LinkedProgram(int id, Map<String, Attribute> attributes, Map<String, ProgramUniform> uniforms) {
+        mId = id;
+        mAttributes = attributes;
+        mUniforms = uniforms;
+        mUniformSlots = uniforms.values().toArray(new ProgramUniform[uniforms.size()]);
+        for (int slot = 0; slot < mUniformSlots.length; slot++) {
+            mUniformSlots[slot].setSlot(slot);
+        }
+    }
+
+    /**
+     * Get the linked id.
+     *
+     * @return The id.
+     */
+    public int getId() {
+        return mId;
+    }
+
+    /**
+     * Get number of attributes.
+     *
+     * @return Number of attributes.
+     */
+    public int getAttributeCount() {
+        return mAttributes.size();
+    }
+
+    /**
+     * Get attribute.
+     *
+     * @param name Name of attribute.
+     * @return The attribute.
+     */
+    public Attribute getAttribute(String name) {
+        return mAttributes.get(name);
+    }
+
+    /**
+     * Get number of uniforms.
+     *
+     * @return Number of uniforms.
+     */
+    public int getUniformCount() {
+        return mUniforms.size();
+    }
+
+    /**
+     * Get uniform.
+     *
+     * @param name Name of uniform.
+     * @return The uniform.
+     */
+    public ProgramUniform getUniform(String name) {
+        return mUniforms.get(name);
+    }
+
+    /**
+     * Get uniform by slot.
+     *
+     * @param slot The slot.
+     * @return The uniform.
+     */
+    public ProgramUniform getUniform(int slot) {
+        return mUniformSlots[slot];
+    }
+
+    /**
+     * Get the slot of a uniform.
+     *
+     * @param name Name of uniform.
+     * @return The slot or ShaderProgram.NO_SLOT if not found.
+     */
+    public int getUniformSlot(String name) {
+        ProgramUniform uniform = mUniforms.get(name);
+        return uniform != null ? uniform.getSlot() : ShaderProgram.NO_SLOT;
+    }
+
+    /**
+     * Get the stamp of the camera uniforms last written to the program.
+     *
+     * @return The stamp, 0 if none written.
+     */
+    public int getCameraUniformStamp() {
+        return mCameraUniformStamp;
+    }
+
+    /**
+     * Set the stamp of the camera uniforms written to the program.
+     *
+     * @param stamp The stamp.
+     */
+    public void setCameraUniformStamp(int stamp) {
+        mCameraUniformStamp = stamp;
+    }
+}
@@ -31,6 +31,21 @@ public class ProgramUniform {
      */
     private final int mLocation;
 
+    /**
+     * The slot in the shader program.
+     */
+    private int mSlot = ShaderProgram.NO_SLOT;
+
+    /**
+     * Shadow of the last float value written, null if none written.
+     */
+    private float[] mFloatShadow;
+
+    /**
+     * Shadow of the last int value written, null if none written.
+     */
+    private int[] mIntShadow;
+
     /**
      * Constructor.
      *
@@ -74,6 +89,93 @@ public class ProgramUniform {
         return mLocation;
     }
 
+    /**
+     * Get the slot of the uniform in the shader program.
+     *
+     * @return The slot.
+     */
+    public int getSlot() {
+        return mSlot;
+    }
+
+    /**
+     * Set the slot of the uniform, done by the shader program when linked.
+     *
+     * @param slot The slot.
+     */
+    void setSlot(int slot) {
+        mSlot = slot;
+    }
+
+    /**
+     * Update the shadow of the last written float value. Uniform values stay in the linked
+     * program, so there is nothing to write if the value is unchanged. GL thread only.
+     *
+     * @param data   The value to write.
+     * @param offset Offset into data.
+     * @return True if the value differs from the shadow and must be written.
+     */
+    public boolean updateFloatShadow(float[] data, int offset) {
+        if (mFloatShadow == null) {
+            mFloatShadow = new float[mElementCount];
+        } else if (equals(mFloatShadow, data, offset)) {
+            return false;
+        }
+        System.arraycopy(data, offset, mFloatShadow, 0, mElementCount);
+        return true;
+    }
+
+    /**
+     * Update the shadow of the last written int value. GL thread only.
+     *
+     * @param data The value to write.
+     * @return True if the value differs from the shadow and must be written.
+     */
+    public boolean updateIntShadow(int[] data) {
+        if (mIntShadow == null) {
+            mIntShadow = new int[mElementCount];
+        } else if (equals(mIntShadow, data)) {
+            return false;
+        }
+        System.arraycopy(data, 0, mIntShadow, 0, mElementCount);
+        return true;
+    }
+
+    /**
+     * Compare the shadow with a value.
+     *
+     * @param shadow The shadow.
+     * @param data   The value.
+     * @param offset Offset into value.
+     * @return True if equal.
+     */
+    private static boolean equals(float[] shadow, float[] data, int offset) {
+        final int count = shadow.length;
+        for (int i = 0; i < count; i++) {
+            if (shadow[i] != data[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compare the shadow with a value.
+     *
+     * @param shadow The shadow.
+     * @param data   The value.
+     * @return True if equal.
+     */
+    private static boolean equals(int[] shadow, int[] data) {
+        final int count = shadow.length;
+        for (int i = 0; i < count; i++) {
+            if (shadow[i] != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return "name = " + mName + " arraySize = " + mArraySize + " elementCount = " + mElementCount + " type = " + GLES20Helper.getReadableType(mType) + " location = " + mLocation;
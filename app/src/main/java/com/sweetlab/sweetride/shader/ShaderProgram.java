@@ -5,15 +5,25 @@ import com.sweetlab.sweetride.action.GlobalActionId;
 import com.sweetlab.sweetride.action.ActionThread;
 import com.sweetlab.sweetride.action.NoHandleNotifier;
 import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.ProgramCache;
 import com.sweetlab.sweetride.context.ResourceManager;
-import com.sweetlab.sweetride.resource.Resource;
-
-import java.util.Map;
+import com.sweetlab.sweetride.resource.ReleasableResource;
 
 /**
- * Shader program.
+ * Shader program. Programs with equal shader sources share one GL program, compiled, linked
+ * and reflected once by the context program cache.
  */
-public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements Resource {
+public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements ReleasableResource {
+    /**
+     * Slot of uniforms not found in the program.
+     */
+    public static final int NO_SLOT = -1;
+
+    /**
+     * Sort id used when ordering draw packets, shared by programs with equal sources.
+     */
+    private final int mSortId;
+
     /**
      * The vertex shader.
      */
@@ -25,19 +35,19 @@ public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements R
     private final FragmentShader mFragmentShader;
 
     /**
-     * The attributes.
+     * Action creating the program.
      */
-    private Map<String, Attribute> mAttributes;
+    private final Action<GlobalActionId> mCreateAction;
 
     /**
-     * The uniforms.
+     * The linked program, shared with all programs with equal sources. Null if not created.
      */
-    private Map<String, ProgramUniform> mUniforms;
+    private LinkedProgram mLinked;
 
     /**
-     * The linked id.
+     * Number of times the program has been linked, slots are only valid for the same link.
      */
-    private int mId = ResourceManager.INVALID_PROGRAM_ID;
+    private int mLinkCount;
 
     /**
      * Constructor.
@@ -49,40 +59,54 @@ public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements R
                          FragmentShader fragmentShader) {
         mVertexShader = vertexShader;
         mFragmentShader = fragmentShader;
-        connectNotifier(mVertexShader);
-        connectNotifier(mFragmentShader);
-        addAction(new Action<>(this, GlobalActionId.PROGRAM_CREATE, ActionThread.GL));
+        mSortId = ProgramCache.getSortId(vertexShader.getSource(), fragmentShader.getSource());
+        mCreateAction = new Action<>(this, GlobalActionId.PROGRAM_CREATE, ActionThread.GL);
+        addAction(mCreateAction);
     }
 
     @Override
     public void create(BackendContext context) {
-        mId = context.getLinker().link(mVertexShader, mFragmentShader);
-        if (mId != ResourceManager.INVALID_PROGRAM_ID) {
-            mAttributes = context.getAttributeExtractor().extract(this);
-            mUniforms = context.getUniformExtractor().extract(this);
+        if (mLinked != null) {
+            context.getProgramCache().release(mLinked);
         }
+        mLinked = context.getProgramCache().acquire(mVertexShader.getSource(), mFragmentShader.getSource());
+        mLinkCount++;
     }
 
     @Override
     public void delete(BackendContext context) {
-        if (mVertexShader != null) {
+        /**
+         * The cache owns the GL program and the shaders it was linked from, shaders created
+         * on their own are deleted here as before.
+         */
+        if (mVertexShader != null && mVertexShader.isCreated()) {
             mVertexShader.delete(context);
         }
-        if (mFragmentShader != null) {
+        if (mFragmentShader != null && mFragmentShader.isCreated()) {
             mFragmentShader.delete(context);
         }
-        context.getResourceManager().deleteProgram(mId);
-        mId = ResourceManager.INVALID_PROGRAM_ID;
+        if (mLinked != null) {
+            context.getProgramCache().release(mLinked);
+            mLinked = null;
+        }
+    }
+
+    @Override
+    public void restore() {
+        /**
+         * Acquired again from the cache, linked again if no other program holds it.
+         */
+        addAction(mCreateAction);
     }
 
     @Override
     public boolean isCreated() {
-        return mId != ResourceManager.INVALID_PROGRAM_ID;
+        return mLinked != null;
     }
 
     @Override
     public int getId() {
-        return mId;
+        return mLinked != null ? mLinked.getId() : ResourceManager.INVALID_PROGRAM_ID;
     }
 
     @Override
@@ -94,6 +118,16 @@ public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements R
         return false;
     }
 
+    /**
+     * Get the sort id, assigned at construction and stable for the lifetime of the program.
+     * Programs with equal sources have the same sort id.
+     *
+     * @return The sort id.
+     */
+    public int getSortId() {
+        return mSortId;
+    }
+
     /**
      * Get vertex shader.
      *
@@ -119,7 +153,7 @@ public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements R
      * @return Number of attributes.
      */
     public int getAttributeCount() {
-        return mAttributes.size();
+        return mLinked.getAttributeCount();
     }
 
     /**
@@ -128,7 +162,7 @@ public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements R
      * @return Number of uniforms.
      */
     public int getUniformCount() {
-        return mUniforms.size();
+        return mLinked.getUniformCount();
     }
 
     /**
@@ -138,7 +172,38 @@ public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements R
      * @return The uniform.
      */
     public ProgramUniform getUniform(String name) {
-        return mUniforms.get(name);
+        return mLinked.getUniform(name);
+    }
+
+    /**
+     * Get the slot of a uniform. Resolve the slot once and write through it, see
+     * UniformBinding.
+     *
+     * @param name Name of uniform.
+     * @return The slot or NO_SLOT if not found.
+     */
+    public int getUniformSlot(String name) {
+        return mLinked.getUniformSlot(name);
+    }
+
+    /**
+     * Get uniform by slot.
+     *
+     * @param slot The slot.
+     * @return The uniform.
+     */
+    public ProgramUniform getUniform(int slot) {
+        return mLinked.getUniform(slot);
+    }
+
+    /**
+     * Get number of times the program has been linked. Slots resolved during one link are
+     * not valid after the next.
+     *
+     * @return The link count.
+     */
+    public int getLinkCount() {
+        return mLinkCount;
     }
 
     /**
@@ -148,6 +213,25 @@ public class ShaderProgram extends NoHandleNotifier<GlobalActionId> implements R
      * @return The attribute.
      */
     public Attribute getAttribute(String name) {
-        return mAttributes.get(name);
+        return mLinked.getAttribute(name);
+    }
+
+    /**
+     * Get the stamp of the camera uniforms last written to the program. GL thread only.
+     *
+     * @return The stamp, 0 if none written since the program was linked. Shared by programs
+     * sharing the GL program.
+     */
+    public int getCameraUniformStamp() {
+        return mLinked.getCameraUniformStamp();
+    }
+
+    /**
+     * Set the stamp of the camera uniforms written to the program. GL thread only.
+     *
+     * @param stamp The stamp.
+     */
+    public void setCameraUniformStamp(int stamp) {
+        mLinked.setCameraUniformStamp(stamp);
     }
 }
@@ -0,0 +1,62 @@
+package com.sweetlab.sweetride.shader;
+
+/**
+ * A uniform name bound to its slot in a shader program. The slot is resolved once and kept
+ * for as long as the binding is used with the same linked program, so writing doesn't need
+ * to look up the uniform by name. Used on GL thread only.
+ */
+public class UniformBinding {
+    /**
+     * The uniform name.
+     */
+    private final String mName;
+
+    /**
+     * The program the slot was resolved in.
+     */
+    private ShaderProgram mProgram;
+
+    /**
+     * Link count of the program when the slot was resolved.
+     */
+    private int mLinkCount;
+
+    /**
+     * The resolved slot.
+     */
+    private int mSlot = ShaderProgram.NO_SLOT;
+
+    /**
+     * Constructor.
+     *
+     * @param name The uniform name.
+     */
+    public UniformBinding(String name) {
+        mName = name;
+    }
+
+    /**
+     * Get the uniform name.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Get the slot of the uniform in the program, resolved again only if the program differs
+     * from last call or has been linked again.
+     *
+     * @param program The shader program.
+     * @return The slot or ShaderProgram.NO_SLOT if not found in program.
+     */
+    public int getSlot(ShaderProgram program) {
+        if (program != mProgram || program.getLinkCount() != mLinkCount) {
+            mProgram = program;
+            mLinkCount = program.getLinkCount();
+            mSlot = program.getUniformSlot(mName);
+        }
+        return mSlot;
+    }
+}
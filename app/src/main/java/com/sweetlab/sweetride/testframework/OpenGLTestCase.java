@@ -1,5 +1,6 @@
 package com.sweetlab.sweetride.testframework;
 
+import android.content.Intent;
 import android.test.ActivityInstrumentationTestCase2;
 
 import com.sweetlab.sweetride.context.BackendContext;
@@ -40,6 +41,15 @@ public class OpenGLTestCase extends ActivityInstrumentationTestCase2<TestActivit
         return mActivity.getHeight();
     }
 
+    /**
+     * Get the backend flavour to test with. Override to test with another flavour.
+     *
+     * @return The backend flavour.
+     */
+    protected BackendContext.Flavour getBackendFlavour() {
+        return BackendContext.Flavour.VALIDATING;
+    }
+
     /**
      * Get the backend context.
      *
@@ -115,6 +125,9 @@ public class OpenGLTestCase extends ActivityInstrumentationTestCase2<TestActivit
      */
     private void assertActivityNotNull() {
         if (mActivity == null) {
+            Intent intent = new Intent();
+            intent.putExtra(TestActivity.EXTRA_BACKEND_FLAVOUR, getBackendFlavour().name());
+            setActivityIntent(intent);
             mActivity = getActivity();
             assertNotNull(mActivity);
         }
@@ -36,15 +36,23 @@ public class SurfaceRenderer implements GLSurfaceView.Renderer {
      */
     private BackendContext mBackendContext;
 
+    /**
+     * The backend flavour to create.
+     */
+    private final BackendContext.Flavour mFlavour;
+
     /**
      * Constructor.
+     *
+     * @param flavour The backend flavour to create.
      */
-    public SurfaceRenderer() {
+    public SurfaceRenderer(BackendContext.Flavour flavour) {
+        mFlavour = flavour;
     }
 
     @Override
     public synchronized void onSurfaceCreated(GL10 gl, EGLConfig config) {
-        mBackendContext = new BackendContext();
+        mBackendContext = new BackendContext(mFlavour);
     }
 
     @Override
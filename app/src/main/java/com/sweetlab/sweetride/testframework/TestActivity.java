@@ -14,6 +14,11 @@ import java.util.concurrent.CountDownLatch;
  * A test activity for GL required testing.
  */
 public class TestActivity extends Activity {
+    /**
+     * Intent extra holding the name of the backend flavour to test with.
+     */
+    public static final String EXTRA_BACKEND_FLAVOUR = "backend_flavour";
+
     private static final int VERSION = 2;
     private static final int RENDER_MODE = GLSurfaceView.RENDERMODE_WHEN_DIRTY;
     /**
@@ -38,7 +43,13 @@ public class TestActivity extends Activity {
         mInfoTextView = (TextView) findViewById(R.id.test_info);
         mGLSurfaceView = (GLSurfaceView) findViewById(R.id.glsurfaceview);
 
-        mTestRenderer = new SurfaceRenderer();
+        BackendContext.Flavour flavour = BackendContext.Flavour.VALIDATING;
+        String flavourName = getIntent().getStringExtra(EXTRA_BACKEND_FLAVOUR);
+        if (flavourName != null) {
+            flavour = BackendContext.Flavour.valueOf(flavourName);
+        }
+
+        mTestRenderer = new SurfaceRenderer(flavour);
         mGLSurfaceView.setEGLContextClientVersion(VERSION);
         mGLSurfaceView.setRenderer(mTestRenderer);
         mGLSurfaceView.setRenderMode(RENDER_MODE);
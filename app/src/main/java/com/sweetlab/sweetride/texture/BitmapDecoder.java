@@ -0,0 +1,36 @@
+package com.sweetlab.sweetride.texture;
+
+import android.graphics.Bitmap;
+
+import com.sweetlab.sweetride.context.AndroidTextureHelper;
+import com.sweetlab.sweetride.util.Util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A texture decoder with a bitmap as source. The bitmap is copied into a direct buffer and
+ * recycled, all on the background thread.
+ */
+public abstract class BitmapDecoder implements TextureDecoder {
+    /**
+     * Decode the bitmap. Called from a background thread.
+     *
+     * @return The bitmap.
+     */
+    protected abstract Bitmap decodeBitmap();
+
+    @Override
+    public DecodedTexture decode() {
+        Bitmap bitmap = decodeBitmap();
+        if (bitmap == null) {
+            throw new RuntimeException("Bitmap decoder failed to decode " + this);
+        }
+        ByteBuffer pixels = Util.allocByteBuffer(bitmap.getByteCount());
+        bitmap.copyPixelsToBuffer(pixels);
+        pixels.rewind();
+        DecodedTexture decoded = new DecodedTexture(bitmap.getWidth(), bitmap.getHeight(),
+                AndroidTextureHelper.getTexelFormat(bitmap), AndroidTextureHelper.getGLTexelType(bitmap), pixels);
+        bitmap.recycle();
+        return decoded;
+    }
+}
@@ -0,0 +1,107 @@
+package com.sweetlab.sweetride.texture;
+
+import com.sweetlab.sweetride.context.TexelFormat;
+import com.sweetlab.sweetride.context.TexelType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoded texture pixels in a direct buffer, ready to be uploaded as is.
+ */
+public class DecodedTexture {
+    /**
+     * The width in pixels.
+     */
+    private final int mWidth;
+
+    /**
+     * The height in pixels.
+     */
+    private final int mHeight;
+
+    /**
+     * The texel format.
+     */
+    private final TexelFormat mTexelFormat;
+
+    /**
+     * The texel type.
+     */
+    private final TexelType mTexelType;
+
+    /**
+     * The pixels.
+     */
+    private final ByteBuffer mPixels;
+
+    /**
+     * Constructor.
+     *
+     * @param width       The width in pixels.
+     * @param height      The height in pixels.
+     * @param texelFormat The texel format.
+     * @param texelType   The texel type.
+     * @param pixels      The pixels in a direct buffer, rewound.
+     */
+    public DecodedTexture(int width, int height, TexelFormat texelFormat, TexelType texelType, ByteBuffer pixels) {
+        mWidth = width;
+        mHeight = height;
+        mTexelFormat = texelFormat;
+        mTexelType = texelType;
+        mPixels = pixels;
+    }
+
+    /**
+     * Get the width.
+     *
+     * @return The width in pixels.
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Get the height.
+     *
+     * @return The height in pixels.
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Get the texel format.
+     *
+     * @return The texel format.
+     */
+    public TexelFormat getTexelFormat() {
+        return mTexelFormat;
+    }
+
+    /**
+     * Get the texel type.
+     *
+     * @return The texel type.
+     */
+    public TexelType getTexelType() {
+        return mTexelType;
+    }
+
+    /**
+     * Get the pixels.
+     *
+     * @return The pixels.
+     */
+    public ByteBuffer getPixels() {
+        return mPixels;
+    }
+
+    /**
+     * Get number of bytes of the pixels.
+     *
+     * @return The number of bytes.
+     */
+    public int getByteCount() {
+        return mPixels.capacity();
+    }
+}
@@ -0,0 +1,281 @@
+package com.sweetlab.sweetride.texture;
+
+import android.graphics.Bitmap;
+
+import com.sweetlab.sweetride.context.AttachmentType;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.MagFilter;
+import com.sweetlab.sweetride.context.MinFilter;
+import com.sweetlab.sweetride.context.ResourceManager;
+import com.sweetlab.sweetride.context.TexelFormat;
+import com.sweetlab.sweetride.context.TexelType;
+import com.sweetlab.sweetride.context.TextureType;
+import com.sweetlab.sweetride.context.TextureUnit2DTarget;
+import com.sweetlab.sweetride.resource.TextureResource;
+import com.sweetlab.sweetride.util.Util;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A 2D texture decoded in background by a texture streamer. Until the decoded pixels arrive the
+ * texture is a single white texel so it can be drawn right away. The pixels are released once
+ * uploaded, so the texture is not evictable. A restored texture shows the placeholder and is
+ * streamed again once attached to a material or drawn again, see onUse.
+ * <p/>
+ * The pixels are handed over on main thread while GL thread may be uploading, so the texture
+ * state is guarded by the texture itself.
+ */
+public class StreamedTexture2D extends TextureResource {
+    /**
+     * The white placeholder texel.
+     */
+    private static final byte WHITE = (byte) 0xFF;
+
+    /**
+     * The name if the shader uniform sampler.
+     */
+    private final String mName;
+
+    /**
+     * The decoder.
+     */
+    private final TextureDecoder mDecoder;
+
+    /**
+     * The min filter.
+     */
+    private final MinFilter mMinFilter;
+
+    /**
+     * The mag filter.
+     */
+    private final MagFilter mMagFilter;
+
+    /**
+     * The streamer decoding the texture, null if not streamed yet.
+     */
+    private TextureStreamer mStreamer;
+
+    /**
+     * The current texture, the placeholder until decoded.
+     */
+    private DecodedTexture mDecoded;
+
+    /**
+     * Pixels left to upload, released after upload.
+     */
+    private Buffer mPixels;
+
+    /**
+     * If the decoded pixels has arrived.
+     */
+    private boolean mIsDecoded;
+
+    /**
+     * If decoding is in progress.
+     */
+    private boolean mIsStreaming;
+
+    /**
+     * If the texture has been restored and must be streamed again when used.
+     */
+    private boolean mIsStreamRequired;
+
+    /**
+     * The texture id.
+     */
+    private int mTextureId = ResourceManager.INVALID_TEXTURE_ID;
+
+    /**
+     * Constructor. Call TextureStreamer.stream to start decoding.
+     *
+     * @param name      Shader uniform (sampler) name.
+     * @param decoder   The decoder.
+     * @param minFilter The min filter.
+     * @param magFilter The mag filter.
+     */
+    public StreamedTexture2D(String name, TextureDecoder decoder, MinFilter minFilter, MagFilter magFilter) {
+        mName = name;
+        mDecoder = decoder;
+        mMinFilter = minFilter;
+        mMagFilter = magFilter;
+        setPlaceholder();
+    }
+
+    /**
+     * Get the decoder.
+     *
+     * @return The decoder.
+     */
+    public TextureDecoder getDecoder() {
+        return mDecoder;
+    }
+
+    /**
+     * Check if the decoded pixels has arrived.
+     *
+     * @return True if decoded.
+     */
+    public synchronized boolean isDecoded() {
+        return mIsDecoded;
+    }
+
+    @Override
+    public void delete(BackendContext context) {
+        context.getResourceManager().deleteTexture(mTextureId);
+        mTextureId = ResourceManager.INVALID_TEXTURE_ID;
+    }
+
+    @Override
+    public void create(BackendContext context) {
+        mTextureId = context.getResourceManager().generateTexture();
+    }
+
+    @Override
+    public boolean isCreated() {
+        return mTextureId != ResourceManager.INVALID_TEXTURE_ID;
+    }
+
+    @Override
+    public int getId() {
+        return mTextureId;
+    }
+
+    @Override
+    public synchronized int getWidth() {
+        return mDecoded.getWidth();
+    }
+
+    @Override
+    public synchronized int getHeight() {
+        return mDecoded.getHeight();
+    }
+
+    /**
+     * Load the pixels and release them. Nothing is loaded if the pixels already has been
+     * loaded, which happens when decoded pixels arrive while loading the placeholder.
+     *
+     * @param context Backend context.
+     */
+    @Override
+    public synchronized void load(BackendContext context) {
+        if (mPixels == null) {
+            return;
+        }
+        TextureUnit2DTarget texture2DTarget = context.getTextureUnitManager().getDefaultTextureUnit().getTexture2DTarget();
+        texture2DTarget.load(this);
+        texture2DTarget.setFilter(this, mMinFilter.getGlParam(), mMagFilter.getGlParam());
+        mPixels = null;
+    }
+
+    /**
+     * The pixels are lost after upload, the texture must be streamed again. Streaming is not
+     * started until the texture is used, a released texture might never be used again.
+     */
+    @Override
+    public synchronized void restore() {
+        setPlaceholder();
+        super.restore();
+        mIsStreamRequired = mStreamer != null && !mIsStreaming;
+    }
+
+    /**
+     * Stream the texture again if it has been restored.
+     */
+    @Override
+    public synchronized void onUse() {
+        if (mIsStreamRequired) {
+            mStreamer.stream(this);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return mName;
+    }
+
+    @Override
+    public Bitmap getData() {
+        return null;
+    }
+
+    @Override
+    public synchronized Buffer getPixels() {
+        return mPixels;
+    }
+
+    @Override
+    public synchronized TexelFormat getTexelFormat() {
+        return mDecoded.getTexelFormat();
+    }
+
+    @Override
+    public synchronized TexelType getTexelType() {
+        return mDecoded.getTexelType();
+    }
+
+    @Override
+    public TextureType getTextureType() {
+        return TextureType.TEXTURE_2D;
+    }
+
+    @Override
+    public AttachmentType getAttachmentType() {
+        return AttachmentType.TEXTURE_2D;
+    }
+
+    @Override
+    public MinFilter getMinFilter() {
+        return mMinFilter;
+    }
+
+    @Override
+    public MagFilter getMagFilter() {
+        return mMagFilter;
+    }
+
+    /**
+     * Called by the streamer when starting to decode. Call from main thread.
+     *
+     * @param streamer The streamer.
+     */
+    synchronized void onStream(TextureStreamer streamer) {
+        mStreamer = streamer;
+        mIsStreaming = true;
+        mIsStreamRequired = false;
+    }
+
+    /**
+     * Called by the streamer when the decoded pixels are handed over. Call from main thread.
+     *
+     * @param decoded The decoded texture.
+     */
+    synchronized void onDecoded(DecodedTexture decoded) {
+        mDecoded = decoded;
+        mPixels = decoded.getPixels();
+        mIsDecoded = true;
+        mIsStreaming = false;
+        reload();
+    }
+
+    /**
+     * Called by the streamer when decoding failed, the placeholder is kept. Call from main
+     * thread.
+     */
+    synchronized void onDecodeFailed() {
+        mIsStreaming = false;
+    }
+
+    /**
+     * Use the single white texel.
+     */
+    private synchronized void setPlaceholder() {
+        ByteBuffer texel = Util.allocByteBuffer(4);
+        texel.put(WHITE).put(WHITE).put(WHITE).put(WHITE);
+        texel.rewind();
+        mDecoded = new DecodedTexture(1, 1, TexelFormat.RGBA, TexelType.UNSIGNED_BYTE, texel);
+        mPixels = texel;
+        mIsDecoded = false;
+    }
+}
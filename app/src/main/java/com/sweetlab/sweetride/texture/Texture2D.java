@@ -12,22 +12,39 @@ import com.sweetlab.sweetride.context.TexelFormat;
 import com.sweetlab.sweetride.context.TexelType;
 import com.sweetlab.sweetride.context.TextureType;
 import com.sweetlab.sweetride.context.TextureUnit2DTarget;
+import com.sweetlab.sweetride.resource.EvictableResource;
 import com.sweetlab.sweetride.resource.TextureResource;
 
 /**
  * A 2D texture with bitmap as data source. The format,type, width and height is decided by the
- * bitmap.
+ * bitmap. The bitmap is kept so the texture can be evicted and uploaded again, unless set to be
+ * released once loaded in which case the texture can't be evicted.
  */
-public class Texture2D extends TextureResource {
+public class Texture2D extends TextureResource implements EvictableResource {
     /**
      * The name if the shader uniform sampler.
      */
     private final String mName;
 
     /**
-     * The bitmap.
+     * The width.
      */
-    private final Bitmap mBitmap;
+    private final int mWidth;
+
+    /**
+     * The height.
+     */
+    private final int mHeight;
+
+    /**
+     * The texel format.
+     */
+    private final TexelFormat mTexelFormat;
+
+    /**
+     * The texel type.
+     */
+    private final TexelType mTexelType;
 
     /**
      * The min filter.
@@ -39,6 +56,16 @@ public class Texture2D extends TextureResource {
      */
     private final MagFilter mMagFilter;
 
+    /**
+     * The bitmap, null once released.
+     */
+    private Bitmap mBitmap;
+
+    /**
+     * If the bitmap should be released once loaded.
+     */
+    private boolean mReleaseOnLoad;
+
     /**
      * The texture id.
      */
@@ -57,6 +84,35 @@ public class Texture2D extends TextureResource {
         mMagFilter = magFilter;
         mName = name;
         mBitmap = bitmap;
+        mWidth = bitmap.getWidth();
+        mHeight = bitmap.getHeight();
+        mTexelFormat = AndroidTextureHelper.getTexelFormat(bitmap);
+        mTexelType = AndroidTextureHelper.getGLTexelType(bitmap);
+    }
+
+    /**
+     * Set if the bitmap should be recycled once loaded, to not keep the pixels on both CPU and
+     * GPU. The texture can then not be evicted or loaded again, and is kept on the GPU when
+     * removed from its materials so it can be added again. Call before the texture is used.
+     *
+     * @param releaseOnLoad True to release the bitmap once loaded.
+     */
+    public void setReleaseOnLoad(boolean releaseOnLoad) {
+        mReleaseOnLoad = releaseOnLoad;
+    }
+
+    /**
+     * Check if the bitmap is released once loaded.
+     *
+     * @return True if released once loaded.
+     */
+    public boolean isReleaseOnLoad() {
+        return mReleaseOnLoad;
+    }
+
+    @Override
+    public boolean isEvictable() {
+        return !mReleaseOnLoad;
     }
 
     @Override
@@ -82,19 +138,26 @@ public class Texture2D extends TextureResource {
 
     @Override
     public int getWidth() {
-        return mBitmap.getWidth();
+        return mWidth;
     }
 
     @Override
     public int getHeight() {
-        return mBitmap.getHeight();
+        return mHeight;
     }
 
     @Override
     public void load(BackendContext context) {
+        if (mBitmap == null) {
+            throw new RuntimeException("Trying to load texture " + mName + " after its bitmap has been released");
+        }
         TextureUnit2DTarget texture2DTarget = context.getTextureUnitManager().getDefaultTextureUnit().getTexture2DTarget();
         texture2DTarget.load(this);
         texture2DTarget.setFilter(this, mMinFilter.getGlParam(), mMagFilter.getGlParam());
+        if (mReleaseOnLoad) {
+            mBitmap.recycle();
+            mBitmap = null;
+        }
     }
 
     @Override
@@ -109,12 +172,12 @@ public class Texture2D extends TextureResource {
 
     @Override
     public TexelFormat getTexelFormat() {
-        return AndroidTextureHelper.getTexelFormat(mBitmap);
+        return mTexelFormat;
     }
 
     @Override
     public TexelType getTexelType() {
-        return AndroidTextureHelper.getGLTexelType(mBitmap);
+        return mTexelType;
     }
 
     @Override
@@ -0,0 +1,13 @@
+package com.sweetlab.sweetride.texture;
+
+/**
+ * Decodes texture pixels. Called from a background thread by the texture streamer.
+ */
+public interface TextureDecoder {
+    /**
+     * Decode the texture into pixels ready for upload.
+     *
+     * @return The decoded texture.
+     */
+    DecodedTexture decode();
+}
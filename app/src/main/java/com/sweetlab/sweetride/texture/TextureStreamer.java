@@ -0,0 +1,220 @@
+package com.sweetlab.sweetride.texture;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams textures. Decoding and conversion to pixels ready for upload is done on a background
+ * pool, so neither main nor GL thread waits for it. Decoded pixels are queued and handed over to
+ * their textures on main thread within a byte budget per frame, the GL thread then uploads them
+ * as part of handling the texture load action.
+ * <p/>
+ * At least one texture is handed over each update so textures larger than the budget still
+ * arrive. A decoder failing is reported on main thread by the update handing it over, the texture
+ * keeps its placeholder.
+ */
+public class TextureStreamer {
+    /**
+     * Default number of decoding threads.
+     */
+    public static final int DEFAULT_THREAD_COUNT = 2;
+
+    /**
+     * Decoded textures waiting to be handed over.
+     */
+    private final ConcurrentLinkedQueue<Decoded> mDecoded = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of textures decoding or waiting to be handed over.
+     */
+    private final AtomicInteger mPendingCount = new AtomicInteger();
+
+    /**
+     * The executor decoding textures.
+     */
+    private final Executor mExecutor;
+
+    /**
+     * The byte budget per frame.
+     */
+    private int mByteBudget;
+
+    /**
+     * Bytes handed over last update.
+     */
+    private int mUsedBytes;
+
+    /**
+     * Constructor, decoding on a pool of background threads.
+     *
+     * @param byteBudget The byte budget per frame.
+     */
+    public TextureStreamer(int byteBudget) {
+        this(Executors.newFixedThreadPool(DEFAULT_THREAD_COUNT, new DecodeThreadFactory()), byteBudget);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor   The executor decoding textures.
+     * @param byteBudget The byte budget per frame.
+     */
+    public TextureStreamer(Executor executor, int byteBudget) {
+        mExecutor = executor;
+        mByteBudget = byteBudget;
+    }
+
+    /**
+     * Set the byte budget per frame.
+     *
+     * @param byteBudget The byte budget.
+     */
+    public void setByteBudget(int byteBudget) {
+        mByteBudget = byteBudget;
+    }
+
+    /**
+     * Get the byte budget per frame.
+     *
+     * @return The byte budget.
+     */
+    public int getByteBudget() {
+        return mByteBudget;
+    }
+
+    /**
+     * Start decoding a texture. The texture shows a placeholder until handed over. Call from
+     * main thread.
+     *
+     * @param texture The texture.
+     */
+    public void stream(final StreamedTexture2D texture) {
+        texture.onStream(this);
+        mPendingCount.incrementAndGet();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mDecoded.add(new Decoded(texture, texture.getDecoder().decode(), null));
+                } catch (Throwable t) {
+                    mDecoded.add(new Decoded(texture, null, t));
+                }
+            }
+        });
+    }
+
+    /**
+     * Hand over decoded textures within the byte budget, in the order they were decoded. Call
+     * from main thread once per frame, before the frame is updated.
+     *
+     * @return Number of handed over textures.
+     * @throws RuntimeException If a texture failed to decode.
+     */
+    public int update() {
+        mUsedBytes = 0;
+        int count = 0;
+        Decoded decoded = mDecoded.peek();
+        while (decoded != null) {
+            if (decoded.mError != null) {
+                mDecoded.poll();
+                decoded.mTarget.onDecodeFailed();
+                mPendingCount.decrementAndGet();
+                throw new RuntimeException("Failed to decode texture " + decoded.mTarget.getName(), decoded.mError);
+            }
+            final int bytes = decoded.mTexture.getByteCount();
+            if (mUsedBytes > 0 && mUsedBytes + bytes > mByteBudget) {
+                break;
+            }
+            mDecoded.poll();
+            decoded.mTarget.onDecoded(decoded.mTexture);
+            mPendingCount.decrementAndGet();
+            mUsedBytes += bytes;
+            count++;
+            decoded = mDecoded.peek();
+        }
+        return count;
+    }
+
+    /**
+     * Get number of bytes handed over last update.
+     *
+     * @return The bytes.
+     */
+    public int getUsedBytes() {
+        return mUsedBytes;
+    }
+
+    /**
+     * Get number of textures decoding or waiting to be handed over.
+     *
+     * @return The number of pending textures.
+     */
+    public int getPendingCount() {
+        return mPendingCount.get();
+    }
+
+    /**
+     * Stop the decoding threads if owned by the streamer. Textures still decoding are never
+     * handed over.
+     */
+    public void shutdown() {
+        if (mExecutor instanceof ExecutorService) {
+            ((ExecutorService) mExecutor).shutdownNow();
+        }
+    }
+
+    /**
+     * A decoded texture and the texture to hand it to.
+     */
+    private static class Decoded {
+        /**
+         * The texture to hand over to.
+         */
+        private final StreamedTexture2D mTarget;
+
+        /**
+         * The decoded texture, null if decoding failed.
+         */
+        private final DecodedTexture mTexture;
+
+        /**
+         * The decoding error, null if decoded.
+         */
+        private final Throwable mError;
+
+        /**
+         * Constructor.
+         *
+         * @param target  The texture to hand over to.
+         * @param texture The decoded texture, null if decoding failed.
+         * @param error   The decoding error, null if decoded.
+         */
+        private Decoded(StreamedTexture2D target, DecodedTexture texture, Throwable error) {
+            mTarget = target;
+            mTexture = texture;
+            mError = error;
+        }
+    }
+
+    /**
+     * Creates low priority daemon decoding threads.
+     */
+    private static class DecodeThreadFactory implements ThreadFactory {
+        /**
+         * Thread number.
+         */
+        private final AtomicInteger mNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TextureDecode-" + mNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -4,6 +4,7 @@ package com.sweetlab.sweetride.uniform;
 import com.sweetlab.sweetride.action.GlobalActionId;
 import com.sweetlab.sweetride.action.NoHandleNotifier;
 import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.renderer.DrawPacket;
 import com.sweetlab.sweetride.shader.ShaderProgram;
 
 /**
@@ -17,4 +18,11 @@ public abstract class CustomUniform extends NoHandleNotifier<GlobalActionId> {
      * @param program Shader program.
      */
     public abstract void writeProgramUniform(BackendContext context, ShaderProgram program);
+
+    /**
+     * Record the current value into a draw packet. Call from main thread.
+     *
+     * @param packet The draw packet.
+     */
+    public abstract void record(DrawPacket packet);
 }
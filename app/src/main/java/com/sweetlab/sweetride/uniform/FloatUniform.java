@@ -4,7 +4,9 @@ import com.sweetlab.sweetride.action.Action;
 import com.sweetlab.sweetride.action.ActionThread;
 import com.sweetlab.sweetride.action.GlobalActionId;
 import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.renderer.DrawPacket;
 import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.UniformBinding;
 
 /**
  * A general uniform that can be used with multiple programs.
@@ -31,9 +33,9 @@ public class FloatUniform extends CustomUniform {
     private final float[] mDataGL = new float[MAX];
 
     /**
-     * Uniform name in program.
+     * Binding to the uniform slot in program.
      */
-    private final String mName;
+    private final UniformBinding mBinding;
 
     /**
      * Length of data is held to avoid creating new array on each update. Now the
@@ -47,7 +49,7 @@ public class FloatUniform extends CustomUniform {
      * @param name Uniform name in program.
      */
     public FloatUniform(String name) {
-        mName = name;
+        mBinding = new UniformBinding(name);
     }
 
     @Override
@@ -61,7 +63,12 @@ public class FloatUniform extends CustomUniform {
 
     @Override
     public void writeProgramUniform(BackendContext context, ShaderProgram program) {
-        context.getUniformWriter().writeFloat(program, mName, mDataGL);
+        context.getUniformWriter().writeFloat(program, mBinding.getSlot(program), mDataGL, 0);
+    }
+
+    @Override
+    public void record(DrawPacket packet) {
+        packet.addCustomUniform(mBinding, mDataGL, MAX);
     }
 
     /**
@@ -0,0 +1,174 @@
+package com.sweetlab.sweetride.action;
+
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.engine.FrontEndActionHandler;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.node.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the pending action bookkeeping of notifiers.
+ */
+public class PendingActionTest {
+    /**
+     * Parent notifier.
+     */
+    private TestNotifier mParent;
+
+    /**
+     * First child notifier.
+     */
+    private TestNotifier mFirst;
+
+    /**
+     * Second child notifier.
+     */
+    private TestNotifier mSecond;
+
+    @Before
+    public void setUp() {
+        mParent = new TestNotifier();
+        mFirst = new TestNotifier();
+        mSecond = new TestNotifier();
+        mParent.connectNotifier(mFirst);
+        mParent.connectNotifier(mSecond);
+    }
+
+    @Test
+    public void testThreadCounts() {
+        assertFalse(mParent.hasActions(ActionThread.MAIN));
+        assertFalse(mParent.hasActions(ActionThread.GL));
+
+        mFirst.addAction(mFirst.mMainAction);
+        mFirst.addAction(mFirst.mMainAction);
+        assertTrue(mParent.hasActions(ActionThread.MAIN));
+        assertFalse(mParent.hasActions(ActionThread.GL));
+        assertEquals(1, mParent.getActionCount());
+
+        mFirst.addAction(mFirst.mGLAction);
+        assertTrue(mParent.hasActions(ActionThread.GL));
+        assertEquals(2, mParent.getActionCount());
+
+        /**
+         * Adding again moves the action last.
+         */
+        mFirst.addAction(mFirst.mMainAction);
+        assertSame(mFirst.mMainAction, mParent.getAction(1));
+
+        mFirst.mMainAction.remove();
+        assertFalse(mParent.hasActions(ActionThread.MAIN));
+        assertTrue(mParent.hasActions(ActionThread.GL));
+
+        mFirst.mGLAction.remove();
+        assertFalse(mParent.hasActions());
+        assertFalse(mParent.hasActions(ActionThread.GL));
+    }
+
+    @Test
+    public void testSameIdFromSeveralSources() {
+        mFirst.addAction(mFirst.mMainAction);
+        mSecond.addAction(mSecond.mMainAction);
+        assertEquals(2, mParent.getActionCount());
+
+        mFirst.mMainAction.remove();
+        assertEquals(1, mParent.getActionCount());
+        assertSame(mSecond.mMainAction, mParent.getAction(0));
+
+        /**
+         * Removing an action that isn't pending changes nothing.
+         */
+        mFirst.mMainAction.remove();
+        assertEquals(1, mParent.getActionCount());
+        assertTrue(mParent.hasActions(ActionThread.MAIN));
+
+        mSecond.mMainAction.remove();
+        assertFalse(mParent.hasActions(ActionThread.MAIN));
+    }
+
+    @Test
+    public void testDisconnect() {
+        mFirst.addAction(mFirst.mGLAction);
+        mParent.disconnectNotifier(mFirst);
+        assertFalse(mParent.hasActions(ActionThread.GL));
+        assertTrue(mFirst.hasActions(ActionThread.GL));
+
+        mParent.connectNotifier(mFirst);
+        assertTrue(mParent.hasActions(ActionThread.GL));
+    }
+
+    @Test
+    public void testRaise() {
+        mFirst.raise(mFirst.mMainAction);
+        assertEquals(1, mFirst.mAddedCount);
+        assertFalse(mFirst.hasActions());
+        assertFalse(mParent.hasActions());
+    }
+
+    @Test
+    public void testCameraMove() {
+        Node root = new Node();
+        Node node = new Node();
+        Geometry geometry = new Geometry();
+        root.addChild(node);
+        node.addChild(geometry);
+        Camera camera = new Camera();
+        root.setCamera(camera);
+
+        FrontEndActionHandler handler = new FrontEndActionHandler();
+        handler.handleActions(root);
+        handler.handleActions(node);
+        handler.handleActions(geometry);
+        assertFalse(handler.handleActions(geometry));
+
+        /**
+         * Only the geometry has something to handle when the camera moves.
+         */
+        camera.lookAt(0, 0, 10, 0, 0, 0);
+        assertFalse(node.hasActions());
+        assertTrue(geometry.hasActions(ActionThread.MAIN));
+        assertEquals(GlobalActionId.GEOMETRY_ENGINE_UNIFORM, geometry.getAction(0).getType());
+        assertTrue(handler.handleActions(geometry));
+        assertFalse(geometry.hasActions());
+    }
+
+    /**
+     * Notifier with one main and one GL action.
+     */
+    private static class TestNotifier extends NoHandleNotifier<GlobalActionId> {
+        /**
+         * Main action.
+         */
+        private final Action<GlobalActionId> mMainAction = new Action<>(this, GlobalActionId.GEOMETRY_MESH, ActionThread.MAIN);
+
+        /**
+         * GL action.
+         */
+        private final Action<GlobalActionId> mGLAction = new Action<>(this, GlobalActionId.VERTEX_BUFFER_LOAD, ActionThread.GL);
+
+        /**
+         * Number of times an action has been added or raised.
+         */
+        private int mAddedCount;
+
+        @Override
+        protected void onActionAdded(Action<GlobalActionId> action) {
+            mAddedCount++;
+        }
+
+        /**
+         * Raise an action.
+         *
+         * @param action The action.
+         */
+        private void raise(Action<GlobalActionId> action) {
+            raiseAction(action);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.sweetlab.sweetride.attributedata;
+
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.context.RecordingGL;
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test packing of vertex and indices buffers into buffer arenas.
+ */
+public class BufferArenaTest {
+    /**
+     * Bytes of a triangle, three vertices of three floats.
+     */
+    private static final int TRIANGLE_BYTES = 9 * 4;
+
+    /**
+     * Number of geometries drawn from one arena.
+     */
+    private static final int GEOMETRY_COUNT = 3;
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine(BackendContext.Flavour.VALIDATING);
+        mGL = mEngine.getGL();
+        mContext = mEngine.getContext();
+    }
+
+    @Test
+    public void testAllocateAndFree() {
+        BufferArena arena = new BufferArena(BufferArena.Content.VERTICES, 4 * TRIANGLE_BYTES, BufferUsage.STATIC);
+        ArenaVertexBuffer[] buffers = new ArenaVertexBuffer[4];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = createTriangle(arena);
+            buffers[i].create(mContext);
+            buffers[i].load(mContext);
+            assertEquals(i * TRIANGLE_BYTES, buffers[i].getAttributePointer(0).getOffsetBytes());
+            assertEquals(arena.getId(), buffers[i].getId());
+        }
+        assertEquals(1, mGL.getBufferCount());
+        assertEquals(0, arena.getFreeBytes());
+        assertEquals(4 * TRIANGLE_BYTES, mGL.getUploadedBytes());
+
+        /**
+         * Two separate holes, then merged into one when the middle is freed.
+         */
+        buffers[0].delete(mContext);
+        buffers[2].delete(mContext);
+        assertFalse(buffers[0].isCreated());
+        assertEquals(2, arena.getFreeBlockCount());
+        assertEquals(0.5f, arena.getFragmentation(), 0);
+        buffers[1].delete(mContext);
+        assertEquals(1, arena.getFreeBlockCount());
+        assertEquals(3 * TRIANGLE_BYTES, arena.getLargestFreeBlock());
+        assertEquals(0, arena.getFragmentation(), 0);
+
+        /**
+         * First fit reuses the start.
+         */
+        buffers[0].create(mContext);
+        assertEquals(0, buffers[0].getOffsetBytes());
+        assertEquals(2, arena.getAllocationCount());
+    }
+
+    @Test
+    public void testDefragment() {
+        BufferArena arena = new BufferArena(BufferArena.Content.VERTICES, 4 * TRIANGLE_BYTES, BufferUsage.STATIC);
+        ArenaVertexBuffer[] buffers = new ArenaVertexBuffer[4];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = createTriangle(arena);
+            buffers[i].create(mContext);
+            buffers[i].load(mContext);
+        }
+        buffers[0].delete(mContext);
+        buffers[2].delete(mContext);
+
+        /**
+         * Free bytes are enough but not in one range, live ranges are moved and re-uploaded.
+         */
+        mGL.resetCallCounts();
+        ArenaVertexBuffer large = new ArenaVertexBuffer(arena, "a_Pos", new VerticesData(new float[18]));
+        large.create(mContext);
+        assertEquals(1, arena.getDefragmentCount());
+        assertEquals(0, buffers[1].getAttributePointer(0).getOffsetBytes());
+        assertEquals(TRIANGLE_BYTES, buffers[3].getAttributePointer(0).getOffsetBytes());
+        assertEquals(2 * TRIANGLE_BYTES, large.getOffsetBytes());
+        assertEquals(2 * TRIANGLE_BYTES, mGL.getUploadedBytes());
+        assertEquals(0, arena.getFreeBytes());
+    }
+
+    @Test
+    public void testGrow() {
+        BufferArena arena = new BufferArena(BufferArena.Content.VERTICES, TRIANGLE_BYTES, BufferUsage.STATIC);
+        ArenaVertexBuffer first = createTriangle(arena);
+        first.create(mContext);
+        first.load(mContext);
+        ArenaVertexBuffer second = createTriangle(arena);
+        second.create(mContext);
+        assertEquals(1, arena.getGrowCount());
+        assertEquals(2 * TRIANGLE_BYTES, arena.getCapacity());
+        assertEquals(1, mGL.getBufferCount());
+        assertEquals(arena.getId(), first.getId());
+        assertEquals(TRIANGLE_BYTES, second.getOffsetBytes());
+    }
+
+    @Test
+    public void testWastedBytes() {
+        BufferArena arena = new BufferArena(BufferArena.Content.INDICES, 64, BufferUsage.STATIC);
+        ArenaIndicesBuffer first = new ArenaIndicesBuffer(arena, new short[]{0, 1, 2});
+        ArenaIndicesBuffer second = new ArenaIndicesBuffer(arena, new short[]{0, 1, 2});
+        first.create(mContext);
+        second.create(mContext);
+        assertEquals(8, second.getOffsetBytes());
+        assertEquals(4, arena.getWastedBytes());
+        assertEquals(16, arena.getUsedBytes());
+        first.delete(mContext);
+        assertEquals(2, arena.getWastedBytes());
+    }
+
+    @Test
+    public void testSingleBindForArena() {
+        BufferArena vertices = new BufferArena(BufferArena.Content.VERTICES, 1024, BufferUsage.STATIC);
+        BufferArena indices = new BufferArena(BufferArena.Content.INDICES, 1024, BufferUsage.STATIC);
+        DrawApplication application = new DrawApplication(vertices, indices);
+        mEngine.initialize(application);
+        mEngine.renderFrame(application);
+        assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+        assertEquals(2, mGL.getBufferCount());
+        assertEquals(GEOMETRY_COUNT, vertices.getAllocationCount());
+        assertEquals(GEOMETRY_COUNT, indices.getAllocationCount());
+
+        /**
+         * The vertex arena stays bound, only the attribute offset changes between meshes.
+         */
+        mGL.resetCallCounts();
+        mEngine.renderFrame(application);
+        assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+        assertEquals(GEOMETRY_COUNT, mGL.getCallCount("glVertexAttribPointer"));
+        assertEquals(GEOMETRY_COUNT, mContext.getRenderStats().getBufferSwitches());
+    }
+
+    /**
+     * Create a triangle vertex buffer in arena.
+     *
+     * @param arena The arena.
+     * @return The vertex buffer.
+     */
+    private static ArenaVertexBuffer createTriangle(BufferArena arena) {
+        return new ArenaVertexBuffer(arena, "a_Pos", HeadlessEngine.createTriangleVertices());
+    }
+
+    /**
+     * An application drawing geometries with buffers from arenas.
+     */
+    private static class DrawApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * Constructor.
+         *
+         * @param vertices The vertex arena.
+         * @param indices  The indices arena.
+         */
+        public DrawApplication(BufferArena vertices, BufferArena indices) {
+            ShaderProgram program = HeadlessEngine.createProgram();
+            for (int i = 0; i < GEOMETRY_COUNT; i++) {
+                Mesh mesh = new Mesh(MeshDrawingMode.TRIANGLES);
+                mesh.addVertexBuffer(createTriangle(vertices));
+                mesh.setIndicesBuffer(new ArenaIndicesBuffer(indices, new short[]{0, 1, 2}));
+                Material material = new Material();
+                material.setShaderProgram(program);
+                Geometry geometry = new Geometry();
+                geometry.setMaterial(material);
+                geometry.setMesh(mesh);
+                geometry.getModelTransform().translate(0, 0, -5 - i);
+                getRenderNode().addChild(geometry);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.sweetlab.sweetride.attributedata;
+
+import com.sweetlab.sweetride.UserApplication;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.context.RecordingGL;
+import com.sweetlab.sweetride.engine.FrontEndActionHandler;
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.intersect.BoundingBox;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.math.Vec3;
+import com.sweetlab.sweetride.mesh.Mesh;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test that dynamic vertex buffers only upload changed bytes into a ring of segments.
+ */
+public class DynamicVertexBufferTest {
+    /**
+     * Bytes of one vertex, three floats.
+     */
+    private static final int VERTEX_BYTES = 3 * 4;
+
+    /**
+     * Bytes of one segment, three vertices.
+     */
+    private static final int SEGMENT_BYTES = 3 * VERTEX_BYTES;
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine();
+        mGL = mEngine.getGL();
+    }
+
+    @Test
+    public void testInitialLoad() {
+        DynamicVertexBuffer buffer = createBuffer(DynamicVertexBuffer.DEFAULT_SEGMENT_COUNT);
+        DrawApplication application = createApplication(buffer);
+        renderFrame(application);
+        assertEquals(DynamicVertexBuffer.DEFAULT_SEGMENT_COUNT * SEGMENT_BYTES, mGL.getUploadedBytes());
+        assertEquals(1, mGL.getDrawCallCount());
+
+        /**
+         * Nothing changed, nothing uploaded.
+         */
+        mGL.resetCallCounts();
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(0, mGL.getUploadedBytes());
+    }
+
+    @Test
+    public void testOnlyChangedBytes() {
+        DynamicVertexBuffer buffer = createBuffer(DynamicVertexBuffer.DEFAULT_SEGMENT_COUNT);
+        DrawApplication application = createApplication(buffer);
+        renderFrame(application);
+
+        mGL.resetCallCounts();
+        buffer.set(1, new float[]{2, 2, 0});
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(1, mGL.getCallCount("glBufferSubData"));
+        assertEquals(VERTEX_BYTES, mGL.getUploadedBytes());
+        assertEquals(SEGMENT_BYTES, buffer.getAttributePointer(0).getOffsetBytes());
+        assertEquals(1, mGL.getCallCount("glVertexAttribPointer"));
+        assertEquals(1, mGL.getDrawCallCount());
+    }
+
+    @Test
+    public void testSegmentKeepsAllChangesSinceWritten() {
+        DynamicVertexBuffer buffer = createBuffer(2);
+        DrawApplication application = createApplication(buffer);
+        renderFrame(application);
+
+        /**
+         * Segment one gets vertex zero.
+         */
+        buffer.set(0, new float[]{1, 1, 1});
+        buffer.commit();
+        renderFrame(application);
+
+        /**
+         * Segment zero was written before vertex zero changed, gets vertex zero to two.
+         */
+        mGL.resetCallCounts();
+        buffer.set(2, new float[]{3, 3, 3});
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(SEGMENT_BYTES, mGL.getUploadedBytes());
+        assertEquals(0, buffer.getAttributePointer(0).getOffsetBytes());
+
+        /**
+         * Segment one only lacks vertex two.
+         */
+        mGL.resetCallCounts();
+        buffer.set(2, new float[]{4, 4, 4});
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(VERTEX_BYTES, mGL.getUploadedBytes());
+        assertEquals(SEGMENT_BYTES, buffer.getAttributePointer(0).getOffsetBytes());
+    }
+
+    @Test
+    public void testOrphaning() {
+        DynamicVertexBuffer buffer = createBuffer(1);
+        buffer.setOrphaning(true);
+        DrawApplication application = createApplication(buffer);
+        renderFrame(application);
+
+        mGL.resetCallCounts();
+        buffer.set(0, new float[]{1, 1, 1});
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(1, mGL.getCallCount("glBufferData"));
+        assertEquals(1, mGL.getCallCount("glBufferSubData"));
+        assertEquals(SEGMENT_BYTES, mGL.getUploadedBytes());
+        assertEquals(0, buffer.getAttributePointer(0).getOffsetBytes());
+    }
+
+    @Test
+    public void testOrphaningToggled() {
+        DynamicVertexBuffer buffer = createBuffer(2);
+        DrawApplication application = createApplication(buffer);
+        renderFrame(application);
+
+        /**
+         * Orphaning uploads all segments.
+         */
+        buffer.setOrphaning(true);
+        mGL.resetCallCounts();
+        buffer.set(0, new float[]{1, 1, 1});
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(1, mGL.getCallCount("glBufferData"));
+        assertEquals(2 * SEGMENT_BYTES, mGL.getUploadedBytes());
+        assertEquals(SEGMENT_BYTES, buffer.getAttributePointer(0).getOffsetBytes());
+
+        /**
+         * The other segment is written whole once orphaning is disabled.
+         */
+        buffer.setOrphaning(false);
+        mGL.resetCallCounts();
+        buffer.set(2, new float[]{3, 3, 3});
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(0, mGL.getCallCount("glBufferData"));
+        assertEquals(SEGMENT_BYTES, mGL.getUploadedBytes());
+        assertEquals(0, buffer.getAttributePointer(0).getOffsetBytes());
+
+        /**
+         * Back to changed bytes only.
+         */
+        mGL.resetCallCounts();
+        buffer.set(2, new float[]{4, 4, 4});
+        buffer.commit();
+        renderFrame(application);
+        assertEquals(VERTEX_BYTES, mGL.getUploadedBytes());
+        assertEquals(SEGMENT_BYTES, buffer.getAttributePointer(0).getOffsetBytes());
+    }
+
+    @Test
+    public void testBoxLineGeometry() {
+        Geometry geometry = new DrawApplication(createBuffer(1)).mGeometry;
+        Mesh mesh = geometry.getMesh();
+        mesh.setBoundingBox(new BoundingBox(new Vec3(-1, -1, -1), new Vec3(1, 1, 1)));
+        geometry.enableDrawBoundingBox(true);
+        Mesh lineMesh = ((Geometry) geometry.getChild(0)).getMesh();
+        DynamicVertexBuffer lineBuffer = (DynamicVertexBuffer) lineMesh.getVertexBuffer(0);
+        assertEquals(1, lineBuffer.getVertexData().getData()[2], 0);
+
+        /**
+         * Updating the box reuses mesh and buffer.
+         */
+        mesh.setBoundingBox(new BoundingBox(new Vec3(-2, -2, -2), new Vec3(2, 2, 2)));
+        new FrontEndActionHandler().handleActions(geometry);
+        assertSame(lineMesh, ((Geometry) geometry.getChild(0)).getMesh());
+        assertSame(lineBuffer, lineMesh.getVertexBuffer(0));
+        assertEquals(2, lineBuffer.getVertexData().getData()[2], 0);
+    }
+
+    /**
+     * Update and render one frame.
+     *
+     * @param application The application.
+     */
+    private void renderFrame(UserApplication application) {
+        mEngine.renderFrame(application);
+    }
+
+    /**
+     * Create an application drawing a dynamic buffer and initialize it with the engine.
+     *
+     * @param buffer The dynamic buffer.
+     * @return The application.
+     */
+    private DrawApplication createApplication(DynamicVertexBuffer buffer) {
+        DrawApplication application = new DrawApplication(buffer);
+        mEngine.initialize(application);
+        return application;
+    }
+
+    /**
+     * Create a dynamic buffer with a triangle.
+     *
+     * @param segmentCount Number of segments.
+     * @return The buffer.
+     */
+    private static DynamicVertexBuffer createBuffer(int segmentCount) {
+        return new DynamicVertexBuffer("a_Pos", HeadlessEngine.createTriangleVertices(), BufferUsage.DYNAMIC, segmentCount);
+    }
+
+    /**
+     * An application drawing one geometry with a dynamic buffer.
+     */
+    private static class DrawApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * The geometry.
+         */
+        private final Geometry mGeometry = new Geometry();
+
+        /**
+         * Constructor.
+         *
+         * @param buffer The dynamic buffer.
+         */
+        public DrawApplication(DynamicVertexBuffer buffer) {
+            Mesh mesh = new Mesh(MeshDrawingMode.TRIANGLES);
+            mesh.addVertexBuffer(buffer);
+            Material material = new Material();
+            material.setShaderProgram(HeadlessEngine.createProgram());
+            mGeometry.setMaterial(material);
+            mGeometry.setMesh(mesh);
+            mGeometry.getModelTransform().translate(0, 0, -5);
+            getRenderNode().addChild(mGeometry);
+        }
+    }
+}
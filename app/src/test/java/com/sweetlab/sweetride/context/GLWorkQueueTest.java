@@ -0,0 +1,134 @@
+package com.sweetlab.sweetride.context;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the GL work queue.
+ */
+public class GLWorkQueueTest {
+    /**
+     * Number of posting threads.
+     */
+    private static final int THREAD_COUNT = 4;
+
+    /**
+     * Number of work posted by each thread.
+     */
+    private static final int WORK_COUNT = 10000;
+
+    /**
+     * The queue.
+     */
+    private GLWorkQueue mQueue;
+
+    /**
+     * Order work was executed in.
+     */
+    private List<Integer> mExecuted;
+
+    @Before
+    public void setUp() {
+        mQueue = new GLWorkQueue();
+        mExecuted = new ArrayList<>();
+    }
+
+    @Test
+    public void testOrder() {
+        assertTrue(mQueue.isEmpty());
+        assertEquals(0, mQueue.execute(null, Long.MAX_VALUE));
+        for (int i = 0; i < 3; i++) {
+            mQueue.post(new RecordWork(i));
+        }
+        assertFalse(mQueue.isEmpty());
+        assertEquals(3, mQueue.execute(null, Long.MAX_VALUE));
+        assertTrue(mQueue.isEmpty());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, (int) mExecuted.get(i));
+        }
+    }
+
+    @Test
+    public void testBudget() {
+        for (int i = 0; i < 3; i++) {
+            mQueue.post(new RecordWork(i));
+        }
+
+        /**
+         * No budget, still one work per call.
+         */
+        assertEquals(1, mQueue.execute(null, 0));
+        assertEquals(1, mQueue.execute(null, 0));
+        assertEquals(1, mExecuted.get(1).intValue());
+        assertEquals(1, mQueue.execute(null, 0));
+        assertTrue(mQueue.isEmpty());
+    }
+
+    @Test
+    public void testManyProducers() throws InterruptedException {
+        final AtomicIntegerArray executed = new AtomicIntegerArray(THREAD_COUNT * WORK_COUNT);
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            final int base = t * WORK_COUNT;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < WORK_COUNT; i++) {
+                        final int index = base + i;
+                        mQueue.post(new GLWork() {
+                            @Override
+                            public void execute(BackendContext context) {
+                                executed.incrementAndGet(index);
+                            }
+                        });
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        int count = 0;
+        while (count < THREAD_COUNT * WORK_COUNT) {
+            count += mQueue.execute(null, Long.MAX_VALUE);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(mQueue.isEmpty());
+        for (int i = 0; i < executed.length(); i++) {
+            assertEquals(1, executed.get(i));
+        }
+    }
+
+    /**
+     * Work recording its number when executed.
+     */
+    private class RecordWork implements GLWork {
+        /**
+         * The work number.
+         */
+        private final int mNumber;
+
+        /**
+         * Constructor.
+         *
+         * @param number The work number.
+         */
+        private RecordWork(int number) {
+            mNumber = number;
+        }
+
+        @Override
+        public void execute(BackendContext context) {
+            mExecuted.add(mNumber);
+        }
+    }
+}
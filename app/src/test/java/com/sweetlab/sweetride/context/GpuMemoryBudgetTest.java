@@ -0,0 +1,182 @@
+package com.sweetlab.sweetride.context;
+
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.engine.frame.Frame;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that least recently drawn resources are evicted when over budget and uploaded again
+ * when drawn.
+ */
+public class GpuMemoryBudgetTest {
+    /**
+     * Number of geometries in scene.
+     */
+    private static final int GEOMETRY_COUNT = 4;
+
+    /**
+     * Bytes per geometry, three vertices of three floats and three short indices.
+     */
+    private static final int GEOMETRY_BYTES = 9 * 4 + 3 * 2;
+
+    /**
+     * The budget, fits all but one geometry.
+     */
+    private static final int BUDGET = (GEOMETRY_COUNT - 1) * GEOMETRY_BYTES;
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    /**
+     * The application.
+     */
+    private RowApplication mApplication;
+
+    /**
+     * The frame.
+     */
+    private Frame mFrame;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine();
+        mGL = mEngine.getGL();
+        mContext = mEngine.getContext();
+        mApplication = new RowApplication();
+        mEngine.initialize(mApplication);
+        mFrame = mEngine.getFrame();
+        mFrame.setMemoryBudget(BUDGET);
+    }
+
+    @Test
+    public void testVisibleNeverEvicted() {
+        renderFrame();
+        renderFrame();
+        GpuMemoryBudget budget = mFrame.getMemoryBudget();
+        assertEquals(GEOMETRY_COUNT * GEOMETRY_BYTES, budget.getResidentBytes());
+        assertEquals(0, budget.getEvictionCount());
+        assertEquals(2 * GEOMETRY_COUNT, mContext.getResourceManager().getLiveCount(ResourceType.BUFFER));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyDrawn() {
+        renderFrame();
+        mApplication.hide(0);
+        mApplication.hide(1);
+
+        mGL.resetCallCounts();
+        renderFrame();
+        GpuMemoryBudget budget = mFrame.getMemoryBudget();
+        assertEquals(2, budget.getEvictionCount());
+        assertEquals(BUDGET, budget.getResidentBytes());
+        assertEquals(2, mGL.getCallCount("glDeleteBuffers"));
+        assertEquals(BUDGET, mContext.getResourceManager().getTotalLiveBytes());
+        assertFalse(mApplication.mMeshes.get(0).getIndicesBuffer().isCreated());
+        assertTrue(mApplication.mMeshes.get(1).getIndicesBuffer().isCreated());
+    }
+
+    @Test
+    public void testUploadAgainWhenDrawn() {
+        renderFrame();
+        mApplication.hide(0);
+        mApplication.hide(1);
+        renderFrame();
+
+        /**
+         * Uploaded again, making the other hidden geometry least recently drawn.
+         */
+        mApplication.show(0);
+        mGL.resetCallCounts();
+        renderFrame();
+        assertEquals(GEOMETRY_COUNT - 1, mGL.getDrawCallCount());
+        assertEquals(2, mGL.getCallCount("glBufferData"));
+        assertEquals(2, mGL.getCallCount("glDeleteBuffers"));
+        assertTrue(mApplication.mMeshes.get(0).getIndicesBuffer().isCreated());
+        assertFalse(mApplication.mMeshes.get(1).getIndicesBuffer().isCreated());
+        assertEquals(BUDGET, mContext.getResourceManager().getTotalLiveBytes());
+    }
+
+    /**
+     * Update and render one frame.
+     */
+    private void renderFrame() {
+        mEngine.renderFrame(mApplication);
+    }
+
+    /**
+     * An application with a row of geometries in front of the camera, each with its own mesh.
+     */
+    private static class RowApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * The geometries.
+         */
+        private final List<Geometry> mGeometries = new ArrayList<>();
+
+        /**
+         * The meshes.
+         */
+        private final List<Mesh> mMeshes = new ArrayList<>();
+
+        /**
+         * Constructor.
+         */
+        public RowApplication() {
+            ShaderProgram program = HeadlessEngine.createProgram();
+            for (int i = 0; i < GEOMETRY_COUNT; i++) {
+                Mesh mesh = HeadlessEngine.createTriangleMesh();
+                Material material = new Material();
+                material.setShaderProgram(program);
+                Geometry geometry = new Geometry();
+                geometry.setMaterial(material);
+                geometry.setMesh(mesh);
+                geometry.getModelTransform().translate(0, 0, -10 + i);
+                getRenderNode().addChild(geometry);
+                mGeometries.add(geometry);
+                mMeshes.add(mesh);
+            }
+        }
+
+        /**
+         * Stop drawing a geometry.
+         *
+         * @param index The geometry index.
+         */
+        private void hide(int index) {
+            getRenderNode().removeChild(mGeometries.get(index));
+        }
+
+        /**
+         * Draw a geometry again.
+         *
+         * @param index The geometry index.
+         */
+        private void show(int index) {
+            getRenderNode().addChild(mGeometries.get(index));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.sweetlab.sweetride.context;
+
+import com.sweetlab.sweetride.shader.FragmentShader;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.VertexShader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that programs with equal sources share one GL program and that linked programs are
+ * stored as binaries and loaded again.
+ */
+public class ProgramCacheTest {
+    /**
+     * Vertex shader using engine uniform.
+     */
+    private static final String VERTEX_SHADER =
+            "attribute vec4 a_Pos; \n" +
+                    "uniform mat4 u_worldViewProjMat; \n" +
+                    "void main() { " +
+                    "    gl_Position = u_worldViewProjMat * a_Pos;" +
+                    "} ";
+
+    /**
+     * Fragment shader sampling a texture.
+     */
+    private static final String FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+                    "uniform sampler2D s_texture;\n" +
+                    "void main() {\n" +
+                    "gl_FragColor = texture2D(s_texture, vec2(0.5, 0.5));\n" +
+                    "}";
+
+    /**
+     * Fragment shader with a constant color.
+     */
+    private static final String COLOR_FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+                    "uniform vec4 u_color;\n" +
+                    "void main() {\n" +
+                    "gl_FragColor = u_color;\n" +
+                    "}";
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    /**
+     * Directory of program binaries.
+     */
+    private File mBinaryDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mBinaryDirectory = File.createTempFile("programs", "");
+        assertTrue(mBinaryDirectory.delete());
+        createContext(false);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mBinaryDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mBinaryDirectory.delete();
+    }
+
+    @Test
+    public void testEqualSourcesShared() {
+        ShaderProgram first = createProgram(FRAGMENT_SHADER);
+        int reflectionCalls = mGL.getCallCount("glGetActiveUniform");
+        ShaderProgram second = createProgram(FRAGMENT_SHADER);
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, mGL.getProgramCount());
+        assertEquals(1, mGL.getCallCount("glLinkProgram"));
+        assertEquals(2, mGL.getCallCount("glCompileShader"));
+        assertEquals(1, mContext.getProgramCache().getHitCount());
+
+        /**
+         * Reflected once, the uniforms are shared.
+         */
+        assertEquals(reflectionCalls, mGL.getCallCount("glGetActiveUniform"));
+        assertTrue(first.getUniform("s_texture") == second.getUniform("s_texture"));
+    }
+
+    @Test
+    public void testEqualSourcesSortId() {
+        /**
+         * Not created, sort ids are known from construction.
+         */
+        ShaderProgram first = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(FRAGMENT_SHADER));
+        ShaderProgram second = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(FRAGMENT_SHADER));
+        ShaderProgram other = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(COLOR_FRAGMENT_SHADER));
+        assertEquals(first.getSortId(), second.getSortId());
+        assertFalse(first.getSortId() == other.getSortId());
+    }
+
+    @Test
+    public void testSharedStageCompiledOnce() {
+        ShaderProgram first = createProgram(FRAGMENT_SHADER);
+        ShaderProgram second = createProgram(COLOR_FRAGMENT_SHADER);
+
+        assertFalse(first.getId() == second.getId());
+        assertEquals(2, mGL.getCallCount("glLinkProgram"));
+        assertEquals(3, mContext.getProgramCache().getCompileCount());
+        assertEquals(3, mContext.getResourceManager().getLiveCount(ResourceType.SHADER));
+    }
+
+    @Test
+    public void testReleasedByLastHolder() {
+        ShaderProgram first = createProgram(FRAGMENT_SHADER);
+        ShaderProgram second = createProgram(FRAGMENT_SHADER);
+        ResourceManager manager = mContext.getResourceManager();
+
+        first.delete(mContext);
+        assertFalse(first.isCreated());
+        assertTrue(second.isCreated());
+        assertEquals(1, manager.getLiveCount(ResourceType.PROGRAM));
+        assertEquals(2, manager.getLiveCount(ResourceType.SHADER));
+
+        second.delete(mContext);
+        assertEquals(0, manager.getLiveCount(ResourceType.PROGRAM));
+        assertEquals(0, manager.getLiveCount(ResourceType.SHADER));
+        assertEquals(0, mContext.getProgramCache().getProgramCount());
+
+        /**
+         * Linked again when created again.
+         */
+        first.create(mContext);
+        assertTrue(first.isCreated());
+        assertEquals(2, mGL.getCallCount("glLinkProgram"));
+    }
+
+    @Test
+    public void testBinaryNotStoredWithoutSupport() {
+        createProgram(FRAGMENT_SHADER);
+        assertFalse(mBinaryDirectory.exists());
+    }
+
+    @Test
+    public void testBinaryLoaded() {
+        createContext(true);
+        createProgram(FRAGMENT_SHADER);
+        assertEquals(1, mBinaryDirectory.listFiles().length);
+
+        /**
+         * A new context loads the binary, nothing is compiled or linked.
+         */
+        createContext(true);
+        ShaderProgram program = createProgram(FRAGMENT_SHADER);
+        assertTrue(program.isCreated());
+        assertEquals(1, mContext.getProgramCache().getBinaryLoadCount());
+        assertEquals(0, mGL.getCallCount("glCompileShader"));
+        assertEquals(0, mGL.getCallCount("glLinkProgram"));
+        assertEquals(0, mContext.getResourceManager().getLiveCount(ResourceType.SHADER));
+        assertTrue(program.getUniformSlot("u_worldViewProjMat") != ShaderProgram.NO_SLOT);
+        assertTrue(program.getAttribute("a_Pos") != null);
+    }
+
+    @Test
+    public void testRejectedBinaryRebuilt() throws IOException {
+        createContext(true);
+        createProgram(FRAGMENT_SHADER);
+
+        /**
+         * Replace the binary with one of an unknown format.
+         */
+        File file = mBinaryDirectory.listFiles()[0];
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        out.writeInt(RecordingGL.PROGRAM_BINARY_FORMAT + 1);
+        out.writeInt(1);
+        out.write(0);
+        out.close();
+
+        createContext(true);
+        ShaderProgram program = createProgram(FRAGMENT_SHADER);
+        assertTrue(program.isCreated());
+        assertEquals(0, mContext.getProgramCache().getBinaryLoadCount());
+        assertEquals(1, mGL.getCallCount("glLinkProgram"));
+        assertEquals(1, mContext.getResourceManager().getLiveCount(ResourceType.PROGRAM));
+
+        /**
+         * Stored again when linked.
+         */
+        createContext(true);
+        createProgram(FRAGMENT_SHADER);
+        assertEquals(1, mContext.getProgramCache().getBinaryLoadCount());
+    }
+
+    /**
+     * Create a new GL and context storing binaries in the binary directory.
+     *
+     * @param binarySupported If program binaries are supported.
+     */
+    private void createContext(boolean binarySupported) {
+        mGL = new RecordingGL(800, 480);
+        mGL.setProgramBinarySupported(binarySupported);
+        mContext = new BackendContext(mGL, BackendContext.Flavour.FAST);
+        mContext.getProgramCache().setBinaryDirectory(mBinaryDirectory);
+    }
+
+    /**
+     * Create a program.
+     *
+     * @param fragmentShader The fragment shader source.
+     * @return The program.
+     */
+    private ShaderProgram createProgram(String fragmentShader) {
+        ShaderProgram program = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(fragmentShader));
+        program.create(mContext);
+        return program;
+    }
+}
@@ -0,0 +1,96 @@
+package com.sweetlab.sweetride.context;
+
+import android.opengl.GLES20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the recording GL.
+ */
+public class RecordingGLTest {
+    /**
+     * Read buffer.
+     */
+    private final int[] mReadBuffer = new int[1];
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    @Before
+    public void setUp() {
+        mGL = new RecordingGL(100, 100);
+    }
+
+    @Test
+    public void testBufferBinding() {
+        mGL.glGenBuffers(1, mReadBuffer, 0);
+        int buffer = mReadBuffer[0];
+        mGL.glBindBuffer(GLES20.GL_ARRAY_BUFFER, buffer);
+        mGL.glGetIntegerv(GLES20.GL_ARRAY_BUFFER_BINDING, mReadBuffer, 0);
+        assertEquals(buffer, mReadBuffer[0]);
+        assertEquals(1, mGL.getBufferCount());
+
+        mGL.glBufferData(GLES20.GL_ARRAY_BUFFER, 64, null, GLES20.GL_STATIC_DRAW);
+        mGL.glGetBufferParameteriv(GLES20.GL_ARRAY_BUFFER, GLES20.GL_BUFFER_SIZE, mReadBuffer, 0);
+        assertEquals(64, mReadBuffer[0]);
+
+        /**
+         * Deleting a bound buffer reverts binding to zero.
+         */
+        mReadBuffer[0] = buffer;
+        mGL.glDeleteBuffers(1, mReadBuffer, 0);
+        assertEquals(0, mGL.getBoundBuffer(GLES20.GL_ARRAY_BUFFER));
+        assertEquals(0, mGL.getBufferCount());
+    }
+
+    @Test
+    public void testProgramReflection() {
+        int vertex = mGL.glCreateShader(GLES20.GL_VERTEX_SHADER);
+        mGL.glShaderSource(vertex, "attribute vec4 a_Pos;\nuniform mat4 u_Mat;\nvoid main() { gl_Position = u_Mat * a_Pos; }");
+        int fragment = mGL.glCreateShader(GLES20.GL_FRAGMENT_SHADER);
+        mGL.glShaderSource(fragment, "precision mediump float;\nuniform lowp vec4 u_Color[2];\nvoid main() { gl_FragColor = u_Color[0]; }");
+        int program = mGL.glCreateProgram();
+        mGL.glAttachShader(program, vertex);
+        mGL.glAttachShader(program, fragment);
+        mGL.glLinkProgram(program);
+
+        mGL.glGetProgramiv(program, GLES20.GL_LINK_STATUS, mReadBuffer, 0);
+        assertEquals(GLES20.GL_TRUE, mReadBuffer[0]);
+        mGL.glGetProgramiv(program, GLES20.GL_ACTIVE_ATTRIBUTES, mReadBuffer, 0);
+        assertEquals(1, mReadBuffer[0]);
+        mGL.glGetProgramiv(program, GLES20.GL_ACTIVE_UNIFORMS, mReadBuffer, 0);
+        assertEquals(2, mReadBuffer[0]);
+
+        int[] length = new int[1];
+        int[] size = new int[1];
+        int[] type = new int[1];
+        byte[] name = new byte[32];
+        mGL.glGetActiveUniform(program, 1, name.length, length, 0, size, 0, type, 0, name, 0);
+        assertEquals("u_Color", new String(name, 0, length[0]));
+        assertEquals(2, size[0]);
+        assertEquals(GLES20.GL_FLOAT_VEC4, type[0]);
+
+        assertEquals(0, mGL.glGetAttribLocation(program, "a_Pos"));
+        assertEquals(-1, mGL.glGetUniformLocation(program, "u_Missing"));
+        assertEquals(GLES20.GL_NO_ERROR, mGL.glGetError());
+    }
+
+    @Test
+    public void testCallCounts() {
+        mGL.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+        mGL.glDrawElements(GLES20.GL_TRIANGLES, 3, GLES20.GL_UNSIGNED_SHORT, 0);
+        mGL.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        assertEquals(2, mGL.getDrawCallCount());
+        assertEquals(1, mGL.getCallCount("glClear"));
+        assertEquals(3, mGL.getTotalCallCount());
+
+        mGL.resetCallCounts();
+        assertEquals(0, mGL.getTotalCallCount());
+        assertEquals(0, mGL.getCallCount("glClear"));
+    }
+}
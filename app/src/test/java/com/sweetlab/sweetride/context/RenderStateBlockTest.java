@@ -0,0 +1,130 @@
+package com.sweetlab.sweetride.context;
+
+import android.opengl.GLES20;
+
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test interning of render state blocks and that the render state only applies differing
+ * fields.
+ */
+public class RenderStateBlockTest {
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The render state.
+     */
+    private RenderState mRenderState;
+
+    @Before
+    public void setUp() {
+        mGL = new RecordingGL(HeadlessEngine.WIDTH, HeadlessEngine.HEIGHT);
+        mRenderState = new RenderState(mGL, true);
+    }
+
+    @Test
+    public void testIntern() {
+        BackendRenderSettings settings = createSettings();
+        RenderStateBlock block = RenderStateBlock.intern(settings);
+        assertSame(block, RenderStateBlock.intern(createSettings()));
+
+        settings.setBlend(true);
+        RenderStateBlock blend = RenderStateBlock.intern(settings);
+        assertTrue(block.getId() != blend.getId());
+        assertTrue(blend.getBlend());
+
+        /**
+         * The block is a copy, not affected by the settings.
+         */
+        settings.setBlend(false);
+        assertTrue(blend.getBlend());
+    }
+
+    @Test
+    public void testNonDefaultMask() {
+        RenderStateBlock block = RenderStateBlock.intern(new BackendRenderSettings());
+        assertEquals(0, block.getNonDefaultMask());
+
+        BackendRenderSettings settings = createSettings();
+        settings.setDepthTest(true);
+        block = RenderStateBlock.intern(settings);
+        assertEquals(RenderStateBlock.DEPTH_TEST | RenderStateBlock.VIEW_PORT, block.getNonDefaultMask());
+    }
+
+    @Test
+    public void testDiffMask() {
+        BackendRenderSettings settings = createSettings();
+        settings.setBlendFact(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        RenderStateBlock first = RenderStateBlock.intern(settings);
+        settings.setViewPort(0, 0, HeadlessEngine.WIDTH / 2, HeadlessEngine.HEIGHT);
+        settings.setCullFace(true);
+        RenderStateBlock second = RenderStateBlock.intern(settings);
+        assertEquals(RenderStateBlock.VIEW_PORT | RenderStateBlock.CULL_FACE, first.getDiffMask(second));
+        assertEquals(first.getDiffMask(second), second.getDiffMask(first));
+        assertEquals(0, first.getDiffMask(first));
+    }
+
+    @Test
+    public void testSameBlockSkipped() {
+        RenderStateBlock block = RenderStateBlock.intern(createSettings());
+        mRenderState.useSettings(block);
+        mGL.resetCallCounts();
+        mRenderState.useSettings(block);
+        assertEquals(0, mGL.getTotalCallCount());
+    }
+
+    @Test
+    public void testOnlyDiffApplied() {
+        BackendRenderSettings settings = createSettings();
+        settings.setDepthTest(true);
+        RenderStateBlock depth = RenderStateBlock.intern(settings);
+        settings.setBlend(true);
+        RenderStateBlock blend = RenderStateBlock.intern(settings);
+        mRenderState.useSettings(depth);
+
+        mGL.resetCallCounts();
+        mRenderState.useSettings(blend);
+        assertEquals(1, mGL.getCallCount("glEnable"));
+        assertTrue(mRenderState.getBlend());
+        assertTrue(mRenderState.getDepthTest());
+
+        mGL.resetCallCounts();
+        mRenderState.useSettings(depth);
+        assertEquals(1, mGL.getCallCount("glDisable"));
+        assertTrue(!mRenderState.getBlend());
+    }
+
+    @Test
+    public void testNewFrameAppliesAll() {
+        BackendRenderSettings settings = createSettings();
+        settings.setClear(0, GLES20.GL_COLOR_BUFFER_BIT);
+        RenderStateBlock block = RenderStateBlock.intern(settings);
+        mRenderState.useSettings(block);
+        assertEquals(0, mRenderState.getClearOrder());
+
+        mRenderState.resetClearOrder();
+        mRenderState.useSettings(block);
+        assertEquals(0, mRenderState.getClearOrder());
+    }
+
+    /**
+     * Create settings covering the surface.
+     *
+     * @return The settings.
+     */
+    private static BackendRenderSettings createSettings() {
+        BackendRenderSettings settings = new BackendRenderSettings();
+        settings.setViewPort(0, 0, HeadlessEngine.WIDTH, HeadlessEngine.HEIGHT);
+        return settings;
+    }
+}
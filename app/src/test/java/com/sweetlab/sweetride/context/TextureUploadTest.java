@@ -0,0 +1,264 @@
+package com.sweetlab.sweetride.context;
+
+import android.graphics.Bitmap;
+
+import com.sweetlab.sweetride.UserApplication;
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.engine.frame.Frame;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.resource.EvictableResource;
+import com.sweetlab.sweetride.resource.TextureResource;
+import com.sweetlab.sweetride.util.Util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the texture upload paths and that textures without CPU side source aren't evicted.
+ */
+public class TextureUploadTest {
+    /**
+     * Side of the textures in pixels.
+     */
+    private static final int SIDE = 4;
+
+    /**
+     * Bytes of a texture.
+     */
+    private static final int TEXTURE_BYTES = SIDE * SIDE * 4;
+
+    /**
+     * Bytes of the mesh buffers, three vertices of three floats and three short indices.
+     */
+    private static final int MESH_BYTES = 9 * 4 + 3 * 2;
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    /**
+     * The frame.
+     */
+    private Frame mFrame;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine();
+        mGL = mEngine.getGL();
+        mContext = mEngine.getContext();
+        mFrame = mEngine.getFrame();
+        mFrame.setMemoryBudget(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testPixelsUploadedAsIs() {
+        PixelTexture texture = new PixelTexture(true);
+        DrawApplication application = createApplication(texture);
+        renderFrame(application);
+        assertEquals(1, mGL.getCallCount("glTexImage2D"));
+        assertEquals(0, mGL.getCallCount("texImage2D"));
+        assertEquals(TEXTURE_BYTES, mContext.getResourceManager().getLiveBytes(ResourceType.TEXTURE));
+    }
+
+    @Test
+    public void testEvictableAccounted() {
+        DrawApplication application = createApplication(new PixelTexture(true));
+        renderFrame(application);
+        assertEquals(MESH_BYTES + TEXTURE_BYTES, mFrame.getMemoryBudget().getResidentBytes());
+    }
+
+    @Test
+    public void testNotEvictableNotAccounted() {
+        DrawApplication application = createApplication(new PixelTexture(false));
+        renderFrame(application);
+        assertEquals(MESH_BYTES, mFrame.getMemoryBudget().getResidentBytes());
+
+        /**
+         * Over budget, only the mesh buffers are evicted.
+         */
+        application.hide();
+        mFrame.setMemoryBudget(1);
+        renderFrame(application);
+        assertEquals(2, mFrame.getMemoryBudget().getEvictionCount());
+        assertEquals(1, mContext.getResourceManager().getLiveCount(ResourceType.TEXTURE));
+    }
+
+    /**
+     * Update and render one frame.
+     *
+     * @param application The application.
+     */
+    private void renderFrame(UserApplication application) {
+        mEngine.renderFrame(application);
+    }
+
+    /**
+     * Create an application drawing a texture and initialize it with the engine.
+     *
+     * @param texture The texture.
+     * @return The application.
+     */
+    private DrawApplication createApplication(TextureResource texture) {
+        DrawApplication application = new DrawApplication(texture);
+        mEngine.initialize(application);
+        return application;
+    }
+
+    /**
+     * A texture with pixels ready for upload.
+     */
+    private static class PixelTexture extends TextureResource implements EvictableResource {
+        /**
+         * If evictable.
+         */
+        private final boolean mEvictable;
+
+        /**
+         * The texture id.
+         */
+        private int mTextureId = ResourceManager.INVALID_TEXTURE_ID;
+
+        /**
+         * Constructor.
+         *
+         * @param evictable If evictable.
+         */
+        private PixelTexture(boolean evictable) {
+            mEvictable = evictable;
+        }
+
+        @Override
+        public boolean isEvictable() {
+            return mEvictable;
+        }
+
+        @Override
+        public void create(BackendContext context) {
+            mTextureId = context.getResourceManager().generateTexture();
+        }
+
+        @Override
+        public boolean isCreated() {
+            return mTextureId != ResourceManager.INVALID_TEXTURE_ID;
+        }
+
+        @Override
+        public void delete(BackendContext context) {
+            context.getResourceManager().deleteTexture(mTextureId);
+            mTextureId = ResourceManager.INVALID_TEXTURE_ID;
+        }
+
+        @Override
+        public int getId() {
+            return mTextureId;
+        }
+
+        @Override
+        public void load(BackendContext context) {
+            context.getTextureUnitManager().getDefaultTextureUnit().getTexture2DTarget().load(this);
+        }
+
+        @Override
+        public String getName() {
+            return "s_texture";
+        }
+
+        @Override
+        public int getWidth() {
+            return SIDE;
+        }
+
+        @Override
+        public int getHeight() {
+            return SIDE;
+        }
+
+        @Override
+        public Bitmap getData() {
+            return null;
+        }
+
+        @Override
+        public Buffer getPixels() {
+            return Util.allocByteBuffer(TEXTURE_BYTES);
+        }
+
+        @Override
+        public TexelFormat getTexelFormat() {
+            return TexelFormat.RGBA;
+        }
+
+        @Override
+        public TexelType getTexelType() {
+            return TexelType.UNSIGNED_BYTE;
+        }
+
+        @Override
+        public TextureType getTextureType() {
+            return TextureType.TEXTURE_2D;
+        }
+
+        @Override
+        public AttachmentType getAttachmentType() {
+            return AttachmentType.TEXTURE_2D;
+        }
+
+        @Override
+        public MinFilter getMinFilter() {
+            return MinFilter.NEAREST;
+        }
+
+        @Override
+        public MagFilter getMagFilter() {
+            return MagFilter.NEAREST;
+        }
+    }
+
+    /**
+     * An application drawing one textured geometry.
+     */
+    private static class DrawApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * The geometry.
+         */
+        private final Geometry mGeometry = new Geometry();
+
+        /**
+         * Constructor.
+         *
+         * @param texture The texture.
+         */
+        public DrawApplication(TextureResource texture) {
+            Material material = new Material();
+            material.setShaderProgram(HeadlessEngine.createProgram(HeadlessEngine.TEXTURE_FRAGMENT_SHADER));
+            material.addTexture(texture);
+            mGeometry.setMaterial(material);
+            mGeometry.setMesh(HeadlessEngine.createTriangleMesh());
+            mGeometry.getModelTransform().translate(0, 0, -5);
+            getRenderNode().addChild(mGeometry);
+        }
+
+        /**
+         * Stop drawing the geometry.
+         */
+        private void hide() {
+            getRenderNode().removeChild(mGeometry);
+        }
+    }
+}
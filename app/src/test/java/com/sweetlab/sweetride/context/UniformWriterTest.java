@@ -0,0 +1,171 @@
+package com.sweetlab.sweetride.context;
+
+import com.sweetlab.sweetride.shader.FragmentShader;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.UniformBinding;
+import com.sweetlab.sweetride.shader.VertexShader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test writing uniforms by slot and that unchanged values are not written again.
+ */
+public class UniformWriterTest {
+    /**
+     * Vertex shader with a matrix and a vector uniform.
+     */
+    private static final String VERTEX_SHADER =
+            "attribute vec4 a_Pos; \n" +
+                    "uniform mat4 u_worldViewProjMat; \n" +
+                    "uniform vec4 u_color; \n" +
+                    "varying vec4 v_color; \n" +
+                    "void main() { " +
+                    "    v_color = u_color;" +
+                    "    gl_Position = u_worldViewProjMat * a_Pos;" +
+                    "} ";
+
+    /**
+     * Fragment shader sampling a texture.
+     */
+    private static final String FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+                    "uniform sampler2D s_texture;\n" +
+                    "varying vec4 v_color; \n" +
+                    "void main() {\n" +
+                    "gl_FragColor = v_color * texture2D(s_texture, vec2(0.5, 0.5));\n" +
+                    "}";
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    /**
+     * The uniform writer.
+     */
+    private UniformWriter mWriter;
+
+    @Before
+    public void setUp() {
+        mGL = new RecordingGL(800, 480);
+        mContext = new BackendContext(mGL, BackendContext.Flavour.FAST);
+        mWriter = mContext.getUniformWriter();
+    }
+
+    @Test
+    public void testBinding() {
+        ShaderProgram program = createProgram();
+        UniformBinding binding = new UniformBinding("u_color");
+        int slot = binding.getSlot(program);
+        assertTrue(slot != ShaderProgram.NO_SLOT);
+        assertEquals(slot, program.getUniformSlot("u_color"));
+        assertEquals(ShaderProgram.NO_SLOT, new UniformBinding("u_missing").getSlot(program));
+
+        /**
+         * Bound again in another program.
+         */
+        ShaderProgram other = createProgram();
+        assertEquals(other.getUniformSlot("u_color"), binding.getSlot(other));
+    }
+
+    @Test
+    public void testUnchangedNotWritten() {
+        ShaderProgram program = createProgram();
+        int slot = program.getUniformSlot("u_color");
+        float[] color = new float[]{1, 0, 0, 1};
+        mWriter.writeFloat(program, slot, color, 0);
+        mWriter.writeFloat(program, slot, color, 0);
+        mWriter.writeFloat(program, "u_color", color);
+        assertEquals(1, mGL.getCallCount("glUniform4fv"));
+
+        color[1] = 1;
+        mWriter.writeFloat(program, slot, color, 0);
+        assertEquals(2, mGL.getCallCount("glUniform4fv"));
+    }
+
+    @Test
+    public void testOffset() {
+        ShaderProgram program = createProgram();
+        int slot = program.getUniformSlot("u_color");
+        float[] data = new float[]{1, 0, 0, 1, 1, 0, 0, 1};
+        mWriter.writeFloat(program, slot, data, 0);
+        mWriter.writeFloat(program, slot, data, 4);
+        assertEquals(1, mGL.getCallCount("glUniform4fv"));
+    }
+
+    @Test
+    public void testShadowPerProgram() {
+        /**
+         * Programs with equal sources share the GL program and its shadows, differ the source.
+         */
+        ShaderProgram first = createProgram(FRAGMENT_SHADER);
+        ShaderProgram second = createProgram(FRAGMENT_SHADER + "\n");
+        float[] color = new float[]{1, 0, 0, 1};
+        mContext.getState().useProgram(first);
+        mWriter.writeFloat(first, "u_color", color);
+        mContext.getState().useProgram(second);
+        mWriter.writeFloat(second, "u_color", color);
+        assertEquals(2, mGL.getCallCount("glUniform4fv"));
+    }
+
+    @Test
+    public void testIntUnchangedNotWritten() {
+        ShaderProgram program = createProgram();
+        int slot = program.getUniformSlot("s_texture");
+        int[] unit = new int[]{0};
+        mWriter.writeInt(program, slot, unit);
+        mWriter.writeInt(program, slot, unit);
+        assertEquals(1, mGL.getCallCount("glUniform1iv"));
+        unit[0] = 1;
+        mWriter.writeInt(program, slot, unit);
+        assertEquals(2, mGL.getCallCount("glUniform1iv"));
+    }
+
+    @Test
+    public void testRelinkWritesAgain() {
+        ShaderProgram program = createProgram();
+        UniformBinding binding = new UniformBinding("u_color");
+        float[] color = new float[]{1, 0, 0, 1};
+        mWriter.writeFloat(program, binding.getSlot(program), color, 0);
+
+        /**
+         * A linked program again has default values.
+         */
+        program.delete(mContext);
+        program.create(mContext);
+        mContext.getState().useProgram(program);
+        mWriter.writeFloat(program, binding.getSlot(program), color, 0);
+        assertEquals(2, mGL.getCallCount("glUniform4fv"));
+    }
+
+    /**
+     * Create a program and use it.
+     *
+     * @return The program.
+     */
+    private ShaderProgram createProgram() {
+        return createProgram(FRAGMENT_SHADER);
+    }
+
+    /**
+     * Create a program with a fragment shader and use it.
+     *
+     * @param fragmentShader The fragment shader source.
+     * @return The program.
+     */
+    private ShaderProgram createProgram(String fragmentShader) {
+        ShaderProgram program = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(fragmentShader));
+        program.create(mContext);
+        mContext.getState().useProgram(program);
+        return program;
+    }
+}
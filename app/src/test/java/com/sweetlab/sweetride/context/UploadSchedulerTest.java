@@ -0,0 +1,138 @@
+package com.sweetlab.sweetride.context;
+
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that uploads are spread over frames, nearest first.
+ */
+public class UploadSchedulerTest {
+    /**
+     * Number of geometries in scene.
+     */
+    private static final int GEOMETRY_COUNT = 5;
+
+    /**
+     * Bytes uploaded per geometry, three vertices of three floats and three short indices.
+     */
+    private static final int GEOMETRY_BYTES = 9 * 4 + 3 * 2;
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The application.
+     */
+    private RowApplication mApplication;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine();
+        mGL = mEngine.getGL();
+        mApplication = new RowApplication();
+        mEngine.initialize(mApplication);
+    }
+
+    @Test
+    public void testNearestFirst() {
+        UploadScheduler scheduler = new UploadScheduler(2 * GEOMETRY_BYTES);
+        scheduler.onNewFrame();
+        scheduler.schedule(mApplication.mGeometries, mApplication.getCamera());
+
+        /**
+         * Geometries are added far to near.
+         */
+        for (int i = 0; i < GEOMETRY_COUNT; i++) {
+            assertEquals(i < GEOMETRY_COUNT - 2, scheduler.isDeferred(i));
+        }
+        assertEquals(2 * GEOMETRY_BYTES, scheduler.getUsedBytes());
+        assertEquals(GEOMETRY_COUNT - 2, scheduler.getDeferredCount());
+    }
+
+    @Test
+    public void testProgressWithSmallBudget() {
+        UploadScheduler scheduler = new UploadScheduler(1);
+        scheduler.onNewFrame();
+        scheduler.schedule(mApplication.mGeometries, null);
+        assertFalse(scheduler.isDeferred(0));
+        assertTrue(scheduler.isDeferred(1));
+        assertEquals(GEOMETRY_BYTES, scheduler.getUsedBytes());
+    }
+
+    @Test
+    public void testFramesWithBudget() {
+        mEngine.getFrame().setUploadBudget(2 * GEOMETRY_BYTES);
+
+        int drawn = 0;
+        for (int i = 0; i < 3; i++) {
+            mGL.resetCallCounts();
+            mEngine.renderFrame(mApplication);
+
+            /**
+             * Two more geometries each frame, each with one vertex and one indices buffer.
+             */
+            drawn = Math.min(drawn + 2, GEOMETRY_COUNT);
+            assertEquals(drawn, mGL.getDrawCallCount());
+            assertTrue(mGL.getCallCount("glBufferData") <= 4);
+        }
+        assertEquals(2 * GEOMETRY_COUNT, mGL.getBufferCount());
+
+        mGL.resetCallCounts();
+        mEngine.renderFrame(mApplication);
+        assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+        assertEquals(0, mGL.getCallCount("glBufferData"));
+    }
+
+    @Test
+    public void testFramesWithoutBudget() {
+        mEngine.renderFrame(mApplication);
+        assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+    }
+
+    /**
+     * An application with a row of geometries in front of the camera, each with its own mesh.
+     */
+    private static class RowApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * The geometries, far to near.
+         */
+        private final List<Node> mGeometries = new ArrayList<>();
+
+        /**
+         * Constructor.
+         */
+        public RowApplication() {
+            ShaderProgram program = HeadlessEngine.createProgram();
+            for (int i = 0; i < GEOMETRY_COUNT; i++) {
+                Material material = new Material();
+                material.setShaderProgram(program);
+                Geometry geometry = new Geometry();
+                geometry.setMaterial(material);
+                geometry.setMesh(HeadlessEngine.createTriangleMesh());
+                geometry.getModelTransform().translate(0, 0, -10 + i);
+                getRenderNode().addChild(geometry);
+                mGeometries.add(geometry);
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.sweetlab.sweetride.engine;
+
+import com.sweetlab.sweetride.UserApplication;
+import com.sweetlab.sweetride.attributedata.IndicesBuffer;
+import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.attributedata.VerticesData;
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.camera.Frustrum;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.context.RecordingGL;
+import com.sweetlab.sweetride.engine.frame.Frame;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.rendernode.DefaultRenderNode;
+import com.sweetlab.sweetride.shader.FragmentShader;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.VertexShader;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test fixture running the engine on plain JVM against the recording GL. Updates and renders
+ * frames on the calling thread, with the resource releaser of the context like EngineView.
+ */
+public class HeadlessEngine {
+    /**
+     * Surface width.
+     */
+    public static final int WIDTH = 800;
+
+    /**
+     * Surface height.
+     */
+    public static final int HEIGHT = 480;
+
+    /**
+     * Vertex shader using engine uniform.
+     */
+    public static final String VERTEX_SHADER =
+            "attribute vec4 a_Pos; \n" +
+                    "uniform mat4 u_worldViewProjMat; \n" +
+                    "void main() { " +
+                    "    gl_Position = u_worldViewProjMat * a_Pos;" +
+                    "} ";
+
+    /**
+     * Fragment shader coloring red.
+     */
+    public static final String FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+                    "void main() {\n" +
+                    "gl_FragColor = vec4(1.0, 0.0, 0.0, 1.0);\n" +
+                    "}";
+
+    /**
+     * Fragment shader sampling a texture.
+     */
+    public static final String TEXTURE_FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+                    "uniform sampler2D s_texture;\n" +
+                    "void main() {\n" +
+                    "gl_FragColor = texture2D(s_texture, vec2(0.5, 0.5));\n" +
+                    "}";
+
+    /**
+     * The recording GL.
+     */
+    private final RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private final BackendContext mContext;
+
+    /**
+     * The engine root.
+     */
+    private final Node mEngineRoot = new Node();
+
+    /**
+     * The pipelined frame.
+     */
+    private final Frame mFrame = new Frame();
+
+    /**
+     * Constructor with a fast backend context.
+     */
+    public HeadlessEngine() {
+        this(BackendContext.Flavour.FAST);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param flavour The backend context flavour.
+     */
+    public HeadlessEngine(BackendContext.Flavour flavour) {
+        mGL = new RecordingGL(WIDTH, HEIGHT);
+        mContext = new BackendContext(mGL, flavour);
+        mFrame.setResourceReleaser(mContext.getResourceReleaser());
+    }
+
+    /**
+     * Get the recording GL.
+     *
+     * @return The GL.
+     */
+    public RecordingGL getGL() {
+        return mGL;
+    }
+
+    /**
+     * Get the backend context.
+     *
+     * @return The context.
+     */
+    public BackendContext getContext() {
+        return mContext;
+    }
+
+    /**
+     * Get the engine root.
+     *
+     * @return The engine root.
+     */
+    public Node getEngineRoot() {
+        return mEngineRoot;
+    }
+
+    /**
+     * Get the frame.
+     *
+     * @return The frame.
+     */
+    public Frame getFrame() {
+        return mFrame;
+    }
+
+    /**
+     * Initialize an application with the engine root and surface size.
+     *
+     * @param application The application.
+     */
+    public void initialize(UserApplication application) {
+        application.onInitialized(mEngineRoot, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Update and render one frame.
+     *
+     * @param application The application.
+     */
+    public void renderFrame(UserApplication application) {
+        assertTrue(mFrame.update(application, mEngineRoot));
+        mContext.onNewFrame();
+        assertTrue(mFrame.render(mContext));
+    }
+
+    /**
+     * Create a program coloring red.
+     *
+     * @return The program.
+     */
+    public static ShaderProgram createProgram() {
+        return createProgram(FRAGMENT_SHADER);
+    }
+
+    /**
+     * Create a program using the engine uniform vertex shader.
+     *
+     * @param fragmentShader The fragment shader source.
+     * @return The program.
+     */
+    public static ShaderProgram createProgram(String fragmentShader) {
+        return new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(fragmentShader));
+    }
+
+    /**
+     * Create the vertices of a triangle, three vertices of three floats.
+     *
+     * @return The vertices.
+     */
+    public static VerticesData createTriangleVertices() {
+        return new VerticesData(new float[]{-1, -1, 0, 1, -1, 0, 0, 1, 0});
+    }
+
+    /**
+     * Create a triangle mesh with a static vertex buffer and a static indices buffer.
+     *
+     * @return The mesh.
+     */
+    public static Mesh createTriangleMesh() {
+        Mesh mesh = new Mesh(MeshDrawingMode.TRIANGLES);
+        mesh.addVertexBuffer(new VertexBuffer("a_Pos", createTriangleVertices(), BufferUsage.STATIC));
+        mesh.setIndicesBuffer(new IndicesBuffer(new short[]{0, 1, 2}, BufferUsage.STATIC));
+        return mesh;
+    }
+
+    /**
+     * An application with a render node and a camera looking down negative z. Tests add their
+     * geometries to the render node.
+     */
+    public static class SceneApplication extends UserApplication {
+        /**
+         * The render node.
+         */
+        private final DefaultRenderNode mRenderNode = new DefaultRenderNode();
+
+        /**
+         * The camera.
+         */
+        private final Camera mCamera = new Camera();
+
+        /**
+         * Constructor.
+         */
+        public SceneApplication() {
+            mCamera.lookAt(0, 0, 0, 0, 0, -1);
+            mRenderNode.setCamera(mCamera);
+        }
+
+        /**
+         * Get the render node.
+         *
+         * @return The render node.
+         */
+        public DefaultRenderNode getRenderNode() {
+            return mRenderNode;
+        }
+
+        /**
+         * Get the camera.
+         *
+         * @return The camera.
+         */
+        public Camera getCamera() {
+            return mCamera;
+        }
+
+        @Override
+        public void onInitialized(Node engineRoot, int width, int height) {
+            engineRoot.addChild(mRenderNode);
+            mCamera.getFrustrum().setPerspectiveProjection(90, Frustrum.FovType.AUTO_FIT, 0.1f, 1000, width, height);
+        }
+
+        @Override
+        public void onSurfaceChanged(int width, int height) {
+        }
+
+        @Override
+        public void onUpdate(float dt) {
+        }
+    }
+}
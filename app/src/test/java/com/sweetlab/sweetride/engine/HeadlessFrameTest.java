@@ -0,0 +1,146 @@
+package com.sweetlab.sweetride.engine;
+
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.RecordingGL;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run update and render of a large scene on plain JVM against the recording GL and check the
+ * GL calls made per frame.
+ */
+public class HeadlessFrameTest {
+    /**
+     * Number of geometries in scene.
+     */
+    private static final int GEOMETRY_COUNT = 2000;
+
+    /**
+     * Max number of GL calls allowed per geometry and frame.
+     */
+    private static final int MAX_CALLS_PER_GEOMETRY = 6;
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The application.
+     */
+    private GridApplication mApplication;
+
+    @Before
+    public void setUp() {
+        createEngine(BackendContext.Flavour.FAST);
+    }
+
+    @Test
+    public void testResourcesCreatedOnce() {
+        for (int i = 0; i < 10; i++) {
+            renderFrame();
+        }
+        assertEquals(1, mGL.getProgramCount());
+        assertEquals(2, mGL.getBufferCount());
+    }
+
+    @Test
+    public void testCallsPerFrame() {
+        /**
+         * First frame creates and loads resources.
+         */
+        renderFrame();
+
+        for (int i = 0; i < 10; i++) {
+            mGL.resetCallCounts();
+            renderFrame();
+
+            assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+            assertEquals(GEOMETRY_COUNT, mEngine.getContext().getRenderStats().getDrawCalls());
+
+            /**
+             * All geometries share program, the state shadow filters the redundant program
+             * switches. Guard the total number of calls so a regression shows up here.
+             */
+            assertTrue(mGL.getCallCount("glUseProgram") <= 1);
+            assertTrue(mGL.toString(), mGL.getTotalCallCount() <= GEOMETRY_COUNT * MAX_CALLS_PER_GEOMETRY);
+            assertEquals(0, mGL.getCallCount("glBufferData"));
+            assertEquals(0, mGL.getCallCount("glLinkProgram"));
+
+            /**
+             * Fast backend never reads GL state.
+             */
+            assertEquals(0, mGL.getCallCount("glGetError"));
+            assertEquals(0, mGL.getCallCount("glGetIntegerv"));
+        }
+    }
+
+    @Test
+    public void testValidatingBackend() {
+        createEngine(BackendContext.Flavour.VALIDATING);
+        for (int i = 0; i < 3; i++) {
+            mGL.resetCallCounts();
+            renderFrame();
+            assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+        }
+    }
+
+    /**
+     * Create the engine and the application.
+     *
+     * @param flavour The backend context flavour.
+     */
+    private void createEngine(BackendContext.Flavour flavour) {
+        mEngine = new HeadlessEngine(flavour);
+        mGL = mEngine.getGL();
+        mApplication = new GridApplication(GEOMETRY_COUNT);
+        mEngine.initialize(mApplication);
+    }
+
+    /**
+     * Update and render one frame.
+     */
+    private void renderFrame() {
+        mEngine.renderFrame(mApplication);
+    }
+
+    /**
+     * An application with a grid of geometries in front of the camera, all sharing one program
+     * and one mesh.
+     */
+    private static class GridApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * Constructor.
+         *
+         * @param count Number of geometries.
+         */
+        public GridApplication(int count) {
+            ShaderProgram program = HeadlessEngine.createProgram();
+            Mesh mesh = HeadlessEngine.createTriangleMesh();
+
+            int side = (int) Math.ceil(Math.sqrt(count));
+            for (int i = 0; i < count; i++) {
+                Material material = new Material();
+                material.setShaderProgram(program);
+                Geometry geometry = new Geometry();
+                geometry.setMaterial(material);
+                geometry.setMesh(mesh);
+                geometry.getModelTransform().translate(i % side - side / 2, i / side - side / 2, -side);
+                getRenderNode().addChild(geometry);
+            }
+        }
+    }
+}
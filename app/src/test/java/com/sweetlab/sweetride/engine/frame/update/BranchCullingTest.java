@@ -0,0 +1,161 @@
+package com.sweetlab.sweetride.engine.frame.update;
+
+import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.attributedata.VerticesData;
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.camera.Frustrum;
+import com.sweetlab.sweetride.camera.ViewFrustrumCulling;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.intersect.BoundingBox;
+import com.sweetlab.sweetride.math.Vec3;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.rendernode.RenderNode;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test culling of whole branches using the branch bounding boxes.
+ */
+public class BranchCullingTest {
+    /**
+     * Number of geometries in each group.
+     */
+    private static final int GROUP_SIZE = 10;
+
+    /**
+     * The render node with culling enabled.
+     */
+    private RenderNode mRenderNode;
+
+    /**
+     * Group in front of camera.
+     */
+    private Node mVisibleGroup;
+
+    /**
+     * Group to the side of the camera.
+     */
+    private Node mHiddenGroup;
+
+    /**
+     * The collector.
+     */
+    private RenderNodeContentCollector mCollector;
+
+    @Before
+    public void setUp() {
+        Camera camera = new Camera();
+        camera.lookAt(0, 0, 0, 0, 0, -1);
+        camera.getFrustrum().setPerspectiveProjection(90, Frustrum.FovType.AUTO_FIT, 0.1f, 100, 100, 100);
+
+        mRenderNode = new RenderNode();
+        mRenderNode.setCamera(camera);
+        mRenderNode.enableViewFrustrumCulling(true);
+
+        Mesh mesh = new Mesh(MeshDrawingMode.TRIANGLES);
+        mesh.addVertexBuffer(new VertexBuffer("a_Pos", new VerticesData(new float[]{-1, -1, 0, 1, -1, 0, 0, 1, 0}), BufferUsage.STATIC));
+        mesh.setBoundingBox(new BoundingBox(new float[]{-1, -1, 0, 1, -1, 0, 0, 1, 0}));
+
+        mVisibleGroup = createGroup(mesh);
+        mVisibleGroup.getModelTransform().translate(0, 0, -20);
+        mHiddenGroup = createGroup(mesh);
+        mHiddenGroup.getModelTransform().translate(1000, 0, -20);
+        mRenderNode.addChild(mVisibleGroup);
+        mRenderNode.addChild(mHiddenGroup);
+
+        mCollector = new RenderNodeContentCollector();
+    }
+
+    @Test
+    public void testBranchBox() {
+        /**
+         * Geometries are placed along x from 0 to GROUP_SIZE - 1 in group space.
+         */
+        BoundingBox box = mHiddenGroup.getBranchBox();
+        assertNotNull(box);
+        Vec3 min = new Vec3();
+        Vec3 max = new Vec3();
+        box.getMin(min);
+        box.getMax(max);
+        assertEquals(999, min.x, 0.001f);
+        assertEquals(1000 + GROUP_SIZE, max.x, 0.001f);
+        assertEquals(-20, min.z, 0.001f);
+
+        /**
+         * A geometry without bounds makes the whole branch unbounded.
+         */
+        mHiddenGroup.addChild(new Geometry());
+        assertNull(mHiddenGroup.getBranchBox());
+        assertNull(mRenderNode.getBranchBox());
+    }
+
+    @Test
+    public void testCullBranch() {
+        mCollector.collect(mRenderNode);
+
+        /**
+         * Render node + visible group and its geometries.
+         */
+        assertEquals(2 + GROUP_SIZE, mCollector.getResult().size());
+        assertTrue(mCollector.getResult().contains(mVisibleGroup));
+        assertTrue(!mCollector.getResult().contains(mHiddenGroup));
+        mCollector.reset();
+
+        /**
+         * Moving the group into view dirties the branch boxes.
+         */
+        mHiddenGroup.getModelTransform().translate(-1000, 0, 0);
+        mCollector.collect(mRenderNode);
+        assertEquals(3 + 2 * GROUP_SIZE, mCollector.getResult().size());
+        mCollector.reset();
+    }
+
+    @Test
+    public void testPlaneMask() {
+        ViewFrustrumCulling culling = new ViewFrustrumCulling();
+        Camera camera = mRenderNode.findCamera();
+
+        BoundingBox inside = new BoundingBox(new Vec3(-1, -1, -11), new Vec3(1, 1, -10));
+        assertEquals(0, culling.cull(inside, camera, ViewFrustrumCulling.ALL_PLANES));
+
+        BoundingBox outside = new BoundingBox(new Vec3(-1, -1, 10), new Vec3(1, 1, 11));
+        assertEquals(ViewFrustrumCulling.OUTSIDE, culling.cull(outside, camera, ViewFrustrumCulling.ALL_PLANES));
+
+        /**
+         * Crossing the far plane only.
+         */
+        BoundingBox far = new BoundingBox(new Vec3(-1, -1, -101), new Vec3(1, 1, -99));
+        assertEquals(1 << 1, culling.cull(far, camera, ViewFrustrumCulling.ALL_PLANES));
+
+        /**
+         * Planes not in mask are not tested.
+         */
+        assertEquals(0, culling.cull(outside, camera, 0));
+    }
+
+    /**
+     * Create a group of geometries placed along x axis.
+     *
+     * @param mesh The mesh to use.
+     * @return The group.
+     */
+    private Node createGroup(Mesh mesh) {
+        Node group = new Node();
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            Geometry geometry = new Geometry();
+            geometry.setMesh(mesh);
+            geometry.getModelTransform().translate(i, 0, 0);
+            group.addChild(geometry);
+        }
+        return group;
+    }
+}
@@ -0,0 +1,218 @@
+package com.sweetlab.sweetride.engine.frame.update;
+
+import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.attributedata.VerticesData;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.math.Transform;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.node.NodeController;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that parallel graph update gives the same end state as serial update.
+ */
+public class ParallelGraphUpdateTest {
+    /**
+     * Number of independent branches.
+     */
+    private static final int BRANCH_COUNT = 16;
+
+    /**
+     * Number of geometries per branch.
+     */
+    private static final int GEOMETRY_COUNT = 20;
+
+    /**
+     * Number of frames to update.
+     */
+    private static final int FRAME_COUNT = 30;
+
+    /**
+     * Delta time between frames.
+     */
+    private static final float DT = 1 / 60f;
+
+    /**
+     * Mesh shared by all geometries in all branches.
+     */
+    private Mesh mMesh;
+
+    @Before
+    public void setUp() {
+        mMesh = new Mesh(MeshDrawingMode.TRIANGLES);
+        mMesh.addVertexBuffer(new VertexBuffer("a_Pos", new VerticesData(new float[]{-1, -1, 0, 1, -1, 0, 0, 1, 0}), BufferUsage.STATIC));
+    }
+
+    @Test
+    public void testSameStateAsSerial() {
+        assertSameStateAsSerial(false);
+    }
+
+    @Test
+    public void testAnimatedRoot() {
+        /**
+         * All branches share the moving root, its world transform must be resolved before
+         * the workers combine with it.
+         */
+        assertSameStateAsSerial(true);
+    }
+
+    @Test
+    public void testWorkerError() {
+        Node root = new Node();
+        for (int i = 0; i < BRANCH_COUNT; i++) {
+            Node branch = new Node();
+            branch.setIndependentUpdate(true);
+            root.addChild(branch);
+        }
+        root.getChild(BRANCH_COUNT - 1).addNodeController(new NodeController() {
+            @Override
+            public boolean onUpdate(float dt) {
+                throw new IllegalStateException();
+            }
+        });
+
+        ParallelGraphUpdate parallelUpdate = new ParallelGraphUpdate(3);
+        boolean thrown = false;
+        try {
+            parallelUpdate.update(root, DT);
+        } catch (RuntimeException e) {
+            thrown = true;
+        } finally {
+            parallelUpdate.shutdown();
+        }
+        assertTrue(thrown);
+    }
+
+    /**
+     * Update a serial and a parallel graph and check that they end up in the same state.
+     *
+     * @param animatedRoot If the root moves each frame.
+     */
+    private void assertSameStateAsSerial(boolean animatedRoot) {
+        List<Node> serialNodes = new ArrayList<>();
+        Node serialRoot = createGraph(serialNodes, animatedRoot);
+        List<Node> parallelNodes = new ArrayList<>();
+        Node parallelRoot = createGraph(parallelNodes, animatedRoot);
+
+        ParallelGraphUpdate parallelUpdate = new ParallelGraphUpdate(3);
+        try {
+            for (int i = 0; i < FRAME_COUNT; i++) {
+                serialRoot.update(DT);
+                parallelUpdate.update(parallelRoot, DT);
+                if (animatedRoot) {
+                    /**
+                     * The moved root is resolved by the calling thread, never by a worker.
+                     */
+                    assertSame(Thread.currentThread(), ((TrackingRoot) parallelRoot).mFirstResolver);
+                }
+            }
+        } finally {
+            parallelUpdate.shutdown();
+        }
+
+        assertEquals(serialNodes.size(), parallelNodes.size());
+        for (int i = 0; i < serialNodes.size(); i++) {
+            Node serial = serialNodes.get(i);
+            Node parallel = parallelNodes.get(i);
+            float[] serialWorld = serial.getWorldTransform().getMatrix().m;
+            float[] parallelWorld = parallel.getWorldTransform().getMatrix().m;
+            for (int j = 0; j < 16; j++) {
+                assertEquals(serialWorld[j], parallelWorld[j], 0);
+            }
+            assertEquals(serial.getActionCount(), parallel.getActionCount());
+        }
+    }
+
+    /**
+     * Create a graph with independent branches of animated geometries.
+     *
+     * @param nodes        Storage of all nodes in creation order.
+     * @param animatedRoot If the root moves each frame.
+     * @return The root.
+     */
+    private Node createGraph(List<Node> nodes, boolean animatedRoot) {
+        final Node root = animatedRoot ? new TrackingRoot() : new Node();
+        if (animatedRoot) {
+            root.addNodeController(new NodeController() {
+                @Override
+                public boolean onUpdate(float dt) {
+                    ((TrackingRoot) root).mFirstResolver = null;
+                    root.getModelTransform().translate(dt, 0, 0);
+                    root.getModelTransform().rotate(dt * 45, 0, 0, 1);
+                    return true;
+                }
+            });
+        }
+        nodes.add(root);
+        for (int i = 0; i < BRANCH_COUNT; i++) {
+            final Node branch = new Node();
+            branch.setIndependentUpdate(true);
+            branch.getModelTransform().translate(i, 0, 0);
+            branch.addNodeController(new NodeController() {
+                @Override
+                public boolean onUpdate(float dt) {
+                    branch.getModelTransform().rotate(dt * 90, 0, 1, 0);
+
+                    /**
+                     * Controllers may read world transforms, resolving through the root.
+                     */
+                    branch.getWorldTransform();
+                    return true;
+                }
+            });
+            root.addChild(branch);
+            nodes.add(branch);
+
+            for (int j = 0; j < GEOMETRY_COUNT; j++) {
+                final Geometry geometry = new Geometry();
+                geometry.setMesh(mMesh);
+                final int frames = j;
+                geometry.addNodeController(new NodeController() {
+                    private int mFrame;
+
+                    @Override
+                    public boolean onUpdate(float dt) {
+                        geometry.getModelTransform().translate(0, dt, 0);
+                        return ++mFrame < frames;
+                    }
+                });
+                branch.addChild(geometry);
+                nodes.add(geometry);
+            }
+        }
+        return root;
+    }
+
+    /**
+     * A root remembering the first thread reading its world transform after it moved.
+     */
+    private static class TrackingRoot extends Node {
+        /**
+         * The first thread reading the world transform, null until read.
+         */
+        private volatile Thread mFirstResolver;
+
+        @Override
+        public Transform getWorldTransform() {
+            synchronized (this) {
+                if (mFirstResolver == null) {
+                    mFirstResolver = Thread.currentThread();
+                }
+            }
+            return super.getWorldTransform();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sweetlab.sweetride.engine.profiler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the frame profiler.
+ */
+public class FrameProfilerTest {
+    /**
+     * The profiler to test.
+     */
+    private final FrameProfiler mProfiler = new FrameProfiler(128);
+
+    @Test
+    public void testPercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            mProfiler.record(FramePhase.DRAW, System.nanoTime() - i * 1000L);
+        }
+        assertEquals(100, mProfiler.getSampleCount(FramePhase.DRAW));
+        assertEquals(0, mProfiler.getSampleCount(FramePhase.UPDATE));
+
+        long[] percentiles = new long[3];
+        mProfiler.getPercentiles(FramePhase.DRAW, percentiles);
+        assertTrue(percentiles[0] >= 50000);
+        assertTrue(percentiles[0] <= percentiles[1]);
+        assertTrue(percentiles[1] <= percentiles[2]);
+        assertEquals(percentiles[2], mProfiler.getPercentile(FramePhase.DRAW, 99));
+        assertEquals(0, mProfiler.getPercentile(FramePhase.UPDATE, 50));
+    }
+
+    @Test
+    public void testRingWraps() {
+        for (int i = 0; i < 1000; i++) {
+            mProfiler.record(FramePhase.RENDER, mProfiler.start());
+        }
+        assertEquals(128, mProfiler.getSampleCount(FramePhase.RENDER));
+
+        mProfiler.reset();
+        assertEquals(0, mProfiler.getSampleCount(FramePhase.RENDER));
+    }
+
+    @Test
+    public void testChainedRecord() {
+        long start = mProfiler.start();
+        long time = mProfiler.record(FramePhase.APPLICATION_UPDATE, start);
+        time = mProfiler.record(FramePhase.GRAPH_UPDATE, time);
+        mProfiler.record(FramePhase.UPDATE, start);
+        assertTrue(time >= start);
+        assertTrue(mProfiler.createReport().contains("GRAPH_UPDATE n = 1"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testCapacityPowerOfTwo() {
+        new FrameProfiler(100);
+    }
+}
@@ -0,0 +1,255 @@
+package com.sweetlab.sweetride.engine.uniform;
+
+import com.sweetlab.sweetride.UserApplication;
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.camera.Frustrum;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.RecordingGL;
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.shader.FragmentShader;
+import com.sweetlab.sweetride.shader.ShaderProgram;
+import com.sweetlab.sweetride.shader.VertexShader;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that camera level engine uniforms are shared and uploaded at most once per program and
+ * frame, while per object engine uniforms are uploaded per geometry.
+ */
+public class CameraUniformsTest {
+    /**
+     * Number of geometries sharing the program.
+     */
+    private static final int GEOMETRY_COUNT = 3;
+
+    /**
+     * Vertex shader using camera level and per object engine uniforms.
+     */
+    private static final String VERTEX_SHADER =
+            "attribute vec4 a_Pos; \n" +
+                    "uniform mat4 u_worldMat; \n" +
+                    "uniform mat4 u_viewMat; \n" +
+                    "uniform mat4 u_projMat; \n" +
+                    "void main() { " +
+                    "    gl_Position = u_projMat * u_viewMat * u_worldMat * a_Pos;" +
+                    "} ";
+
+    /**
+     * Fragment shader.
+     */
+    private static final String FRAGMENT_SHADER =
+            "precision mediump float;\n" +
+                    "void main() {\n" +
+                    "gl_FragColor = vec4(1.0, 1.0, 1.0, 1.0);\n" +
+                    "}";
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine();
+        mGL = mEngine.getGL();
+        mContext = mEngine.getContext();
+    }
+
+    @Test
+    public void testRegistry() {
+        ShaderProgram program = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(FRAGMENT_SHADER));
+        EngineUniformRegistry registry = EngineUniformRegistry.getInstance();
+        assertEquals(EngineUniformRegistry.ALL, registry.getActive(program));
+
+        program.create(mContext);
+        int expected = EngineUniformRegistry.getMask(EngineUniformType.WORLD) | EngineUniformRegistry.CAMERA;
+        assertEquals(expected, registry.getActive(program));
+    }
+
+    @Test
+    public void testCameraUniformsOncePerProgram() {
+        DrawApplication application = createApplication();
+        renderFrame(application);
+        assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+        assertEquals(2 + GEOMETRY_COUNT, mGL.getCallCount("glUniformMatrix4fv"));
+    }
+
+    @Test
+    public void testStillCamera() {
+        DrawApplication application = createApplication();
+        renderFrame(application);
+
+        /**
+         * Camera is still, the program already has the camera uniforms.
+         */
+        mGL.resetCallCounts();
+        renderFrame(application);
+        assertEquals(GEOMETRY_COUNT, mGL.getDrawCallCount());
+        assertEquals(GEOMETRY_COUNT, mGL.getCallCount("glUniformMatrix4fv"));
+    }
+
+    @Test
+    public void testMovedCamera() {
+        DrawApplication application = createApplication();
+        renderFrame(application);
+
+        mGL.resetCallCounts();
+        application.moveCamera();
+        renderFrame(application);
+
+        /**
+         * Only the view matrix changed, the program already has the projection.
+         */
+        assertEquals(1 + GEOMETRY_COUNT, mGL.getCallCount("glUniformMatrix4fv"));
+    }
+
+    @Test
+    public void testSnapshotStamp() {
+        Camera camera = new Camera();
+        camera.getFrustrum().setPerspectiveProjection(90, Frustrum.FovType.AUTO_FIT, 0.1f, 1000, HeadlessEngine.WIDTH, HeadlessEngine.HEIGHT);
+        CameraUniforms uniforms = new CameraUniforms();
+        assertEquals(0, uniforms.getStamp());
+
+        uniforms.set(camera);
+        int stamp = uniforms.getStamp();
+        assertTrue(stamp != 0);
+        uniforms.set(camera);
+        assertEquals(stamp, uniforms.getStamp());
+
+        camera.lookAt(0, 0, 1, 0, 0, -1);
+        uniforms.set(camera);
+        assertTrue(stamp != uniforms.getStamp());
+
+        uniforms.set(null);
+        assertEquals(0, uniforms.getStamp());
+    }
+
+    @Test
+    public void testSharedCameraStamp() {
+        Camera camera = new Camera();
+        camera.getFrustrum().setPerspectiveProjection(90, Frustrum.FovType.AUTO_FIT, 0.1f, 1000, HeadlessEngine.WIDTH, HeadlessEngine.HEIGHT);
+        CameraUniforms first = new CameraUniforms();
+        CameraUniforms second = new CameraUniforms();
+        first.set(camera);
+        second.set(camera);
+        assertEquals(first.getStamp(), second.getStamp());
+
+        ShaderProgram program = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(FRAGMENT_SHADER));
+        program.create(mContext);
+        mContext.getState().useProgram(program);
+
+        /**
+         * Snapshots of different render tasks must not rewrite the same camera state.
+         */
+        mGL.resetCallCounts();
+        first.write(program, mContext.getUniformWriter());
+        second.write(program, mContext.getUniformWriter());
+        assertEquals(2, mGL.getCallCount("glUniformMatrix4fv"));
+
+        /**
+         * Another camera with the same matrices is still a different stamp.
+         */
+        Camera other = new Camera();
+        other.getFrustrum().setPerspectiveProjection(90, Frustrum.FovType.AUTO_FIT, 0.1f, 1000, HeadlessEngine.WIDTH, HeadlessEngine.HEIGHT);
+        second.set(other);
+        assertTrue(first.getStamp() != second.getStamp());
+    }
+
+    @Test
+    public void testStillCameraProgramStamp() {
+        DrawApplication application = createApplication();
+        renderFrame(application);
+        ShaderProgram program = application.mGeometries[0].getMaterial().getShaderProgram();
+        int stamp = program.getCameraUniformStamp();
+        assertEquals(application.getCamera().getStamp(), stamp);
+
+        renderFrame(application);
+        renderFrame(application);
+        assertEquals(stamp, program.getCameraUniformStamp());
+    }
+
+    @Test
+    public void testImmediateDraw() {
+        DrawApplication application = createApplication();
+        renderFrame(application);
+
+        /**
+         * Drawn outside a render task, the moved camera is written as well.
+         */
+        mGL.resetCallCounts();
+        application.moveCamera();
+        application.mGeometries[0].draw(mContext);
+        assertEquals(1, mGL.getDrawCallCount());
+        assertEquals(2, mGL.getCallCount("glUniformMatrix4fv"));
+    }
+
+    /**
+     * Update and render one frame.
+     *
+     * @param application The application.
+     */
+    private void renderFrame(UserApplication application) {
+        mEngine.renderFrame(application);
+    }
+
+    /**
+     * Create an application and initialize it with the engine.
+     *
+     * @return The application.
+     */
+    private DrawApplication createApplication() {
+        DrawApplication application = new DrawApplication();
+        mEngine.initialize(application);
+        return application;
+    }
+
+    /**
+     * An application drawing geometries sharing one program.
+     */
+    private static class DrawApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * The geometries.
+         */
+        private final Geometry[] mGeometries = new Geometry[GEOMETRY_COUNT];
+
+        /**
+         * Constructor.
+         */
+        public DrawApplication() {
+            ShaderProgram program = new ShaderProgram(new VertexShader(VERTEX_SHADER), new FragmentShader(FRAGMENT_SHADER));
+            for (int i = 0; i < GEOMETRY_COUNT; i++) {
+                Material material = new Material();
+                material.setShaderProgram(program);
+                Geometry geometry = new Geometry();
+                mGeometries[i] = geometry;
+                geometry.setMaterial(material);
+                geometry.setMesh(HeadlessEngine.createTriangleMesh());
+                geometry.getModelTransform().translate(i, 0, -5);
+                getRenderNode().addChild(geometry);
+            }
+        }
+
+        /**
+         * Move the camera.
+         */
+        private void moveCamera() {
+            getCamera().lookAt(0, 0, 1, 0, 0, -1);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.sweetlab.sweetride.node;
+
+import com.sweetlab.sweetride.math.Matrix44;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test that the transform store calculates the same world transforms as the nodes.
+ */
+public class TransformStoreTest {
+    /**
+     * Tree depth.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Children per node.
+     */
+    private static final int FAN_OUT = 3;
+
+    /**
+     * The root.
+     */
+    private Node mRoot;
+
+    /**
+     * All nodes in tree.
+     */
+    private final List<Node> mNodes = new ArrayList<>();
+
+    /**
+     * The store.
+     */
+    private TransformStore mStore;
+
+    @Before
+    public void setUp() {
+        mNodes.clear();
+        mRoot = createTree(DEPTH);
+        mStore = new TransformStore();
+    }
+
+    @Test
+    public void testWorldTransforms() {
+        mStore.update(mRoot);
+        assertEquals(mNodes.size(), mStore.getCount());
+        assertWorldTransforms();
+
+        /**
+         * Change a transform in the middle of the tree.
+         */
+        mNodes.get(1).getModelTransform().rotate(30, 0, 0, 1);
+        mNodes.get(mNodes.size() - 1).getModelTransform().translate(0, 5, 0);
+        mStore.update(mRoot);
+        assertWorldTransforms();
+    }
+
+    @Test
+    public void testStructureChange() {
+        mStore.update(mRoot);
+
+        Node child = new Node();
+        child.getModelTransform().translate(0, 0, 7);
+        mNodes.get(2).addChild(child);
+        mNodes.add(child);
+        mStore.update(mRoot);
+        assertEquals(mNodes.size(), mStore.getCount());
+        assertWorldTransforms();
+
+        /**
+         * Removed nodes are released from the store.
+         */
+        mNodes.get(2).removeChild(child);
+        mNodes.remove(child);
+        mStore.update(mRoot);
+        assertEquals(mNodes.size(), mStore.getCount());
+        child.getModelTransform().translate(1, 0, 0);
+        mStore.update(mRoot);
+
+        mStore.clear();
+        assertEquals(0, mStore.getCount());
+    }
+
+    /**
+     * Check that stored world transforms equals world transforms calculated from the model
+     * transforms.
+     */
+    private void assertWorldTransforms() {
+        Matrix44 expected = new Matrix44();
+        for (Node node : mNodes) {
+            computeWorld(node, expected);
+            float[] actual = node.getWorldTransform().getMatrix().m;
+            for (int i = 0; i < 16; i++) {
+                assertEquals(expected.m[i], actual[i], 0.0001f);
+            }
+        }
+    }
+
+    /**
+     * Compute world matrix by walking the path from root.
+     *
+     * @param node The node.
+     * @param dst  The destination.
+     */
+    private void computeWorld(Node node, Matrix44 dst) {
+        dst.set(node.getModelTransform().getMatrix());
+        Node child = node;
+        while (child != mRoot) {
+            Node parent = findParent(child);
+            Matrix44 tmp = new Matrix44();
+            Matrix44.mult(tmp, parent.getModelTransform().getMatrix(), dst);
+            dst.set(tmp);
+            child = parent;
+        }
+    }
+
+    /**
+     * Find parent of node.
+     *
+     * @param node The node.
+     * @return The parent.
+     */
+    private Node findParent(Node node) {
+        for (Node candidate : mNodes) {
+            for (int i = 0; i < candidate.getChildCount(); i++) {
+                if (candidate.getChild(i) == node) {
+                    return candidate;
+                }
+            }
+        }
+        throw new RuntimeException("No parent");
+    }
+
+    /**
+     * Create tree with translated and rotated nodes.
+     *
+     * @param depth The depth.
+     * @return The tree root.
+     */
+    private Node createTree(int depth) {
+        Node node = new Node();
+        mNodes.add(node);
+        node.getModelTransform().translate(mNodes.size(), 1, 0);
+        node.getModelTransform().rotate(10 * depth, 0, 1, 0);
+        if (depth > 0) {
+            for (int i = 0; i < FAN_OUT; i++) {
+                node.addChild(createTree(depth - 1));
+            }
+        }
+        return node;
+    }
+}
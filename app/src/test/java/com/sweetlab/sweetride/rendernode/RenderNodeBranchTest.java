@@ -0,0 +1,98 @@
+package com.sweetlab.sweetride.rendernode;
+
+import com.sweetlab.sweetride.engine.frame.update.RenderNodeContentCollector;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.node.Node;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that the branch nodes of a render node are kept between frames and only collected
+ * again when the branch changes.
+ */
+public class RenderNodeBranchTest {
+    /**
+     * The render node.
+     */
+    private RenderNode mRenderNode;
+
+    /**
+     * A node below the render node.
+     */
+    private Node mNode;
+
+    /**
+     * A geometry below the node.
+     */
+    private Geometry mGeometry;
+
+    /**
+     * A nested render node.
+     */
+    private RenderNode mNestedRenderNode;
+
+    @Before
+    public void setUp() {
+        mRenderNode = new RenderNode();
+        mNode = new Node();
+        mGeometry = new Geometry();
+        mNestedRenderNode = new RenderNode();
+
+        mRenderNode.addChild(mNode);
+        mNode.addChild(mGeometry);
+        mNode.addChild(mNestedRenderNode);
+        mNestedRenderNode.addChild(new Geometry());
+    }
+
+    @Test
+    public void testBranchNodes() {
+        List<Node> nodes = mRenderNode.getBranchNodes();
+        assertEquals(3, nodes.size());
+        assertSame(mRenderNode, nodes.get(0));
+        assertSame(mNode, nodes.get(1));
+        assertSame(mGeometry, nodes.get(2));
+        assertEquals(2, mNestedRenderNode.getBranchNodes().size());
+    }
+
+    @Test
+    public void testBranchVersion() {
+        int version = mRenderNode.getBranchVersion();
+        mRenderNode.getBranchNodes();
+
+        /**
+         * Adding deep down in the graph changes the version all the way up.
+         */
+        Geometry geometry = new Geometry();
+        mGeometry.addChild(geometry);
+        assertTrue(version != mRenderNode.getBranchVersion());
+        assertEquals(4, mRenderNode.getBranchNodes().size());
+
+        /**
+         * Adding the same child again is not a change.
+         */
+        version = mRenderNode.getBranchVersion();
+        mGeometry.addChild(geometry);
+        assertEquals(version, mRenderNode.getBranchVersion());
+
+        mNode.removeChild(mGeometry);
+        assertTrue(version != mRenderNode.getBranchVersion());
+        assertEquals(2, mRenderNode.getBranchNodes().size());
+    }
+
+    @Test
+    public void testCollectorUsesBranchNodes() {
+        RenderNodeContentCollector collector = new RenderNodeContentCollector();
+        collector.collect(mRenderNode);
+        assertSame(mRenderNode.getBranchNodes(), collector.getResult());
+        collector.reset();
+        assertTrue(collector.getResult().isEmpty());
+        assertEquals(3, mRenderNode.getBranchNodes().size());
+    }
+}
@@ -0,0 +1,440 @@
+package com.sweetlab.sweetride.resource;
+
+import android.graphics.Bitmap;
+
+import com.sweetlab.sweetride.attributedata.IndicesBuffer;
+import com.sweetlab.sweetride.attributedata.VertexBuffer;
+import com.sweetlab.sweetride.context.AttachmentType;
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.BufferUsage;
+import com.sweetlab.sweetride.context.MagFilter;
+import com.sweetlab.sweetride.context.MeshDrawingMode;
+import com.sweetlab.sweetride.context.MinFilter;
+import com.sweetlab.sweetride.context.RecordingGL;
+import com.sweetlab.sweetride.context.ResourceManager;
+import com.sweetlab.sweetride.context.ResourceType;
+import com.sweetlab.sweetride.context.TexelFormat;
+import com.sweetlab.sweetride.context.TexelType;
+import com.sweetlab.sweetride.context.TextureType;
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.mesh.Mesh;
+import com.sweetlab.sweetride.util.Util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that released resources are deleted a few frames later and that the GPU footprint
+ * stays flat when buffers are replaced over and over.
+ */
+public class ResourceReleaserTest {
+    /**
+     * Bytes of a vertex buffer, three vertices of three floats.
+     */
+    private static final int VERTEX_BYTES = 9 * 4;
+
+    /**
+     * Bytes of the indices buffer, three shorts.
+     */
+    private static final int INDICES_BYTES = 3 * 2;
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    /**
+     * The application.
+     */
+    private MeshApplication mApplication;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine();
+        mGL = mEngine.getGL();
+        mContext = mEngine.getContext();
+        mApplication = new MeshApplication();
+        mEngine.initialize(mApplication);
+        renderFrame();
+    }
+
+    @Test
+    public void testDeferredDelete() {
+        ResourceManager manager = mContext.getResourceManager();
+        assertEquals(2, manager.getLiveCount(ResourceType.BUFFER));
+        assertEquals(VERTEX_BYTES + INDICES_BYTES, manager.getLiveBytes(ResourceType.BUFFER));
+
+        VertexBuffer buffer = mApplication.mVertexBuffer;
+        mApplication.replaceVertexBuffer();
+        assertFalse(buffer.isConnected());
+
+        /**
+         * Still alive until the delay has passed.
+         */
+        mGL.resetCallCounts();
+        for (int i = 0; i < ResourceReleaser.DELETE_DELAY - 1; i++) {
+            renderFrame();
+        }
+        assertEquals(1, mContext.getResourceReleaser().getReleasedCount());
+        assertEquals(0, mGL.getCallCount("glDeleteBuffers"));
+        assertTrue(buffer.isCreated());
+
+        renderFrame();
+        assertEquals(1, mGL.getCallCount("glDeleteBuffers"));
+        assertFalse(buffer.isCreated());
+        assertEquals(0, mContext.getResourceReleaser().getReleasedCount());
+        assertEquals(2, manager.getLiveCount(ResourceType.BUFFER));
+        assertEquals(2, mGL.getBufferCount());
+    }
+
+    @Test
+    public void testFlatFootprint() {
+        ResourceManager manager = mContext.getResourceManager();
+        for (int i = 0; i < 20; i++) {
+            mApplication.replaceVertexBuffer();
+            renderFrame();
+        }
+        for (int i = 0; i < ResourceReleaser.DELETE_DELAY; i++) {
+            renderFrame();
+        }
+        assertEquals(2, manager.getLiveCount(ResourceType.BUFFER));
+        assertEquals(VERTEX_BYTES + INDICES_BYTES, manager.getLiveBytes(ResourceType.BUFFER));
+        assertEquals(2, mGL.getBufferCount());
+        assertTrue(manager.getLeakReport().contains("BUFFER count = 2 bytes = " + (VERTEX_BYTES + INDICES_BYTES)));
+    }
+
+    @Test
+    public void testHeldAgainBeforeDelete() {
+        Mesh mesh = mApplication.mMesh;
+        IndicesBuffer indices = mApplication.mIndicesBuffer;
+        mesh.setIndicesBuffer(null);
+        renderFrame();
+        mesh.setIndicesBuffer(indices);
+
+        mGL.resetCallCounts();
+        for (int i = 0; i < ResourceReleaser.DELETE_DELAY; i++) {
+            renderFrame();
+        }
+        assertEquals(0, mGL.getCallCount("glDeleteBuffers"));
+        assertEquals(0, mContext.getResourceReleaser().getReleasedCount());
+        assertTrue(indices.isCreated());
+    }
+
+    @Test
+    public void testHeldAgainAfterDelete() {
+        Mesh mesh = mApplication.mMesh;
+        IndicesBuffer indices = mApplication.mIndicesBuffer;
+        mesh.setIndicesBuffer(null);
+        for (int i = 0; i < ResourceReleaser.DELETE_DELAY; i++) {
+            renderFrame();
+        }
+        assertFalse(indices.isCreated());
+        assertEquals(1, mContext.getResourceManager().getLiveCount(ResourceType.BUFFER));
+
+        /**
+         * Created and loaded again when held.
+         */
+        mesh.setIndicesBuffer(indices);
+        mGL.resetCallCounts();
+        renderFrame();
+        assertTrue(indices.isCreated());
+        assertEquals(1, mGL.getCallCount("glBufferData"));
+        assertEquals(1, mGL.getDrawCallCount());
+        assertEquals(2, mContext.getResourceManager().getLiveCount(ResourceType.BUFFER));
+    }
+
+    @Test
+    public void testProgramReplaced() {
+        ResourceManager manager = mContext.getResourceManager();
+        assertEquals(1, manager.getLiveCount(ResourceType.PROGRAM));
+        assertEquals(2, manager.getLiveCount(ResourceType.SHADER));
+
+        mApplication.mMaterial.setShaderProgram(HeadlessEngine.createProgram());
+        for (int i = 0; i < ResourceReleaser.DELETE_DELAY; i++) {
+            renderFrame();
+        }
+        assertEquals(1, manager.getLiveCount(ResourceType.PROGRAM));
+        assertEquals(2, manager.getLiveCount(ResourceType.SHADER));
+    }
+
+    @Test
+    public void testManyReleased() {
+        ResourceReleaser releaser = new ResourceReleaser();
+        VertexBuffer[] buffers = new VertexBuffer[40];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new VertexBuffer("a_Pos", HeadlessEngine.createTriangleVertices(), BufferUsage.STATIC);
+            releaser.release(buffers[i]);
+        }
+        assertEquals(buffers.length, releaser.getReleasedCount());
+
+        /**
+         * Releasing again restarts the delay of that resource only.
+         */
+        List<ReleasableResource> deletions = new ArrayList<>();
+        releaser.collect(deletions);
+        releaser.release(buffers[0]);
+        assertEquals(buffers.length, releaser.getReleasedCount());
+        for (int i = 1; i < ResourceReleaser.DELETE_DELAY; i++) {
+            releaser.collect(deletions);
+        }
+        assertEquals(buffers.length - 1, deletions.size());
+        assertFalse(deletions.contains(buffers[0]));
+        releaser.collect(deletions);
+        assertEquals(buffers.length, deletions.size());
+        assertEquals(0, releaser.getReleasedCount());
+    }
+
+    @Test
+    public void testClearedOnSurfaceCreated() {
+        mApplication.replaceVertexBuffer();
+        renderFrame();
+        assertEquals(1, mContext.getResourceReleaser().getReleasedCount());
+        mContext.onSurfaceCreated();
+        assertEquals(0, mContext.getResourceReleaser().getReleasedCount());
+    }
+
+    @Test
+    public void testEnginesIndependent() {
+        VertexBuffer buffer = mApplication.mVertexBuffer;
+        mApplication.replaceVertexBuffer();
+        renderFrame();
+
+        /**
+         * Another engine rendering frames does not shorten the delay.
+         */
+        HeadlessEngine otherEngine = new HeadlessEngine();
+        MeshApplication otherApplication = new MeshApplication();
+        otherEngine.initialize(otherApplication);
+        for (int i = 0; i < ResourceReleaser.DELETE_DELAY; i++) {
+            otherEngine.renderFrame(otherApplication);
+        }
+        assertTrue(buffer.isCreated());
+        assertEquals(1, mContext.getResourceReleaser().getReleasedCount());
+    }
+
+    @Test
+    public void testReleaseOnLoadTextureReattached() {
+        ResourceManager manager = mContext.getResourceManager();
+        ReleaseOnLoadTexture texture = new ReleaseOnLoadTexture();
+        Material material = mApplication.mMaterial;
+        material.addTexture(texture);
+        renderFrame();
+        assertTrue(texture.isCreated());
+
+        /**
+         * Kept when detached since it can't be loaded again.
+         */
+        material.removeTexture(texture);
+        for (int i = 0; i < ResourceReleaser.DELETE_DELAY + 1; i++) {
+            renderFrame();
+        }
+        assertEquals(0, mContext.getResourceReleaser().getReleasedCount());
+        assertTrue(texture.isCreated());
+        assertEquals(1, manager.getLiveCount(ResourceType.TEXTURE));
+
+        /**
+         * Drawn again when attached again, without loading.
+         */
+        material.addTexture(texture);
+        mGL.resetCallCounts();
+        renderFrame();
+        assertEquals(1, mGL.getDrawCallCount());
+        assertEquals(0, mGL.getCallCount("glTexImage2D"));
+        assertEquals(1, manager.getLiveCount(ResourceType.TEXTURE));
+    }
+
+    /**
+     * Update and render one frame.
+     */
+    private void renderFrame() {
+        mEngine.renderFrame(mApplication);
+    }
+
+    /**
+     * A texture releasing its pixels once loaded, like a Texture2D set to release on load.
+     */
+    private static class ReleaseOnLoadTexture extends TextureResource implements EvictableResource {
+        /**
+         * Side of the texture in pixels.
+         */
+        private static final int SIDE = 4;
+
+        /**
+         * The pixels, null once loaded.
+         */
+        private Buffer mPixels = Util.allocByteBuffer(SIDE * SIDE * 4);
+
+        /**
+         * The texture id.
+         */
+        private int mTextureId = ResourceManager.INVALID_TEXTURE_ID;
+
+        @Override
+        public boolean isEvictable() {
+            return false;
+        }
+
+        @Override
+        public void create(BackendContext context) {
+            mTextureId = context.getResourceManager().generateTexture();
+        }
+
+        @Override
+        public boolean isCreated() {
+            return mTextureId != ResourceManager.INVALID_TEXTURE_ID;
+        }
+
+        @Override
+        public void delete(BackendContext context) {
+            context.getResourceManager().deleteTexture(mTextureId);
+            mTextureId = ResourceManager.INVALID_TEXTURE_ID;
+        }
+
+        @Override
+        public int getId() {
+            return mTextureId;
+        }
+
+        @Override
+        public void load(BackendContext context) {
+            if (mPixels == null) {
+                throw new RuntimeException("Trying to load texture after its pixels has been released");
+            }
+            context.getTextureUnitManager().getDefaultTextureUnit().getTexture2DTarget().load(this);
+            mPixels = null;
+        }
+
+        @Override
+        public String getName() {
+            return "s_texture";
+        }
+
+        @Override
+        public int getWidth() {
+            return SIDE;
+        }
+
+        @Override
+        public int getHeight() {
+            return SIDE;
+        }
+
+        @Override
+        public Bitmap getData() {
+            return null;
+        }
+
+        @Override
+        public Buffer getPixels() {
+            return mPixels;
+        }
+
+        @Override
+        public TexelFormat getTexelFormat() {
+            return TexelFormat.RGBA;
+        }
+
+        @Override
+        public TexelType getTexelType() {
+            return TexelType.UNSIGNED_BYTE;
+        }
+
+        @Override
+        public TextureType getTextureType() {
+            return TextureType.TEXTURE_2D;
+        }
+
+        @Override
+        public AttachmentType getAttachmentType() {
+            return AttachmentType.TEXTURE_2D;
+        }
+
+        @Override
+        public MinFilter getMinFilter() {
+            return MinFilter.NEAREST;
+        }
+
+        @Override
+        public MagFilter getMagFilter() {
+            return MagFilter.NEAREST;
+        }
+    }
+
+    /**
+     * An application with one geometry in front of the camera.
+     */
+    private static class MeshApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * The mesh.
+         */
+        private final Mesh mMesh = new Mesh(MeshDrawingMode.TRIANGLES);
+
+        /**
+         * The material.
+         */
+        private final Material mMaterial = new Material();
+
+        /**
+         * The indices buffer.
+         */
+        private final IndicesBuffer mIndicesBuffer = new IndicesBuffer(new short[]{0, 1, 2}, BufferUsage.STATIC);
+
+        /**
+         * The current vertex buffer.
+         */
+        private VertexBuffer mVertexBuffer;
+
+        /**
+         * Constructor.
+         */
+        public MeshApplication() {
+            mVertexBuffer = createVertexBuffer();
+            mMesh.addVertexBuffer(mVertexBuffer);
+            mMesh.setIndicesBuffer(mIndicesBuffer);
+            mMaterial.setShaderProgram(HeadlessEngine.createProgram());
+            Geometry geometry = new Geometry();
+            geometry.setMaterial(mMaterial);
+            geometry.setMesh(mMesh);
+            geometry.getModelTransform().translate(0, 0, -5);
+            getRenderNode().addChild(geometry);
+        }
+
+        /**
+         * Replace the vertex buffer with a new one, like terrain patches do when reused.
+         */
+        private void replaceVertexBuffer() {
+            mMesh.removeVertexBuffer(mVertexBuffer);
+            mVertexBuffer = createVertexBuffer();
+            mMesh.addVertexBuffer(mVertexBuffer);
+        }
+
+        /**
+         * Create a vertex buffer.
+         *
+         * @return The vertex buffer.
+         */
+        private static VertexBuffer createVertexBuffer() {
+            return new VertexBuffer("a_Pos", HeadlessEngine.createTriangleVertices(), BufferUsage.STATIC);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.sweetlab.sweetride.texture;
+
+import com.sweetlab.sweetride.context.BackendContext;
+import com.sweetlab.sweetride.context.MagFilter;
+import com.sweetlab.sweetride.context.MinFilter;
+import com.sweetlab.sweetride.context.RecordingGL;
+import com.sweetlab.sweetride.context.ResourceType;
+import com.sweetlab.sweetride.context.TexelFormat;
+import com.sweetlab.sweetride.context.TexelType;
+import com.sweetlab.sweetride.engine.HeadlessEngine;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.material.Material;
+import com.sweetlab.sweetride.util.Util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test that textures are decoded off main and GL thread and handed over within a budget.
+ */
+public class TextureStreamerTest {
+    /**
+     * Side of the decoded textures in pixels.
+     */
+    private static final int SIDE = 4;
+
+    /**
+     * Bytes of a decoded texture.
+     */
+    private static final int TEXTURE_BYTES = SIDE * SIDE * 4;
+
+    /**
+     * Executes decoding directly on the calling thread.
+     */
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * The headless engine.
+     */
+    private HeadlessEngine mEngine;
+
+    /**
+     * The recording GL.
+     */
+    private RecordingGL mGL;
+
+    /**
+     * The backend context.
+     */
+    private BackendContext mContext;
+
+    @Before
+    public void setUp() {
+        mEngine = new HeadlessEngine();
+        mGL = mEngine.getGL();
+        mContext = mEngine.getContext();
+    }
+
+    @Test
+    public void testBudget() {
+        TextureStreamer streamer = new TextureStreamer(DIRECT, TEXTURE_BYTES + TEXTURE_BYTES / 2);
+        StreamedTexture2D[] textures = new StreamedTexture2D[3];
+        for (int i = 0; i < textures.length; i++) {
+            textures[i] = createTexture();
+            streamer.stream(textures[i]);
+            assertFalse(textures[i].isDecoded());
+            assertEquals(1, textures[i].getWidth());
+        }
+        assertEquals(3, streamer.getPendingCount());
+
+        /**
+         * One texture per update fits the budget.
+         */
+        for (int i = 0; i < textures.length; i++) {
+            assertEquals(1, streamer.update());
+            assertEquals(TEXTURE_BYTES, streamer.getUsedBytes());
+            assertTrue(textures[i].isDecoded());
+            assertEquals(SIDE, textures[i].getWidth());
+        }
+        assertEquals(0, streamer.update());
+        assertEquals(0, streamer.getPendingCount());
+    }
+
+    @Test
+    public void testLargerThanBudget() {
+        TextureStreamer streamer = new TextureStreamer(DIRECT, 1);
+        StreamedTexture2D texture = createTexture();
+        streamer.stream(texture);
+        assertEquals(1, streamer.update());
+        assertTrue(texture.isDecoded());
+    }
+
+    @Test
+    public void testBackgroundDecode() throws InterruptedException {
+        TextureStreamer streamer = new TextureStreamer(Integer.MAX_VALUE);
+        final Thread caller = Thread.currentThread();
+        final Thread[] decodeThread = new Thread[1];
+        StreamedTexture2D texture = new StreamedTexture2D("s_texture", new TextureDecoder() {
+            @Override
+            public DecodedTexture decode() {
+                decodeThread[0] = Thread.currentThread();
+                return createDecoded();
+            }
+        }, MinFilter.NEAREST, MagFilter.NEAREST);
+        streamer.stream(texture);
+        while (streamer.update() == 0) {
+            Thread.sleep(1);
+        }
+        assertTrue(texture.isDecoded());
+        assertFalse(caller == decodeThread[0]);
+        streamer.shutdown();
+    }
+
+    @Test
+    public void testUploadReleasesPixels() {
+        TextureStreamer streamer = new TextureStreamer(DIRECT, Integer.MAX_VALUE);
+        StreamedTexture2D texture = createTexture();
+        streamer.stream(texture);
+        DrawApplication application = new DrawApplication(texture);
+        mEngine.initialize(application);
+
+        /**
+         * The placeholder is drawn until handed over.
+         */
+        mEngine.renderFrame(application);
+        assertEquals(1, mGL.getDrawCallCount());
+        assertEquals(4, mContext.getResourceManager().getLiveBytes(ResourceType.TEXTURE));
+        assertNull(texture.getPixels());
+
+        streamer.update();
+        mGL.resetCallCounts();
+        mEngine.renderFrame(application);
+        assertEquals(1, mGL.getCallCount("glTexImage2D"));
+        assertEquals(1, mGL.getTextureCount());
+        assertEquals(TEXTURE_BYTES, mContext.getResourceManager().getLiveBytes(ResourceType.TEXTURE));
+        assertNull(texture.getPixels());
+
+        /**
+         * Nothing more to upload.
+         */
+        mGL.resetCallCounts();
+        mEngine.renderFrame(application);
+        assertEquals(0, mGL.getCallCount("glTexImage2D"));
+    }
+
+    @Test
+    public void testDecoderFailure() {
+        TextureStreamer streamer = new TextureStreamer(DIRECT, Integer.MAX_VALUE);
+        StreamedTexture2D texture = new StreamedTexture2D("s_texture", new TextureDecoder() {
+            @Override
+            public DecodedTexture decode() {
+                throw new IllegalStateException("corrupt");
+            }
+        }, MinFilter.NEAREST, MagFilter.NEAREST);
+        streamer.stream(texture);
+        try {
+            streamer.update();
+            fail("Expected decoding failure");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(0, streamer.getPendingCount());
+        assertFalse(texture.isDecoded());
+        assertEquals(1, texture.getWidth());
+        assertEquals(0, streamer.update());
+    }
+
+    @Test
+    public void testRestoreStreamsWhenUsed() {
+        TextureStreamer streamer = new TextureStreamer(DIRECT, Integer.MAX_VALUE);
+        StreamedTexture2D texture = createTexture();
+        streamer.stream(texture);
+        streamer.update();
+        assertTrue(texture.isDecoded());
+
+        /**
+         * Not streamed while detached.
+         */
+        texture.restore();
+        assertFalse(texture.isDecoded());
+        assertEquals(0, streamer.getPendingCount());
+
+        /**
+         * Streamed once when attached again.
+         */
+        new Material().addTexture(texture);
+        assertEquals(1, streamer.getPendingCount());
+        texture.onUse();
+        assertEquals(1, streamer.getPendingCount());
+        streamer.update();
+        assertTrue(texture.isDecoded());
+        assertEquals(SIDE, texture.getWidth());
+    }
+
+    /**
+     * Create a texture decoding to a small texture.
+     *
+     * @return The texture.
+     */
+    private static StreamedTexture2D createTexture() {
+        return new StreamedTexture2D("s_texture", new TextureDecoder() {
+            @Override
+            public DecodedTexture decode() {
+                return createDecoded();
+            }
+        }, MinFilter.NEAREST, MagFilter.NEAREST);
+    }
+
+    /**
+     * Create a small decoded texture.
+     *
+     * @return The decoded texture.
+     */
+    private static DecodedTexture createDecoded() {
+        return new DecodedTexture(SIDE, SIDE, TexelFormat.RGBA, TexelType.UNSIGNED_BYTE, Util.allocByteBuffer(TEXTURE_BYTES));
+    }
+
+    /**
+     * An application drawing one textured geometry.
+     */
+    private static class DrawApplication extends HeadlessEngine.SceneApplication {
+        /**
+         * Constructor.
+         *
+         * @param texture The texture.
+         */
+        public DrawApplication(StreamedTexture2D texture) {
+            Material material = new Material();
+            material.setShaderProgram(HeadlessEngine.createProgram(HeadlessEngine.TEXTURE_FRAGMENT_SHADER));
+            material.addTexture(texture);
+            Geometry geometry = new Geometry();
+            geometry.setMaterial(material);
+            geometry.setMesh(HeadlessEngine.createTriangleMesh());
+            geometry.getModelTransform().translate(0, 0, -5);
+            getRenderNode().addChild(geometry);
+        }
+    }
+}
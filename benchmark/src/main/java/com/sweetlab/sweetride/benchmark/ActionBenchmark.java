@@ -0,0 +1,118 @@
+package com.sweetlab.sweetride.benchmark;
+
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.engine.FrontEndActionHandler;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.node.Node;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Action propagation and handling in a deep graph with a camera that moves every frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ActionBenchmark {
+    /**
+     * Number of nodes in graph.
+     */
+    private static final int NODE_COUNT = 10000;
+
+    /**
+     * Number of levels below the root.
+     */
+    private static final int DEPTH = 10;
+
+    /**
+     * The action handler.
+     */
+    private final FrontEndActionHandler mHandler = new FrontEndActionHandler();
+
+    /**
+     * The camera.
+     */
+    private final Camera mCamera = new Camera();
+
+    /**
+     * All nodes, parents before children.
+     */
+    private Node[] mNodes;
+
+    /**
+     * Number of frames run.
+     */
+    private int mFrame;
+
+    @Setup
+    public void setup() {
+        mNodes = build();
+        mNodes[0].setCamera(mCamera);
+        handleActions();
+    }
+
+    @Benchmark
+    public int moveCamera() {
+        mFrame++;
+        mCamera.lookAt(mFrame % 100, 0, 10, 0, 0, 0);
+        return handleActions();
+    }
+
+    @Benchmark
+    public int idle() {
+        return handleActions();
+    }
+
+    /**
+     * Handle actions of all nodes, like a frame update does.
+     *
+     * @return Number of nodes that had actions.
+     */
+    private int handleActions() {
+        int count = 0;
+        for (Node node : mNodes) {
+            if (mHandler.handleActions(node)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Build a graph with the nodes spread evenly over the levels. The two lowest levels are
+     * geometries.
+     *
+     * @return The nodes, root first.
+     */
+    private static Node[] build() {
+        Node[] nodes = new Node[NODE_COUNT];
+        nodes[0] = new Node();
+        final int levelSize = (NODE_COUNT - 1) / DEPTH;
+        for (int i = 1; i < NODE_COUNT; i++) {
+            int level = Math.min((i - 1) / levelSize, DEPTH - 1);
+            nodes[i] = level >= DEPTH - 2 ? new Geometry() : new Node();
+            nodes[i].getModelTransform().translate(1, 0, 0);
+            if (level == 0) {
+                nodes[0].addChild(nodes[i]);
+            } else {
+                int parentStart = 1 + (level - 1) * levelSize;
+                nodes[parentStart + (i - 1) % levelSize].addChild(nodes[i]);
+            }
+        }
+        return nodes;
+    }
+}
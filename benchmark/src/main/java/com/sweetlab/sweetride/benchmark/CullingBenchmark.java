@@ -0,0 +1,94 @@
+package com.sweetlab.sweetride.benchmark;
+
+import com.sweetlab.sweetride.camera.Camera;
+import com.sweetlab.sweetride.camera.Frustrum;
+import com.sweetlab.sweetride.camera.ViewFrustrumCulling;
+import com.sweetlab.sweetride.intersect.BoundingBox;
+import com.sweetlab.sweetride.intersect.Intersect;
+import com.sweetlab.sweetride.intersect.Ray;
+import com.sweetlab.sweetride.math.Vec3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * View frustrum culling and ray picking.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CullingBenchmark {
+    /**
+     * The view frustrum culling.
+     */
+    private final ViewFrustrumCulling mCulling = new ViewFrustrumCulling();
+
+    /**
+     * The intersection tester.
+     */
+    private final Intersect mIntersect = new Intersect();
+
+    /**
+     * Camera at origin looking down negative z.
+     */
+    private final Camera mCamera = new Camera();
+
+    /**
+     * Box in front of camera, passes all plane tests.
+     */
+    private final BoundingBox mVisibleBox = new BoundingBox(new Vec3(-1, -1, -11), new Vec3(1, 1, -9));
+
+    /**
+     * Box behind camera, rejected by the first plane.
+     */
+    private final BoundingBox mHiddenBox = new BoundingBox(new Vec3(-1, -1, 9), new Vec3(1, 1, 11));
+
+    /**
+     * Ray from origin hitting the back plane of visible box.
+     */
+    private final Ray mHitRay = new Ray(new Vec3(0, 0, 0), new Vec3(0, 0, -1));
+
+    /**
+     * Ray from origin missing visible box.
+     */
+    private final Ray mMissRay = new Ray(new Vec3(0, 0, 0), new Vec3(0, 1, 0));
+
+    @Setup
+    public void setup() {
+        mCamera.getFrustrum().setPerspectiveProjection(90, Frustrum.FovType.AUTO_FIT, 0.1f, 100, 800, 480);
+        mCamera.lookAt(0, 0, 0, 0, 0, -1);
+    }
+
+    @Benchmark
+    public boolean isVisibleInside() {
+        return mCulling.isVisible(mVisibleBox, mCamera);
+    }
+
+    @Benchmark
+    public boolean isVisibleOutside() {
+        return mCulling.isVisible(mHiddenBox, mCamera);
+    }
+
+    @Benchmark
+    public boolean intersectsHit() {
+        return mIntersect.intersects(mHitRay, mVisibleBox);
+    }
+
+    @Benchmark
+    public boolean intersectsMiss() {
+        return mIntersect.intersects(mMissRay, mVisibleBox);
+    }
+}
@@ -0,0 +1,89 @@
+package com.sweetlab.sweetride.benchmark;
+
+import com.sweetlab.sweetride.engine.frame.update.GraphContent;
+import com.sweetlab.sweetride.engine.frame.update.GraphContentCollector;
+import com.sweetlab.sweetride.geometry.Geometry;
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.rendernode.DefaultRenderNode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Graph content collection on synthetic graphs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphBenchmark {
+    /**
+     * Number of children per node.
+     */
+    private static final int FAN_OUT = 10;
+
+    /**
+     * Number of nodes in graph.
+     */
+    @Param({"1000", "10000", "100000"})
+    public int mNodeCount;
+
+    /**
+     * The collector.
+     */
+    private final GraphContentCollector mCollector = new GraphContentCollector();
+
+    /**
+     * The collected content.
+     */
+    private final GraphContent mContent = new GraphContent();
+
+    /**
+     * Root of graph.
+     */
+    private Node mRoot;
+
+    @Setup
+    public void setup() {
+        mRoot = new Node();
+        DefaultRenderNode renderNode = new DefaultRenderNode();
+        mRoot.addChild(renderNode);
+        build(renderNode, mNodeCount - 2);
+    }
+
+    @Benchmark
+    public GraphContent collect() {
+        mContent.reset();
+        mCollector.collect(mRoot, mContent);
+        return mContent;
+    }
+
+    /**
+     * Build a graph with fixed fan out, laid out like a heap. Inner nodes are plain nodes and
+     * leaves are geometries.
+     *
+     * @param parent The parent to build from.
+     * @param count  Number of nodes to add.
+     */
+    private static void build(Node parent, int count) {
+        Node[] nodes = new Node[count + 1];
+        nodes[0] = parent;
+        for (int i = 1; i <= count; i++) {
+            nodes[i] = i * FAN_OUT + 1 <= count ? new Node() : new Geometry();
+            nodes[(i - 1) / FAN_OUT].addChild(nodes[i]);
+        }
+    }
+}
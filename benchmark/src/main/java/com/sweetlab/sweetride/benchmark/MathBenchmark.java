@@ -0,0 +1,105 @@
+package com.sweetlab.sweetride.benchmark;
+
+import com.sweetlab.sweetride.intersect.BoundingBox;
+import com.sweetlab.sweetride.math.Matrix44;
+import com.sweetlab.sweetride.math.Transform;
+import com.sweetlab.sweetride.math.Vec3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matrix, transform and bounding box math.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MathBenchmark {
+    /**
+     * Left hand matrix.
+     */
+    private final Matrix44 mA = new Matrix44();
+
+    /**
+     * Right hand matrix.
+     */
+    private final Matrix44 mB = new Matrix44();
+
+    /**
+     * Product and inverse destination.
+     */
+    private final Matrix44 mDst = new Matrix44();
+
+    /**
+     * Parent transform.
+     */
+    private final Transform mParent = new Transform();
+
+    /**
+     * Child transform.
+     */
+    private final Transform mChild = new Transform();
+
+    /**
+     * Combined transform.
+     */
+    private final Transform mCombined = new Transform();
+
+    /**
+     * Model space bounding box.
+     */
+    private final BoundingBox mModelBox = new BoundingBox(new Vec3(-1, -2, -3), new Vec3(1, 2, 3));
+
+    /**
+     * World space bounding box.
+     */
+    private final BoundingBox mWorldBox = new BoundingBox();
+
+    @Setup
+    public void setup() {
+        mA.setRotate(30, 0, 1, 0).translate(1, 2, 3);
+        mB.setRotate(45, 1, 0, 0).scale(2, 2, 2);
+        mParent.setRotate(30, 0, 1, 0);
+        mParent.translate(1, 2, 3);
+        mChild.setRotate(45, 1, 0, 0);
+        mChild.scale(2, 2, 2);
+    }
+
+    @Benchmark
+    public Matrix44 matrixMult() {
+        Matrix44.mult(mDst, mA, mB);
+        return mDst;
+    }
+
+    @Benchmark
+    public boolean matrixInvert() {
+        mDst.set(mA);
+        return mDst.invert();
+    }
+
+    @Benchmark
+    public Transform transformCombine() {
+        mCombined.combine(mParent, mChild);
+        return mCombined;
+    }
+
+    @Benchmark
+    public BoundingBox boundingBoxTransform() {
+        mWorldBox.set(mModelBox);
+        mWorldBox.transform(mA);
+        return mWorldBox;
+    }
+}
@@ -0,0 +1,94 @@
+package com.sweetlab.sweetride.benchmark;
+
+import com.sweetlab.sweetride.demo.game.curve.CatmullRomSpline;
+import com.sweetlab.sweetride.demo.game.terrain.height.MpdHeightGenerator;
+import com.sweetlab.sweetride.demo.game.terrain.height.PatchHeightData;
+import com.sweetlab.sweetride.demo.game.terrain.height.PatchHeightModifier;
+import com.sweetlab.sweetride.demo.game.terrain.indices.data.IndicesData;
+import com.sweetlab.sweetride.math.Vec3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Demo game curve and terrain generation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TerrainBenchmark {
+    /**
+     * Terrain patch size, same as the demo game uses.
+     */
+    private static final int PATCH_SIZE = 6;
+
+    /**
+     * Resulting spline point.
+     */
+    private final Vec3 mPoint = new Vec3();
+
+    /**
+     * Random with fixed seed.
+     */
+    private final Random mRandom = new Random(666);
+
+    /**
+     * Height generator.
+     */
+    private final MpdHeightGenerator mGenerator = new MpdHeightGenerator(PATCH_SIZE, 0.9f, 1f);
+
+    /**
+     * Spline through a handful of points.
+     */
+    private CatmullRomSpline mSpline;
+
+    /**
+     * Spline time, moves each invocation.
+     */
+    private float mTime;
+
+    @Setup
+    public void setup() {
+        mSpline = new CatmullRomSpline.Builder(new Vec3(0, 0, 0), new Vec3(1, 0, -1), new Vec3(2, 1, -2), new Vec3(3, 0, -3))
+                .addPoint(new Vec3(4, -1, -4))
+                .addPoint(new Vec3(5, 0, -5))
+                .addPoint(new Vec3(6, 1, -6))
+                .build();
+    }
+
+    @Benchmark
+    public Vec3 splineInterpolatedPoint() {
+        mTime += 0.001f;
+        if (mTime > 1) {
+            mTime = 0;
+        }
+        mSpline.calcInterpolatedPoint(mTime, mPoint);
+        return mPoint;
+    }
+
+    @Benchmark
+    public PatchHeightData mpdHeightGenerate() {
+        PatchHeightData data = new PatchHeightData(PATCH_SIZE);
+        mGenerator.generate(new PatchHeightModifier(data, null, null, null, null), mRandom);
+        return data;
+    }
+
+    @Benchmark
+    public IndicesData indicesData() {
+        return new IndicesData(PATCH_SIZE, 0, 1, 1, 2, 2);
+    }
+}
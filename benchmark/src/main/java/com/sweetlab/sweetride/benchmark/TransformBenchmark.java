@@ -0,0 +1,109 @@
+package com.sweetlab.sweetride.benchmark;
+
+import com.sweetlab.sweetride.node.Node;
+import com.sweetlab.sweetride.node.TransformStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * World transform propagation through a graph, lazy node by node versus the transform store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformBenchmark {
+    /**
+     * Number of nodes in graph.
+     */
+    private static final int NODE_COUNT = 5000;
+
+    /**
+     * Number of children per node.
+     */
+    private static final int FAN_OUT = 8;
+
+    /**
+     * The transform store.
+     */
+    private final TransformStore mStore = new TransformStore();
+
+    /**
+     * All nodes, parents before children.
+     */
+    private Node[] mNodes;
+
+    /**
+     * Root of graph using lazy world transforms.
+     */
+    private Node mLazyRoot;
+
+    /**
+     * All nodes using the transform store, parents before children.
+     */
+    private Node[] mStoreNodes;
+
+    /**
+     * Root of graph using the transform store.
+     */
+    private Node mStoreRoot;
+
+    @Setup
+    public void setup() {
+        mNodes = build();
+        mLazyRoot = mNodes[0];
+        mStoreNodes = build();
+        mStoreRoot = mStoreNodes[0];
+        mStore.update(mStoreRoot);
+    }
+
+    @Benchmark
+    public float lazy() {
+        mLazyRoot.getModelTransform().rotate(1, 0, 1, 0);
+        float sum = 0;
+        for (Node node : mNodes) {
+            sum += node.getWorldTransform().getMatrix().m[12];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float store() {
+        mStoreRoot.getModelTransform().rotate(1, 0, 1, 0);
+        mStore.update(mStoreRoot);
+        float sum = 0;
+        for (Node node : mStoreNodes) {
+            sum += node.getWorldTransform().getMatrix().m[12];
+        }
+        return sum;
+    }
+
+    /**
+     * Build a graph with fixed fan out, laid out like a heap.
+     *
+     * @return The nodes, root first.
+     */
+    private static Node[] build() {
+        Node[] nodes = new Node[NODE_COUNT];
+        nodes[0] = new Node();
+        for (int i = 1; i < NODE_COUNT; i++) {
+            nodes[i] = new Node();
+            nodes[i].getModelTransform().translate(1, 0, 0);
+            nodes[(i - 1) / FAN_OUT].addChild(nodes[i]);
+        }
+        return nodes;
+    }
+}